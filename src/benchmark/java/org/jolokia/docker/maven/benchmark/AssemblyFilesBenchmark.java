@@ -0,0 +1,68 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.jolokia.docker.maven.assembly.AssemblyFiles;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Checking an assembly for changed files as done by <code>docker:watch</code> with polling. The
+ * assembly consists of files in a nested directory structure like a typical application with its
+ * dependencies.
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AssemblyFilesBenchmark {
+
+    @Param({ "100", "5000" })
+    public int files;
+
+    private File dir;
+    private AssemblyFiles assemblyFiles;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("assembly-benchmark").toFile();
+        assemblyFiles = new AssemblyFiles();
+        for (int i = 0; i < files; i++) {
+            String path = "lib/group" + (i % 20) + "/artifact-" + i + ".jar";
+            File file = new File(dir, path);
+            file.getParentFile().mkdirs();
+            FileUtils.write(file, path, "UTF-8");
+            assemblyFiles.addEntry(file, new File("maven/" + path));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public int scan() {
+        return assemblyFiles.getUpdatedEntriesAndRefresh().size();
+    }
+}
@@ -0,0 +1,60 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.access.chunked.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Processing of the JSON streams sent by the daemon when building and pulling images,
+ * from the raw bytes up to the response handler
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ChunkedResponseBenchmark {
+
+    private byte[] buildResponse;
+    private byte[] pullResponse;
+
+    @Setup
+    public void setup() throws IOException {
+        buildResponse = Fixtures.load("build.json");
+        pullResponse = Fixtures.load("pull.json");
+    }
+
+    @Benchmark
+    public void build() throws IOException, DockerAccessException {
+        new ChunkedResponseReader(new ByteArrayInputStream(buildResponse),
+                                  new BuildResponseHandler(Fixtures.NULL_LOGGER),
+                                  Fixtures.NULL_LOGGER).process();
+    }
+
+    @Benchmark
+    public void pull() throws IOException, DockerAccessException {
+        new ChunkedResponseReader(new ByteArrayInputStream(pullResponse),
+                                  new PullOrPushResponseHandler(Fixtures.NULL_LOGGER),
+                                  Fixtures.NULL_LOGGER).process();
+    }
+}
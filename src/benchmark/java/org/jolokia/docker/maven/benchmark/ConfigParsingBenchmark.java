@@ -0,0 +1,69 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.docker.maven.access.PortMapping;
+import org.jolokia.docker.maven.util.ImageName;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of configuration values which happens for every image and container
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConfigParsingBenchmark {
+
+    private final List<String> ports = Arrays.asList(
+            "8080:8080", "jolokia.port:8778", "127.0.0.1:5005:5005/tcp", "0.0.0.0:http.port:80", "53:53/udp");
+
+    private final Properties properties = new Properties();
+
+    private final String[] imageNames = {
+            "busybox",
+            "postgres:9.4",
+            "jolokia/docker-maven-sample:0.13.3",
+            "registry.example.com:5000/shop/order-service:1.2.3-SNAPSHOT",
+            "docker.io/library/nginx:1.9",
+            "localhost:5000/test"
+    };
+
+    @Setup
+    public void setup() {
+        properties.setProperty("jolokia.port", "18778");
+    }
+
+    @Benchmark
+    public PortMapping portMapping() {
+        return new PortMapping(ports, properties);
+    }
+
+    @Benchmark
+    public void imageName(Blackhole blackhole) {
+        for (String name : imageNames) {
+            ImageName imageName = new ImageName(name);
+            blackhole.consume(imageName.getFullName());
+            blackhole.consume(imageName.getNameWithoutTag());
+        }
+    }
+}
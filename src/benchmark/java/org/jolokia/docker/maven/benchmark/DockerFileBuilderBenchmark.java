@@ -0,0 +1,64 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.docker.maven.assembly.DockerFileBuilder;
+import org.jolokia.docker.maven.config.Arguments;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Creating the Dockerfile for a typical image configuration
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DockerFileBuilderBenchmark {
+
+    private final Map<String, String> env = new LinkedHashMap<>();
+    private final Map<String, String> labels = new LinkedHashMap<>();
+
+    @Setup
+    public void setup() {
+        env.put("JAVA_OPTIONS", "-Xmx512m -Djava.security.egd=file:/dev/./urandom");
+        env.put("SPRING_PROFILES_ACTIVE", "docker");
+        env.put("GREETING", "Hello \"World\"");
+        labels.put("com.example.project", "shop");
+        labels.put("com.example.version", "1.2.3-SNAPSHOT");
+    }
+
+    @Benchmark
+    public String content() {
+        return new DockerFileBuilder()
+                .baseImage("jolokia/java-jolokia:8")
+                .maintainer("dev@example.com")
+                .add("maven", "")
+                .basedir("/maven")
+                .workdir("/maven")
+                .env(env)
+                .labels(labels)
+                .expose(Arrays.asList("8080", "8778"))
+                .volumes(Collections.singletonList("/var/log/shop"))
+                .run(Arrays.asList("chmod 755 /maven/bin/start.sh", "mkdir -p /var/log/shop"))
+                .cmd(Arguments.Builder.get().withParam("/maven/bin/start.sh").withParam("--port=8080").build())
+                .content();
+    }
+}
@@ -0,0 +1,112 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.jolokia.docker.maven.util.Logger;
+
+/**
+ * Access to the recorded payloads used by the benchmarks
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Load a fixture
+     *
+     * @param name name of the fixture below <code>benchmark/</code>
+     * @return the fixture's content
+     */
+    static byte[] load(String name) throws IOException {
+        try (InputStream is = Fixtures.class.getResourceAsStream("/benchmark/" + name)) {
+            if (is == null) {
+                throw new FileNotFoundException("No fixture " + name);
+            }
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    static String loadAsString(String name) throws IOException {
+        return new String(load(name), StandardCharsets.UTF_8);
+    }
+
+    static List<String> loadLines(String name) throws IOException {
+        List<String> ret = new ArrayList<>();
+        for (String line : loadAsString(name).split("\n")) {
+            if (!line.isEmpty()) {
+                ret.add(line);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Logger swallowing everything, so that only the work of the code under test is measured
+     */
+    static final Logger NULL_LOGGER = new Logger() {
+        @Override
+        public void debug(String message) {
+        }
+
+        @Override
+        public void info(String message) {
+        }
+
+        @Override
+        public void verbose(String message) {
+        }
+
+        @Override
+        public void warn(String message) {
+        }
+
+        @Override
+        public void error(String message) {
+        }
+
+        @Override
+        public String errorMessage(String message) {
+            return message;
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public void progressStart(int total) {
+        }
+
+        @Override
+        public void progressUpdate(int current) {
+        }
+
+        @Override
+        public void progressFinished() {
+        }
+    };
+}
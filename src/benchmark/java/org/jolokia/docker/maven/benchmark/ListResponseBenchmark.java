@@ -0,0 +1,106 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.docker.maven.access.chunked.JsonStreamParser;
+import org.jolokia.docker.maven.model.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Converting the responses for listing containers and images into model objects. The recorded
+ * responses are repeated to simulate hosts with many containers and images. The streaming
+ * conversion as done by the docker access is compared with building a full JSON tree from a String.
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ListResponseBenchmark {
+
+    @Param({ "12", "1200" })
+    public int size;
+
+    private byte[] containers;
+    private byte[] images;
+
+    @Setup
+    public void setup() throws IOException {
+        containers = repeat(Fixtures.loadAsString("containers.json"));
+        images = repeat(Fixtures.loadAsString("images.json"));
+    }
+
+    @Benchmark
+    public List<Container> containersStreaming() throws IOException {
+        JsonStreamParser parser = new JsonStreamParser(new ByteArrayInputStream(containers), ContainersListElement.FIELDS);
+        List<Container> ret = new ArrayList<>();
+        JSONObject json;
+        while ((json = parser.next()) != null) {
+            ret.add(new ContainersListElement(json));
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public List<Container> containersFullTree() {
+        JSONArray array = new JSONArray(new String(containers, StandardCharsets.UTF_8));
+        List<Container> ret = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            ret.add(new ContainersListElement(array.getJSONObject(i)));
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public List<Image> imagesStreaming() throws IOException {
+        JsonStreamParser parser = new JsonStreamParser(new ByteArrayInputStream(images), Image.FIELDS);
+        List<Image> ret = new ArrayList<>();
+        JSONObject json;
+        while ((json = parser.next()) != null) {
+            ret.add(new Image(json));
+        }
+        return ret;
+    }
+
+    @Benchmark
+    public List<Image> imagesFullTree() {
+        JSONArray array = new JSONArray(new String(images, StandardCharsets.UTF_8));
+        List<Image> ret = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            ret.add(new Image(array.getJSONObject(i)));
+        }
+        return ret;
+    }
+
+    // Repeat the elements of the recorded array until the requested size is reached
+    private byte[] repeat(String fixture) {
+        JSONArray recorded = new JSONArray(fixture);
+        JSONArray ret = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            ret.put(recorded.get(i % recorded.length()));
+        }
+        return ret.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.docker.maven.access.log.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding of the multiplexed log stream of a container. The stream is built from
+ * <code>container.log</code> whose lines have the format "&lt;stream type&gt; &lt;timestamp&gt; &lt;text&gt;",
+ * with either one line per frame or all lines of a second within one frame.
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LogFrameDecoderBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean framePerLine;
+
+    private byte[] stream;
+
+    @Setup
+    public void setup() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringBuilder frame = new StringBuilder();
+        String frameSecond = null;
+        int frameType = 1;
+        for (String line : Fixtures.loadLines("container.log")) {
+            String[] parts = line.split(" ", 3);
+            int type = Integer.parseInt(parts[0]);
+            String second = parts[1].substring(0, 19);
+            if (frame.length() > 0 && (framePerLine || type != frameType || !second.equals(frameSecond))) {
+                writeFrame(out, frameType, frame);
+            }
+            frameType = type;
+            frameSecond = second;
+            frame.append(parts[1]).append(' ').append(parts[2]).append('\n');
+        }
+        writeFrame(out, frameType, frame);
+        stream = out.toByteArray();
+    }
+
+    @Benchmark
+    public void decode(final Blackhole blackhole) throws IOException, LogCallback.DoneException {
+        new LogFrameDecoder().decode(new ByteArrayInputStream(stream), new LogCallback() {
+            @Override
+            public void log(LogLine line) {
+                blackhole.consume(line.getEpochMillis());
+                blackhole.consume(line.getText().length());
+            }
+
+            @Override
+            public void error(String error) {
+                throw new IllegalStateException(error);
+            }
+        });
+    }
+
+    @Benchmark
+    public void decodeAndCopy(final Blackhole blackhole) throws IOException, LogCallback.DoneException {
+        new LogFrameDecoder().decode(new ByteArrayInputStream(stream), new LogCallback() {
+            @Override
+            public void log(LogLine line) {
+                blackhole.consume(line.getTimestamp());
+                blackhole.consume(line.getText().toString());
+            }
+
+            @Override
+            public void error(String error) {
+                throw new IllegalStateException(error);
+            }
+        });
+    }
+
+    private void writeFrame(ByteArrayOutputStream out, int type, StringBuilder frame) throws IOException {
+        byte[] payload = frame.toString().getBytes(StandardCharsets.UTF_8);
+        int len = payload.length;
+        out.write(new byte[] { (byte) type, 0, 0, 0,
+                               (byte) (len >>> 24), (byte) (len >>> 16), (byte) (len >>> 8), (byte) len });
+        out.write(payload);
+        frame.setLength(0);
+    }
+}
@@ -0,0 +1,84 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jolokia.docker.maven.util.MultiPattern;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Matching container log lines against the success and failure patterns of a wait configuration
+ *
+ * @author roland
+ * @since 02/11/15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MultiPatternBenchmark {
+
+    private static final String[] PATTERNS = {
+        "Server startup in \\d+ ms", "Started \\w+Application in", "database system is ready to accept connections",
+        "OutOfMemoryError", "java\\.net\\.BindException", "FATAL", "Address already in use"
+    };
+
+    private String[] lines;
+
+    private Matcher[] matchers;
+    private MultiPattern.Matcher multiMatcher;
+
+    @Setup
+    public void setup() throws IOException {
+        List<String> logLines = Fixtures.loadLines("container.log");
+        lines = new String[logLines.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = logLines.get(i).split(" ", 3)[2];
+        }
+        matchers = new Matcher[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; i++) {
+            matchers[i] = Pattern.compile(PATTERNS[i]).matcher("");
+        }
+        multiMatcher = MultiPattern.compile(PATTERNS).matcher();
+    }
+
+    @Benchmark
+    public void regexps(Blackhole blackhole) {
+        for (String line : lines) {
+            BitSet found = new BitSet();
+            for (int i = 0; i < matchers.length; i++) {
+                if (matchers[i].reset(line).find()) {
+                    found.set(i);
+                }
+            }
+            blackhole.consume(found);
+        }
+    }
+
+    @Benchmark
+    public void multiPattern(Blackhole blackhole) {
+        for (String line : lines) {
+            BitSet found = new BitSet();
+            multiMatcher.findAll(line, found);
+            blackhole.consume(found);
+        }
+    }
+}
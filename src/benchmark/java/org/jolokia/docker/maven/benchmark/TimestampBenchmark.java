@@ -0,0 +1,91 @@
+package org.jolokia.docker.maven.benchmark;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jolokia.docker.maven.log.ContainerLogOutputSpec;
+import org.jolokia.docker.maven.util.Timestamp;
+import org.jolokia.docker.maven.util.TimestampParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing and formatting of the timestamps found in container logs
+ *
+ * @author roland
+ * @since 29/10/15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TimestampBenchmark {
+
+    private String[] specs;
+    private char[][] chars;
+    private Timestamp[] timestamps;
+
+    private final TimestampParser parser = new TimestampParser();
+    private final StringBuilder builder = new StringBuilder();
+    private ContainerLogOutputSpec spec;
+
+    @Setup
+    public void setup() throws IOException {
+        List<String> lines = Fixtures.loadLines("container.log");
+        specs = new String[lines.size()];
+        chars = new char[lines.size()][];
+        timestamps = new Timestamp[lines.size()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = lines.get(i).split(" ", 3)[1];
+            chars[i] = specs[i].toCharArray();
+            timestamps[i] = new Timestamp(specs[i]);
+        }
+        spec = new ContainerLogOutputSpec.Builder().prefix("db").color("cyan").timeFormatter("DEFAULT").build();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String spec : specs) {
+            blackhole.consume(new Timestamp(spec));
+        }
+    }
+
+    @Benchmark
+    public void parseRange(Blackhole blackhole) {
+        for (char[] spec : chars) {
+            parser.parse(spec, 0, spec.length);
+            blackhole.consume(parser.getEpochMillis());
+        }
+    }
+
+    @Benchmark
+    public void prompt(Blackhole blackhole) {
+        for (Timestamp timestamp : timestamps) {
+            builder.setLength(0);
+            spec.appendPrompt(builder, false, timestamp);
+            blackhole.consume(builder);
+        }
+    }
+
+    @Benchmark
+    public void format(Blackhole blackhole) {
+        for (Timestamp timestamp : timestamps) {
+            blackhole.consume(timestamp.toString());
+        }
+    }
+}
@@ -16,17 +16,22 @@ package org.jolokia.docker.maven;/*
  */
 
 import java.io.File;
+import java.io.IOException;
 
 import org.apache.maven.archiver.MavenArchiveConfiguration;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.shared.filtering.MavenFileFilter;
 import org.apache.maven.shared.filtering.MavenReaderFilter;
+import org.jolokia.docker.maven.access.ArchiveWriter;
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.assembly.BuildCache;
 import org.jolokia.docker.maven.assembly.DockerAssemblyManager;
 import org.jolokia.docker.maven.config.*;
+import org.jolokia.docker.maven.service.QueryService;
 import org.jolokia.docker.maven.util.ImageName;
+import org.jolokia.docker.maven.util.Logger;
 import org.jolokia.docker.maven.util.MojoParameters;
 
 /**
@@ -63,6 +68,31 @@ abstract public class AbstractBuildSupporMojo extends AbstractDockerMojo {
      */
     private String outputDirectory;
 
+    /**
+     * Skip building an image if neither its Dockerfile, its assembly files nor its base image
+     * have changed since the last build.
+     *
+     * @parameter default-value="false" property="docker.buildCache"
+     */
+    private boolean buildCache;
+
+    /**
+     * Write the build archive to <code>docker-build.tar</code> below the target directory before sending it to
+     * the Docker daemon, which can be useful for debugging. Otherwise the archive is streamed
+     * to the daemon while it is created.
+     *
+     * @parameter default-value="false" property="docker.buildArchive"
+     */
+    private boolean buildArchiveFile;
+
+    /**
+     * Compress the build archive with gzip when streaming it to the Docker daemon. This reduces the
+     * amount of data sent to a remote daemon.
+     *
+     * @parameter default-value="false" property="docker.buildCompress"
+     */
+    private boolean buildCompress;
+
 
     protected MojoParameters createMojoParameters() {
         return new MojoParameters(session, project, archive, mavenFileFilter, mavenFilterReader,
@@ -72,19 +102,102 @@ abstract public class AbstractBuildSupporMojo extends AbstractDockerMojo {
     protected void buildImage(DockerAccess dockerAccess, String imageName, ImageConfiguration imageConfig)
             throws DockerAccessException, MojoExecutionException {
         warnIfDeprecatedCommandConfigIsUsed(imageConfig.getBuildConfiguration());
+        BuildArchive buildArchive = createBuildArchive(imageName, imageConfig);
+        buildImage(dockerAccess, imageName, imageConfig, buildArchive, log);
+    }
 
-        autoPullBaseImage(dockerAccess, imageConfig);
-
+    /**
+     * Prepare the tar archive which is sent to the Docker daemon for building an image. The assembly is created
+     * right away, the tar archive itself either too or only when streaming it to the Docker daemon. Archives for
+     * different images are created in different directories, so this can be called concurrently. If the build cache
+     * is enabled and the build context hasn't changed since the last build, the archive is only
+     * prepared later on if the image turns out to be outdated anyways.
+     *
+     * @param imageName name of the image to build
+     * @param imageConfig image configuration
+     * @return the archive prepared
+     * @throws MojoExecutionException if the archive can't be created
+     */
+    protected BuildArchive createBuildArchive(String imageName, ImageConfiguration imageConfig) throws MojoExecutionException {
         MojoParameters params = createMojoParameters();
-        File dockerArchive = dockerAssemblyManager.createDockerTarArchive(imageName, params, imageConfig.getBuildConfiguration());
+        BuildImageConfiguration buildConfig = imageConfig.getBuildConfiguration();
+        String digest = null;
+        if (buildCache) {
+            digest = dockerAssemblyManager.calculateBuildDigest(imageName, params, buildConfig);
+            if (dockerAssemblyManager.getBuildCache(imageName, params).hasDigest(digest)) {
+                return new BuildArchive(digest);
+            }
+        }
+        return prepareBuildArchive(imageName, params, buildConfig, digest);
+    }
 
-        dockerAccess.buildImage(imageName, dockerArchive);
-        log.info(imageConfig.getDescription() + ": Build image ");
+    private BuildArchive prepareBuildArchive(String imageName, MojoParameters params, BuildImageConfiguration buildConfig,
+                                             String digest) throws MojoExecutionException {
+        if (buildArchiveFile) {
+            return new BuildArchive(dockerAssemblyManager.createDockerTarArchive(imageName, params, buildConfig), digest);
+        } else {
+            return new BuildArchive(dockerAssemblyManager.createDockerTarArchiveWriter(imageName, params, buildConfig), digest);
+        }
     }
 
-    private void autoPullBaseImage(DockerAccess dockerAccess, ImageConfiguration imageConfig)
+    /**
+     * Build an image from an already created archive, pulling the base image if required. The build is skipped
+     * if the build cache is enabled and neither the build context nor the image or its base image has changed.
+     *
+     * @param dockerAccess access object for the Docker daemon
+     * @param imageName name of the image to build
+     * @param imageConfig image configuration
+     * @param buildArchive archive as created by {@link #createBuildArchive(String, ImageConfiguration)}
+     * @param buildLog logger to which the build output is printed
+     */
+    protected void buildImage(DockerAccess dockerAccess, String imageName, ImageConfiguration imageConfig,
+                              BuildArchive buildArchive, Logger buildLog)
             throws DockerAccessException, MojoExecutionException {
         BuildImageConfiguration buildConfig = imageConfig.getBuildConfiguration();
+        String fromImage = getBaseImage(buildConfig);
+        if (fromImage != null) {
+            checkImageWithAutoPull(dockerAccess, fromImage, new ImageName(fromImage).getRegistry(),true);
+        }
+
+        QueryService queryService = serviceHub.getQueryService();
+        String digest = buildArchive.getDigest();
+        BuildCache cache = null;
+        String baseImageId = null;
+        if (digest != null) {
+            cache = dockerAssemblyManager.getBuildCache(imageName, createMojoParameters());
+            baseImageId = fromImage != null ? queryService.findImageId(fromImage) : null;
+            if (cache.isUpToDate(digest, queryService.findImageId(imageName), baseImageId)) {
+                buildLog.info(imageConfig.getDescription() + ": Image is up to date, skipping build");
+                return;
+            }
+        }
+
+        if (!buildArchive.isPrepared()) {
+            buildArchive = prepareBuildArchive(imageName, createMojoParameters(), buildConfig, digest);
+        }
+        if (buildArchive.getFile() != null) {
+            dockerAccess.buildImage(imageName, buildArchive.getFile(), buildLog);
+        } else {
+            dockerAccess.buildImage(imageName, buildArchive.getWriter(), buildCompress, buildLog);
+        }
+        buildLog.info(imageConfig.getDescription() + ": Build image ");
+
+        if (cache != null) {
+            try {
+                cache.update(digest, queryService.findImageId(imageName), baseImageId);
+            } catch (IOException e) {
+                buildLog.warn(imageConfig.getDescription() + ": Cannot update build cache: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the base image of an image to build
+     *
+     * @param buildConfig build configuration of the image
+     * @return the base image or <code>null</code> if it is only known to a user provided Dockerfile
+     */
+    protected String getBaseImage(BuildImageConfiguration buildConfig) {
         String fromImage = buildConfig.getFrom();
         if (fromImage == null) {
             AssemblyConfiguration assemblyConfig = buildConfig.getAssemblyConfiguration();
@@ -92,12 +205,10 @@ abstract public class AbstractBuildSupporMojo extends AbstractDockerMojo {
                 fromImage = DockerAssemblyManager.DEFAULT_DATA_BASE_IMAGE;
             }
         }
-        if (fromImage != null) {
-            checkImageWithAutoPull(dockerAccess, fromImage, new ImageName(fromImage).getRegistry(),true);
-        }
+        return fromImage;
     }
 
-    private void warnIfDeprecatedCommandConfigIsUsed(BuildImageConfiguration buildConfiguration) {
+    protected void warnIfDeprecatedCommandConfigIsUsed(BuildImageConfiguration buildConfiguration) {
         if (buildConfiguration.getCommand() != null) {
             log.warn("<command> in the <build> configuration is deprecated and will be be removed soon");
             log.warn("Please use <cmd> with nested <shell> or <exec> sections instead.");
@@ -112,4 +223,64 @@ abstract public class AbstractBuildSupporMojo extends AbstractDockerMojo {
             log.warn("   <cmd><shell>" + buildConfiguration.getCommand() + "</shell></cmd>");
         }
     }
+
+    // ==============================================================================================================
+
+    /**
+     * Archive to build an image from, either as file or as writer for streaming it. Together with
+     * the digest of its content if the build cache is enabled.
+     */
+    protected static class BuildArchive {
+
+        private final File file;
+        private final ArchiveWriter writer;
+        private final String digest;
+
+        // Archive not prepared yet
+        BuildArchive(String digest) {
+            this(null, null, digest);
+        }
+
+        BuildArchive(File file, String digest) {
+            this(file, null, digest);
+        }
+
+        BuildArchive(ArchiveWriter writer, String digest) {
+            this(null, writer, digest);
+        }
+
+        private BuildArchive(File file, ArchiveWriter writer, String digest) {
+            this.file = file;
+            this.writer = writer;
+            this.digest = digest;
+        }
+
+        /**
+         * @return true if the archive has been prepared, false if this has been skipped because of the build cache
+         */
+        public boolean isPrepared() {
+            return file != null || writer != null;
+        }
+
+        /**
+         * @return the archive file or <code>null</code> if the archive is to be streamed
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return writer for streaming the archive or <code>null</code> if written to a file
+         */
+        public ArchiveWriter getWriter() {
+            return writer;
+        }
+
+        /**
+         * @return the digest of the build context or <code>null</code> if no build cache is used
+         */
+        public String getDigest() {
+            return digest;
+        }
+    }
 }
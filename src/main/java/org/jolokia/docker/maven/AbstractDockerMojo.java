@@ -1,15 +1,11 @@
 package org.jolokia.docker.maven;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Properties;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -22,8 +18,10 @@ import org.codehaus.plexus.context.Context;
 import org.codehaus.plexus.context.ContextException;
 import org.codehaus.plexus.personality.plexus.lifecycle.phase.Contextualizable;
 import org.jolokia.docker.maven.access.AuthConfig;
+import org.jolokia.docker.maven.access.CachingDockerAccess;
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.access.hc.ConnectionPoolConfig;
 import org.jolokia.docker.maven.access.hc.DockerAccessWithHcClient;
 import org.jolokia.docker.maven.config.ImageConfiguration;
 import org.jolokia.docker.maven.config.LogConfiguration;
@@ -31,13 +29,11 @@ import org.jolokia.docker.maven.config.RunImageConfiguration;
 import org.jolokia.docker.maven.config.handler.ImageConfigResolver;
 import org.jolokia.docker.maven.log.ContainerLogOutputSpec;
 import org.jolokia.docker.maven.log.LogDispatcher;
+import org.jolokia.docker.maven.log.LogFileWriter;
+import org.jolokia.docker.maven.log.LogWriter;
 import org.jolokia.docker.maven.service.QueryService;
 import org.jolokia.docker.maven.service.ServiceHub;
-import org.jolokia.docker.maven.util.AnsiLogger;
-import org.jolokia.docker.maven.util.AuthConfigFactory;
-import org.jolokia.docker.maven.util.EnvUtil;
-import org.jolokia.docker.maven.util.ImageName;
-import org.jolokia.docker.maven.util.Logger;
+import org.jolokia.docker.maven.util.*;
 
 /**
  * Base class for this plugin.
@@ -92,6 +88,14 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
      */
     protected boolean removeVolumes;
 
+    /**
+     * Maximum number of containers which are stopped and removed concurrently (start/watch/stop). A container
+     * is only stopped after all containers linking to it or mounting volumes from it are stopped.
+     *
+     * @parameter property = "docker.stopParallel" default-value = "1"
+     */
+    protected int stopParallel;
+
     // don't forget to change 'API_VERSION'
     /** @parameter property = "docker.apiVersion" default-value = "v1.15" */
     private String apiVersion;
@@ -103,6 +107,31 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
     /** @parameter property = "docker.certPath" */
     private String certPath;
 
+    // Connection pool settings for talking to the docker daemon
+    /** @parameter property = "docker.maxConnections" default-value = "40" */
+    private int maxConnections;
+
+    /** @parameter property = "docker.maxConnectionsPerRoute" default-value = "20" */
+    private int maxConnectionsPerRoute;
+
+    // Timeouts in milliseconds, 0 means no timeout
+    /** @parameter property = "docker.connectTimeout" default-value = "10000" */
+    private int connectTimeout;
+
+    /** @parameter property = "docker.socketTimeout" default-value = "0" */
+    private int socketTimeout;
+
+    /** @parameter property = "docker.connectionRequestTimeout" default-value = "0" */
+    private int connectionRequestTimeout;
+
+    // Time after which idle connections are closed
+    /** @parameter property = "docker.connectionIdleTimeout" default-value = "30000" */
+    private int connectionIdleTimeout;
+
+    // Inactivity period after which a pooled connection is checked before being reused
+    /** @parameter property = "docker.validateAfterInactivity" default-value = "2000" */
+    private int validateAfterInactivity;
+
     // If logging is enabled globally
 
     // Whether to use color
@@ -117,6 +146,38 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
     /** @parameter property = "docker.logDate" */
     private String logDate;
 
+    // Time in milliseconds log entries are held back for printing the logs of multiple containers ordered by time
+    /** @parameter property = "docker.logReorderWindow" default-value = "100" */
+    private int logReorderWindow;
+
+    // Maximum number of log entries waiting to be printed
+    /** @parameter property = "docker.logQueueSize" default-value = "10000" */
+    private int logQueueSize;
+
+    // Whether to drop log entries if the output can't keep up instead of slowing down reading the logs
+    /** @parameter property = "docker.logDropOnOverflow" default-value = "false" */
+    private boolean logDropOnOverflow;
+
+    // Directory for persisting the log of each container to "<alias>.log"
+    /** @parameter property = "docker.logDir" default-value = "${project.build.directory}/docker/logs" */
+    private File logDir;
+
+    // Size in kilobytes after which a log file is rotated, 0 for never rotating
+    /** @parameter property = "docker.logFileMaxSize" default-value = "10240" */
+    private long logFileMaxSize;
+
+    // Number of rotated log files to keep per container
+    /** @parameter property = "docker.logFileBackups" default-value = "5" */
+    private int logFileBackups;
+
+    // Whether to gzip rotated log files
+    /** @parameter property = "docker.logFileCompress" default-value = "false" */
+    private boolean logFileCompress;
+
+    // Whether to follow the logs of all containers with a single thread instead of a thread per container
+    /** @parameter property = "docker.logMultiplexer" default-value = "true" */
+    private boolean logMultiplexer;
+
     // Whether to skip docker altogether
     /** @parameter property = "docker.skip" default-value = "false" */
     private boolean skip;
@@ -131,6 +192,18 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
     /** @parameter property = "docker.registry" */
     private String registry;
 
+    // Maximum number of images which are pulled concurrently
+    /** @parameter property = "docker.pullParallel" default-value = "1" */
+    private int pullParallel;
+
+    // Whether to cache container and image listings as long as they are not changed by the plugin itself
+    /** @parameter property = "docker.queryCache" default-value = "true" */
+    private boolean queryCache;
+
+    // Whether to keep the cached listings up to date by following the event stream of the docker daemon
+    /** @parameter property = "docker.queryCacheEvents" default-value = "false" */
+    private boolean queryCacheEvents;
+
     // Authentication information
     /** @parameter */
     Map authConfig;
@@ -145,6 +218,12 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
     // Handler dealing with authentication credentials
     private AuthConfigFactory authConfigFactory;
 
+    // Auth configs already resolved, keyed by user and registry
+    private final Map<String, AuthConfig> authConfigCache = new HashMap<>();
+
+    // Images which have been pulled already during this execution
+    private final Set<String> pulledImages = Collections.synchronizedSet(new HashSet<String>());
+
     protected Logger log;
 
     /**
@@ -160,9 +239,10 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
             log = new AnsiLogger(getLog(), useColor, verbose);
 
             String dockerUrl = EnvUtil.extractUrl(dockerHost);
-            DockerAccess access = createDockerAccess(dockerUrl);
+            DockerAccess dockerAccess = createDockerAccess(dockerUrl);
             setDockerHostAddressProperty(dockerUrl);
-            serviceHub.init(access,log);
+            CachingDockerAccess access = serviceHub.init(dockerAccess, log);
+            setupQueryCache(access);
 
             try {
                 executeInternal(access);
@@ -174,6 +254,25 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
         }
     }
 
+    // Long running goals can only use the cache when changes from the outside are noticed
+    private void setupQueryCache(CachingDockerAccess access) {
+        boolean useEvents = queryCacheEvents || isLongRunning();
+        if (queryCache && useEvents) {
+            access.trackEvents(log);
+        }
+        access.setCacheEnabled(queryCache && (useEvents || !isLongRunning()));
+    }
+
+    /**
+     * Whether this goal keeps running and watches the docker daemon for a longer time. For such goals
+     * container and image listings are only cached while the event stream of the daemon is followed.
+     *
+     * @return true if this goal is long running, false by default
+     */
+    protected boolean isLongRunning() {
+        return false;
+    }
+
     /**
      * Hook for subclass for doing the real job
      *
@@ -234,7 +333,7 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
     private DockerAccess createDockerAccess(String baseUrl) throws MojoExecutionException {
         try {
             DockerAccess client = new DockerAccessWithHcClient(apiVersion, baseUrl,
-                    EnvUtil.getCertPath(certPath), log);
+                    EnvUtil.getCertPath(certPath), createConnectionPoolConfig(), logMultiplexer, log);
             client.start();
 
             return client;
@@ -244,6 +343,18 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
         }
     }
 
+    private ConnectionPoolConfig createConnectionPoolConfig() {
+        return new ConnectionPoolConfig.Builder()
+                .maxTotal(maxConnections)
+                .maxPerRoute(maxConnectionsPerRoute)
+                .connectTimeout(connectTimeout)
+                .socketTimeout(socketTimeout)
+                .connectionRequestTimeout(connectionRequestTimeout)
+                .idleTimeout(connectionIdleTimeout)
+                .validateAfterInactivity(validateAfterInactivity)
+                .build();
+    }
+
     // Registry for managed containers
     private void setDockerHostAddressProperty(String dockerUrl) throws MojoFailureException {
         Properties props = project.getProperties();
@@ -277,13 +388,25 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
         String user = name.getUser();
         String  registry = name.getRegistry() != null ? name.getRegistry() : configuredRegistry;
 
-        return authConfigFactory.createAuthConfig(authConfig, settings, user, registry);
+        // Resolving may involve decrypting passwords, so it's done only once per user and registry
+        String key = user + "@" + registry;
+        synchronized (authConfigCache) {
+            if (!authConfigCache.containsKey(key)) {
+                authConfigCache.put(key, authConfigFactory.createAuthConfig(authConfig, settings, user, registry));
+            }
+            return authConfigCache.get(key);
+        }
     }
 
     protected LogDispatcher getLogDispatcher(DockerAccess docker) {
         LogDispatcher dispatcher = (LogDispatcher) getPluginContext().get(CONTEXT_KEY_LOG_DISPATCHER);
         if (dispatcher == null) {
-            dispatcher = new LogDispatcher(docker, useColor);
+            LogWriter writer = new LogWriter(useColor, logReorderWindow, logQueueSize,
+                                             logDropOnOverflow ? LogWriter.Overflow.DROP : LogWriter.Overflow.BLOCK);
+            LogFileWriter fileWriter = logDir != null ?
+                new LogFileWriter(logFileMaxSize * 1024, logFileBackups, logFileCompress, logQueueSize, System.err) :
+                null;
+            dispatcher = new LogDispatcher(docker, writer, fileWriter);
             dispatcher.addLogOutputStream(System.out);
             getPluginContext().put(CONTEXT_KEY_LOG_DISPATCHER, dispatcher);
         }
@@ -298,7 +421,10 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
         addPrefix(builder, logConfig.getPrefix(), imageConfiguration.getAlias(), containerId);
 
         builder.containerId(containerId)
-                .color(logConfig.getColor());
+                .color(logConfig.getColor())
+                .include(logConfig.getInclude())
+                .exclude(logConfig.getExclude());
+        addLogFile(builder, imageConfiguration.getAlias(), containerId);
 
         return builder.build();
     }
@@ -314,6 +440,13 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
         builder.prefix(prefix);
     }
 
+    private void addLogFile(ContainerLogOutputSpec.Builder builder, String alias, String containerId) {
+        if (logDir != null) {
+            String name = alias != null ? alias : containerId.substring(0, Math.min(containerId.length(), 12));
+            builder.file(new File(logDir, name + ".log"));
+        }
+    }
+
     private void addLogFormat(ContainerLogOutputSpec.Builder builder, LogConfiguration logConfig) {
         String logFormat = logConfig.getDate() != null ? logConfig.getDate() : logDate;
         if (logFormat != null && logFormat.equalsIgnoreCase("true")) {
@@ -360,19 +493,131 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
      */
     protected void checkImageWithAutoPull(DockerAccess docker, String name, String registry,
             boolean autoPullAlwaysAllowed) throws DockerAccessException, MojoExecutionException {
-        // TODO: further refactoring could be done to avoid referencing the QueryService here
-        QueryService queryService = serviceHub.getQueryService();
-        if (!queryService.imageRequiresAutoPull(autoPull, name, autoPullAlwaysAllowed)) {
+        if (requiresAutoPull(name, registry, autoPullAlwaysAllowed)) {
+            pullImage(docker, name, registry, log);
+        }
+    }
+
+    /**
+     * Check multiple images like {@link #checkImageWithAutoPull(DockerAccess, String, String, boolean)} does.
+     * All images are checked first and then pulled concurrently (up to <code>docker.pullParallel</code> at a
+     * time). This method returns only after all pulls have finished.
+     *
+     * @param docker access object to lookup and pull images
+     * @param images images to check
+     *
+     * @throws DockerAccessException
+     * @throws MojoExecutionException if an image is missing and can't be pulled or if any pull failed
+     */
+    protected void checkImagesWithAutoPull(final DockerAccess docker, List<ImagePull> images)
+            throws DockerAccessException, MojoExecutionException {
+        Map<String, ItemTask> pulls = new LinkedHashMap<>();
+        Set<String> checked = new HashSet<>();
+        for (final ImagePull image : images) {
+            if (checked.add(image.getKey()) &&
+                requiresAutoPull(image.getName(), image.getRegistry(), image.isAutoPullAlwaysAllowed())) {
+                // Credentials are resolved upfront, so that concurrent pulls only pick them up from the cache
+                prepareAuthConfig(image.getName(), image.getRegistry());
+                pulls.put("[" + image.getName() + "]", new ItemTask() {
+                    @Override
+                    public void execute(Logger pullLog) throws DockerAccessException, MojoExecutionException {
+                        pullImage(docker, image.getName(), image.getRegistry(), pullLog);
+                    }
+                });
+            }
+        }
+        executeConcurrently("Pull", pullParallel, pulls);
+    }
+
+    /**
+     * Run tasks for multiple items. If the parallelism allows it and there is more than one task, the
+     * tasks run concurrently and, in contrast to {@link DependencyExecutor}, a failure doesn't stop the
+     * remaining tasks. All failures are reported at the end then, after all tasks have finished. Otherwise
+     * the tasks run one after another in the calling thread until the first failure.
+     *
+     * @param action name of the action performed for reporting
+     * @param parallelism maximum number of tasks to run at the same time
+     * @param tasks tasks to run with the description of their item as key
+     * @throws DockerAccessException if a task run in the calling thread failed
+     * @throws MojoExecutionException if any task failed
+     */
+    protected void executeConcurrently(String action, int parallelism, Map<String, ItemTask> tasks)
+            throws DockerAccessException, MojoExecutionException {
+        if (parallelism <= 1 || tasks.size() <= 1) {
+            for (ItemTask task : tasks.values()) {
+                task.execute(log);
+            }
             return;
         }
 
-        docker.pullImage(withLatestIfNoTag(name), prepareAuthConfig(name, registry), registry);
+        ExecutorService service = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(service);
+        Map<Future<Void>, String> descriptions = new HashMap<>();
+        try {
+            for (Map.Entry<String, ItemTask> entry : tasks.entrySet()) {
+                final ItemTask task = entry.getValue();
+                final Logger itemLog = new PrefixedLogger(log, entry.getKey() + " ");
+                Future<Void> future = completionService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        task.execute(itemLog);
+                        return null;
+                    }
+                });
+                descriptions.put(future, entry.getKey());
+            }
+
+            List<String> failures = new ArrayList<>();
+            Throwable firstFailure = null;
+            for (int done = 1; done <= tasks.size(); done++) {
+                Future<Void> result = completionService.take();
+                String description = descriptions.get(result);
+                try {
+                    result.get();
+                    log.debug(String.format("%s: %s finished (%d/%d)", description, action, done, tasks.size()));
+                } catch (ExecutionException exp) {
+                    Throwable cause = exp.getCause();
+                    log.error(String.format("%s: %s failed (%d/%d): %s",
+                                            description, action, done, tasks.size(), cause.getMessage()));
+                    failures.add(description);
+                    if (firstFailure == null) {
+                        firstFailure = cause;
+                    }
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new MojoExecutionException(action + " failed for " + EnvUtil.stringJoin(failures, ", ") + ": " +
+                                                 firstFailure.getMessage(), firstFailure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("interrupted", e);
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    // Check whether an image needs to be pulled. Images pulled already during this execution are never pulled again.
+    private boolean requiresAutoPull(String name, String registry, boolean autoPullAlwaysAllowed)
+            throws DockerAccessException, MojoExecutionException {
+        if (pulledImages.contains(ImagePull.getKey(name, registry))) {
+            return false;
+        }
+        // TODO: further refactoring could be done to avoid referencing the QueryService here
+        QueryService queryService = serviceHub.getQueryService();
+        return queryService.imageRequiresAutoPull(autoPull, name, autoPullAlwaysAllowed);
+    }
+
+    private void pullImage(DockerAccess docker, String name, String registry, Logger pullLog)
+            throws DockerAccessException, MojoExecutionException {
+        docker.pullImage(withLatestIfNoTag(name), prepareAuthConfig(name, registry), registry, pullLog);
         ImageName imageName = new ImageName(name);
         if (registry != null && !imageName.hasRegistry()) {
             // If coming from a registry which was not contained in the original name, add a tag from the
             // short name with no-registry to the full name with the registry.
             docker.tag(imageName.getFullName(registry), name, false);
         }
+        pulledImages.add(ImagePull.getKey(name, registry));
     }
 
     // Fetch only latest if no tag is given
@@ -380,4 +625,59 @@ public abstract class AbstractDockerMojo extends AbstractMojo implements Context
         ImageName imageName = new ImageName(name);
         return imageName.getTag() == null ? imageName.getNameWithoutTag() + ":latest" : name;
     }
+
+    // =======================================================================================
+
+    /**
+     * Work for a single item run by {@link #executeConcurrently(String, int, Map)}
+     */
+    protected interface ItemTask {
+        /**
+         * Do the work
+         *
+         * @param itemLog logger to use, prefixed with the description of the item when running concurrently
+         */
+        void execute(Logger itemLog) throws DockerAccessException, MojoExecutionException;
+    }
+
+    /**
+     * Image to check and possibly pull with {@link #checkImagesWithAutoPull(DockerAccess, List)}
+     */
+    protected static class ImagePull {
+
+        private final String name;
+        private final String registry;
+        private final boolean autoPullAlwaysAllowed;
+
+        /**
+         * @param name image name
+         * @param registry optional registry which is used if the image itself doesn't have a registry.
+         * @param autoPullAlwaysAllowed whether an unconditional autopull is allowed.
+         */
+        public ImagePull(String name, String registry, boolean autoPullAlwaysAllowed) {
+            this.name = name;
+            this.registry = registry;
+            this.autoPullAlwaysAllowed = autoPullAlwaysAllowed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRegistry() {
+            return registry;
+        }
+
+        public boolean isAutoPullAlwaysAllowed() {
+            return autoPullAlwaysAllowed;
+        }
+
+        String getKey() {
+            return getKey(name, registry);
+        }
+
+        static String getKey(String name, String registry) {
+            return new ImageName(name).getFullName(registry);
+        }
+    }
 }
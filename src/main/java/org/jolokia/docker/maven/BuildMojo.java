@@ -1,14 +1,14 @@
 package org.jolokia.docker.maven;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.DockerAccessException;
 import org.jolokia.docker.maven.config.BuildImageConfiguration;
 import org.jolokia.docker.maven.config.ImageConfiguration;
-import org.jolokia.docker.maven.util.EnvUtil;
-import org.jolokia.docker.maven.util.ImageName;
+import org.jolokia.docker.maven.util.*;
 
 /**
  * Mojo for building a data image
@@ -26,18 +26,107 @@ public class BuildMojo extends AbstractBuildSupporMojo {
      */
     private boolean skipTags;
 
+    /**
+     * Maximum number of images which are built concurrently. An image is only built after the image
+     * it uses as base image (if part of this build) is ready. The build archives are created ahead in
+     * parallel, too.
+     *
+     * @parameter property = "docker.buildParallel" default-value = "1"
+     */
+    private int buildParallel;
+
     @Override
-    protected void executeInternal(DockerAccess dockerAccess) throws DockerAccessException, MojoExecutionException {
+    protected void executeInternal(final DockerAccess dockerAccess) throws DockerAccessException, MojoExecutionException {
+        List<ImageConfiguration> imagesToBuild = new ArrayList<>();
         for (ImageConfiguration imageConfig : getImages()) {
             BuildImageConfiguration buildConfig = imageConfig.getBuildConfiguration();
             if (buildConfig != null) {
                 buildConfig.validate();
-                String imageName = imageConfig.getName();
-                buildImage(dockerAccess, imageName, imageConfig);
-                if (!skipTags) {
-                    tagImage(imageName, imageConfig, dockerAccess);
+                warnIfDeprecatedCommandConfigIsUsed(buildConfig);
+                imagesToBuild.add(imageConfig);
+            }
+        }
+        Map<ImageConfiguration, List<ImageConfiguration>> buildOrder = BuildOrderResolver.resolve(imagesToBuild);
+
+        final boolean parallel = buildParallel > 1 && imagesToBuild.size() > 1;
+        ExecutorService archiveService = null;
+        try {
+            final Map<ImageConfiguration, Future<BuildArchive>> archives = new HashMap<>();
+            if (parallel) {
+                archiveService = Executors.newFixedThreadPool(Math.min(buildParallel, imagesToBuild.size()));
+                for (ImageConfiguration imageConfig : buildOrder.keySet()) {
+                    archives.put(imageConfig, archiveService.submit(createArchiveTask(imageConfig)));
                 }
             }
+            pullBaseImages(dockerAccess, buildOrder);
+            new DependencyExecutor<ImageConfiguration>(buildParallel, "docker-build").execute(
+                    buildOrder,
+                    new DependencyExecutor.Task<ImageConfiguration>() {
+                        @Override
+                        public void execute(ImageConfiguration imageConfig) throws Exception {
+                            String imageName = imageConfig.getName();
+                            BuildArchive archive;
+                            Logger buildLog;
+                            if (parallel) {
+                                archive = archives.get(imageConfig).get();
+                                buildLog = new PrefixedLogger(log, imageConfig.getDescription() + " ");
+                            } else {
+                                archive = createBuildArchive(imageName, imageConfig);
+                                buildLog = log;
+                            }
+                            buildImage(dockerAccess, imageName, imageConfig, archive, buildLog);
+                            if (!skipTags) {
+                                tagImage(imageName, imageConfig, dockerAccess);
+                            }
+                        }
+                    });
+        } catch (ExecutionException e) {
+            rethrowBuildException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("interrupted", e);
+        } finally {
+            if (archiveService != null) {
+                archiveService.shutdownNow();
+            }
+        }
+    }
+
+    // Pull all base images which are not built here before any build starts
+    private void pullBaseImages(DockerAccess dockerAccess, Map<ImageConfiguration, List<ImageConfiguration>> buildOrder)
+            throws DockerAccessException, MojoExecutionException {
+        List<ImagePull> baseImages = new ArrayList<>();
+        for (Map.Entry<ImageConfiguration, List<ImageConfiguration>> entry : buildOrder.entrySet()) {
+            String fromImage = getBaseImage(entry.getKey().getBuildConfiguration());
+            if (fromImage != null && entry.getValue().isEmpty()) {
+                baseImages.add(new ImagePull(fromImage, new ImageName(fromImage).getRegistry(), true));
+            }
+        }
+        checkImagesWithAutoPull(dockerAccess, baseImages);
+    }
+
+    private Callable<BuildArchive> createArchiveTask(final ImageConfiguration imageConfig) {
+        return new Callable<BuildArchive>() {
+            @Override
+            public BuildArchive call() throws MojoExecutionException {
+                return createBuildArchive(imageConfig.getName(), imageConfig);
+            }
+        };
+    }
+
+    private void rethrowBuildException(Throwable cause) throws DockerAccessException, MojoExecutionException {
+        // Failures when creating the archive are wrapped twice
+        while (cause instanceof ExecutionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof DockerAccessException) {
+            throw (DockerAccessException) cause;
+        } else if (cause instanceof MojoExecutionException) {
+            throw (MojoExecutionException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else {
+            throw new MojoExecutionException("Cannot build images: " + cause, cause);
         }
     }
 
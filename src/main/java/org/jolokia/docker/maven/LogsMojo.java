@@ -1,9 +1,15 @@
 package org.jolokia.docker.maven;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.apache.maven.plugin.MojoExecutionException;
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.access.log.LogRange;
 import org.jolokia.docker.maven.config.ImageConfiguration;
+import org.jolokia.docker.maven.log.ContainerLogOutputSpec;
+import org.jolokia.docker.maven.log.LogCursors;
 import org.jolokia.docker.maven.log.LogDispatcher;
 import org.jolokia.docker.maven.model.Container;
 import org.jolokia.docker.maven.service.QueryService;
@@ -35,36 +41,87 @@ public class LogsMojo extends AbstractDockerMojo {
     /** @parameter property = "docker.logAll" default-value = "false" */
     private boolean logAll;
 
+    // Number of lines to show from the end of each log, -1 for all lines
+    /** @parameter property = "docker.logTail" default-value = "-1" */
+    private int logTail;
+
+    // Whether to show only the log entries added since the last time the logs have been shown
+    /** @parameter property = "docker.logIncremental" default-value = "false" */
+    private boolean logIncremental;
+
+    // File remembering the last log entry shown per container
+    /** @parameter property = "docker.logCursorFile" default-value = "${project.build.directory}/docker/log-cursors.properties" */
+    private File logCursorFile;
+
     @Override
     protected void executeInternal(DockerAccess access) throws MojoExecutionException, DockerAccessException {
         QueryService queryService = serviceHub.getQueryService();
         LogDispatcher logDispatcher = getLogDispatcher(access);
+        LogCursors cursors = logIncremental ? loadCursors() : null;
 
         for (ImageConfiguration image : getImages()) {
             String imageName = image.getName();
             if (logAll) {
                 for (Container container : queryService.getContainersForImage(imageName)) {
-                    doLogging(logDispatcher, image, container.getId());
+                    doLogging(logDispatcher, image, container.getId(), cursors);
                 }
             } else {
                 Container container = queryService.getLatestContainerForImage(imageName);
-                doLogging(logDispatcher, image, container.getId());
+                doLogging(logDispatcher, image, container.getId(), cursors);
             }
         }
         if (follow) {
+            if (cursors != null) {
+                addShutdownHookForSavingCursors(cursors);
+            }
             // Block forever ....
             waitForEver();
+        } else if (cursors != null) {
+            saveCursors(cursors);
         }
     }
 
-    private void doLogging(LogDispatcher logDispatcher, ImageConfiguration image, String container) {
+    private void doLogging(LogDispatcher logDispatcher, ImageConfiguration image, String container,
+                           LogCursors cursors) {
+        LogRange range = new LogRange(cursors != null ? cursors.get(container) : null, logTail);
+        ContainerLogOutputSpec spec = getContainerLogSpec(container, image);
+        if (cursors == null) {
+            // The log is fetched from the start again, so the file would get all entries twice
+            logDispatcher.truncateLogFile(spec);
+        }
         if (follow) {
-            logDispatcher.trackContainerLog(container, getContainerLogSpec(container, image));
+            logDispatcher.trackContainerLog(container, spec, range, cursors);
         } else {
-            logDispatcher.fetchContainerLog(container, getContainerLogSpec(container, image));
+            logDispatcher.fetchContainerLog(container, spec, range, cursors);
         }
     }
 
+    private LogCursors loadCursors() throws MojoExecutionException {
+        try {
+            return new LogCursors(logCursorFile);
+        } catch (IOException exp) {
+            throw new MojoExecutionException("Cannot read log cursors from " + logCursorFile + ": " + exp.getMessage(), exp);
+        }
+    }
+
+    private void saveCursors(LogCursors cursors) {
+        try {
+            cursors.save();
+        } catch (IOException exp) {
+            log.warn("Cannot save log cursors to " + logCursorFile + ": " + exp.getMessage());
+        }
+    }
+
+    // Following the logs only ends with the JVM
+    private void addShutdownHookForSavingCursors(final LogCursors cursors) {
+        Runtime.getRuntime().addShutdownHook(new Thread("docker-log-cursors") {
+            @Override
+            public void run() {
+                saveCursors(cursors);
+            }
+        });
+    }
+
     private synchronized void waitForEver() {
         while (true) {
             try {
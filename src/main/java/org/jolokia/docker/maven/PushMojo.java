@@ -1,11 +1,13 @@
 package org.jolokia.docker.maven;
 
+import java.util.*;
+
 import org.apache.maven.plugin.MojoExecutionException;
 import org.jolokia.docker.maven.access.AuthConfig;
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.DockerAccessException;
 import org.jolokia.docker.maven.config.*;
-import org.jolokia.docker.maven.util.ImageName;
+import org.jolokia.docker.maven.util.*;
 
 /**
  * Goal for pushing a data-docker container
@@ -17,23 +19,44 @@ import org.jolokia.docker.maven.util.ImageName;
  */
 public class PushMojo extends AbstractDockerMojo {
 
+    /**
+     * Maximum number of images which are pushed concurrently. The tags of an image are always pushed one
+     * after another. If the push of an image fails, the other images are still pushed before the goal fails.
+     *
+     * @parameter property = "docker.pushParallel" default-value = "1"
+     */
+    private int pushParallel;
+
     /** {@inheritDoc} */
     @Override
-    public void executeInternal(DockerAccess docker) throws DockerAccessException, MojoExecutionException {
-        for (ImageConfiguration imageConfig : getImages()) {
-            BuildImageConfiguration buildConfig = imageConfig.getBuildConfiguration();
-            String name = imageConfig.getName();
-            if (buildConfig != null) {
-                String configuredRegistry = getConfiguredRegistry(imageConfig);
-                AuthConfig authConfig = prepareAuthConfig(name,configuredRegistry);
-
-                docker.pushImage(name, authConfig, configuredRegistry);
-
-                for (String tag : imageConfig.getBuildConfiguration().getTags()) {
-                    if (tag != null) {
-                        docker.pushImage(new ImageName(name,tag).getFullName(), authConfig, configuredRegistry);
+    public void executeInternal(final DockerAccess docker) throws DockerAccessException, MojoExecutionException {
+        Map<String, ItemTask> pushes = new LinkedHashMap<>();
+        for (final ImageConfiguration imageConfig : getImages()) {
+            if (imageConfig.getBuildConfiguration() != null) {
+                // Resolve credentials upfront, so that concurrent pushes only pick them up from the cache
+                prepareAuthConfig(imageConfig.getName(), getConfiguredRegistry(imageConfig));
+                pushes.put(imageConfig.getDescription(), new ItemTask() {
+                    @Override
+                    public void execute(Logger pushLog) throws DockerAccessException, MojoExecutionException {
+                        pushImage(docker, imageConfig, pushLog);
                     }
-                }
+                });
+            }
+        }
+        executeConcurrently("Push", pushParallel, pushes);
+    }
+
+    private void pushImage(DockerAccess docker, ImageConfiguration imageConfig, Logger pushLog)
+            throws DockerAccessException, MojoExecutionException {
+        String name = imageConfig.getName();
+        String configuredRegistry = getConfiguredRegistry(imageConfig);
+        AuthConfig authConfig = prepareAuthConfig(name,configuredRegistry);
+
+        docker.pushImage(name, authConfig, configuredRegistry, pushLog);
+
+        for (String tag : imageConfig.getBuildConfiguration().getTags()) {
+            if (tag != null) {
+                docker.pushImage(new ImageName(name,tag).getFullName(), authConfig, configuredRegistry, pushLog);
             }
         }
     }
@@ -9,17 +9,25 @@ package org.jolokia.docker.maven;
  */
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.text.StrSubstitutor;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.codehaus.plexus.util.StringUtils;
 import org.jolokia.docker.maven.access.*;
+import org.jolokia.docker.maven.access.event.DockerEvent;
+import org.jolokia.docker.maven.access.event.EventCallback;
+import org.jolokia.docker.maven.access.event.EventDispatcher;
+import org.jolokia.docker.maven.access.event.EventFilter;
 import org.jolokia.docker.maven.access.log.LogCallback;
 import org.jolokia.docker.maven.access.log.LogGetHandle;
+import org.jolokia.docker.maven.access.log.LogLine;
+import org.jolokia.docker.maven.access.log.LogRange;
 import org.jolokia.docker.maven.config.*;
 import org.jolokia.docker.maven.log.LogDispatcher;
+import org.jolokia.docker.maven.model.Container;
+import org.jolokia.docker.maven.model.ContainerDetails;
 import org.jolokia.docker.maven.service.QueryService;
 import org.jolokia.docker.maven.service.RunService;
 import org.jolokia.docker.maven.util.*;
@@ -34,6 +42,12 @@ import org.jolokia.docker.maven.util.*;
  */
 public class StartMojo extends AbstractDockerMojo {
 
+    // Events indicating that a container is not running anymore
+    private static final String[] CONTAINER_STOP_EVENTS = { "die", "destroy" };
+
+    // Time given to other wait checkers for processing the last output of a stopped container
+    private static final long CONTAINER_STOP_GRACE_PERIOD = 1000;
+
     /**
      * @parameter property = "docker.showLogs"
      */
@@ -43,7 +57,18 @@ public class StartMojo extends AbstractDockerMojo {
      * @parameter property = "docker.follow" default-value = "false"
      */
     protected boolean follow;
- 
+
+    /**
+     * Maximum number of containers which are created, started and waited for concurrently. A container
+     * is only started after all containers it links to or mounts volumes from are up.
+     *
+     * @parameter property = "docker.startParallel" default-value = "1"
+     */
+    private int startParallel;
+
+    // Single event stream shared by all containers waited on
+    private EventDispatcher eventDispatcher;
+
     /**
      * {@inheritDoc}
      */
@@ -52,52 +77,83 @@ public class StartMojo extends AbstractDockerMojo {
         getPluginContext().put(CONTEXT_KEY_START_CALLED, true);
 
         QueryService queryService = serviceHub.getQueryService();
-        RunService runService = serviceHub.getRunService();
+        final RunService runService = serviceHub.getRunService();
         
-        LogDispatcher dispatcher = getLogDispatcher(dockerAccess);
+        final LogDispatcher dispatcher = getLogDispatcher(dockerAccess);
+        eventDispatcher = new EventDispatcher(dockerAccess);
 
         boolean success = false;
         try {
-            for (StartOrderResolver.Resolvable resolvable : runService.getImagesConfigsInOrder(queryService, getImages())) {
-                final ImageConfiguration imageConfig = (ImageConfiguration) resolvable;
-
-                // Still to check: How to work with linking, volumes, etc ....
-                //String imageName = new ImageName(imageConfig.getName()).getFullNameWithTag(registry);
-
-                String imageName = imageConfig.getName();
-                checkImageWithAutoPull(dockerAccess, imageName,
-                                       getConfiguredRegistry(imageConfig),imageConfig.getBuildConfiguration() == null);
+            Map<StartOrderResolver.Resolvable, List<StartOrderResolver.Resolvable>> imageDependencies =
+                    runService.getImageConfigDependencies(queryService, getImages());
 
-                RunImageConfiguration runConfig = imageConfig.getRunConfiguration();
-                PortMapping portMapping = runService.getPortMapping(runConfig, project.getProperties());
-
-                String containerId = runService.createAndStartContainer(imageConfig, portMapping, project.getProperties());
-
-                if (showLogs(imageConfig)) {
-                    dispatcher.trackContainerLog(containerId, getContainerLogSpec(containerId, imageConfig));
-                }
+            // Check for required images and pull them before any container is started
+            List<ImagePull> imagesToCheck = new ArrayList<>();
+            for (StartOrderResolver.Resolvable resolvable : imageDependencies.keySet()) {
+                ImageConfiguration imageConfig = (ImageConfiguration) resolvable;
+                imagesToCheck.add(new ImagePull(imageConfig.getName(), getConfiguredRegistry(imageConfig),
+                                                imageConfig.getBuildConfiguration() == null));
+            }
+            checkImagesWithAutoPull(dockerAccess, imagesToCheck);
 
-                // Set maven properties for dynamically assigned ports.
-                updateDynamicPortProperties(dockerAccess, containerId, runConfig, portMapping, project.getProperties());
+            new DependencyExecutor<StartOrderResolver.Resolvable>(startParallel, "docker-start").execute(
+                    imageDependencies,
+                    new DependencyExecutor.Task<StartOrderResolver.Resolvable>() {
+                        @Override
+                        public void execute(StartOrderResolver.Resolvable resolvable) throws DockerAccessException, MojoExecutionException {
+                            startContainer(dockerAccess, runService, dispatcher, (ImageConfiguration) resolvable);
+                        }
+                    });
 
-                // Wait if requested
-                waitIfRequested(dockerAccess,imageConfig, project.getProperties(), containerId);
-            }
             if (follow) {
-                runService.addShutdownHookForStoppingContainers(keepContainer,removeVolumes);
+                runService.addShutdownHookForStoppingContainers(keepContainer, removeVolumes, stopParallel);
                 wait();
             }
             success = true;
+        } catch (ExecutionException e) {
+            rethrowStartException(e.getCause());
         } catch (InterruptedException e) {
             log.warn("Interrupted");
             Thread.currentThread().interrupt();
             throw new MojoExecutionException("interrupted", e);
         } finally {
+            eventDispatcher.close();
             if (!success) {
-                runService.stopStartedContainers(keepContainer, removeVolumes);
+                runService.stopStartedContainers(keepContainer, removeVolumes, stopParallel);
             }
         }
     }
+
+    // Create and start a single container, possibly waiting on it. Called concurrently for independent images.
+    private void startContainer(DockerAccess dockerAccess, RunService runService, LogDispatcher dispatcher,
+                                ImageConfiguration imageConfig) throws DockerAccessException, MojoExecutionException {
+        RunImageConfiguration runConfig = imageConfig.getRunConfiguration();
+        PortMapping portMapping = runService.getPortMapping(runConfig, project.getProperties());
+
+        String containerId = runService.createAndStartContainer(imageConfig, portMapping, project.getProperties());
+
+        if (showLogs(imageConfig)) {
+            dispatcher.trackContainerLog(containerId, getContainerLogSpec(containerId, imageConfig));
+        }
+
+        // Set maven properties for dynamically assigned ports.
+        updateDynamicPortProperties(dockerAccess, containerId, runConfig, portMapping, project.getProperties());
+
+        // Wait if requested
+        waitIfRequested(dockerAccess,imageConfig, project.getProperties(), containerId);
+    }
+
+    private void rethrowStartException(Throwable cause) throws DockerAccessException, MojoExecutionException {
+        if (cause instanceof DockerAccessException) {
+            throw (DockerAccessException) cause;
+        } else if (cause instanceof MojoExecutionException) {
+            throw (MojoExecutionException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else {
+            throw new MojoExecutionException("Cannot start containers: " + cause, cause);
+        }
+    }
     
     private void updateDynamicPortProperties(DockerAccess docker, String containerId, RunImageConfiguration runConfig, PortMapping mappedPorts, Properties properties) throws DockerAccessException, MojoExecutionException {
         if (mappedPorts.containsDynamicPorts()) {
@@ -121,50 +177,94 @@ public class StartMojo extends AbstractDockerMojo {
                 checkers.add(new WaitUtil.HttpPingChecker(waitUrl));
                 logOut.add("on url " + waitUrl);
             }
-            if (wait.getLog() != null) {
-                checkers.add(getLogWaitChecker(wait.getLog(), docker, containerId));
-                logOut.add("on log out '" + wait.getLog() + "'");
+            List<String> logPatterns = getLogPatterns(wait);
+            List<String> logFailurePatterns =
+                wait.getLogFailurePatterns() != null ? wait.getLogFailurePatterns() : Collections.<String>emptyList();
+            if (!logPatterns.isEmpty()) {
+                logOut.add("on log out '" + StringUtils.join(logPatterns.iterator(), "', '") + "'");
+            }
+            // Without any other condition, failure patterns are only watched while waiting a fixed time
+            boolean timeOnly = checkers.isEmpty() && logPatterns.isEmpty();
+            if (!logPatterns.isEmpty() || (!logFailurePatterns.isEmpty() && wait.getTime() > 0)) {
+                checkers.add(getLogWaitChecker(logPatterns, logFailurePatterns, docker, containerId));
+            }
+            if (!checkers.isEmpty()) {
+                // Stop waiting as soon as the container dies
+                checkers.add(getContainerDeathChecker(docker, containerId));
             }
             try {
                 long waited = WaitUtil.wait(wait.getTime(), checkers.toArray(new WaitUtil.WaitChecker[0]));
                 log.info(imageConfig.getDescription() + ": Waited " + StringUtils.join(logOut.toArray(), " and ") + " " + waited + " ms");
             } catch (TimeoutException exp) {
+                if (timeOnly) {
+                    log.info(imageConfig.getDescription() + ": Waited " + wait.getTime() + " ms");
+                    return;
+                }
                 String desc = imageConfig.getDescription() + ": Timeout after " + wait.getTime() + " ms while waiting on " +
                               StringUtils.join(logOut.toArray(), " and ");
                 log.error(desc);
                 throw new MojoExecutionException(desc);
+            } catch (WaitUtil.WaitFailedException exp) {
+                String desc = imageConfig.getDescription() + ": " + exp.getMessage() + " while waiting on " +
+                              StringUtils.join(logOut.toArray(), " and ");
+                log.error(desc);
+                throw new MojoExecutionException(desc);
             }
         }
     }
 
-    private WaitUtil.WaitChecker getLogWaitChecker(final String logPattern, final DockerAccess docker, final String containerId) {
+    // The single log pattern and the list of patterns are combined
+    private List<String> getLogPatterns(WaitConfiguration wait) {
+        List<String> ret = new ArrayList<>();
+        if (wait.getLog() != null) {
+            ret.add(wait.getLog());
+        }
+        if (wait.getLogPatterns() != null) {
+            ret.addAll(wait.getLogPatterns());
+        }
+        return ret;
+    }
+
+    // Succeeds when all success patterns have been seen and fails as soon as a failure pattern occurs. All
+    // patterns are evaluated together, so that a line is scanned only once.
+    private WaitUtil.WaitChecker getLogWaitChecker(List<String> logPatterns, List<String> logFailurePatterns,
+                                                   final DockerAccess docker, final String containerId) {
+        List<String> all = new ArrayList<>(logPatterns);
+        all.addAll(logFailurePatterns);
+        final MultiPattern patterns = MultiPattern.compile(all);
+        final int nrSuccessPatterns = logPatterns.size();
         return new WaitUtil.WaitChecker() {
 
-            boolean first = true;
             LogGetHandle logHandle;
-            boolean detected = false;
 
             @Override
-            public boolean check() {
-                if (first) {
-                    final Pattern pattern = Pattern.compile(logPattern);
-                    logHandle = docker.getLogAsync(containerId, new LogCallback() {
-                        @Override
-                        public void log(int type, Timestamp timestamp, String txt) throws LogCallback.DoneException {
-                            if (pattern.matcher(txt).find()) {
-                                detected = true;
-                                throw new LogCallback.DoneException();
-                            }
+            public void start(final WaitFuture future) {
+                // Only used from the log thread, so the matcher can be reused for every line
+                final MultiPattern.Matcher matcher = patterns.matcher();
+                final BitSet seen = new BitSet();
+                LogRange range = getLogRangeSinceStart(docker, containerId);
+                logHandle = docker.getLogAsync(containerId, range, new LogCallback() {
+                    @Override
+                    public void log(LogLine line) throws LogCallback.DoneException {
+                        if (matcher.findAll(line.getText(), seen) == 0) {
+                            return;
                         }
-
-                        @Override
-                        public void error(String error) {
-                            log.error(error);
+                        int failed = seen.nextSetBit(nrSuccessPatterns);
+                        if (failed >= 0) {
+                            future.fail("Log out matched '" + patterns.pattern(failed) + "'");
+                            throw new LogCallback.DoneException();
                         }
-                    });
-                    first = false;
-                }
-                return detected;
+                        if (nrSuccessPatterns > 0 && seen.cardinality() == nrSuccessPatterns) {
+                            future.succeed();
+                            throw new LogCallback.DoneException();
+                        }
+                    }
+
+                    @Override
+                    public void error(String error) {
+                        log.error(error);
+                    }
+                });
             }
 
             @Override
@@ -176,6 +276,66 @@ public class StartMojo extends AbstractDockerMojo {
         };
     }
 
+    // Output of earlier runs of the same container (when restarted by its restart policy) is not of interest when waiting
+    private LogRange getLogRangeSinceStart(DockerAccess docker, String containerId) {
+        try {
+            Container container = docker.inspectContainer(containerId);
+            if (container instanceof ContainerDetails) {
+                ContainerDetails details = (ContainerDetails) container;
+                return LogRange.sinceStart(details.getStartedAt(), details.getRestartCount());
+            }
+        } catch (DockerAccessException exp) {
+            log.debug("Cannot get start time of container " + containerId + ": " + exp.getMessage());
+        }
+        return LogRange.ALL;
+    }
+
+    // Fails the wait when the container stops, which is detected via the event stream
+    private WaitUtil.WaitChecker getContainerDeathChecker(final DockerAccess docker, final String containerId) {
+        return new WaitUtil.WaitChecker() {
+
+            EventCallback listener;
+
+            @Override
+            public void start(final WaitFuture future) {
+                listener = new EventCallback() {
+                    @Override
+                    public void event(DockerEvent event) throws DoneException {
+                        future.failDelayed("Container " + containerId + " stopped (" + event.getStatus() + ")",
+                                           CONTAINER_STOP_GRACE_PERIOD);
+                        throw new DoneException();
+                    }
+
+                    @Override
+                    public void error(String error) {
+                        log.debug(error);
+                    }
+                };
+                eventDispatcher.addListener(new EventFilter.Builder()
+                                                    .type(DockerEvent.TYPE_CONTAINER)
+                                                    .container(containerId)
+                                                    .event(CONTAINER_STOP_EVENTS)
+                                                    .build(),
+                                            listener);
+                // The container might have already died before listening to the events
+                try {
+                    if (!docker.inspectContainer(containerId).isRunning()) {
+                        future.failDelayed("Container " + containerId + " is not running", CONTAINER_STOP_GRACE_PERIOD);
+                    }
+                } catch (DockerAccessException exp) {
+                    log.debug("Cannot inspect container " + containerId + ": " + exp.getMessage());
+                }
+            }
+
+            @Override
+            public void cleanUp() {
+                if (listener != null) {
+                    eventDispatcher.removeListener(listener);
+                }
+            }
+        };
+    }
+
     // Store dynamically mapped ports
     private void propagatePortVariables(PortMapping mappedPorts, String portPropertyFile, Properties properties) throws MojoExecutionException {
         Properties props = new Properties();
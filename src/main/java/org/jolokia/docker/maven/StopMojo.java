@@ -1,5 +1,8 @@
 package org.jolokia.docker.maven;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.apache.maven.plugin.MojoExecutionException;
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.DockerAccessException;
@@ -44,14 +47,16 @@ public class StopMojo extends AbstractDockerMojo {
         if (!keepRunning) {
             if (startCalled == null || !startCalled) {
                 // Called directly ....
+                Map<String, ImageConfiguration> containers = new LinkedHashMap<>();
                 for (ImageConfiguration image : getImages()) {
                     String imageName = image.getName();
                     for (Container container : queryService.getContainersForImage(imageName)) {
-                        runService.stopContainer(image, container.getId(), keepContainer, removeVolumes);
+                        containers.put(container.getId(), image);
                     }
                 }
+                runService.stopContainers(containers, keepContainer, removeVolumes, stopParallel);
             } else {
-                runService.stopStartedContainers(keepContainer, removeVolumes);
+                runService.stopStartedContainers(keepContainer, removeVolumes, stopParallel);
             }
         }
 
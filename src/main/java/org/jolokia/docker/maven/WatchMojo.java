@@ -15,9 +15,8 @@ package org.jolokia.docker.maven;/*
  * limitations under the License.
  */
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.*;
+import java.io.IOException;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -28,6 +27,7 @@ import org.apache.maven.plugin.assembly.format.AssemblyFormattingException;
 import org.codehaus.plexus.util.StringUtils;
 import org.jolokia.docker.maven.access.*;
 import org.jolokia.docker.maven.assembly.AssemblyFiles;
+import org.jolokia.docker.maven.assembly.AssemblyFilesTracker;
 import org.jolokia.docker.maven.config.*;
 import org.jolokia.docker.maven.service.*;
 import org.jolokia.docker.maven.util.*;
@@ -52,6 +52,9 @@ import static org.jolokia.docker.maven.config.WatchMode.both;
  */
 public class WatchMojo extends AbstractBuildSupporMojo {
 
+    // Maximum number of layers added incrementally before the image is rebuilt from scratch
+    private static final int MAX_INCREMENTAL_BUILDS = 10;
+
     /** @parameter property = "docker.watchMode" default-value="both" **/
     private WatchMode watchMode;
 
@@ -60,6 +63,29 @@ public class WatchMojo extends AbstractBuildSupporMojo {
      */
     private int watchInterval;
 
+    /**
+     * Time in milliseconds without further changes after which changed files trigger a rebuild
+     *
+     * @parameter property = "docker.watchDebounce" default-value = "200"
+     */
+    private int watchDebounce;
+
+    /**
+     * Whether to add only the changed files as a new layer on top of the previous image instead of
+     * rebuilding the image from scratch
+     *
+     * @parameter property = "docker.watchIncremental" default-value = "false"
+     */
+    private boolean watchIncremental;
+
+    /**
+     * Maximum number of images watched concurrently. Images linked to each other are always handled one
+     * after the other. If 0, all independent images are watched concurrently.
+     *
+     * @parameter property = "docker.watchParallel" default-value = "0"
+     */
+    private int watchParallel;
+
     /**
      * @parameter property = "docker.keepRunning" default-value = "false"
      */
@@ -70,28 +96,40 @@ public class WatchMojo extends AbstractBuildSupporMojo {
      */
     private String watchPostGoal;
 
-    // Scheduler
-    private ScheduledExecutorService executor;
+    // Scheduler running the tasks of images depending on each other one after the other
+    private SerializingScheduler executor;
+
+    // Post goals are called one after the other
+    private final Object postGoalLock = new Object();
+
+    // Trackers for changed assembly files, closed when watching ends
+    private final List<AssemblyFilesTracker> trackers = new ArrayList<>();
 
-    
     @Override
-    protected synchronized void executeInternal(DockerAccess dockerAccess) throws DockerAccessException, MojoExecutionException {
-        // Important to be be a single threaded scheduler since watch jobs must run serialized
-        executor = Executors.newSingleThreadScheduledExecutor();
+    protected boolean isLongRunning() {
+        return true;
+    }
 
+    @Override
+    protected synchronized void executeInternal(DockerAccess dockerAccess) throws DockerAccessException, MojoExecutionException {
         QueryService queryService = serviceHub.getQueryService();
         RunService runService = serviceHub.getRunService();
 
         MojoParameters mojoParameters = createMojoParameters();
-        
+
+        List<ImageConfiguration> images = getImages();
+        Map<ImageConfiguration, String> groups = getWatchGroups(images);
+        int parallelism = watchParallel > 0 ? watchParallel : new HashSet<>(groups.values()).size();
+        executor = new SerializingScheduler(parallelism, "docker-watch");
+
         try {
-            for (StartOrderResolver.Resolvable resolvable : runService.getImagesConfigsInOrder(queryService, getImages())) {
+            for (StartOrderResolver.Resolvable resolvable : runService.getImagesConfigsInOrder(queryService, images)) {
                 final ImageConfiguration imageConfig = (ImageConfiguration) resolvable;
 
                 String imageId = queryService.getImageId(imageConfig.getName());
                 String containerId = runService.lookupContainer(imageConfig.getName());
                 
-                ImageWatcher watcher = new ImageWatcher(imageConfig, imageId, containerId);
+                ImageWatcher watcher = new ImageWatcher(imageConfig, imageId, containerId, groups.get(imageConfig));
 
                 ArrayList<String> tasks = new ArrayList<>();
 
@@ -109,27 +147,59 @@ public class WatchMojo extends AbstractBuildSupporMojo {
             }
             log.info("Waiting ...");
             if (!keepRunning) {
-                runService.addShutdownHookForStoppingContainers(keepContainer, removeVolumes);
+                runService.addShutdownHookForStoppingContainers(keepContainer, removeVolumes, stopParallel);
             }
             wait();
         } catch (InterruptedException e) {
             log.warn("Interrupted");
         } finally {
             executor.shutdownNow();
+            closeTrackers();
+        }
+    }
+
+    // Images which are linked together or share volumes are put into the same group,
+    // named after one of its images
+    private Map<ImageConfiguration, String> getWatchGroups(List<ImageConfiguration> images) {
+        Map<String, String> parents = new HashMap<>();
+        for (ImageConfiguration image : images) {
+            String root = findGroup(parents, image.getName());
+            if (image.getAlias() != null) {
+                parents.put(findGroup(parents, image.getAlias()), root);
+            }
+            for (String dependency : image.getDependencies()) {
+                parents.put(findGroup(parents, dependency), findGroup(parents, root));
+            }
         }
+        Map<ImageConfiguration, String> ret = new HashMap<>();
+        for (ImageConfiguration image : images) {
+            ret.put(image, findGroup(parents, image.getName()));
+        }
+        return ret;
     }
 
-    private void scheduleBuildWatchTask(DockerAccess dockerAccess, ImageWatcher watcher, 
+    private String findGroup(Map<String, String> parents, String name) {
+        String current = name;
+        String parent;
+        while ((parent = parents.get(current)) != null && !parent.equals(current)) {
+            current = parent;
+        }
+        return current;
+    }
+
+    private void scheduleBuildWatchTask(DockerAccess dockerAccess, ImageWatcher watcher,
             MojoParameters mojoParameters, boolean doRestart) throws MojoExecutionException {
         executor.scheduleAtFixedRate(
+                watcher.getGroup(),
                 createBuildWatchTask(dockerAccess, watcher, mojoParameters, doRestart),
-                0, watcher.getInterval(), TimeUnit.MILLISECONDS);
+                watcher.getInterval());
     }
 
     private void scheduleRestartWatchTask(DockerAccess dockerAccess, ImageWatcher watcher) throws DockerAccessException {
         executor.scheduleAtFixedRate(
+                watcher.getGroup(),
                 createRestartWatchTask(dockerAccess, watcher),
-                0, watcher.getInterval(), TimeUnit.MILLISECONDS);
+                watcher.getInterval());
     }
 
     private Runnable createBuildWatchTask(final DockerAccess docker, final ImageWatcher watcher,
@@ -137,16 +207,21 @@ public class WatchMojo extends AbstractBuildSupporMojo {
             throws MojoExecutionException {
         final ImageConfiguration imageConfig = watcher.getImageConfiguration();
         final String name = imageConfig.getName();
-        final AssemblyFiles files = getAssemblyFiles(name, imageConfig.getBuildConfiguration(), mojoParameters);
+        final AssemblyFilesTracker tracker = createTracker(imageConfig, mojoParameters);
         return new Runnable() {
             @Override
             public void run() {
-                List<AssemblyFiles.Entry> entry = files.getUpdatedEntriesAndRefresh();
-                if (entry != null && entry.size() > 0) {
+                List<AssemblyFiles.Entry> entries = tracker.getChangedEntries();
+                if (entries.size() > 0) {
                     try {
-                        log.info(imageConfig.getDescription() + ": Assembly changed. Rebuild ...");
-                        // Rebuild whole image for now ...
-                        buildImage(docker, name, imageConfig);
+                        if (useIncrementalBuild(watcher)) {
+                            log.info(imageConfig.getDescription() + ": Assembly changed (" + getDescription(entries) + "). Update image ...");
+                            buildImageIncrementally(docker, watcher, entries, mojoParameters);
+                        } else {
+                            log.info(imageConfig.getDescription() + ": Assembly changed (" + getDescription(entries) + "). Rebuild ...");
+                            buildImage(docker, name, imageConfig);
+                            watcher.resetIncrementalBuilds();
+                        }
 
                         watcher.setImageId(serviceHub.getQueryService().getImageId(name));
                         if (doRestart) {
@@ -185,6 +260,60 @@ public class WatchMojo extends AbstractBuildSupporMojo {
         };
     }
 
+    private boolean useIncrementalBuild(ImageWatcher watcher) {
+        return watchIncremental &&
+               watcher.getImageId() != null &&
+               watcher.getIncrementalBuilds() < MAX_INCREMENTAL_BUILDS &&
+               dockerAssemblyManager.supportsIncrementalBuild(watcher.getImageConfiguration().getBuildConfiguration());
+    }
+
+    // Build a new image from the previous one with only the changed files added
+    private void buildImageIncrementally(DockerAccess docker, ImageWatcher watcher, List<AssemblyFiles.Entry> entries,
+                                         MojoParameters mojoParameters)
+            throws DockerAccessException, MojoExecutionException {
+        ImageConfiguration imageConfig = watcher.getImageConfiguration();
+        ArchiveWriter archiveWriter =
+                dockerAssemblyManager.createIncrementalDockerTarArchiveWriter(imageConfig.getName(), mojoParameters,
+                                                                              imageConfig.getBuildConfiguration(),
+                                                                              watcher.getImageId(), entries);
+        docker.buildImage(imageConfig.getName(), archiveWriter, false, log);
+        watcher.incrementIncrementalBuilds();
+    }
+
+    private AssemblyFilesTracker createTracker(ImageConfiguration imageConfig, MojoParameters mojoParameters)
+            throws MojoExecutionException {
+        String name = imageConfig.getName();
+        AssemblyFilesTracker tracker =
+                AssemblyFilesTracker.create(getAssemblyFiles(name, imageConfig.getBuildConfiguration(), mojoParameters),
+                                            watchDebounce);
+        log.debug(imageConfig.getDescription() + ": " +
+                  (tracker.isNotifying() ? "Using file system notifications" : "Polling files") + " for detecting changes");
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    private void closeTrackers() {
+        for (AssemblyFilesTracker tracker : trackers) {
+            try {
+                tracker.close();
+            } catch (IOException e) {
+                log.debug("Cannot close file tracker: " + e);
+            }
+        }
+        trackers.clear();
+    }
+
+    private String getDescription(List<AssemblyFiles.Entry> entries) {
+        if (entries.size() > 3) {
+            return entries.size() + " files";
+        }
+        List<String> names = new ArrayList<>();
+        for (AssemblyFiles.Entry entry : entries) {
+            names.add(entry.getDestFile().getPath());
+        }
+        return StringUtils.join(names.iterator(), ", ");
+    }
+
     private AssemblyFiles getAssemblyFiles(String name, BuildImageConfiguration buildConfiguration, MojoParameters mojoParameters)
             throws MojoExecutionException {
         try {
@@ -210,7 +339,9 @@ public class WatchMojo extends AbstractBuildSupporMojo {
     private void callPostGoal(ImageWatcher watcher) throws MojoFailureException, MojoExecutionException {
         String postGoal = watcher.getPostGoal();
         if (postGoal != null) {
-            serviceHub.getMojoExecutionService().callPluginGoal(postGoal);
+            synchronized (postGoalLock) {
+                serviceHub.getMojoExecutionService().callPluginGoal(postGoal);
+            }
         }
     }
 
@@ -225,9 +356,14 @@ public class WatchMojo extends AbstractBuildSupporMojo {
         private final long interval;
         private final ImageConfiguration imageConfig;
         private final String postGoal;
+        private final String group;
+
+        // Number of layers added since the last full build
+        private int incrementalBuilds;
 
-        public ImageWatcher(ImageConfiguration imageConfig, String imageId, String containerIdRef) {
+        public ImageWatcher(ImageConfiguration imageConfig, String imageId, String containerIdRef, String group) {
             this.imageConfig = imageConfig;
+            this.group = group;
 
             this.imageIdRef = new AtomicReference<>(imageId);
             this.containerIdRef = new AtomicReference<>(containerIdRef);
@@ -241,10 +377,30 @@ public class WatchMojo extends AbstractBuildSupporMojo {
             return containerIdRef.get();
         }
 
+        public String getImageId() {
+            return imageIdRef.get();
+        }
+
+        public int getIncrementalBuilds() {
+            return incrementalBuilds;
+        }
+
+        public void incrementIncrementalBuilds() {
+            incrementalBuilds++;
+        }
+
+        public void resetIncrementalBuilds() {
+            incrementalBuilds = 0;
+        }
+
         public long getInterval() {
             return interval;
         }
 
+        public String getGroup() {
+            return group;
+        }
+
         public String getPostGoal() {
             return postGoal;
         }
@@ -0,0 +1,37 @@
+package org.jolokia.docker.maven.access;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Source of a build archive which is written directly into the request sent to the Docker daemon,
+ * so that no intermediate file is required.
+ *
+ * @author roland
+ * @since 26/10/15
+ */
+public interface ArchiveWriter {
+
+    /**
+     * Write the archive as tar stream. The stream must not be closed.
+     *
+     * @param out stream to write to
+     * @throws IOException if the archive can't be created or written
+     */
+    void write(OutputStream out) throws IOException;
+}
@@ -0,0 +1,351 @@
+package org.jolokia.docker.maven.access;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.*;
+
+import org.jolokia.docker.maven.access.event.DockerEvent;
+import org.jolokia.docker.maven.access.event.EventCallback;
+import org.jolokia.docker.maven.access.event.EventFilter;
+import org.jolokia.docker.maven.access.log.LogCallback;
+import org.jolokia.docker.maven.access.log.LogGetHandle;
+import org.jolokia.docker.maven.access.log.LogRange;
+import org.jolokia.docker.maven.model.*;
+import org.jolokia.docker.maven.util.Logger;
+
+/**
+ * Docker access which keeps a snapshot of container and image listings, so that repeated queries
+ * don't hit the daemon. The snapshot is dropped whenever a call through this object changes containers or
+ * images. Optionally the docker event stream is followed, so that changes done from the outside
+ * invalidate the snapshot, too.
+ *
+ * The object is shared across the goals of a Maven run, whereas the access it delegates to is
+ * replaced for every goal execution via {@link #setDelegate(DockerAccess)}.
+ *
+ * @author roland
+ * @since 25/10/15
+ */
+public class CachingDockerAccess implements DockerAccess {
+
+    private volatile DockerAccess delegate;
+    private volatile boolean cacheEnabled = true;
+
+    private final Map<String, List<Container>> containerCache = new HashMap<>();
+    private final Map<String, List<Image>> imageCache = new HashMap<>();
+
+    // Incremented for every invalidation so that responses requested before can be discarded
+    private long generation;
+
+    private LogGetHandle eventHandle;
+
+    /**
+     * Create a caching access
+     *
+     * @param delegate access for talking to the docker daemon
+     */
+    public CachingDockerAccess(DockerAccess delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Switch to a new access object. The cache is cleared.
+     *
+     * @param delegate access for talking to the docker daemon
+     */
+    public void setDelegate(DockerAccess delegate) {
+        this.delegate = delegate;
+        invalidate();
+    }
+
+    /**
+     * Enable or disable caching. When disabled, all listings are fetched from the daemon.
+     *
+     * @param cacheEnabled whether to cache listings
+     */
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+        invalidate();
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Follow the event stream of the daemon and drop the snapshot for every event received. If
+     * the stream fails, caching is switched off since changes could go unnoticed.
+     *
+     * @param log logger for reporting a failing stream
+     */
+    public synchronized void trackEvents(final Logger log) {
+        if (eventHandle != null) {
+            return;
+        }
+        eventHandle = delegate.getEventsAsync(new EventCallback() {
+            @Override
+            public void event(DockerEvent event) {
+                invalidate();
+            }
+
+            @Override
+            public void error(String error) {
+                log.debug("Disabling query cache: " + error);
+                setCacheEnabled(false);
+            }
+        });
+    }
+
+    /**
+     * Drop all cached listings
+     */
+    public synchronized void invalidate() {
+        generation++;
+        containerCache.clear();
+        imageCache.clear();
+    }
+
+    @Override
+    public String getApiVersion() {
+        return delegate.getApiVersion();
+    }
+
+    @Override
+    public List<Container> listContainers(ListArg... args) throws DockerAccessException {
+        if (!cacheEnabled) {
+            return delegate.listContainers(args);
+        }
+        String key = getKey(args);
+        long requestGeneration;
+        synchronized (this) {
+            List<Container> cached = containerCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            requestGeneration = generation;
+        }
+        List<Container> result = Collections.unmodifiableList(delegate.listContainers(args));
+        synchronized (this) {
+            if (requestGeneration == generation) {
+                containerCache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Image> listImages(ListArg... args) throws DockerAccessException {
+        if (!cacheEnabled) {
+            return delegate.listImages(args);
+        }
+        String key = getKey(args);
+        long requestGeneration;
+        synchronized (this) {
+            List<Image> cached = imageCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            requestGeneration = generation;
+        }
+        List<Image> result = Collections.unmodifiableList(delegate.listImages(args));
+        synchronized (this) {
+            if (requestGeneration == generation) {
+                imageCache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Container inspectContainer(String containerId) throws DockerAccessException {
+        return delegate.inspectContainer(containerId);
+    }
+
+    @Override
+    public String createContainer(ContainerCreateConfig configuration, String containerName) throws DockerAccessException {
+        try {
+            return delegate.createContainer(configuration, containerName);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void startContainer(String containerId) throws DockerAccessException {
+        try {
+            delegate.startContainer(containerId);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void stopContainer(String containerId) throws DockerAccessException {
+        try {
+            delegate.stopContainer(containerId);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public Map<String, Integer> queryContainerPortMapping(String containerId) throws DockerAccessException {
+        return delegate.queryContainerPortMapping(containerId);
+    }
+
+    @Override
+    public void getLogSync(String containerId, LogCallback callback) {
+        delegate.getLogSync(containerId, callback);
+    }
+
+    @Override
+    public LogGetHandle getLogAsync(String containerId, LogCallback callback) {
+        return delegate.getLogAsync(containerId, callback);
+    }
+
+    @Override
+    public void getLogSync(String containerId, LogRange range, LogCallback callback) {
+        delegate.getLogSync(containerId, range, callback);
+    }
+
+    @Override
+    public LogGetHandle getLogAsync(String containerId, LogRange range, LogCallback callback) {
+        return delegate.getLogAsync(containerId, range, callback);
+    }
+
+    @Override
+    public LogGetHandle getEventsAsync(EventCallback callback) {
+        return delegate.getEventsAsync(callback);
+    }
+
+    @Override
+    public LogGetHandle getEventsAsync(EventFilter filter, EventCallback callback) {
+        return delegate.getEventsAsync(filter, callback);
+    }
+
+    @Override
+    public void removeContainer(String containerId, boolean removeVolumes) throws DockerAccessException {
+        try {
+            delegate.removeContainer(containerId, removeVolumes);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void pullImage(String image, AuthConfig authConfig, String registry) throws DockerAccessException {
+        try {
+            delegate.pullImage(image, authConfig, registry);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void pullImage(String image, AuthConfig authConfig, String registry, Logger log) throws DockerAccessException {
+        try {
+            delegate.pullImage(image, authConfig, registry, log);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void pushImage(String image, AuthConfig authConfig, String registry) throws DockerAccessException {
+        delegate.pushImage(image, authConfig, registry);
+    }
+
+    @Override
+    public void pushImage(String image, AuthConfig authConfig, String registry, Logger log) throws DockerAccessException {
+        delegate.pushImage(image, authConfig, registry, log);
+    }
+
+    @Override
+    public void buildImage(String image, File dockerArchive) throws DockerAccessException {
+        try {
+            delegate.buildImage(image, dockerArchive);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void buildImage(String image, File dockerArchive, Logger log) throws DockerAccessException {
+        try {
+            delegate.buildImage(image, dockerArchive, log);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void buildImage(String image, ArchiveWriter archiveWriter, boolean compress, Logger log) throws DockerAccessException {
+        try {
+            delegate.buildImage(image, archiveWriter, compress, log);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void tag(String sourceImage, String targetImage, boolean force) throws DockerAccessException {
+        try {
+            delegate.tag(sourceImage, targetImage, force);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public boolean removeImage(String image, boolean... force) throws DockerAccessException {
+        try {
+            return delegate.removeImage(image, force);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void start() throws DockerAccessException {
+        delegate.start();
+    }
+
+    /**
+     * Stop following events, drop the cache and shutdown the delegate. This object can be used again after
+     * a new delegate has been set.
+     */
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            if (eventHandle != null) {
+                eventHandle.finish();
+                eventHandle = null;
+            }
+        }
+        invalidate();
+        delegate.shutdown();
+    }
+
+    // ================================================================================
+
+    private String getKey(ListArg... args) {
+        StringBuilder ret = new StringBuilder();
+        for (ListArg arg : args) {
+            ret.append(arg.getKey()).append('=').append(arg.getValue()).append('&');
+        }
+        return ret.toString();
+    }
+}
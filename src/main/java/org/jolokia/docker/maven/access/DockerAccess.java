@@ -1,12 +1,19 @@
 package org.jolokia.docker.maven.access;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import org.jolokia.docker.maven.access.event.EventCallback;
+import org.jolokia.docker.maven.access.event.EventFilter;
 import org.jolokia.docker.maven.access.log.LogCallback;
 import org.jolokia.docker.maven.access.log.LogGetHandle;
+import org.jolokia.docker.maven.access.log.LogRange;
 import org.jolokia.docker.maven.model.*;
+import org.jolokia.docker.maven.util.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 /**
  * Access to the <a href="http://docs.docker.io/en/latest/reference/api/docker_remote_api/">Docker API</a> which
@@ -44,6 +51,13 @@ public interface DockerAccess {
      * @throws DockerAccessException if the containers could not be listed
      */
     List<Container> listContainers(ListArg... args) throws DockerAccessException;
+
+    /**
+     * Get the version of the remote API used for talking to the daemon
+     *
+     * @return API version like "v1.21"
+     */
+    String getApiVersion();
     
     /**
      * Create a container from the given image.
@@ -91,6 +105,15 @@ public interface DockerAccess {
      */
     void getLogSync(String containerId, LogCallback callback);
 
+    /**
+     * Get a part of the logs for a container up to now synchronously.
+     *
+     * @param containerId container id
+     * @param range part of the log to fetch
+     * @param callback which is called for each line received
+     */
+    void getLogSync(String containerId, LogRange range, LogCallback callback);
+
     /**
      * Get logs asynchronously. This call will start a thread in the background for doing the request.
      * It returns a handle which can be used to abort the request on demand.
@@ -101,6 +124,36 @@ public interface DockerAccess {
      */
     LogGetHandle getLogAsync(String containerId, LogCallback callback);
 
+    /**
+     * Get logs asynchronously, starting with the given part of the log.
+     *
+     * @param containerId id of the container for which to fetch the logs
+     * @param range part of the existing log to fetch before following new entries
+     * @param callback to call when log data arrives
+     * @return handle for managing the lifecycle of the request
+     */
+    LogGetHandle getLogAsync(String containerId, LogRange range, LogCallback callback);
+
+    /**
+     * Follow the events of the Docker daemon asynchronously. This call will start a thread in the background
+     * which calls the callback for every event happening from now on.
+     *
+     * @param callback to call when an event arrives
+     * @return handle for stopping to listen for events
+     */
+    LogGetHandle getEventsAsync(EventCallback callback);
+
+    /**
+     * Follow the events of the Docker daemon which match a filter. The filter is sent to the daemon and
+     * applied to the events received as well. If the connection to the daemon breaks, listening is resumed
+     * from the time of the last event received.
+     *
+     * @param filter filter for the events
+     * @param callback to call when an event arrives
+     * @return handle for stopping to listen for events
+     */
+    LogGetHandle getEventsAsync(EventFilter filter, EventCallback callback);
+
     /**
      * Remove a container with the given id
      *
@@ -120,6 +173,18 @@ public interface DockerAccess {
      */
     void pullImage(String image, AuthConfig authConfig, String registry) throws DockerAccessException;
 
+    /**
+     * Pull an image like {@link #pullImage(String, AuthConfig, String)} does, but print the progress to the
+     * given logger
+     *
+     * @param image image name to pull
+     * @param authConfig authentication configuration used when pulling an image
+     * @param registry an optional registry from where to pull the image. Can be null.
+     * @param log logger to print the progress to
+     * @throws DockerAccessException if the image couldn't be pulled.
+     */
+    void pullImage(String image, AuthConfig authConfig, String registry, Logger log) throws DockerAccessException;
+
     /**
      * Push an image to a registry. An registry can be specified which is used as target
      * if the image name the image does not contain a registry.
@@ -134,6 +199,18 @@ public interface DockerAccess {
      */
     void pushImage(String image, AuthConfig authConfig, String registry) throws DockerAccessException;
 
+    /**
+     * Push an image like {@link #pushImage(String, AuthConfig, String)} does, but print the progress to the
+     * given logger
+     *
+     * @param image image name to push
+     * @param authConfig authentication configuration
+     * @param registry optional registry to which the image should be pushed.
+     * @param log logger to print the progress to
+     * @throws DockerAccessException in case pushing fails
+     */
+    void pushImage(String image, AuthConfig authConfig, String registry, Logger log) throws DockerAccessException;
+
     /**
      * Create an docker image from a given archive
      *
@@ -143,6 +220,27 @@ public interface DockerAccess {
      */
     void buildImage(String image, File dockerArchive) throws DockerAccessException;
 
+    /**
+     * Create an docker image from a given archive and print the build output to the given logger
+     *
+     * @param image name of the image to build or <code>null</code> if none should be used
+     * @param dockerArchive from which the docker image should be build
+     * @param log logger to print the build output to
+     * @throws DockerAccessException if docker host reports an error during building of an image
+     */
+    void buildImage(String image, File dockerArchive, Logger log) throws DockerAccessException;
+
+    /**
+     * Create an docker image from an archive which is streamed to the Docker daemon while it is created
+     *
+     * @param image name of the image to build or <code>null</code> if none should be used
+     * @param archiveWriter writer creating the archive from which the docker image should be build
+     * @param compress whether to compress the archive with gzip
+     * @param log logger to print the build output to
+     * @throws DockerAccessException if docker host reports an error during building of an image
+     */
+    void buildImage(String image, ArchiveWriter archiveWriter, boolean compress, Logger log) throws DockerAccessException;
+
     /**
      * Alias an image in the repository with a complete new name. (Note that this maps to a Docker Remote API 'tag'
      * operation, which IMO is badly named since it also can generate a complete alias to a given image)
@@ -199,5 +297,31 @@ public interface DockerAccess {
         public static ListArg limit(int value) {
             return new ListArg("limit", String.valueOf(value));
         }
+
+        /**
+         * Include containers which are not running
+         */
+        public static ListArg all() {
+            return new ListArg("all", "1");
+        }
+
+        /**
+         * Only containers created before the given container, for paging through containers
+         */
+        public static ListArg before(String containerId) {
+            return new ListArg("before", containerId);
+        }
+
+        /**
+         * Filter evaluated by the daemon, like <code>name</code>, <code>ancestor</code> or <code>label</code>
+         *
+         * @param filter name of the filter
+         * @param values values of which any must match
+         */
+        public static ListArg filters(String filter, String... values) {
+            JSONObject filters = new JSONObject();
+            filters.put(filter, new JSONArray(Arrays.asList(values)));
+            return new ListArg("filters", filters.toString());
+        }
     }
 }
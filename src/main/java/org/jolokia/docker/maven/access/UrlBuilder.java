@@ -5,6 +5,7 @@ import java.net.URLEncoder;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.jolokia.docker.maven.access.log.LogRange;
 import org.jolokia.docker.maven.util.ImageName;
 
 public final class UrlBuilder {
@@ -19,6 +20,10 @@ public final class UrlBuilder {
         this.baseUrl = stripSlash(baseUrl);
     }
 
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
     public String buildImage(String tag, boolean forcerm, boolean pull) {
         String url = createUrl("/build");
         
@@ -37,13 +42,36 @@ public final class UrlBuilder {
     }
 
     public String containerLogs(String containerId, boolean follow) {
+        return containerLogs(containerId, follow, LogRange.ALL);
+    }
+
+    public String containerLogs(String containerId, boolean follow, LogRange range) {
         String url = createUrl(String.format("/containers/%s/logs", containerId));
         url += "?stdout=1&stderr=1&timestamps=1";
         url = addQueryParam(url, "follow", follow);
-        
+        Long since = range.getSinceSeconds();
+        if (since != null) {
+            url = addQueryParam(url, "since", since.toString());
+        }
+        if (range.getTail() >= 0) {
+            url = addQueryParam(url, "tail", Integer.toString(range.getTail()));
+        }
+
         return url;
     }
     
+    public String events() {
+        return createUrl("/events");
+    }
+
+    public String events(Long since, String filters) {
+        String url = events();
+        if (since != null) {
+            url = addQueryParam(url, "since", since.toString());
+        }
+        return addQueryParam(url, "filters", filters);
+    }
+
     public String createContainer(String name) {
         String url = createUrl("/containers/create");
         url = addQueryParam(url, "name", name);
@@ -1,10 +1,15 @@
 package org.jolokia.docker.maven.access.chunked;
 
+import java.util.*;
+
 import org.jolokia.docker.maven.access.DockerAccessException;
 import org.jolokia.docker.maven.util.Logger;
 import org.json.JSONObject;
 
-public class BuildResponseHandler implements ChunkedResponseHandler<JSONObject> {
+public class BuildResponseHandler implements ChunkedJsonResponseHandler {
+
+    private static final Set<String> FIELDS =
+            new HashSet<>(Arrays.asList("error", "errorDetail", "stream", "status", "id"));
 
     private final Logger log;
 
@@ -12,6 +17,11 @@ public class BuildResponseHandler implements ChunkedResponseHandler<JSONObject>
         this.log = log;
     }
     
+    @Override
+    public Set<String> getFields() {
+        return FIELDS;
+    }
+
     @Override
     public void process(JSONObject json) throws DockerAccessException {
         if (json.has("error")) {
@@ -0,0 +1,22 @@
+package org.jolokia.docker.maven.access.chunked;
+
+import java.util.Set;
+
+import org.json.JSONObject;
+
+/**
+ * Handler for the JSON objects of a chunked response
+ *
+ * @author roland
+ * @since 22/10/15
+ */
+public interface ChunkedJsonResponseHandler extends ChunkedResponseHandler<JSONObject> {
+
+    /**
+     * Top-level fields evaluated by this handler. Only these fields are extracted from the
+     * response objects.
+     *
+     * @return fields to extract or <code>null</code> if all fields should be extracted
+     */
+    Set<String> getFields();
+}
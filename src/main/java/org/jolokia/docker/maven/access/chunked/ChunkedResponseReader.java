@@ -1,28 +1,43 @@
 package org.jolokia.docker.maven.access.chunked;
 
-import org.jolokia.docker.maven.access.DockerAccessException;
-
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.util.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Reader for chunked responses, which consist of a stream of JSON objects. Each object
+ * is handed over to a handler as soon as it has been read completely.
+ */
 public class ChunkedResponseReader {
 
     private final InputStream stream;
-    private final ChunkedResponseHandler<String> handler;
-    
-    public ChunkedResponseReader(InputStream stream, ChunkedResponseHandler<String> handler) {
+    private final ChunkedJsonResponseHandler handler;
+    private final Logger log;
+
+    public ChunkedResponseReader(InputStream stream, ChunkedJsonResponseHandler handler, Logger log) {
         this.stream = stream;
         this.handler = handler;
-    }        
-    
+        this.log = log;
+    }
+
     public void process() throws IOException, DockerAccessException {
-        int len;
-        int size = 8129;
-        byte[] buf = new byte[size];
-        // Data comes in chunkwise
-        while ((len = stream.read(buf, 0, size)) != -1) {
-            String txt = new String(buf, 0, len, "UTF-8");
-            handler.process(txt);
+        JsonStreamParser parser = new JsonStreamParser(stream, handler.getFields());
+        while (true) {
+            JSONObject json;
+            try {
+                json = parser.next();
+            } catch (JSONException exp) {
+                log.warn("Couldn't parse answer chunk: " + exp.getMessage());
+                continue;
+            }
+            if (json == null) {
+                return;
+            }
+            handler.process(json);
         }
     }
 }
@@ -0,0 +1,361 @@
+package org.jolokia.docker.maven.access.chunked;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.*;
+
+/**
+ * Incremental parser for a stream of concatenated JSON objects as sent by the Docker daemon
+ * for build, pull and push requests. The boundaries of the objects are independent of how
+ * the data arrives, so multiple objects within one chunk as well as objects split over several
+ * chunks are handled. The elements of a top-level array (like for listing containers or images)
+ * are returned one by one in the same way.
+ *
+ * Only the fields given are materialized, all other values are skipped without creating
+ * any objects for them. Fields of nested objects are selected by their dotted path like
+ * <code>State.Running</code>. The read buffer and the buffer for building up strings are reused.
+ *
+ * @author roland
+ * @since 22/10/15
+ */
+public class JsonStreamParser {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final Selection fields;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos, limit;
+
+    // Reused for strings and numbers
+    private final StringBuilder text = new StringBuilder();
+
+    // Set after a syntax error so that the next call skips to the next object
+    private boolean recovering;
+
+    /**
+     * Create a parser
+     *
+     * @param stream stream to parse, which is decoded as UTF-8
+     * @param fields fields to extract, fields of nested objects given by their dotted path.
+     *               If <code>null</code> all fields are extracted.
+     */
+    public JsonStreamParser(InputStream stream, Set<String> fields) {
+        this.reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+        this.fields = fields != null ? new Selection(fields) : null;
+    }
+
+    /**
+     * Read the next object from the stream. This call blocks until an object is complete or
+     * the stream ends.
+     *
+     * @return the next object or <code>null</code> if the end of the stream is reached
+     * @throws JSONException if the stream is malformed. Another call to this method will skip to the next
+     *         object so that parsing can continue.
+     * @throws IOException if reading from the stream fails
+     */
+    public JSONObject next() throws IOException {
+        int c = recovering ? skipToObjectStart() : nextTopLevel();
+        if (c == -1) {
+            return null;
+        }
+        recovering = true;
+        if (c != '{') {
+            throw syntaxError("Expected '{' but got '" + (char) c + "'");
+        }
+        JSONObject ret = readObject(fields);
+        recovering = false;
+        return ret;
+    }
+
+    // ==========================================================================================
+
+    private JSONObject readObject(Selection selected) throws IOException {
+        JSONObject object = new JSONObject();
+        int c = nextNonWhitespace();
+        if (c == '}') {
+            return object;
+        }
+        while (true) {
+            if (c != '"') {
+                throw syntaxError("Expected field name");
+            }
+            String key = readString();
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("Expected ':' after field \"" + key + "\"");
+            }
+            c = nextNonWhitespace();
+            if (selected == null) {
+                object.put(key, readValue(c));
+            } else if (selected.contains(key)) {
+                Selection nested = selected.get(key);
+                object.put(key, nested != null && c == '{' ? readObject(nested) : readValue(c));
+            } else {
+                skipValue(c);
+            }
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return object;
+            }
+            if (c != ',') {
+                throw syntaxError("Expected ',' or '}'");
+            }
+            c = nextNonWhitespace();
+        }
+    }
+
+    private JSONArray readArray() throws IOException {
+        JSONArray array = new JSONArray();
+        int c = nextNonWhitespace();
+        if (c == ']') {
+            return array;
+        }
+        while (true) {
+            array.put(readValue(c));
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return array;
+            }
+            if (c != ',') {
+                throw syntaxError("Expected ',' or ']'");
+            }
+            c = nextNonWhitespace();
+        }
+    }
+
+    private Object readValue(int c) throws IOException {
+        switch (c) {
+            case '{':
+                return readObject(null);
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case -1:
+                throw syntaxError("Unexpected end of stream");
+            default:
+                return readLiteral(c);
+        }
+    }
+
+    // Reads a string after the opening quote
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return text.toString();
+            } else if (c == '\\') {
+                text.append(readEscape());
+            } else if (c == -1) {
+                throw syntaxError("Unterminated string");
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Illegal unicode escape");
+                    }
+                    value = (value << 4) + digit;
+                }
+                return (char) value;
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw syntaxError("Illegal escape character");
+        }
+    }
+
+    // true, false, null or a number
+    private Object readLiteral(int first) throws IOException {
+        text.setLength(0);
+        text.append((char) first);
+        int c;
+        while ((c = peek()) != -1 && !isDelimiter(c)) {
+            text.append((char) read());
+        }
+        String value = text.toString();
+        switch (value) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "null":
+                return JSONObject.NULL;
+        }
+        try {
+            if (value.indexOf('.') >= 0 || value.indexOf('e') >= 0 || value.indexOf('E') >= 0) {
+                return Double.valueOf(value);
+            }
+            long number = Long.parseLong(value);
+            if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return (int) number;
+            }
+            return number;
+        } catch (NumberFormatException exp) {
+            throw syntaxError("Illegal value '" + value + "'");
+        }
+    }
+
+    private void skipValue(int c) throws IOException {
+        if (c == '{' || c == '[') {
+            skipStructure();
+        } else if (c == '"') {
+            skipString();
+        } else if (c == -1) {
+            throw syntaxError("Unexpected end of stream");
+        } else {
+            while ((c = peek()) != -1 && !isDelimiter(c)) {
+                read();
+            }
+        }
+    }
+
+    // Skip a nested object or array after the opening bracket
+    private void skipStructure() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            } else if (c == '"') {
+                skipString();
+            } else if (c == -1) {
+                throw syntaxError("Unexpected end of stream");
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                read();
+            } else if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private int skipToObjectStart() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && c != '{');
+        return c;
+    }
+
+    // Skips the brackets and commas of a top-level array
+    private int nextTopLevel() throws IOException {
+        int c;
+        do {
+            c = nextNonWhitespace();
+        } while (c == '[' || c == ',' || c == ']');
+        return c;
+    }
+
+    private boolean isDelimiter(int c) {
+        return c == ',' || c == '}' || c == ']' || Character.isWhitespace(c);
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        return fill() ? buffer[pos++] : -1;
+    }
+
+    private int peek() throws IOException {
+        return fill() ? buffer[pos] : -1;
+    }
+
+    // Only blocks if the buffer is exhausted, so that an object is handed out as soon as it is complete
+    private boolean fill() throws IOException {
+        while (pos >= limit) {
+            int len = reader.read(buffer, 0, BUFFER_SIZE);
+            if (len == -1) {
+                return false;
+            }
+            pos = 0;
+            limit = len;
+        }
+        return true;
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message);
+    }
+
+    // Selected fields of an object, with a nested selection for fields of which only parts are selected
+    private static final class Selection {
+
+        // null values select the whole field
+        private final Map<String, Selection> fields = new HashMap<>();
+
+        private Selection(Set<String> paths) {
+            for (String path : paths) {
+                add(path);
+            }
+        }
+
+        private Selection() {
+        }
+
+        private void add(String path) {
+            int idx = path.indexOf('.');
+            if (idx < 0) {
+                fields.put(path, null);
+                return;
+            }
+            String key = path.substring(0, idx);
+            if (fields.containsKey(key) && fields.get(key) == null) {
+                // Whole field selected already
+                return;
+            }
+            Selection nested = fields.get(key);
+            if (nested == null) {
+                nested = new Selection();
+                fields.put(key, nested);
+            }
+            nested.add(path.substring(idx + 1));
+        }
+
+        private boolean contains(String key) {
+            return fields.containsKey(key);
+        }
+
+        private Selection get(String key) {
+            return fields.get(key);
+        }
+    }
+}
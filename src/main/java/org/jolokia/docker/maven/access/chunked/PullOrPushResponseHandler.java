@@ -1,10 +1,15 @@
 package org.jolokia.docker.maven.access.chunked;
 
+import java.util.*;
+
 import org.jolokia.docker.maven.access.DockerAccessException;
 import org.jolokia.docker.maven.util.Logger;
 import org.json.JSONObject;
 
-public class PullOrPushResponseHandler implements ChunkedResponseHandler<JSONObject> {
+public class PullOrPushResponseHandler implements ChunkedJsonResponseHandler {
+
+    private static final Set<String> FIELDS =
+            new HashSet<>(Arrays.asList("progressDetail", "error", "errorDetail", "id", "status", "stream"));
 
     private boolean downloadInProgress = false;
 
@@ -14,6 +19,11 @@ public class PullOrPushResponseHandler implements ChunkedResponseHandler<JSONObj
         this.log = log;
     }
     
+    @Override
+    public Set<String> getFields() {
+        return FIELDS;
+    }
+
     @Override
     public void process(JSONObject json) throws DockerAccessException {
         if (json.has("progressDetail")) {
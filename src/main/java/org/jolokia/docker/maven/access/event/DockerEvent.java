@@ -0,0 +1,107 @@
+package org.jolokia.docker.maven.access.event;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.json.JSONObject;
+
+/**
+ * An event as reported by the Docker daemon, e.g. when a container is started or dies.
+ *
+ * @author roland
+ * @since 25/10/15
+ */
+public class DockerEvent {
+
+    /** Type of events about containers */
+    public static final String TYPE_CONTAINER = "container";
+
+    /** Type of events about images */
+    public static final String TYPE_IMAGE = "image";
+
+    /** Top-level fields of the event JSON objects which are evaluated */
+    static final String[] FIELDS = { "status", "id", "from", "time", "timeNano", "Type" };
+
+    private final JSONObject json;
+
+    public DockerEvent(JSONObject json) {
+        this.json = json;
+    }
+
+    /**
+     * @return event type like "create", "start", "die" or "destroy"
+     */
+    public String getStatus() {
+        return json.optString("status", null);
+    }
+
+    /**
+     * @return full id of the container or image this event is about
+     */
+    public String getId() {
+        return json.optString("id", null);
+    }
+
+    /**
+     * @return image of the container for container events
+     */
+    public String getFrom() {
+        return json.optString("from", null);
+    }
+
+    /**
+     * Get the type of object this event is about. Older daemons don't report a type, in which case
+     * events with an image they stem from are taken as container events.
+     *
+     * @return {@link #TYPE_CONTAINER}, {@link #TYPE_IMAGE} or any other type reported by the daemon
+     */
+    public String getType() {
+        String type = json.optString("Type", null);
+        if (type != null) {
+            return type;
+        }
+        return getFrom() != null ? TYPE_CONTAINER : TYPE_IMAGE;
+    }
+
+    /**
+     * @return time of the event in seconds since the epoch
+     */
+    public long getTime() {
+        return json.optLong("time", 0);
+    }
+
+    /**
+     * Check whether this event is about the given container
+     *
+     * @param containerId full or short container id
+     * @return true if the event belongs to the container
+     */
+    public boolean isForContainer(String containerId) {
+        String id = getId();
+        return id != null && containerId != null && id.startsWith(containerId);
+    }
+
+    /**
+     * @return key identifying this event, used for detecting events reported twice
+     */
+    String getKey() {
+        return getStatus() + "|" + getId() + "|" + getFrom() + "|" + json.optLong("timeNano", getTime());
+    }
+
+    @Override
+    public String toString() {
+        return getStatus() + " " + getId() + (getFrom() != null ? " (" + getFrom() + ")" : "");
+    }
+}
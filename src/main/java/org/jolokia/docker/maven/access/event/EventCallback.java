@@ -0,0 +1,44 @@
+package org.jolokia.docker.maven.access.event;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Interface called for each event received from the docker host
+ *
+ * @author roland
+ * @since 25/10/15
+ */
+public interface EventCallback {
+
+    /**
+     * Receive an event
+     *
+     * @param event the event
+     * @throws DoneException if thrown will stop listening for events
+     */
+    void event(DockerEvent event) throws DoneException;
+
+    /**
+     * Method called in case on an error when reading the events
+     * @param error error description
+     */
+    void error(String error);
+
+    /**
+     * Exception indicating that listening to events is done and should be finished
+     */
+    public class DoneException extends Exception {}
+}
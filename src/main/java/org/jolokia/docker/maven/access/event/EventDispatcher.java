@@ -0,0 +1,118 @@
+package org.jolokia.docker.maven.access.event;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jolokia.docker.maven.access.DockerAccess;
+import org.jolokia.docker.maven.access.log.LogGetHandle;
+
+/**
+ * Dispatcher which follows a single event stream of the Docker daemon and hands over the events to all
+ * listeners whose filter matches. The stream is requested when the first listener is added. A listener
+ * throwing a {@link EventCallback.DoneException} is removed.
+ *
+ * @author roland
+ * @since 26/10/15
+ */
+public class EventDispatcher {
+
+    private final DockerAccess dockerAccess;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    private LogGetHandle eventHandle;
+    private boolean closed;
+
+    public EventDispatcher(DockerAccess dockerAccess) {
+        this.dockerAccess = dockerAccess;
+    }
+
+    /**
+     * Add a listener for the events matching a filter
+     *
+     * @param filter filter to apply
+     * @param listener listener to call for every matching event
+     */
+    public synchronized void addListener(EventFilter filter, EventCallback listener) {
+        if (closed) {
+            throw new IllegalStateException("Event dispatcher is already closed");
+        }
+        registrations.add(new Registration(filter, listener));
+        if (eventHandle == null) {
+            eventHandle = dockerAccess.getEventsAsync(new EventCallback() {
+                @Override
+                public void event(DockerEvent event) {
+                    dispatch(event);
+                }
+
+                @Override
+                public void error(String error) {
+                    for (Registration registration : registrations) {
+                        registration.listener.error(error);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Remove a listener
+     *
+     * @param listener listener to remove
+     */
+    public void removeListener(EventCallback listener) {
+        for (Registration registration : registrations) {
+            if (registration.listener == listener) {
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * Stop following the events and remove all listeners
+     */
+    public synchronized void close() {
+        closed = true;
+        if (eventHandle != null) {
+            eventHandle.finish();
+            eventHandle = null;
+        }
+        registrations.clear();
+    }
+
+    private void dispatch(DockerEvent event) {
+        for (Registration registration : registrations) {
+            if (registration.filter.matches(event)) {
+                try {
+                    registration.listener.event(event);
+                } catch (EventCallback.DoneException exp) {
+                    registrations.remove(registration);
+                }
+            }
+        }
+    }
+
+    private static final class Registration {
+        private final EventFilter filter;
+        private final EventCallback listener;
+
+        private Registration(EventFilter filter, EventCallback listener) {
+            this.filter = filter;
+            this.listener = listener;
+        }
+    }
+}
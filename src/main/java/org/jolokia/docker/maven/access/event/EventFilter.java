@@ -0,0 +1,146 @@
+package org.jolokia.docker.maven.access.event;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Filter for docker events. It is sent along with the events request so that the daemon only streams
+ * matching events and it is evaluated on the client side, too, since older daemons ignore filters.
+ * Values given for the same criterion are or-ed, different criteria are and-ed.
+ *
+ * @author roland
+ * @since 26/10/15
+ */
+public class EventFilter {
+
+    /** Filter matching all events */
+    public static final EventFilter ALL = new EventFilter();
+
+    private final Map<String, Set<String>> criteria = new LinkedHashMap<>();
+
+    private EventFilter() {}
+
+    /**
+     * Check whether an event matches this filter
+     *
+     * @param event event to check
+     * @return true if the event matches all criteria
+     */
+    public boolean matches(DockerEvent event) {
+        return matches("type", event.getType()) &&
+               matches("event", event.getStatus()) &&
+               matchesPrefix("container", DockerEvent.TYPE_CONTAINER.equals(event.getType()) ? event.getId() : null) &&
+               (matches("image", event.getFrom()) || matches("image", event.getId()));
+    }
+
+    /**
+     * @return true if no criteria are given
+     */
+    public boolean isEmpty() {
+        return criteria.isEmpty();
+    }
+
+    /**
+     * @return the filter in the JSON format expected by the daemon, e.g. <code>{"event":["die"]}</code>
+     */
+    public String toJson() {
+        JSONObject ret = new JSONObject();
+        for (Map.Entry<String, Set<String>> entry : criteria.entrySet()) {
+            ret.put(entry.getKey(), new JSONArray(entry.getValue()));
+        }
+        return ret.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    // ========================================================================
+
+    private boolean matches(String criterion, String value) {
+        Set<String> values = criteria.get(criterion);
+        return values == null || values.contains(value);
+    }
+
+    private boolean matchesPrefix(String criterion, String value) {
+        Set<String> values = criteria.get(criterion);
+        if (values == null) {
+            return true;
+        }
+        if (value != null) {
+            for (String prefix : values) {
+                if (value.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ========================================================================
+
+    public static class Builder {
+
+        private EventFilter filter = new EventFilter();
+
+        /**
+         * @param types object types like {@link DockerEvent#TYPE_CONTAINER} or {@link DockerEvent#TYPE_IMAGE}
+         */
+        public Builder type(String... types) {
+            return add("type", types);
+        }
+
+        /**
+         * @param events event names like "start" or "die"
+         */
+        public Builder event(String... events) {
+            return add("event", events);
+        }
+
+        /**
+         * @param containerIds full or short container ids
+         */
+        public Builder container(String... containerIds) {
+            return add("container", containerIds);
+        }
+
+        /**
+         * @param images image names or ids
+         */
+        public Builder image(String... images) {
+            return add("image", images);
+        }
+
+        public EventFilter build() {
+            return filter;
+        }
+
+        private Builder add(String criterion, String... values) {
+            Set<String> set = filter.criteria.get(criterion);
+            if (set == null) {
+                set = new LinkedHashSet<>();
+                filter.criteria.put(criterion, set);
+            }
+            set.addAll(Arrays.asList(values));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.jolokia.docker.maven.access.event;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import org.apache.http.*;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.access.UrlBuilder;
+import org.jolokia.docker.maven.access.chunked.JsonStreamParser;
+import org.jolokia.docker.maven.access.log.LogGetHandle;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import static org.jolokia.docker.maven.access.util.RequestUtil.newGet;
+
+/**
+ * Thread following the event stream of the Docker daemon. If the connection breaks, the stream is
+ * requested again starting at the time of the last event seen, so that no events are lost. Events older than the
+ * last one seen or reported twice because of this are dropped. The callback's error method is only called after several failed attempts in a row,
+ * in which case following the events stops.
+ *
+ * @author roland
+ * @since 25/10/15
+ */
+public class EventRequestor extends Thread implements LogGetHandle {
+
+    // Delay before reconnecting, doubled for every failed attempt in a row
+    private static final long RECONNECT_INITIAL_DELAY = 100;
+    private static final long RECONNECT_MAX_DELAY = 5000;
+
+    // Number of failed attempts in a row after which we give up
+    private static final int MAX_FAILED_ATTEMPTS = 5;
+
+    private final HttpClient client;
+    private final UrlBuilder urlBuilder;
+    private final EventFilter filter;
+    private final EventCallback callback;
+
+    private volatile HttpUriRequest request;
+    private volatile boolean finished;
+
+    private DockerAccessException exception;
+
+    // Time of the last event seen (in seconds, as reported by the daemon) and the keys of all events seen
+    // within this second
+    private Long since;
+    private final Set<String> eventsSeenAtSince = new HashSet<>();
+
+    /**
+     * Create a requestor for following the events. The request is done in the background
+     * when {@link #start()} is called.
+     *
+     * @param client HTTP client to use for requesting the docker host
+     * @param urlBuilder builder that creates docker urls
+     * @param callback callback to call for each event received
+     */
+    public EventRequestor(HttpClient client, UrlBuilder urlBuilder, EventCallback callback) {
+        this(client, urlBuilder, EventFilter.ALL, callback);
+    }
+
+    /**
+     * Create a requestor for following the events which match a filter.
+     *
+     * @param client HTTP client to use for requesting the docker host
+     * @param urlBuilder builder that creates docker urls
+     * @param filter filter which is sent to the daemon and applied to the events received
+     * @param callback callback to call for each event received
+     */
+    public EventRequestor(HttpClient client, UrlBuilder urlBuilder, EventFilter filter, EventCallback callback) {
+        super("docker-events");
+        this.client = client;
+        this.urlBuilder = urlBuilder;
+        this.filter = filter;
+        this.callback = callback;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        int failedAttempts = 0;
+        long delay = RECONNECT_INITIAL_DELAY;
+        while (!finished) {
+            try {
+                if (requestEvents()) {
+                    // Connection was fine, so start over with counting
+                    failedAttempts = 0;
+                    delay = RECONNECT_INITIAL_DELAY;
+                }
+            } catch (IOException exp) {
+                if (finished) {
+                    return;
+                }
+                if (++failedAttempts >= MAX_FAILED_ATTEMPTS) {
+                    callback.error("IO Error while requesting events: " + exp);
+                    return;
+                }
+            } catch (EventCallback.DoneException e) {
+                // Can be thrown by the callback which indicates that we are done.
+                finish();
+                return;
+            }
+            if (exception != null) {
+                return;
+            }
+            if (!finished) {
+                pause(delay);
+                delay = Math.min(delay * 2, RECONNECT_MAX_DELAY);
+            }
+        }
+    }
+
+    // Request the events and process them until the stream ends. Returns true if the daemon answered
+    private boolean requestEvents() throws IOException, EventCallback.DoneException {
+        request = newGet(urlBuilder.events(since, filter.isEmpty() ? null : filter.toJson()));
+        if (finished) {
+            return false;
+        }
+        HttpResponse response = client.execute(request);
+        StatusLine status = response.getStatusLine();
+        if (status.getStatusCode() != 200) {
+            exception = new DockerAccessException("Error while reading events (" + status + ")");
+            callback.error(exception.getMessage());
+            return false;
+        }
+        if (since == null) {
+            // Resume from the daemon's time if the connection breaks before any event has been received
+            since = getServerTime(response);
+        }
+        try (InputStream is = response.getEntity().getContent()) {
+            JsonStreamParser parser = new JsonStreamParser(is, new HashSet<>(Arrays.asList(DockerEvent.FIELDS)));
+            JSONObject json;
+            while ((json = nextEvent(parser)) != null) {
+                DockerEvent event = new DockerEvent(json);
+                if (isNew(event) && filter.matches(event)) {
+                    callback.event(event);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Remember the event for resuming and check whether it has been seen already
+    private boolean isNew(DockerEvent event) {
+        long time = event.getTime();
+        if (since == null || time > since) {
+            since = time;
+            eventsSeenAtSince.clear();
+        }
+        // Older events have been reported before the reconnect already
+        return time == since && eventsSeenAtSince.add(event.getKey());
+    }
+
+    private Long getServerTime(HttpResponse response) {
+        Header header = response.getFirstHeader("Date");
+        Date date = header != null ? DateUtils.parseDate(header.getValue()) : null;
+        return date != null ? date.getTime() / 1000 : null;
+    }
+
+    private JSONObject nextEvent(JsonStreamParser parser) throws IOException {
+        while (true) {
+            try {
+                return parser.next();
+            } catch (JSONException exp) {
+                callback.error("Cannot parse event: " + exp.getMessage());
+            }
+        }
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            finished = true;
+        }
+    }
+
+    @Override
+    public void finish() {
+        finished = true;
+        HttpUriRequest req = request;
+        if (req != null) {
+            req.abort();
+        }
+        interrupt();
+    }
+
+    @Override
+    public boolean isError() {
+        return exception != null;
+    }
+
+    @Override
+    public DockerAccessException getException() {
+        return exception;
+    }
+}
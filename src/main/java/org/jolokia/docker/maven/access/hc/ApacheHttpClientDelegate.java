@@ -76,6 +76,9 @@ public class ApacheHttpClientDelegate {
             if (body instanceof File) {
                 post.setEntity(new FileEntity((File) body));
             }
+            else if (body instanceof HttpEntity) {
+                post.setEntity((HttpEntity) body);
+            }
             else {
                 post.setEntity(new StringEntity((String) body, Charset.defaultCharset()));
             }
@@ -131,5 +134,13 @@ public class ApacheHttpClientDelegate {
                 return "Unknown error - failed to read response content";
             }
         }
+
+        /**
+         * Consume the remaining content of the response, so that the underlying
+         * connection can be reused by the pool.
+         */
+        public void close() {
+            EntityUtils.consumeQuietly(entity);
+        }
     }
 }
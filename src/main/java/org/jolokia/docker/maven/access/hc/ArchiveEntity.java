@@ -0,0 +1,71 @@
+package org.jolokia.docker.maven.access.hc;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.EntityTemplate;
+import org.jolokia.docker.maven.access.ArchiveWriter;
+
+/**
+ * Entity which streams an archive with chunked transfer encoding while it is created. Optionally
+ * the archive is compressed with gzip, which the Docker daemon detects automatically.
+ *
+ * @author roland
+ * @since 26/10/15
+ */
+class ArchiveEntity extends EntityTemplate {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    ArchiveEntity(ArchiveWriter writer, boolean compress) {
+        super(new ArchiveProducer(writer, compress));
+        setChunked(true);
+        setContentType(compress ? "application/x-gzip" : "application/x-tar");
+    }
+
+    // The archive is written while it is created, so a request can't be retried automatically
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    private static class ArchiveProducer implements ContentProducer {
+
+        private final ArchiveWriter writer;
+        private final boolean compress;
+
+        private ArchiveProducer(ArchiveWriter writer, boolean compress) {
+            this.writer = writer;
+            this.compress = compress;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (compress) {
+                GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                writer.write(gzip);
+                gzip.finish();
+            } else {
+                writer.write(out);
+            }
+            out.flush();
+        }
+    }
+}
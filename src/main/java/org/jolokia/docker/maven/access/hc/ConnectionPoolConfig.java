@@ -0,0 +1,198 @@
+package org.jolokia.docker.maven.access.hc;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.*;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Configuration of the connection pool and the timeouts used for talking to the Docker daemon. It is
+ * applied in the same way for the TCP and the Unix socket transport. All times are in milliseconds,
+ * a value of 0 means "no timeout".
+ *
+ * @author roland
+ * @since 21/10/15
+ */
+public class ConnectionPoolConfig {
+
+    public static final ConnectionPoolConfig DEFAULT = new Builder().build();
+
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final int connectTimeout;
+    private final int socketTimeout;
+    private final int connectionRequestTimeout;
+    private final int idleTimeout;
+    private final int validateAfterInactivity;
+
+    private ConnectionPoolConfig(int maxTotal, int maxPerRoute, int connectTimeout, int socketTimeout,
+                                 int connectionRequestTimeout, int idleTimeout, int validateAfterInactivity) {
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.connectTimeout = connectTimeout;
+        this.socketTimeout = socketTimeout;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        this.idleTimeout = idleTimeout;
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    /**
+     * Apply pool limits and connection validation to a connection manager
+     *
+     * @param manager manager to configure
+     * @return the given manager
+     */
+    public PoolingHttpClientConnectionManager configure(PoolingHttpClientConnectionManager manager) {
+        manager.setMaxTotal(maxTotal);
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+        manager.setValidateAfterInactivity(validateAfterInactivity);
+        manager.setDefaultSocketConfig(
+                SocketConfig.custom()
+                            .setSoKeepAlive(true)
+                            .setSoTimeout(socketTimeout)
+                            .build());
+        return manager;
+    }
+
+    /**
+     * Create a client on top of the given connection manager with the configured timeouts and
+     * keep-alive strategy.
+     *
+     * @param manager manager to use, which should have been configured with {@link #configure(PoolingHttpClientConnectionManager)}
+     * @return the client
+     */
+    public CloseableHttpClient createClient(PoolingHttpClientConnectionManager manager) {
+        RequestConfig requestConfig =
+                RequestConfig.custom()
+                             .setConnectTimeout(connectTimeout)
+                             .setSocketTimeout(socketTimeout)
+                             .setConnectionRequestTimeout(connectionRequestTimeout)
+                             .build();
+        return HttpClients.custom()
+                          .setConnectionManager(manager)
+                          .setDefaultRequestConfig(requestConfig)
+                          .setKeepAliveStrategy(createKeepAliveStrategy())
+                          .build();
+    }
+
+    // Keep connections alive as long as the daemon allows, but not longer than the idle timeout
+    ConnectionKeepAliveStrategy createKeepAliveStrategy() {
+        return new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                if (idleTimeout > 0 && (duration <= 0 || duration > idleTimeout)) {
+                    return idleTimeout;
+                }
+                return duration;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfig{" +
+               "maxTotal=" + maxTotal +
+               ", maxPerRoute=" + maxPerRoute +
+               ", connectTimeout=" + connectTimeout +
+               ", socketTimeout=" + socketTimeout +
+               ", connectionRequestTimeout=" + connectionRequestTimeout +
+               ", idleTimeout=" + idleTimeout +
+               ", validateAfterInactivity=" + validateAfterInactivity +
+               '}';
+    }
+
+    // =============================================================================
+
+    public static class Builder {
+        private int maxTotal = 40, maxPerRoute = 20;
+        private int connectTimeout = 10000, socketTimeout = 0, connectionRequestTimeout = 0;
+        private int idleTimeout = 30000, validateAfterInactivity = 2000;
+
+        public Builder maxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        public Builder maxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        public Builder connectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder socketTimeout(int socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        public Builder connectionRequestTimeout(int connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            return this;
+        }
+
+        public Builder idleTimeout(int idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public Builder validateAfterInactivity(int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        public ConnectionPoolConfig build() {
+            return new ConnectionPoolConfig(maxTotal, maxPerRoute, connectTimeout, socketTimeout,
+                                            connectionRequestTimeout, idleTimeout, validateAfterInactivity);
+        }
+    }
+}
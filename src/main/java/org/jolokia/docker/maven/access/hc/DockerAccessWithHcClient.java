@@ -1,12 +1,19 @@
 package org.jolokia.docker.maven.access.hc;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SocketChannel;
 import java.util.*;
 
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.jolokia.docker.maven.access.*;
 import org.jolokia.docker.maven.access.UrlBuilder.DockerUrl;
 import org.jolokia.docker.maven.access.chunked.*;
+import org.jolokia.docker.maven.access.event.EventCallback;
+import org.jolokia.docker.maven.access.event.EventFilter;
+import org.jolokia.docker.maven.access.event.EventRequestor;
 import org.jolokia.docker.maven.access.hc.http.*;
 import org.jolokia.docker.maven.access.hc.unix.UnixSocketClientBuilder;
 import org.jolokia.docker.maven.access.hc.ApacheHttpClientDelegate.Result;
@@ -17,6 +24,9 @@ import org.jolokia.docker.maven.util.Logger;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
 import static java.net.HttpURLConnection.*;
 
 /**
@@ -38,28 +48,59 @@ public class DockerAccessWithHcClient implements DockerAccess {
     // Base URL which is given through when using UnixSocket communication but is not really used
     private static final String DUMMY_BASE_URL = "unix://127.0.0.1:1/";
 
+    // Only the port bindings are required from the container details for the port mapping
+    private static final Set<String> PORT_MAPPING_FIELDS = Collections.singleton("NetworkSettings.Ports");
+
     // Logging
     private final Logger log;
 
     private final ApacheHttpClientDelegate delegate;
     private final UrlBuilder urlBuilder;
 
+    // Closes stale connections and reports pool statistics
+    private final IdleConnectionEvictor connectionEvictor;
+
+    // Follows container logs with non-blocking connections, null if logs are followed with a thread each
+    private final LogMultiplexer logMultiplexer;
+
     /**
-     * Create a new access for the given URL
+     * Create a new access for the given URL with a default connection pool
      * @param baseUrl base URL for accessing the docker Daemon
      * @param certPath used to build up a keystore with the given keys and certificates found in this directory
      * @param log a log handler for printing out logging information
      */
     public DockerAccessWithHcClient(String apiVersion, String baseUrl, String certPath, Logger log) throws IOException {
+        this(apiVersion, baseUrl, certPath, ConnectionPoolConfig.DEFAULT, true, log);
+    }
+
+    /**
+     * Create a new access for the given URL
+     * @param baseUrl base URL for accessing the docker Daemon
+     * @param certPath used to build up a keystore with the given keys and certificates found in this directory
+     * @param poolConfig configuration of the connection pool, which is used for both, TCP and Unix socket connections
+     * @param multiplexLogs whether to follow the logs of all containers with a single thread instead of a thread
+     *                      per container. TLS connections always use a thread per container.
+     * @param log a log handler for printing out logging information
+     */
+    public DockerAccessWithHcClient(String apiVersion, String baseUrl, String certPath, ConnectionPoolConfig poolConfig,
+                                    boolean multiplexLogs, Logger log) throws IOException {
         this.log = log;
         URI uri = URI.create(baseUrl);
+        PoolingHttpClientConnectionManager manager;
         if (uri.getScheme().equalsIgnoreCase("unix")) {
-            this.delegate = new ApacheHttpClientDelegate(new UnixSocketClientBuilder().build(uri.getPath()));
+            manager = new UnixSocketClientBuilder(poolConfig).buildConnectionManager(uri.getPath());
             this.urlBuilder = new UrlBuilder(DUMMY_BASE_URL,apiVersion);
+            this.logMultiplexer = multiplexLogs ? new LogMultiplexer(createUnixChannelFactory(uri.getPath())) : null;
         } else {
-            this.delegate = new ApacheHttpClientDelegate(new HttpClientBuilder(isSSL(baseUrl) ? certPath : null).build());
+            manager = new HttpClientBuilder(isSSL(baseUrl) ? certPath : null, poolConfig).buildConnectionManager();
             this.urlBuilder = new UrlBuilder(baseUrl, apiVersion);
+            // TLS is left to the HTTP client, which requires a thread per stream
+            this.logMultiplexer = !multiplexLogs || isSSL(baseUrl) ?
+                null : new LogMultiplexer(createTcpChannelFactory(uri, poolConfig.getConnectTimeout()));
         }
+        this.delegate = new ApacheHttpClientDelegate(poolConfig.createClient(manager));
+        this.connectionEvictor = new IdleConnectionEvictor(manager, poolConfig.getIdleTimeout(), log);
+        log.debug("Connection pool: " + poolConfig);
     }
 
     @Override
@@ -84,7 +125,7 @@ public class DockerAccessWithHcClient implements DockerAccess {
     @Override
     public void startContainer(String containerId) throws DockerAccessException {
         try {
-            post(urlBuilder.startContainer(containerId), null, HTTP_NO_CONTENT, HTTP_OK);
+            post(urlBuilder.startContainer(containerId), null, HTTP_NO_CONTENT, HTTP_OK).close();
         } catch (HttpRequestException e) {
             log.error(e.getMessage());
             throw new DockerAccessException(String.format("Unable to start container id [%s]", containerId));
@@ -94,7 +135,7 @@ public class DockerAccessWithHcClient implements DockerAccess {
     @Override
     public void stopContainer(String containerId) throws DockerAccessException {
         try {
-            post(urlBuilder.stopContainer(containerId), null, HTTP_NO_CONTENT, HTTP_NOT_MODIFIED);
+            post(urlBuilder.stopContainer(containerId), null, HTTP_NO_CONTENT, HTTP_NOT_MODIFIED).close();
         } catch (HttpRequestException e) {
             log.error(e.getMessage());
             throw new DockerAccessException(String.format("Unable to stop container id [%s]", containerId));
@@ -103,14 +144,29 @@ public class DockerAccessWithHcClient implements DockerAccess {
 
     @Override
     public void buildImage(String image, File dockerArchive) throws DockerAccessException {
+        buildImage(image, dockerArchive, log);
+    }
+
+    @Override
+    public void buildImage(String image, File dockerArchive, Logger buildLog) throws DockerAccessException {
+        doBuildImage(image, dockerArchive, buildLog);
+    }
+
+    @Override
+    public void buildImage(String image, ArchiveWriter archiveWriter, boolean compress, Logger buildLog)
+            throws DockerAccessException {
+        doBuildImage(image, new ArchiveEntity(archiveWriter, compress), buildLog);
+    }
+
+    private void doBuildImage(String image, Object body, Logger buildLog) throws DockerAccessException {
         // auto-pull not supported in v1.15, which is currently the default
         String buildUrl = urlBuilder.buildImage(image, false, false);
 
         try {
-            Result result = post(buildUrl, dockerArchive, HTTP_OK);
-            processChunkedResponse(result, createBuildResponseHandler());
+            Result result = post(buildUrl, body, HTTP_OK);
+            processChunkedResponse(result, createBuildResponseHandler(buildLog));
         } catch (HttpRequestException e) {
-            log.error(e.getMessage());
+            buildLog.error(e.getMessage());
             throw new DockerAccessException(String.format("Unable to build image [%s]", image));
         }
     }
@@ -118,10 +174,8 @@ public class DockerAccessWithHcClient implements DockerAccess {
     @Override
     public Map<String, Integer> queryContainerPortMapping(String containerId) throws DockerAccessException {
         try {
-            String response = get(urlBuilder.inspectContainer(containerId), HTTP_OK).getMessage();
-            JSONObject json = new JSONObject(response);
-
-            return extractPorts(json);
+            Result result = get(urlBuilder.inspectContainer(containerId), HTTP_OK);
+            return extractPorts(readObject(result, PORT_MAPPING_FIELDS));
         } catch (HttpRequestException e) {
             throw new DockerAccessException("Unable to query port mappings for container [%s]", containerId);
         }
@@ -129,22 +183,47 @@ public class DockerAccessWithHcClient implements DockerAccess {
 
     @Override
     public void getLogSync(String containerId, LogCallback callback) {
-        LogRequestor extractor = new LogRequestor(delegate.getHttpClient(), urlBuilder, containerId, callback);
+        getLogSync(containerId, LogRange.ALL, callback);
+    }
+
+    @Override
+    public void getLogSync(String containerId, LogRange range, LogCallback callback) {
+        LogRequestor extractor = new LogRequestor(delegate.getHttpClient(), urlBuilder, containerId, range, callback);
         extractor.fetchLogs();
     }
 
     @Override
     public LogGetHandle getLogAsync(String containerId, LogCallback callback) {
-        LogRequestor extractor = new LogRequestor(delegate.getHttpClient(), urlBuilder, containerId, callback);
+        return getLogAsync(containerId, LogRange.ALL, callback);
+    }
+
+    @Override
+    public LogGetHandle getLogAsync(String containerId, LogRange range, LogCallback callback) {
+        if (logMultiplexer != null) {
+            return logMultiplexer.follow(urlBuilder.containerLogs(containerId, true, range), range.filter(callback));
+        }
+        LogRequestor extractor = new LogRequestor(delegate.getHttpClient(), urlBuilder, containerId, range, callback);
         extractor.start();
         return extractor;
     }
+
+    @Override
+    public LogGetHandle getEventsAsync(EventCallback callback) {
+        return getEventsAsync(EventFilter.ALL, callback);
+    }
+
+    @Override
+    public LogGetHandle getEventsAsync(EventFilter filter, EventCallback callback) {
+        EventRequestor requestor = new EventRequestor(delegate.getHttpClient(), urlBuilder, filter, callback);
+        requestor.start();
+        return requestor;
+    }
     
     @Override
     public Container inspectContainer(String containerId) throws DockerAccessException {
         try {
-            String response = get(urlBuilder.inspectContainer(containerId), HTTP_OK).getMessage();
-            return new ContainerDetails(new JSONObject(response));
+            Result result = get(urlBuilder.inspectContainer(containerId), HTTP_OK);
+            return new ContainerDetails(readObject(result, ContainerDetails.FIELDS));
         } catch (HttpRequestException e) {
             log.error(e.getMessage());
             throw new DockerAccessException("Unable to retrieve container name for [%s]", containerId);
@@ -156,34 +235,33 @@ public class DockerAccessWithHcClient implements DockerAccess {
         DockerUrl url = buildDockerUrl(urlBuilder.listContainers(), args);
 
         try {
-            String response = get(url, HTTP_OK).getMessage();
-            JSONArray array = new JSONArray(response);
-            List<Container> containers = new ArrayList<>(array.length());
-            
-            for (int i = 0; i < array.length(); i++) {
-                containers.add(new ContainersListElement(array.getJSONObject(i)));
+            Result result = get(url, HTTP_OK);
+            List<Container> containers = new ArrayList<>();
+            for (JSONObject json : readArray(result, ContainersListElement.FIELDS)) {
+                containers.add(new ContainersListElement(json));
             }
-            
             return containers;
         }
         catch (HttpRequestException e) {
             throw new DockerAccessException(e.getMessage());
         }
     }
+
+    @Override
+    public String getApiVersion() {
+        return urlBuilder.getApiVersion();
+    }
     
     @Override
     public List<Image> listImages(ListArg... args) throws DockerAccessException {
         DockerUrl url = buildDockerUrl(urlBuilder.listImages(), args);
 
         try {
-            String response = get(url, HTTP_OK).getMessage();
-            JSONArray array = new JSONArray(response);
-            List<Image> images = new ArrayList<>(array.length());
-        
-            for (int i = 0; i < array.length(); i++) {
-                images.add(new Image(array.getJSONObject(i)));
+            Result result = get(url, HTTP_OK);
+            List<Image> images = new ArrayList<>();
+            for (JSONObject json : readArray(result, Image.FIELDS)) {
+                images.add(new Image(json));
             }
-            
             return images;
         }
         catch (HttpRequestException e) {
@@ -195,7 +273,7 @@ public class DockerAccessWithHcClient implements DockerAccess {
     @Override
     public void removeContainer(String containerId, boolean removeVolumes) throws DockerAccessException {
         try {
-            delete(urlBuilder.removeContainer(containerId, removeVolumes), HTTP_NO_CONTENT);
+            delete(urlBuilder.removeContainer(containerId, removeVolumes), HTTP_NO_CONTENT).close();
         } catch (HttpRequestException e) {
             log.error(e.getMessage());
             throw new DockerAccessException("Unable to remove container [%s]", containerId);
@@ -204,14 +282,19 @@ public class DockerAccessWithHcClient implements DockerAccess {
 
     @Override
     public void pullImage(String image, AuthConfig authConfig, String registry) throws DockerAccessException {
+        pullImage(image, authConfig, registry, log);
+    }
+
+    @Override
+    public void pullImage(String image, AuthConfig authConfig, String registry, Logger pullLog) throws DockerAccessException {
         ImageName name = new ImageName(image);
         String pullUrl = urlBuilder.pullImage(name, registry);
 
         try {
             Result result = post(pullUrl, null, authConfig, HTTP_OK);
-            processChunkedResponse(result, createPullOrPushResponseHandler());
+            processChunkedResponse(result, createPullOrPushResponseHandler(pullLog));
         } catch (HttpRequestException e) {
-            log.error(e.getMessage());
+            pullLog.error(e.getMessage());
             throw new DockerAccessException("Unable to pull \"" + image + "\"" +
                                               (registry != null ? " from registry \"" + registry + "\"" : "") +
                                               " : " + e);
@@ -220,14 +303,19 @@ public class DockerAccessWithHcClient implements DockerAccess {
 
     @Override
     public void pushImage(String image, AuthConfig authConfig, String registry) throws DockerAccessException {
+        pushImage(image, authConfig, registry, log);
+    }
+
+    @Override
+    public void pushImage(String image, AuthConfig authConfig, String registry, Logger pushLog) throws DockerAccessException {
         ImageName name = new ImageName(image);
         String pushUrl = urlBuilder.pushImage(name, registry);
         String temporaryImage = tagTemporaryImage(name, registry);
         try {
             Result result = post(pushUrl, null, authConfig, HTTP_OK);
-            processChunkedResponse(result, createPullOrPushResponseHandler());
+            processChunkedResponse(result, createPullOrPushResponseHandler(pushLog));
         } catch (HttpRequestException e) {
-            log.error(e.getMessage());
+            pushLog.error(e.getMessage());
             throw new DockerAccessException(e,"Unable to push \"" + image + "\"" +
                                               (registry != null ? " to registry \"" + registry + "\"" : "") +
                                               " : " + e);
@@ -243,7 +331,7 @@ public class DockerAccessWithHcClient implements DockerAccess {
         ImageName source = new ImageName(sourceImage);
         ImageName target = new ImageName(targetImage);
         try {
-            post(urlBuilder.tagContainer(source, target, force), null, HTTP_CREATED);
+            post(urlBuilder.tagContainer(source, target, force), null, HTTP_CREATED).close();
         } catch (HttpRequestException e) {
             log.error(e.getMessage());
             throw new DockerAccessException("Unable to add tag [%s] to image [%s]", targetImage, sourceImage);
@@ -267,21 +355,54 @@ public class DockerAccessWithHcClient implements DockerAccess {
     }
 
     // ---------------
-    // Lifecycle methods not needed here
+    // Lifecycle methods
+
     @Override
-    public void start() {}
+    public void start() {
+        connectionEvictor.start();
+    }
 
+    // The client itself is not closed since log requests started by this access object
+    // might be still running (e.g. following logs between docker:start and docker:stop)
     @Override
-    public void shutdown() {}
+    public void shutdown() {
+        connectionEvictor.shutdown();
+    }
+
+    private LogMultiplexer.ChannelFactory createUnixChannelFactory(final String socketPath) {
+        return new LogMultiplexer.ChannelFactory() {
+            @Override
+            public SelectableChannel open() throws IOException {
+                return UnixSocketChannel.open(new UnixSocketAddress(new File(socketPath)));
+            }
+        };
+    }
+
+    private LogMultiplexer.ChannelFactory createTcpChannelFactory(URI uri, final int connectTimeout) {
+        final InetSocketAddress address = new InetSocketAddress(uri.getHost(), uri.getPort() != -1 ? uri.getPort() : 80);
+        return new LogMultiplexer.ChannelFactory() {
+            @Override
+            public SelectableChannel open() throws IOException {
+                SocketChannel channel = SocketChannel.open();
+                try {
+                    channel.socket().connect(address, connectTimeout);
+                } catch (IOException exp) {
+                    channel.close();
+                    throw exp;
+                }
+                return channel;
+            }
+        };
+    }
 
     // visible for testing?
-    private BuildResponseHandler createBuildResponseHandler() {
-        return new BuildResponseHandler(log);
+    private BuildResponseHandler createBuildResponseHandler(Logger buildLog) {
+        return new BuildResponseHandler(buildLog);
     }
 
     // visible for testing?
-    private PullOrPushResponseHandler createPullOrPushResponseHandler() {
-        return new PullOrPushResponseHandler(log);
+    private PullOrPushResponseHandler createPullOrPushResponseHandler(Logger progressLog) {
+        return new PullOrPushResponseHandler(progressLog);
     }
 
     private Map<String, String> createAuthHeader(AuthConfig authConfig) {
@@ -340,6 +461,33 @@ public class DockerAccessWithHcClient implements DockerAccess {
         }
     }
 
+    // Read a single object from the response, materializing only the given fields
+    private JSONObject readObject(Result result, Set<String> fields) throws DockerAccessException {
+        List<JSONObject> objects = readArray(result, fields);
+        if (objects.isEmpty()) {
+            throw new DockerAccessException("Empty response from the docker daemon");
+        }
+        return objects.get(0);
+    }
+
+    // Read the elements of an array in the response one by one, materializing only the given fields.
+    // Neither the response nor the skipped parts are held in memory.
+    private List<JSONObject> readArray(Result result, Set<String> fields) throws DockerAccessException {
+        try {
+            JsonStreamParser parser = new JsonStreamParser(result.getInputStream(), fields);
+            List<JSONObject> ret = new ArrayList<>();
+            JSONObject json;
+            while ((json = parser.next()) != null) {
+                ret.add(json);
+            }
+            return ret;
+        } catch (IOException e) {
+            throw new DockerAccessException(e, "Communication error with the docker daemon");
+        } finally {
+            result.close();
+        }
+    }
+
     // ===========================================================================================================
     // Preparation for performing requests
 
@@ -405,10 +553,9 @@ public class DockerAccessWithHcClient implements DockerAccess {
         }
     }
 
-    private void processChunkedResponse(Result result, ChunkedResponseHandler<JSONObject> handler) throws DockerAccessException {
+    private void processChunkedResponse(Result result, ChunkedJsonResponseHandler handler) throws DockerAccessException {
         try (InputStream stream = result.getInputStream()) {
-            // Parse text as json
-            new ChunkedResponseReader(stream, new TextToJsonBridgeCallback(log, handler)).process();
+            new ChunkedResponseReader(stream, handler, log).process();
         }
         catch (IOException e) {
             throw new DockerAccessException(e, "Cannot process chunk response: " + e);
@@ -0,0 +1,102 @@
+package org.jolokia.docker.maven.access.hc;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.jolokia.docker.maven.util.Logger;
+
+/**
+ * Background thread which periodically closes expired and idle connections of a connection pool
+ * and reports the pool statistics at debug level whenever they change.
+ *
+ * @author roland
+ * @since 21/10/15
+ */
+public class IdleConnectionEvictor extends Thread {
+
+    private final PoolingHttpClientConnectionManager manager;
+    private final long idleTimeout;
+    private final long interval;
+    private final Logger log;
+
+    private volatile boolean running = true;
+    private String lastStats;
+
+    public IdleConnectionEvictor(PoolingHttpClientConnectionManager manager, long idleTimeout, Logger log) {
+        super("docker-connection-evictor");
+        this.manager = manager;
+        this.idleTimeout = idleTimeout;
+        // Check twice within the idle time, but not too often
+        this.interval = Math.max(idleTimeout / 2, 1000);
+        this.log = log;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                synchronized (this) {
+                    // Checked again under the lock, so that a shutdown before waiting isn't missed
+                    if (running) {
+                        wait(interval);
+                    }
+                }
+                if (running) {
+                    evict();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stop evicting
+        }
+    }
+
+    // Time between two evictions in milliseconds
+    long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Stop the eviction thread. The connection manager itself is not touched.
+     */
+    public synchronized void shutdown() {
+        running = false;
+        notifyAll();
+        logStats("Connection pool at shutdown: ");
+    }
+
+    private void evict() {
+        manager.closeExpiredConnections();
+        if (idleTimeout > 0) {
+            manager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }
+        logStats("Connection pool: ");
+    }
+
+    private synchronized void logStats(String prefix) {
+        if (log.isDebugEnabled()) {
+            PoolStats stats = manager.getTotalStats();
+            String current = stats.toString();
+            if (!current.equals(lastStats)) {
+                log.debug(prefix + current);
+                lastStats = current;
+            }
+        }
+    }
+}
@@ -24,39 +24,35 @@ import javax.net.ssl.SSLContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLContexts;
-import org.apache.http.impl.client.*;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
 import org.jolokia.docker.maven.access.KeyStoreUtil;
+import org.jolokia.docker.maven.access.hc.ConnectionPoolConfig;
 
 /**
+ * Builder for clients connecting via TCP, optionally with TLS, to the Docker daemon.
+ *
  * @author roland
  * @since 05/06/15
  */
 public class HttpClientBuilder {
 
     private final String certPath;
+    private final ConnectionPoolConfig poolConfig;
 
-    public HttpClientBuilder(String certPath) {
+    public HttpClientBuilder(String certPath, ConnectionPoolConfig poolConfig) {
         this.certPath = certPath;
+        this.poolConfig = poolConfig;
     }
 
-    public CloseableHttpClient build() throws IOException {
-        org.apache.http.impl.client.HttpClientBuilder builder = HttpClients.custom();
-        PoolingHttpClientConnectionManager manager = getPoolingConnectionFactory(certPath);
-        manager.setDefaultMaxPerRoute(10);
-        builder.setConnectionManager(manager);
-        // TODO: Tune client if needed (e.g. add pooling factoring .....
-        // But I think, that's not really required.
-
-        return builder.build();
-    }
-
-    private static PoolingHttpClientConnectionManager getPoolingConnectionFactory(String certPath) throws IOException {
-        return certPath != null ?
-                new PoolingHttpClientConnectionManager(getSslFactoryRegistry(certPath)) :
-                new PoolingHttpClientConnectionManager();
+    public PoolingHttpClientConnectionManager buildConnectionManager() throws IOException {
+        PoolingHttpClientConnectionManager manager =
+                certPath != null ?
+                        new PoolingHttpClientConnectionManager(getSslFactoryRegistry(certPath)) :
+                        new PoolingHttpClientConnectionManager();
+        return poolConfig.configure(manager);
     }
 
     private static Registry<ConnectionSocketFactory> getSslFactoryRegistry(String certPath) throws IOException {
@@ -66,16 +62,15 @@ public class HttpClientBuilder {
 
             SSLContext sslContext =
                     SSLContexts.custom()
-                            .useTLS()
+                            .useProtocol("TLS")
                             .loadKeyMaterial(keyStore, "docker".toCharArray())
-                            .loadTrustMaterial(keyStore)
+                            .loadTrustMaterial(keyStore, null)
                             .build();
             String tlsVerify = System.getenv("DOCKER_TLS_VERIFY");
             SSLConnectionSocketFactory sslsf =
                     tlsVerify != null && !tlsVerify.equals("0") && !tlsVerify.equals("false") ?
                             new SSLConnectionSocketFactory(sslContext) :
-                            new SSLConnectionSocketFactory(sslContext,
-                                                           SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+                            new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE);
             return RegistryBuilder.<ConnectionSocketFactory> create().register("https", sslsf).build();
         }
         catch (GeneralSecurityException e) {
@@ -5,21 +5,25 @@ import java.net.*;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.DnsResolver;
-import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.impl.client.*;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jolokia.docker.maven.access.hc.ConnectionPoolConfig;
 
+/**
+ * Builder for clients connecting via a Unix socket to the Docker daemon.
+ */
 public class UnixSocketClientBuilder {
 
+    private final ConnectionPoolConfig poolConfig;
 
-    public CloseableHttpClient build(String unixSocketPath) {
-        final HttpClientBuilder httpBuilder = HttpClients.custom();
+    public UnixSocketClientBuilder(ConnectionPoolConfig poolConfig) {
+        this.poolConfig = poolConfig;
+    }
+
+    public PoolingHttpClientConnectionManager buildConnectionManager(String unixSocketPath) {
         final Registry<ConnectionSocketFactory> registry = buildRegistry(unixSocketPath);
         final DnsResolver dnsResolver = nullDnsResolver();
-        final HttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(registry, dnsResolver);
-        httpBuilder.setConnectionManager(manager);
-        return httpBuilder.build();
+        return poolConfig.configure(new PoolingHttpClientConnectionManager(registry, dnsResolver));
     }
 
     private Registry<ConnectionSocketFactory> buildRegistry(String path) {
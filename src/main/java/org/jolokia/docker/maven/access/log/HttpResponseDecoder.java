@@ -0,0 +1,215 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental decoder for an HTTP response read from a non-blocking channel. It consumes the status line
+ * and the headers and hands out the body, which is either sent with chunked transfer encoding or delimited
+ * by the content length or the end of the connection.
+ *
+ * @author roland
+ * @since 30/10/15
+ */
+class HttpResponseDecoder {
+
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private enum State { STATUS, HEADERS, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER, BODY, DONE }
+
+    private State state = State.STATUS;
+
+    // Line read so far
+    private final StringBuilder line = new StringBuilder();
+
+    private String statusLine;
+    private int statusCode;
+
+    private boolean chunked;
+    // Remaining bytes of the current chunk or of the body, -1 if the body ends with the connection
+    private long remaining = -1;
+
+    /**
+     * Consume bytes from the given buffer until some body data is found or the buffer is exhausted.
+     *
+     * @param data buffer to read from
+     * @return view on the body data found, which is empty if none has been found
+     * @throws IOException if the response is malformed
+     */
+    ByteBuffer nextBody(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            switch (state) {
+                case CHUNK_DATA:
+                case BODY:
+                    return body(data);
+                case DONE:
+                    // Ignore anything after the end of the response
+                    data.position(data.limit());
+                    break;
+                default:
+                    String header = readLine(data);
+                    if (header != null) {
+                        processLine(header);
+                    }
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @return true if the status line and all headers have been read
+     */
+    boolean isHeaderComplete() {
+        return state != State.STATUS && state != State.HEADERS;
+    }
+
+    /**
+     * @return true if the complete body has been read
+     */
+    boolean isDone() {
+        return state == State.DONE;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    String getStatusLine() {
+        return statusLine;
+    }
+
+    // ==========================================================================================
+
+    private ByteBuffer body(ByteBuffer data) {
+        int len = remaining < 0 ? data.remaining() : (int) Math.min(remaining, data.remaining());
+        ByteBuffer ret = data.duplicate();
+        ret.limit(data.position() + len);
+        data.position(data.position() + len);
+        if (remaining >= 0) {
+            remaining -= len;
+            if (remaining == 0) {
+                state = chunked ? State.CHUNK_END : State.DONE;
+            }
+        }
+        return ret;
+    }
+
+    // Returns the line without its line terminator or null if the line is not complete yet
+    private String readLine(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            char c = (char) (data.get() & 0xFF);
+            if (c == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r') {
+                    line.setLength(len - 1);
+                }
+                String ret = line.toString();
+                line.setLength(0);
+                return ret;
+            }
+            if (line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("HTTP response line exceeds " + MAX_LINE_LENGTH + " characters");
+            }
+            line.append(c);
+        }
+        return null;
+    }
+
+    private void processLine(String text) throws IOException {
+        switch (state) {
+            case STATUS:
+                parseStatusLine(text);
+                state = State.HEADERS;
+                break;
+            case HEADERS:
+                if (text.isEmpty()) {
+                    startBody();
+                } else {
+                    parseHeader(text);
+                }
+                break;
+            case CHUNK_SIZE:
+                remaining = parseChunkSize(text);
+                state = remaining == 0 ? State.TRAILER : State.CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                if (!text.isEmpty()) {
+                    throw new IOException("Invalid chunked encoding: Missing line break after chunk");
+                }
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILER:
+                if (text.isEmpty()) {
+                    state = State.DONE;
+                }
+                break;
+        }
+    }
+
+    private void parseStatusLine(String text) throws IOException {
+        String[] parts = text.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            throw new IOException("Invalid HTTP status line '" + text + "'");
+        }
+        try {
+            statusCode = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException exp) {
+            throw new IOException("Invalid HTTP status line '" + text + "'");
+        }
+        statusLine = text;
+    }
+
+    private void parseHeader(String text) throws IOException {
+        int colon = text.indexOf(':');
+        if (colon < 0) {
+            throw new IOException("Invalid HTTP header '" + text + "'");
+        }
+        String name = text.substring(0, colon).trim();
+        String value = text.substring(colon + 1).trim();
+        if (name.equalsIgnoreCase("Transfer-Encoding")) {
+            chunked = value.toLowerCase().contains("chunked");
+        } else if (name.equalsIgnoreCase("Content-Length")) {
+            try {
+                remaining = Long.parseLong(value);
+            } catch (NumberFormatException exp) {
+                throw new IOException("Invalid content length '" + value + "'");
+            }
+        }
+    }
+
+    private void startBody() {
+        if (statusCode == 204 || statusCode == 304) {
+            state = State.DONE;
+        } else if (chunked) {
+            state = State.CHUNK_SIZE;
+        } else {
+            state = remaining == 0 ? State.DONE : State.BODY;
+        }
+    }
+
+    private long parseChunkSize(String text) throws IOException {
+        int end = text.indexOf(';');
+        String size = (end < 0 ? text : text.substring(0, end)).trim();
+        try {
+            return Long.parseLong(size, 16);
+        } catch (NumberFormatException exp) {
+            throw new IOException("Invalid chunk size '" + text + "'");
+        }
+    }
+}
@@ -15,10 +15,6 @@ package org.jolokia.docker.maven.access.log;/*
  * limitations under the License.
  */
 
-import java.util.concurrent.CancellationException;
-
-import org.jolokia.docker.maven.util.Timestamp;
-
 /**
  * Interface called for each log line received from the docker host when asynchronous
  * log fetching is used.
@@ -30,12 +26,11 @@ public interface LogCallback {
 
     /**
      * Receive a log entry
-     * @param type 1 for log on standard output, 2 for standard error
-     * @param timestamp timestampp on the server side when this entry happened
-     * @param txt log output
-     * @throws CancellationException if thrown will stop the logging.
+     * @param line log line which is reused after this call returns. Type, timestamp and text
+     *             must be copied out if they are needed later on.
+     * @throws DoneException if thrown will stop the logging.
      */
-    void log(int type, Timestamp timestamp, String txt) throws DoneException;
+    void log(LogLine line) throws DoneException;
 
     /**
      * Method called in case on an error when reading the logs
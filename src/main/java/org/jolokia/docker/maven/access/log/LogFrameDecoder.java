@@ -0,0 +1,206 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+
+import org.apache.commons.io.IOUtils;
+import org.jolokia.docker.maven.util.TimestampParser;
+
+/**
+ * Decoder for the multiplexed log stream of a container. Each frame consists of an 8 byte header holding
+ * the stream type and the payload length, followed by the payload which contains one or more lines
+ * prefixed with an RFC 3339 timestamp.
+ *
+ * Frames are read into a buffer which is reused and only grows when a larger frame arrives. Lines are
+ * split in place and the timestamp is parsed by hand, so that no objects are created unless the
+ * callback asks for them.
+ *
+ * @author roland
+ * @since 23/10/15
+ */
+public class LogFrameDecoder {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final byte[] header = new byte[HEADER_SIZE];
+    private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+    private ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    private CharBuffer charBuffer = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                                                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final LogLine line = new LogLine();
+    private final TimestampParser timestampParser = new TimestampParser();
+
+    // State of the frame which is partially received when decoding from buffers
+    private int headerPos;
+    private int frameType;
+    private int frameLength;
+    private int framePos;
+
+    /**
+     * Decode the given stream until it ends and call the callback for each line found.
+     *
+     * @param is stream to read from
+     * @param callback callback to call for every line
+     * @throws IOException if reading the stream fails
+     * @throws LogCallback.DoneException if the callback is done or if the stream has an invalid format. In the
+     *         latter case the error has already been reported to the callback.
+     */
+    public void decode(InputStream is, LogCallback callback) throws IOException, LogCallback.DoneException {
+        int len;
+        while ((len = IOUtils.read(is, header, 0, HEADER_SIZE)) > 0) {
+            if (len < HEADER_SIZE) {
+                callback.error("Invalid log format: Truncated frame header");
+                throw new LogCallback.DoneException();
+            }
+            int type = header[0];
+            int declaredLength = extractLength(header);
+            if (declaredLength == 0) {
+                continue;
+            }
+            ensureCapacity(declaredLength);
+            len = IOUtils.read(is, bytes, 0, declaredLength);
+            if (len < 1) {
+                callback.error("Invalid log format: Couldn't read " + declaredLength + " bytes from stream");
+                throw new LogCallback.DoneException();
+            }
+            decodeChars(len);
+            processLines(type, callback);
+        }
+    }
+
+    /**
+     * Decode the bytes remaining in the given buffer and call the callback for each line of every frame
+     * completed. The rest of an incomplete frame is expected with the next call, so this method can be fed
+     * with whatever a non-blocking channel returns. A decoder must be used either with streams or with
+     * buffers but not with both.
+     *
+     * @param data buffer to read from, which is consumed completely
+     * @param callback callback to call for every line
+     * @throws LogCallback.DoneException if the callback is done or if a line has an invalid format. In the
+     *         latter case the error has already been reported to the callback.
+     */
+    public void decode(ByteBuffer data, LogCallback callback) throws LogCallback.DoneException {
+        while (data.hasRemaining()) {
+            if (headerPos < HEADER_SIZE) {
+                int len = Math.min(HEADER_SIZE - headerPos, data.remaining());
+                data.get(header, headerPos, len);
+                headerPos += len;
+                if (headerPos < HEADER_SIZE) {
+                    return;
+                }
+                frameType = header[0];
+                frameLength = extractLength(header);
+                framePos = 0;
+                ensureCapacity(frameLength);
+            }
+            int len = Math.min(frameLength - framePos, data.remaining());
+            data.get(bytes, framePos, len);
+            framePos += len;
+            if (framePos == frameLength) {
+                headerPos = 0;
+                if (frameLength > 0) {
+                    decodeChars(frameLength);
+                    processLines(frameType, callback);
+                }
+            }
+        }
+    }
+
+    // ==========================================================================================
+
+    private int extractLength(byte[] b) {
+        return b[7] & 0xFF |
+               (b[6] & 0xFF) << 8 |
+               (b[5] & 0xFF) << 16 |
+               (b[4] & 0xFF) << 24;
+    }
+
+    private void ensureCapacity(int size) {
+        if (bytes.length < size) {
+            int newSize = Math.max(size, bytes.length * 2);
+            bytes = new byte[newSize];
+            byteBuffer = ByteBuffer.wrap(bytes);
+            // UTF-8 never yields more chars than bytes
+            charBuffer = CharBuffer.allocate(newSize);
+        }
+    }
+
+    private void decodeChars(int len) {
+        byteBuffer.clear();
+        byteBuffer.limit(len);
+        charBuffer.clear();
+        decoder.reset();
+        decoder.decode(byteBuffer, charBuffer, true);
+        decoder.flush(charBuffer);
+        charBuffer.flip();
+    }
+
+    private void processLines(int type, LogCallback callback) throws LogCallback.DoneException {
+        char[] chars = charBuffer.array();
+        int end = charBuffer.limit();
+        int start = 0;
+        while (start < end) {
+            int eol = start;
+            while (eol < end && chars[eol] != '\n') {
+                eol++;
+            }
+            int lineEnd = eol;
+            if (lineEnd > start && chars[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > start) {
+                processLine(type, chars, start, lineEnd, callback);
+            }
+            start = eol + 1;
+        }
+    }
+
+    // Line format: "[<timestamp>] <text>" with optional brackets
+    private void processLine(int type, char[] chars, int start, int end, LogCallback callback)
+            throws LogCallback.DoneException {
+        int tsStart = start;
+        if (chars[tsStart] == '[') {
+            tsStart++;
+        }
+        int tsEnd = tsStart;
+        while (tsEnd < end && chars[tsEnd] != ']' && !Character.isWhitespace(chars[tsEnd])) {
+            tsEnd++;
+        }
+        int textStart = tsEnd < end && chars[tsEnd] == ']' ? tsEnd + 1 : tsEnd;
+        if (textStart >= end || !Character.isWhitespace(chars[textStart]) ||
+            !timestampParser.parse(chars, tsStart, tsEnd)) {
+            callback.error("Invalid log format for '" + new String(chars, start, end - start) +
+                           "' (expected: \"<timestamp> <txt>\")");
+            throw new LogCallback.DoneException();
+        }
+        while (textStart < end && Character.isWhitespace(chars[textStart])) {
+            textStart++;
+        }
+        line.update(type, timestampParser.getEpochMillis(), timestampParser.getNanos(),
+                    chars, textStart, end);
+        callback.log(line);
+    }
+}
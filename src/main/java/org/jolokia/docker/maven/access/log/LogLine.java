@@ -0,0 +1,127 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.jolokia.docker.maven.util.Timestamp;
+
+/**
+ * A single log line as handed over to a {@link LogCallback}. The object and its text are reused
+ * for the next line, so they are only valid during the callback. {@link #getTimestamp()} and
+ * <code>getText().toString()</code> can be used to keep a copy.
+ *
+ * @author roland
+ * @since 23/10/15
+ */
+public class LogLine {
+
+    private final Text text = new Text();
+
+    private int type;
+    private long epochMillis;
+    private int nanos;
+
+    // Created lazily
+    private Timestamp timestamp;
+
+    /**
+     * @return 1 for log on standard output, 2 for standard error
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return milliseconds since the epoch when this entry happened on the server side
+     */
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    /**
+     * @return nano seconds within {@link #getEpochMillis()}
+     */
+    public int getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @return timestamp on the server side when this entry happened
+     */
+    public Timestamp getTimestamp() {
+        if (timestamp == null) {
+            timestamp = new Timestamp(epochMillis, nanos);
+        }
+        return timestamp;
+    }
+
+    /**
+     * @return the log output, which is only valid during the callback
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    // Copy which stays valid after the callback returned
+    LogLine copy() {
+        LogLine copy = new LogLine();
+        char[] chars = text.toString().toCharArray();
+        copy.update(type, epochMillis, nanos, chars, 0, chars.length);
+        return copy;
+    }
+
+    void update(int type, long epochMillis, int nanos, char[] chars, int start, int end) {
+        this.type = type;
+        this.epochMillis = epochMillis;
+        this.nanos = nanos;
+        this.timestamp = null;
+        text.update(chars, start, end);
+    }
+
+    // View on the decoder's character buffer
+    private static final class Text implements CharSequence {
+        private char[] chars;
+        private int start, end;
+
+        private void update(char[] chars, int start, int end) {
+            this.chars = chars;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index " + index + ", length " + (end - start));
+            }
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, end - start);
+        }
+    }
+}
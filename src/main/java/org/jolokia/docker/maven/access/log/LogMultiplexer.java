@@ -0,0 +1,432 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jolokia.docker.maven.access.DockerAccessException;
+
+/**
+ * Follows the logs of many containers with a single thread. Every log stream gets its own connection to the
+ * Docker daemon, but all connections are non-blocking and registered with one {@link Selector}. Received
+ * data is decoded with a {@link LogFrameDecoder} per stream which keeps incomplete frames until the rest
+ * arrives.
+ *
+ * The decoded lines are handed over to the callbacks by a separate dispatch thread, so that a slow callback
+ * never blocks the selector. If too many lines of a stream are waiting for their callback, reading from this
+ * stream pauses until the callback has caught up.
+ *
+ * The selector and the dispatch thread are started when needed and end when there is nothing left to do, so
+ * there is nothing to shut down.
+ *
+ * @author roland
+ * @since 30/10/15
+ */
+public class LogMultiplexer {
+
+    private static final int READ_BUFFER_SIZE = 16384;
+
+    // Number of lines per stream waiting for the callback after which reading pauses, and resumes at half of it
+    private static final int MAX_QUEUED_LINES = 1000;
+
+    // Seconds the dispatch thread is kept when there is nothing to dispatch
+    private static final int DISPATCHER_KEEP_ALIVE = 1;
+
+    private final ChannelFactory channelFactory;
+
+    // Streams waiting to be registered with the selector
+    private final Queue<LogStream> pending = new ConcurrentLinkedQueue<>();
+
+    // Paused streams which can be read again
+    private final Queue<LogStream> resumed = new ConcurrentLinkedQueue<>();
+
+    // Calls the callbacks one after another in the order the lines have been received
+    private final ExecutorService dispatcher =
+            new ThreadPoolExecutor(0, 1, DISPATCHER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                   new ThreadFactory() {
+                                       @Override
+                                       public Thread newThread(Runnable runnable) {
+                                           Thread thread = new Thread(runnable, "docker-log-dispatcher");
+                                           thread.setDaemon(true);
+                                           return thread;
+                                       }
+                                   });
+
+    // Both guarded by this
+    private Selector selector;
+    private Thread selectorThread;
+
+    /**
+     * Create a multiplexer
+     *
+     * @param channelFactory factory for the connections to the Docker daemon
+     */
+    public LogMultiplexer(ChannelFactory channelFactory) {
+        this.channelFactory = channelFactory;
+    }
+
+    /**
+     * Follow the log stream of a container.
+     *
+     * @param url URL of the log request, which must include the "follow" parameter
+     * @param callback callback which is called from the dispatch thread for every line received
+     * @return handle for stopping the stream
+     */
+    public LogGetHandle follow(String url, LogCallback callback) {
+        LogStream stream = new LogStream(callback);
+        try {
+            stream.open(url);
+            register(stream);
+        } catch (IOException exp) {
+            stream.close();
+            callback.error("IO Error while requesting logs: " + exp);
+        }
+        return stream;
+    }
+
+    /**
+     * Factory for creating connections to the Docker daemon
+     */
+    public interface ChannelFactory {
+        /**
+         * Open a connection. The returned channel must be connected and must implement {@link ByteChannel}.
+         * It is switched to non-blocking mode afterwards.
+         *
+         * @return connected channel
+         * @throws IOException if the connection fails
+         */
+        SelectableChannel open() throws IOException;
+    }
+
+    // ==========================================================================================
+
+    private synchronized void register(LogStream stream) throws IOException {
+        if (selector == null) {
+            selector = stream.channel.provider().openSelector();
+        }
+        pending.add(stream);
+        if (selectorThread == null) {
+            final Selector threadSelector = selector;
+            selectorThread = new Thread("docker-log-follower") {
+                @Override
+                public void run() {
+                    select(threadSelector);
+                }
+            };
+            selectorThread.setDaemon(true);
+            selectorThread.start();
+        } else {
+            selector.wakeup();
+        }
+    }
+
+    private synchronized void wakeup() {
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    // Called when no stream is active. Returns true if the selector thread should end.
+    private synchronized boolean stopIfIdle() {
+        if (!pending.isEmpty()) {
+            return false;
+        }
+        try {
+            selector.close();
+        } catch (IOException exp) {
+            // Nothing left to clean up
+        }
+        selector = null;
+        selectorThread = null;
+        return true;
+    }
+
+    private void select(Selector threadSelector) {
+        Set<LogStream> active = new HashSet<>();
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try {
+            while (true) {
+                registerPending(threadSelector, active);
+                resumeReading();
+                closeFinished(active);
+                if (active.isEmpty() && stopIfIdle()) {
+                    return;
+                }
+                threadSelector.select();
+                Iterator<SelectionKey> it = threadSelector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    LogStream stream = (LogStream) key.attachment();
+                    if (key.isValid() && !stream.handle(key, readBuffer)) {
+                        stream.close();
+                        active.remove(stream);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException exp) {
+            // The selector itself is broken, so give up on all streams
+            synchronized (this) {
+                selector = null;
+                selectorThread = null;
+                active.addAll(pending);
+                pending.clear();
+            }
+            try {
+                threadSelector.close();
+            } catch (IOException closeExp) {
+                // Broken anyway
+            }
+            for (LogStream stream : active) {
+                stream.close();
+                stream.dispatchError("IO Error while following logs: " + exp);
+            }
+        }
+    }
+
+    private void registerPending(Selector threadSelector, Set<LogStream> active) {
+        LogStream stream;
+        while ((stream = pending.poll()) != null) {
+            try {
+                stream.key = stream.channel.register(threadSelector, SelectionKey.OP_WRITE, stream);
+                active.add(stream);
+            } catch (ClosedChannelException exp) {
+                // Finished already
+            }
+        }
+    }
+
+    private void resumeReading() {
+        LogStream stream;
+        while ((stream = resumed.poll()) != null) {
+            if (stream.key != null && stream.key.isValid()) {
+                stream.key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void closeFinished(Set<LogStream> active) {
+        Iterator<LogStream> it = active.iterator();
+        while (it.hasNext()) {
+            LogStream stream = it.next();
+            if (stream.finished) {
+                stream.close();
+                it.remove();
+            }
+        }
+    }
+
+    // Connection and decoding state of a single log stream
+    private class LogStream implements LogGetHandle {
+
+        private final LogCallback callback;
+
+        private SelectableChannel channel;
+        private ByteBuffer request;
+
+        // Only used by the selector thread
+        private SelectionKey key;
+
+        private final HttpResponseDecoder response = new HttpResponseDecoder();
+        private final LogFrameDecoder frameDecoder = new LogFrameDecoder();
+
+        // Lines decoded from the current read, which are dispatched together
+        private List<LogLine> batch = new ArrayList<>();
+        private final LogCallback collector = new LogCallback() {
+            @Override
+            public void log(LogLine line) {
+                batch.add(line.copy());
+            }
+
+            @Override
+            public void error(String error) {
+                dispatchError(error);
+            }
+        };
+
+        // Lines waiting for the callback and whether reading pauses because of too many of them
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean paused = new AtomicBoolean();
+
+        private volatile boolean finished;
+        // Set when the callback doesn't want any more lines
+        private volatile boolean callbackDone;
+        private volatile DockerAccessException exception;
+
+        private LogStream(LogCallback callback) {
+            this.callback = callback;
+        }
+
+        private void open(String url) throws IOException {
+            URI uri = URI.create(url);
+            String path = uri.getRawQuery() != null ? uri.getRawPath() + "?" + uri.getRawQuery() : uri.getRawPath();
+            request = StandardCharsets.US_ASCII.encode("GET " + path + " HTTP/1.1\r\n" +
+                                                       "Host: " + uri.getHost() + "\r\n" +
+                                                       "Connection: close\r\n\r\n");
+            channel = channelFactory.open();
+            if (!(channel instanceof ByteChannel)) {
+                throw new IOException("Channel " + channel.getClass().getName() + " doesn't support reading");
+            }
+            channel.configureBlocking(false);
+        }
+
+        // Returns false if the stream is done
+        private boolean handle(SelectionKey key, ByteBuffer readBuffer) {
+            ByteChannel byteChannel = (ByteChannel) channel;
+            try {
+                if (key.isWritable()) {
+                    byteChannel.write(request);
+                    if (!request.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                    return true;
+                }
+                if (!key.isReadable()) {
+                    return true;
+                }
+                readBuffer.clear();
+                int len = byteChannel.read(readBuffer);
+                if (len < 0) {
+                    if (!response.isHeaderComplete()) {
+                        throw new IOException("Connection closed before a response has been received");
+                    }
+                    return false;
+                }
+                readBuffer.flip();
+                boolean goOn = process(readBuffer);
+                dispatchBatch();
+                if (goOn && queued.get() >= MAX_QUEUED_LINES) {
+                    pauseReading();
+                }
+                return goOn;
+            } catch (IOException exp) {
+                dispatchError("IO Error while requesting logs: " + exp);
+                return false;
+            } catch (LogCallback.DoneException exp) {
+                // The format is invalid, which has been reported already
+                return false;
+            } catch (RuntimeException exp) {
+                dispatchError("Error while processing logs: " + exp);
+                return false;
+            }
+        }
+
+        private boolean process(ByteBuffer data) throws IOException, LogCallback.DoneException {
+            boolean headerComplete = response.isHeaderComplete();
+            while (data.hasRemaining() && !finished) {
+                ByteBuffer body = response.nextBody(data);
+                if (!headerComplete && response.isHeaderComplete()) {
+                    headerComplete = true;
+                    if (response.getStatusCode() != 200) {
+                        exception = new DockerAccessException("Error while reading logs (" + response.getStatusLine() + ")");
+                        dispatchError(exception.getMessage());
+                        return false;
+                    }
+                }
+                if (body.hasRemaining()) {
+                    frameDecoder.decode(body, collector);
+                }
+            }
+            return !finished && !response.isDone();
+        }
+
+        // Hand the lines decoded so far over to the dispatch thread
+        private void dispatchBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            final List<LogLine> lines = batch;
+            batch = new ArrayList<>();
+            queued.addAndGet(lines.size());
+            dispatcher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (LogLine line : lines) {
+                        if (callbackDone) {
+                            break;
+                        }
+                        try {
+                            callback.log(line);
+                        } catch (LogCallback.DoneException exp) {
+                            callbackDone = true;
+                            finish();
+                        }
+                    }
+                    int left = queued.addAndGet(-lines.size());
+                    if (left <= MAX_QUEUED_LINES / 2 && paused.compareAndSet(true, false)) {
+                        resumed.add(LogStream.this);
+                        wakeup();
+                    }
+                }
+            });
+        }
+
+        // Errors are dispatched as well, so that they are reported after the lines received before
+        private void dispatchError(final String error) {
+            dispatchBatch();
+            dispatcher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    callback.error(error);
+                }
+            });
+        }
+
+        private void pauseReading() {
+            key.interestOps(0);
+            paused.set(true);
+            // The callback might have caught up in the meantime
+            if (queued.get() <= MAX_QUEUED_LINES / 2 && paused.compareAndSet(true, false)) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void close() {
+            finished = true;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException exp) {
+                    // Closing anyway
+                }
+            }
+        }
+
+        @Override
+        public void finish() {
+            finished = true;
+            wakeup();
+        }
+
+        @Override
+        public boolean isError() {
+            return exception != null;
+        }
+
+        @Override
+        public DockerAccessException getException() {
+            return exception;
+        }
+    }
+}
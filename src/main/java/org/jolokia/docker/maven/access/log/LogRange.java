@@ -0,0 +1,119 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.jolokia.docker.maven.util.Timestamp;
+
+/**
+ * Part of a container log to request: Only the entries after a given timestamp and/or only the last lines.
+ * The Docker daemon selects entries by whole seconds (and older daemons ignore the timestamp completely), so
+ * entries are filtered by {@link #filter(LogCallback)} on the client side, too.
+ *
+ * @author roland
+ * @since 31/10/15
+ */
+public class LogRange {
+
+    /**
+     * The complete log
+     */
+    public static final LogRange ALL = new LogRange(null, -1);
+
+    // Docker records the start time only after the process has been started, so that its first lines
+    // can be stamped a bit earlier
+    static final long START_MARGIN = 1000;
+
+    private final Timestamp since;
+    private final int tail;
+
+    /**
+     * Create a range
+     *
+     * @param since only entries after this timestamp are requested, null for all entries
+     * @param tail number of lines at the end of the log to request, -1 for all lines
+     */
+    public LogRange(Timestamp since, int tail) {
+        this.since = since;
+        this.tail = tail;
+    }
+
+    /**
+     * @param since only entries after this timestamp are requested, null for all entries
+     * @return range holding all entries after the given timestamp
+     */
+    public static LogRange since(Timestamp since) {
+        return new LogRange(since, -1);
+    }
+
+    /**
+     * Range for the output of the current run of a container. Output of earlier runs is skipped only if
+     * the container has been restarted, since the first lines of a run might be stamped before its start time.
+     *
+     * @param startedAt time when the container has been started the last time, or null if not known
+     * @param restartCount how often the container has been restarted
+     * @return range holding the output since shortly before the last start, or the complete log if the
+     *         container has not been restarted
+     */
+    public static LogRange sinceStart(Timestamp startedAt, int restartCount) {
+        if (startedAt == null || restartCount <= 0) {
+            return ALL;
+        }
+        return since(new Timestamp(startedAt.getEpochMillis() - START_MARGIN, startedAt.getNanos()));
+    }
+
+    public Timestamp getSince() {
+        return since;
+    }
+
+    /**
+     * @return seconds since the epoch as used for the Docker API, or null if all entries are requested
+     */
+    public Long getSinceSeconds() {
+        return since != null ? Math.max(since.getEpochMillis() / 1000, 0) : null;
+    }
+
+    public int getTail() {
+        return tail;
+    }
+
+    /**
+     * Wrap the given callback so that only entries after the start of this range are handed over
+     *
+     * @param callback callback to wrap
+     * @return callback skipping older entries or the given callback if there is no start
+     */
+    public LogCallback filter(final LogCallback callback) {
+        if (since == null) {
+            return callback;
+        }
+        final long sinceMillis = since.getEpochMillis();
+        final int sinceNanos = since.getNanos();
+        return new LogCallback() {
+            @Override
+            public void log(LogLine line) throws DoneException {
+                long millis = line.getEpochMillis();
+                if (millis > sinceMillis || (millis == sinceMillis && line.getNanos() > sinceNanos)) {
+                    callback.log(line);
+                }
+            }
+
+            @Override
+            public void error(String error) {
+                callback.error(error);
+            }
+        };
+    }
+}
@@ -17,19 +17,14 @@ package org.jolokia.docker.maven.access.log;/*
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.jolokia.docker.maven.access.DockerAccessException;
 import org.jolokia.docker.maven.access.UrlBuilder;
-import org.jolokia.docker.maven.util.Timestamp;
 
-import static java.lang.Math.min;
 import static org.jolokia.docker.maven.access.util.RequestUtil.newGet;
 
 /**
@@ -40,8 +35,6 @@ import static org.jolokia.docker.maven.access.util.RequestUtil.newGet;
  */
 public class LogRequestor extends Thread implements LogGetHandle {
 
-    // Patter for matching log entries
-    private static final Pattern LOG_LINE = Pattern.compile("^\\[?([^\\s\\]]*)]?\\s+(.*)\\s*$");
     private final HttpClient client;
 
     private final String containerId;
@@ -55,7 +48,10 @@ public class LogRequestor extends Thread implements LogGetHandle {
     private HttpUriRequest request;
 
     private final UrlBuilder urlBuilder;
-    
+
+    // Part of the log to request
+    private final LogRange range;
+
     /**
      * Create a helper object for requesting log entries synchronously ({@link #fetchLogs()}) or asynchronously ({@link #start()}.
      *
@@ -65,12 +61,28 @@ public class LogRequestor extends Thread implements LogGetHandle {
      * @param callback callback to call for each line received
      */
     public LogRequestor(HttpClient client, UrlBuilder urlBuilder, String containerId, LogCallback callback) {
+        this(client, urlBuilder, containerId, LogRange.ALL, callback);
+    }
+
+    /**
+     * Create a helper object for requesting a part of the log entries synchronously ({@link #fetchLogs()}) or
+     * asynchronously ({@link #start()}.
+     *
+     * @param client HTTP client to use for requesting the docker host
+     * @param urlBuilder builder that creates docker urls
+     * @param containerId container for which to fetch the host
+     * @param range part of the log to request
+     * @param callback callback to call for each line received
+     */
+    public LogRequestor(HttpClient client, UrlBuilder urlBuilder, String containerId, LogRange range,
+                        LogCallback callback) {
         this.client = client;
         this.containerId = containerId;
         
         this.urlBuilder = urlBuilder;
+        this.range = range;
 
-        this.callback = callback;
+        this.callback = range.filter(callback);
         this.exception = null;
         this.setDaemon(true);
     }
@@ -102,24 +114,7 @@ public class LogRequestor extends Thread implements LogGetHandle {
 
     private void parseResponse(HttpResponse response) {
         try (InputStream is = response.getEntity().getContent()) {
-            byte[] headBuf = new byte[8];
-            while (IOUtils.read(is, headBuf, 0, 8) > 0) {
-                int type = headBuf[0];
-                int declaredLength = extractLength(headBuf);
-                if(declaredLength == 0) {
-                    continue;
-                }
-                byte[] buf = new byte[declaredLength];
-                int len = IOUtils.read(is, buf, 0, declaredLength);
-                if (len < 1) {
-                    callback.error("Invalid log format: Couldn't read " + declaredLength + " bytes from stream");
-                    finish();
-                    return;
-                }
-                String txt = new String(buf, 0, len, "UTF-8");
-
-                callLogCallback(type, txt);
-            }
+            new LogFrameDecoder().decode(is, callback);
             StatusLine status = response.getStatusLine();
             if (status.getStatusCode() != 200) {
                 exception = new DockerAccessException("Error while reading logs (" + status + ")");
@@ -133,27 +128,8 @@ public class LogRequestor extends Thread implements LogGetHandle {
         }
     }
 
-    private void callLogCallback(int type, String txt) throws LogCallback.DoneException {
-        Matcher matcher = LOG_LINE.matcher(txt);
-        if (!matcher.matches()) {
-            callback.error("Invalid log format for '" + txt + "' (expected: \"<timestamp> <txt>\")");
-            throw new LogCallback.DoneException();
-        }
-        Timestamp ts = new Timestamp(matcher.group(1));
-        String logTxt = matcher.group(2);
-        callback.log(type, ts, logTxt);
-    }
-
-    private int extractLength(byte[] b) {
-        return b[7] & 0xFF |
-               (b[6] & 0xFF) << 8 |
-               (b[5] & 0xFF) << 16 |
-               (b[4] & 0xFF) << 24;
-    }
-
-
     private HttpUriRequest getLogRequest(boolean follow) {
-        return newGet(urlBuilder.containerLogs(containerId, follow));
+        return newGet(urlBuilder.containerLogs(containerId, follow, range));
     }
 
     @Override
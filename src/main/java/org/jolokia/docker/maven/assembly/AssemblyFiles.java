@@ -40,6 +40,15 @@ public class AssemblyFiles {
         entries.add(new Entry(srcFile,destFile));
     }
 
+    /**
+     * Get all entries
+     *
+     * @return list of all entries
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
     /**
      * Get the list of all updated entries i.e. all entries which have modification date
      * which is newer than the last time check. ATTENTION: As a side effect this method also
@@ -0,0 +1,213 @@
+package org.jolokia.docker.maven.assembly;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Tracker reporting which entries of an {@link AssemblyFiles} changed. If possible the parent directories of
+ * all entries are registered with a {@link WatchService}, so that checking for changes only costs as much as
+ * the number of file system events received. If file system notifications are not available, the modification
+ * time of every entry is checked instead.
+ *
+ * Changes are debounced: They are only reported after no further change happened for a given quiet period, so
+ * that a burst of changes (like when recompiling) results in a single rebuild.
+ *
+ * @author roland
+ * @since 27/10/15
+ */
+public abstract class AssemblyFilesTracker implements Closeable {
+
+    private final long quietPeriod;
+
+    // Changed entries not reported yet and the time of the last change seen
+    private final Set<AssemblyFiles.Entry> pending = new LinkedHashSet<>();
+    private long lastChange;
+
+    protected AssemblyFilesTracker(long quietPeriod) {
+        this.quietPeriod = quietPeriod;
+    }
+
+    /**
+     * Create a tracker which uses file system notifications if available and falls back to polling otherwise
+     *
+     * @param files files to track
+     * @param quietPeriod time in milliseconds without further changes before changes are reported
+     * @return tracker for the given files
+     */
+    public static AssemblyFilesTracker create(AssemblyFiles files, long quietPeriod) {
+        try {
+            return new NotifyingTracker(files, quietPeriod);
+        } catch (IOException | UnsupportedOperationException exp) {
+            return createPolling(files, quietPeriod);
+        }
+    }
+
+    /**
+     * Create a tracker checking the modification time of every file
+     *
+     * @param files files to track
+     * @param quietPeriod time in milliseconds without further changes before changes are reported
+     * @return tracker for the given files
+     */
+    public static AssemblyFilesTracker createPolling(AssemblyFiles files, long quietPeriod) {
+        return new PollingTracker(files, quietPeriod);
+    }
+
+    /**
+     * Get the entries which changed since the last call. This call doesn't block. As long as the quiet
+     * period after the last change hasn't passed, an empty list is returned.
+     *
+     * @return entries changed or an empty list
+     */
+    public synchronized List<AssemblyFiles.Entry> getChangedEntries() {
+        if (collectChanges(pending)) {
+            lastChange = System.currentTimeMillis();
+        }
+        if (pending.isEmpty() || System.currentTimeMillis() - lastChange < quietPeriod) {
+            return Collections.emptyList();
+        }
+        List<AssemblyFiles.Entry> ret = new ArrayList<>(pending);
+        pending.clear();
+        return ret;
+    }
+
+    /**
+     * @return true if changes are detected via file system notifications
+     */
+    public abstract boolean isNotifying();
+
+    /**
+     * Add all entries changed since the last call to the given set
+     *
+     * @param changed set to add to
+     * @return true if any change has been detected
+     */
+    protected abstract boolean collectChanges(Set<AssemblyFiles.Entry> changed);
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    // ===============================================================================
+
+    // Checks the modification date of every file
+    private static class PollingTracker extends AssemblyFilesTracker {
+
+        private final AssemblyFiles files;
+
+        private PollingTracker(AssemblyFiles files, long quietPeriod) {
+            super(quietPeriod);
+            this.files = files;
+        }
+
+        @Override
+        public boolean isNotifying() {
+            return false;
+        }
+
+        @Override
+        protected boolean collectChanges(Set<AssemblyFiles.Entry> changed) {
+            return changed.addAll(files.getUpdatedEntriesAndRefresh());
+        }
+    }
+
+    // Gets notified by the file system about changes in the directories holding the files
+    private static class NotifyingTracker extends AssemblyFilesTracker {
+
+        private final WatchService watchService;
+
+        // Entries per directory and file name
+        private final Map<Path, Map<Path, List<AssemblyFiles.Entry>>> entriesByDir = new HashMap<>();
+
+        private NotifyingTracker(AssemblyFiles files, long quietPeriod) throws IOException {
+            super(quietPeriod);
+            watchService = FileSystems.getDefault().newWatchService();
+            try {
+                for (AssemblyFiles.Entry entry : files.getEntries()) {
+                    Path file = entry.getSrcFile().toPath().toAbsolutePath();
+                    Path dir = file.getParent();
+                    Map<Path, List<AssemblyFiles.Entry>> entriesByName = entriesByDir.get(dir);
+                    if (entriesByName == null) {
+                        dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+                        entriesByName = new HashMap<>();
+                        entriesByDir.put(dir, entriesByName);
+                    }
+                    List<AssemblyFiles.Entry> entries = entriesByName.get(file.getFileName());
+                    if (entries == null) {
+                        entries = new ArrayList<>();
+                        entriesByName.put(file.getFileName(), entries);
+                    }
+                    entries.add(entry);
+                }
+            } catch (IOException | RuntimeException exp) {
+                watchService.close();
+                throw exp;
+            }
+        }
+
+        @Override
+        public boolean isNotifying() {
+            return true;
+        }
+
+        @Override
+        protected boolean collectChanges(Set<AssemblyFiles.Entry> changed) {
+            boolean found = false;
+            WatchKey key;
+            while ((key = watchService.poll()) != null) {
+                Map<Path, List<AssemblyFiles.Entry>> entriesByName = entriesByDir.get((Path) key.watchable());
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        // Events got lost, so check all files in this directory
+                        for (List<AssemblyFiles.Entry> entries : entriesByName.values()) {
+                            found |= addIfUpdated(entries, changed);
+                        }
+                    } else {
+                        List<AssemblyFiles.Entry> entries = entriesByName.get((Path) event.context());
+                        if (entries != null) {
+                            found |= addIfUpdated(entries, changed);
+                        }
+                    }
+                }
+                key.reset();
+            }
+            return found;
+        }
+
+        // Events can be reported multiple times for a single change, so check the modification date, too
+        private boolean addIfUpdated(List<AssemblyFiles.Entry> entries, Set<AssemblyFiles.Entry> changed) {
+            boolean found = false;
+            for (AssemblyFiles.Entry entry : entries) {
+                if (entry.isUpdated()) {
+                    changed.add(entry);
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public void close() throws IOException {
+            watchService.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.jolokia.docker.maven.assembly;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.util.Properties;
+
+/**
+ * Remembers the digest of the build context from which an image has been built last time, together with
+ * the id of the resulting image and of its base image. A build can be skipped if all three still match.
+ *
+ * @author roland
+ * @since 25/10/15
+ */
+public class BuildCache {
+
+    private static final String FILE_NAME = "build-cache.properties";
+
+    private static final String KEY_DIGEST = "digest";
+    private static final String KEY_IMAGE_ID = "imageId";
+    private static final String KEY_BASE_IMAGE_ID = "baseImageId";
+
+    private final File file;
+    private final Properties props;
+
+    /**
+     * Create a cache for the image built in the given build directories
+     *
+     * @param buildDirs build directories of an image
+     */
+    public BuildCache(BuildDirs buildDirs) {
+        this(new File(buildDirs.getTemporaryRootDirectory(), FILE_NAME));
+    }
+
+    // visible for testing
+    BuildCache(File file) {
+        this.file = file;
+        this.props = load(file);
+    }
+
+    /**
+     * Check whether the last build has been done from a context with the given digest. This
+     * can be used for skipping the creation of the build archive.
+     *
+     * @param digest digest of the current build context
+     * @return true if the digest is the same as for the last build
+     */
+    public boolean hasDigest(String digest) {
+        return digest != null && digest.equals(props.getProperty(KEY_DIGEST));
+    }
+
+    /**
+     * Check whether the image is up to date
+     *
+     * @param digest digest of the current build context
+     * @param imageId id of the image currently known to the Docker daemon or <code>null</code> if there is none
+     * @param baseImageId id of the base image currently known to the Docker daemon or <code>null</code> if unknown
+     * @return true if the image doesn't need to be built again
+     */
+    public boolean isUpToDate(String digest, String imageId, String baseImageId) {
+        return hasDigest(digest) &&
+               imageId != null && imageId.equals(props.getProperty(KEY_IMAGE_ID)) &&
+               equals(baseImageId, props.getProperty(KEY_BASE_IMAGE_ID));
+    }
+
+    /**
+     * Remember a successful build
+     *
+     * @param digest digest of the build context
+     * @param imageId id of the image built
+     * @param baseImageId id of the base image used or <code>null</code> if unknown
+     * @throws IOException if the cache can't be written
+     */
+    public void update(String digest, String imageId, String baseImageId) throws IOException {
+        props.clear();
+        props.setProperty(KEY_DIGEST, digest);
+        if (imageId != null) {
+            props.setProperty(KEY_IMAGE_ID, imageId);
+        }
+        if (baseImageId != null) {
+            props.setProperty(KEY_BASE_IMAGE_ID, baseImageId);
+        }
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        try (OutputStream os = new FileOutputStream(file)) {
+            props.store(os, "Docker build cache");
+        }
+    }
+
+    private static Properties load(File file) {
+        Properties props = new Properties();
+        if (file.exists()) {
+            try (InputStream is = new FileInputStream(file)) {
+                props.load(is);
+            } catch (IOException exp) {
+                // Treated as not cached
+                props.clear();
+            }
+        }
+        return props;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -1,8 +1,10 @@
 package org.jolokia.docker.maven.assembly;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.List;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.assembly.AssemblerConfigurationSource;
@@ -22,6 +24,7 @@ import org.codehaus.plexus.archiver.util.DefaultArchivedFileSet;
 import org.codehaus.plexus.archiver.util.DefaultFileSet;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.jolokia.docker.maven.access.ArchiveWriter;
 import org.jolokia.docker.maven.config.*;
 import org.jolokia.docker.maven.util.EnvUtil;
 import org.jolokia.docker.maven.util.MojoParameters;
@@ -38,6 +41,10 @@ public class DockerAssemblyManager {
 
     public static final String DEFAULT_DATA_BASE_IMAGE = "busybox:latest";
 
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_BUFFER_SIZE = 8192;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     @Requirement
     private AssemblyArchiver assemblyArchiver;
 
@@ -61,14 +68,127 @@ public class DockerAssemblyManager {
      * @throws MojoExecutionException
      */
     public File createDockerTarArchive(String imageName, MojoParameters params, BuildImageConfiguration buildConfig) throws MojoExecutionException {
+        TarArchiver archiver = prepareDockerTarArchive(imageName, params, buildConfig);
+        File archive = archiver.getDestFile();
+        try {
+            archiver.createArchive();
+            return archive;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Cannot create archive " + archive, e);
+        }
+    }
+
+    /**
+     * Prepare everything for a docker tar archive like {@link #createDockerTarArchive(String, MojoParameters, BuildImageConfiguration)}
+     * does, but instead of writing the archive to a file return a writer which creates the archive on the fly
+     * when it is sent to the Docker host.
+     *
+     * @param imageName Name of the image to create (used for creating build directories)
+     * @param params Mojos parameters (used for finding the directories)
+     * @param buildConfig configuration for how to build the image
+     * @return writer for streaming the archive
+     * @throws MojoExecutionException
+     */
+    public ArchiveWriter createDockerTarArchiveWriter(String imageName, MojoParameters params, BuildImageConfiguration buildConfig) throws MojoExecutionException {
+        return new TarStreamWriter(prepareDockerTarArchive(imageName, params, buildConfig));
+    }
+
+    /**
+     * Check whether changed assembly files can be added as a thin layer on top of an already built image. This is
+     * only possible for a generated Dockerfile and if the ownership of the files doesn't have to be changed
+     * within an exported volume, where such changes would get lost.
+     *
+     * @param buildConfig configuration for how to build the image
+     * @return true if {@link #createIncrementalDockerTarArchiveWriter} can be used for this image
+     */
+    public boolean supportsIncrementalBuild(BuildImageConfiguration buildConfig) {
+        AssemblyConfiguration assemblyConfig = buildConfig.getAssemblyConfiguration();
+        if (!hasAssembly(assemblyConfig) || assemblyConfig.getDockerFileDir() != null) {
+            return false;
+        }
+        Boolean exportBasedir = assemblyConfig.exportBasedir();
+        boolean exported = exportBasedir != null ? exportBasedir : buildConfig.getFrom() == null;
+        return assemblyConfig.getUser() == null || !exported;
+    }
+
+    /**
+     * Create a writer for an archive which builds a new image on top of a previous image of the same
+     * configuration by copying over only the given assembly files.
+     *
+     * @param imageName name of the image to create (used for creating build directories)
+     * @param params mojos parameters (used for finding the directories)
+     * @param buildConfig configuration for how to build the image
+     * @param previousImageId id of the image to use as base
+     * @param entries assembly files which have changed
+     * @return writer for streaming the archive
+     * @throws MojoExecutionException if the Dockerfile cannot be created
+     */
+    public ArchiveWriter createIncrementalDockerTarArchiveWriter(String imageName, MojoParameters params,
+                                                                 BuildImageConfiguration buildConfig, String previousImageId,
+                                                                 List<AssemblyFiles.Entry> entries) throws MojoExecutionException {
+        AssemblyConfiguration assemblyConfig = buildConfig.getAssemblyConfiguration();
+        BuildDirs buildDirs = createBuildDirs(imageName, params);
+        File dockerFileDir = new File(buildDirs.getTemporaryRootDirectory(), "incremental");
+        try {
+            DockerFileBuilder builder =
+                    new DockerFileBuilder()
+                            .baseImage(previousImageId)
+                            .add("maven", "")
+                            .basedir(assemblyConfig.getBasedir())
+                            .user(assemblyConfig.getUser())
+                            .ownedPaths(getIncrementalPaths(entries))
+                            .exportBasedir(false);
+            if (buildConfig.getMaintainer() != null) {
+                builder.maintainer(buildConfig.getMaintainer());
+            }
+            dockerFileDir.mkdirs();
+            File dockerFile = builder.write(dockerFileDir);
+
+            TarArchiver archiver = (TarArchiver) archiverManager.getArchiver("tar");
+            archiver.setLongfile(TarLongFileMode.posix);
+            archiver.addFile(dockerFile, "Dockerfile");
+            for (AssemblyFiles.Entry entry : entries) {
+                archiver.addFile(entry.getSrcFile(), "maven/" + getAssemblyPath(entry));
+            }
+            return new TarStreamWriter(archiver);
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Cannot create Dockerfile in %s", dockerFileDir), e);
+        } catch (NoSuchArchiverException e) {
+            throw new MojoExecutionException("No archiver for type 'tar' found", e);
+        }
+    }
+
+    // The copied files and their directories, which are recreated by the copy. The ownership of all other
+    // files is left alone, so that they are not copied into the new layer again.
+    private List<String> getIncrementalPaths(List<AssemblyFiles.Entry> entries) {
+        Set<String> paths = new TreeSet<>();
+        paths.add("");
+        for (AssemblyFiles.Entry entry : entries) {
+            String path = getAssemblyPath(entry);
+            for (int idx = path.indexOf('/'); idx > 0; idx = path.indexOf('/', idx + 1)) {
+                paths.add(path.substring(0, idx));
+            }
+            paths.add(path);
+        }
+        return new ArrayList<>(paths);
+    }
+
+    // Path of an entry within the assembly directory, which is copied as "maven" into the image
+    private String getAssemblyPath(AssemblyFiles.Entry entry) {
+        String path = entry.getDestFile().getPath().replace(File.separatorChar, '/');
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        return path;
+    }
+
+    // Create the assembly and the Dockerfile and return an archiver holding all files for the archive
+    private TarArchiver prepareDockerTarArchive(String imageName, MojoParameters params, BuildImageConfiguration buildConfig) throws MojoExecutionException {
         AssemblyConfiguration assemblyConfig = buildConfig.getAssemblyConfiguration();
         BuildDirs buildDirs = createBuildDirs(imageName, params);
 
         try {
-            if (assemblyConfig != null &&
-                (assemblyConfig.getInline() != null ||
-                 assemblyConfig.getDescriptor() != null ||
-                 assemblyConfig.getDescriptorRef() != null)) {
+            if (hasAssembly(assemblyConfig)) {
                 createAssemblyArchive(assemblyConfig, params, buildDirs);
             }
 
@@ -82,13 +202,74 @@ public class DockerAssemblyManager {
                 DockerFileBuilder builder = createDockerFileBuilder(buildConfig, assemblyConfig);
                 builder.write(buildDirs.getOutputDirectory());
             }
-            return createTarball(buildDirs, extraDir, assemblyConfig.getMode());
+            return createTarArchiver(buildDirs, extraDir, assemblyConfig.getMode());
 
         } catch (IOException e) {
             throw new MojoExecutionException(String.format("Cannot create Dockerfile in %s", buildDirs.getOutputDirectory()), e);
         }
     }
 
+    /**
+     * Calculate a digest over everything which ends up in the build archive: The Dockerfile (either generated
+     * or all files from the configured Docker directory) and the names and contents of all assembly files
+     * as found by the tracking archiver. If the digest hasn't changed since the last build, the
+     * archive will have the same content.
+     *
+     * @param imageName name of the image to build
+     * @param params mojo parameters
+     * @param buildConfig configuration for how to build the image
+     * @return digest as hex string
+     * @throws MojoExecutionException if the assembly can't be resolved or a file can't be read
+     */
+    public String calculateBuildDigest(String imageName, MojoParameters params, BuildImageConfiguration buildConfig)
+            throws MojoExecutionException {
+        AssemblyConfiguration assemblyConfig = buildConfig.getAssemblyConfiguration();
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+        try {
+            if (assemblyConfig != null) {
+                updateDigest(digest, "mode:" + assemblyConfig.getMode());
+            }
+            String dockerFileDir = assemblyConfig != null ? assemblyConfig.getDockerFileDir() : null;
+            if (dockerFileDir != null) {
+                File dockerDir = validateDockerDir(params, dockerFileDir);
+                updateDigestWithDirectory(digest, dockerDir, "", buffer);
+            } else {
+                updateDigest(digest, "Dockerfile:" + createDockerFileBuilder(buildConfig, assemblyConfig).content());
+            }
+            if (hasAssembly(assemblyConfig)) {
+                List<AssemblyFiles.Entry> entries =
+                        new ArrayList<>(getAssemblyFiles(imageName, buildConfig, params).getEntries());
+                Collections.sort(entries, new Comparator<AssemblyFiles.Entry>() {
+                    @Override
+                    public int compare(AssemblyFiles.Entry e1, AssemblyFiles.Entry e2) {
+                        return e1.getDestFile().getPath().compareTo(e2.getDestFile().getPath());
+                    }
+                });
+                for (AssemblyFiles.Entry entry : entries) {
+                    updateDigest(digest, "file:" + entry.getDestFile().getPath());
+                    updateDigest(digest, entry.getSrcFile(), buffer);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Cannot calculate build digest for " + imageName + ": " + e, e);
+        } catch (InvalidAssemblerConfigurationException | ArchiveCreationException | AssemblyFormattingException e) {
+            throw new MojoExecutionException("Cannot resolve assembly files for " + imageName + ": " + e.getMessage(), e);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Get the cache holding the information about the last build of an image
+     *
+     * @param imageName name of the image
+     * @param params mojo parameters
+     * @return the build cache
+     */
+    public BuildCache getBuildCache(String imageName, MojoParameters params) {
+        return new BuildCache(new BuildDirs(params, imageName));
+    }
+
     /**
      * Extract all files with a tracking archiver. These can be used to track changes in the filesystem and triggering
      * a rebuild of the image if needed
@@ -112,6 +293,62 @@ public class DockerAssemblyManager {
         }
     }
 
+    private boolean hasAssembly(AssemblyConfiguration assemblyConfig) {
+        return assemblyConfig != null &&
+               (assemblyConfig.getInline() != null ||
+                assemblyConfig.getDescriptor() != null ||
+                assemblyConfig.getDescriptorRef() != null);
+    }
+
+    private MessageDigest createDigest() throws MojoExecutionException {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new MojoExecutionException("No " + DIGEST_ALGORITHM + " digest available", e);
+        }
+    }
+
+    private void updateDigest(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separator so that different splits of the same content yield different digests
+        digest.update((byte) 0);
+    }
+
+    private void updateDigest(MessageDigest digest, File file, byte[] buffer) throws IOException {
+        try (InputStream is = new FileInputStream(file)) {
+            int len;
+            while ((len = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, len);
+            }
+        }
+        digest.update((byte) 0);
+    }
+
+    private void updateDigestWithDirectory(MessageDigest digest, File dir, String prefix, byte[] buffer) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list directory " + dir);
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                updateDigestWithDirectory(digest, file, path + "/", buffer);
+            } else {
+                updateDigest(digest, "file:" + path);
+                updateDigest(digest, file, buffer);
+            }
+        }
+    }
+
+    private String toHex(byte[] bytes) {
+        StringBuilder ret = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            ret.append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+        }
+        return ret.toString();
+    }
+
     private BuildDirs createBuildDirs(String imageName, MojoParameters params) {
         BuildDirs buildDirs = new BuildDirs(params,imageName);
         buildDirs.createDirs();
@@ -127,7 +364,7 @@ public class DockerAssemblyManager {
         return dockerDir;
     }
 
-    private File createTarball(BuildDirs buildDirs, File extraDir, AssemblyMode buildMode) throws MojoExecutionException {
+    private TarArchiver createTarArchiver(BuildDirs buildDirs, File extraDir, AssemblyMode buildMode) throws MojoExecutionException {
         File archive = new File(buildDirs.getTemporaryRootDirectory(), "docker-build.tar");
         try {
             TarArchiver archiver = createArchiver(buildDirs.getOutputDirectory(), archive,  buildMode);
@@ -138,12 +375,9 @@ public class DockerAssemblyManager {
                 // Add own Dockerfile
                 archiver.addFile(new File(buildDirs.getOutputDirectory(),"Dockerfile"), "Dockerfile");
             }
-            archiver.createArchive();
-            return archive;
+            return archiver;
         } catch (NoSuchArchiverException e) {
             throw new MojoExecutionException("No archiver for type 'tar' found", e);
-        } catch (IOException e) {
-            throw new MojoExecutionException("Cannot create archive " + archive, e);
         }
     }
 
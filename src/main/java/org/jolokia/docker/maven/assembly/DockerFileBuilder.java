@@ -45,6 +45,9 @@ public class DockerFileBuilder {
     // See also http://docs.docker.io/reference/builder/#add
     private List<AddEntry> addEntries = new ArrayList<>();
 
+    // Paths relative to the basedir whose ownership is changed (non recursively) instead of all added entries
+    private List<String> ownedPaths;
+
     // list of ports to expose and environments to use
     private List<Integer> ports = new ArrayList<>();
 
@@ -139,8 +142,8 @@ public class DockerFileBuilder {
         if (user != null) {
             String[] userParts = StringUtils.split(user, ":");
             String userArg = userParts.length > 1 ? userParts[0] + ":" + userParts[1] : userParts[0];
-            String chmod = "[\"chown\", \"-R\", \"" + userArg + "\",\"" +
-                         StringUtils.join(destinations.iterator(), "\",\"") + "\"]\n";
+            String chmod = "[\"chown\", " + (ownedPaths == null ? "\"-R\", " : "") + "\"" + userArg + "\",\"" +
+                         StringUtils.join(getOwnedDestinations(destinations).iterator(), "\",\"") + "\"]\n";
             if (userParts.length > 2) {
                 USER.addTo(b,"root");
                 RUN.addTo(b, chmod);
@@ -151,6 +154,17 @@ public class DockerFileBuilder {
         }
     }
 
+    private List<String> getOwnedDestinations(List<String> destinations) {
+        if (ownedPaths == null) {
+            return destinations;
+        }
+        List<String> ret = new ArrayList<>();
+        for (String path : ownedPaths) {
+            ret.add((basedir.equals("/") ? "" : basedir) + "/" + path);
+        }
+        return ret;
+    }
+
     private void addEnv(StringBuilder b) {
         addMap(b,ENV,envEntries);
     }
@@ -261,6 +275,18 @@ public class DockerFileBuilder {
         return this;
     }
 
+    /**
+     * Change the owner of the given paths only instead of all added entries recursively. Useful when
+     * only some files of the added directory have changed.
+     *
+     * @param paths paths relative to the basedir, including any directories which should change their owner
+     * @return this builder
+     */
+    public DockerFileBuilder ownedPaths(List<String> paths) {
+        this.ownedPaths = paths;
+        return this;
+    }
+
     public DockerFileBuilder expose(List<String> ports) {
         if (ports != null) {
             for (String port : ports) {
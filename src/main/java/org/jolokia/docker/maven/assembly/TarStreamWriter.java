@@ -0,0 +1,135 @@
+package org.jolokia.docker.maven.assembly;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.codehaus.plexus.archiver.tar.TarArchiver;
+import org.codehaus.plexus.components.io.attributes.PlexusIoResourceAttributes;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.components.io.resources.PlexusIoSymlink;
+import org.jolokia.docker.maven.access.ArchiveWriter;
+
+/**
+ * Writes all resources collected by a {@link TarArchiver} as tar stream, so that the archive
+ * doesn't need to be written to disk first. Entries are written like the archiver would do, including
+ * symbolic links, modes and owners.
+ *
+ * @author roland
+ * @since 26/10/15
+ */
+class TarStreamWriter implements ArchiveWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TarArchiver archiver;
+
+    TarStreamWriter(TarArchiver archiver) {
+        this.archiver = archiver;
+    }
+
+    @Override
+    public void write(OutputStream out) throws IOException {
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(new NonClosingOutputStream(out), "UTF8");
+        tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            ResourceIterator it = archiver.getResources();
+            while (it.hasNext()) {
+                writeEntry(tar, it.next(), buffer);
+            }
+        } catch (ArchiverException exp) {
+            throw new IOException("Cannot create archive: " + exp.getMessage(), exp);
+        }
+        tar.finish();
+        tar.close();
+    }
+
+    // Same header fields as written by TarArchiver itself
+    private void writeEntry(TarArchiveOutputStream tar, ArchiveEntry entry, byte[] buffer) throws IOException {
+        PlexusIoResource resource = entry.getResource();
+        int type = entry.getType();
+        String name = entry.getName().replace(File.separatorChar, '/');
+        if (type == ArchiveEntry.DIRECTORY && !name.endsWith("/")) {
+            name += "/";
+        }
+        TarArchiveEntry tarEntry;
+        if (type == ArchiveEntry.SYMLINK) {
+            tarEntry = new TarArchiveEntry(name, TarArchiveEntry.LF_SYMLINK);
+            tarEntry.setLinkName(((PlexusIoSymlink) resource).getSymlinkDestination());
+        } else {
+            tarEntry = new TarArchiveEntry(name);
+        }
+        long lastModified = resource.getLastModified();
+        tarEntry.setModTime(lastModified != 0 ? lastModified : System.currentTimeMillis());
+        boolean hasContent = type == ArchiveEntry.FILE;
+        if (hasContent) {
+            long size = resource.getSize();
+            tarEntry.setSize(size != -1 ? size : 0);
+        }
+        tarEntry.setMode(entry.getMode());
+        setOwner(tarEntry, entry.getResourceAttributes());
+        tar.putArchiveEntry(tarEntry);
+        if (hasContent) {
+            try (InputStream is = entry.getInputStream()) {
+                IOUtils.copyLarge(is, tar, buffer);
+            }
+        }
+        tar.closeArchiveEntry();
+    }
+
+    // Owner from the resource if known, otherwise as configured for the archiver
+    private void setOwner(TarArchiveEntry tarEntry, PlexusIoResourceAttributes attributes) {
+        TarArchiver.TarOptions options = archiver.getOptions();
+        boolean hasAttributes = attributes != null;
+        tarEntry.setUserName(hasAttributes && attributes.getUserName() != null ?
+                                     attributes.getUserName() : options.getUserName());
+        tarEntry.setGroupName(hasAttributes && attributes.getGroupName() != null ?
+                                      attributes.getGroupName() : options.getGroup());
+        int uid = hasAttributes && attributes.getUserId() != null ? attributes.getUserId() : options.getUid();
+        if (uid >= 0) {
+            tarEntry.setUserId(uid);
+        }
+        int gid = hasAttributes && attributes.getGroupId() != null ? attributes.getGroupId() : options.getGid();
+        if (gid >= 0) {
+            tarEntry.setGroupId(gid);
+        }
+    }
+
+    // The underlying stream belongs to the caller
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package org.jolokia.docker.maven.config;
 
+import java.util.List;
+
 /**
  * @author roland
  * @since 12.10.14
  */
 public class LogConfiguration {
 
-    public static final LogConfiguration DEFAULT = new LogConfiguration(false, null, null, null);
+    public static final LogConfiguration DEFAULT = new LogConfiguration(false, null, null, null, null, null);
 
     /**
      * @parameter default-value="true"
@@ -28,13 +30,26 @@ public class LogConfiguration {
      */
     private String color;
 
+    /**
+     * @parameter
+     */
+    private List<String> include;
+
+    /**
+     * @parameter
+     */
+    private List<String> exclude;
+
     public LogConfiguration() {}
 
-    private LogConfiguration(boolean enabled, String prefix, String color, String date) {
+    private LogConfiguration(boolean enabled, String prefix, String color, String date,
+                             List<String> include, List<String> exclude) {
         this.enabled = enabled;
         this.prefix = prefix;
         this.date = date;
         this.color = color;
+        this.include = include;
+        this.exclude = exclude;
     }
 
     public String getPrefix() {
@@ -49,6 +64,20 @@ public class LogConfiguration {
         return color;
     }
 
+    /**
+     * @return patterns of which a line must match at least one to be shown, or null if all lines are shown
+     */
+    public List<String> getInclude() {
+        return include;
+    }
+
+    /**
+     * @return patterns of lines which are not shown, or null
+     */
+    public List<String> getExclude() {
+        return exclude;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -58,6 +87,7 @@ public class LogConfiguration {
     public static class Builder {
         private boolean enabled = true;
         private String prefix, timestamp, color;
+        private List<String> include, exclude;
 
         public Builder enabled(boolean enabled) {
             this.enabled = enabled;
@@ -79,8 +109,18 @@ public class LogConfiguration {
             return this;
         }
 
+        public Builder include(List<String> include) {
+            this.include = include;
+            return this;
+        }
+
+        public Builder exclude(List<String> exclude) {
+            this.exclude = exclude;
+            return this;
+        }
+
         public LogConfiguration build() {
-            return new LogConfiguration(enabled, prefix, color, timestamp);
+            return new LogConfiguration(enabled, prefix, color, timestamp, include, exclude);
         }
     }
 }
@@ -1,5 +1,7 @@
 package org.jolokia.docker.maven.config;
 
+import java.util.List;
+
 /**
  * @author roland
  * @since 12.10.14
@@ -21,6 +23,16 @@ public class WaitConfiguration {
      */
     private String log;
 
+    /**
+     * @parameter
+     */
+    private List<String> logPatterns;
+
+    /**
+     * @parameter
+     */
+    private List<String> logFailurePatterns;
+
     /**
      * @parameter
      */
@@ -28,10 +40,13 @@ public class WaitConfiguration {
 
     public WaitConfiguration() {}
 
-    private WaitConfiguration(int time, String url, String log, int shutdown) {
+    private WaitConfiguration(int time, String url, String log, List<String> logPatterns,
+                              List<String> logFailurePatterns, int shutdown) {
         this.time = time;
         this.url = url;
         this.log = log;
+        this.logPatterns = logPatterns;
+        this.logFailurePatterns = logFailurePatterns;
         this.shutdown = shutdown;
     }
 
@@ -47,6 +62,20 @@ public class WaitConfiguration {
         return log;
     }
 
+    /**
+     * @return patterns which all must have been seen in the log before the wait is over, or null
+     */
+    public List<String> getLogPatterns() {
+        return logPatterns;
+    }
+
+    /**
+     * @return patterns of which any lets the wait fail immediately, or null
+     */
+    public List<String> getLogFailurePatterns() {
+        return logFailurePatterns;
+    }
+
     public int getShutdown() {
         return shutdown;
     }
@@ -56,6 +85,7 @@ public class WaitConfiguration {
     public static class Builder {
         private int time = 0,shutdown = 0;
         private String url,log;
+        private List<String> logPatterns, logFailurePatterns;
 
         public Builder time(int time) {
             this.time = time;
@@ -72,13 +102,23 @@ public class WaitConfiguration {
             return this;
         }
 
+        public Builder logPatterns(List<String> logPatterns) {
+            this.logPatterns = logPatterns;
+            return this;
+        }
+
+        public Builder logFailurePatterns(List<String> logFailurePatterns) {
+            this.logFailurePatterns = logFailurePatterns;
+            return this;
+        }
+
         public Builder shutdown(int shutdown) {
             this.shutdown = shutdown;
             return this;
         }
 
         public WaitConfiguration build() {
-            return new WaitConfiguration(time,url,log,shutdown);
+            return new WaitConfiguration(time,url,log,logPatterns,logFailurePatterns,shutdown);
         }
     }
 }
@@ -65,6 +65,8 @@ public enum ConfigKey {
     WORKDIR,
     VOLUMES_FROM,
     WAIT_LOG("wait.log"),
+    WAIT_LOG_PATTERNS("wait.logPatterns"),
+    WAIT_LOG_FAILURE_PATTERNS("wait.logFailurePatterns"),
     WAIT_TIME("wait.time"),
     WAIT_URL("wait.url"),
     WAIT_SHUTDOWN("wait.shutdown"),
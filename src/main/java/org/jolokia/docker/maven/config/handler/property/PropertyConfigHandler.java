@@ -161,6 +161,8 @@ public class PropertyConfigHandler implements ExternalConfigHandler {
                 .time(asInt(withPrefix(prefix, WAIT_TIME,properties)))
                 .url(withPrefix(prefix, WAIT_URL, properties))
                 .log(withPrefix(prefix, WAIT_LOG, properties))
+                .logPatterns(listWithPrefix(prefix, WAIT_LOG_PATTERNS, properties))
+                .logFailurePatterns(listWithPrefix(prefix, WAIT_LOG_FAILURE_PATTERNS, properties))
                 .shutdown(asInt(withPrefix(prefix,WAIT_SHUTDOWN,properties)))
                 .build();
     }
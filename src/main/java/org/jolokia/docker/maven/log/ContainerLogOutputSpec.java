@@ -15,12 +15,15 @@ package org.jolokia.docker.maven.log;/*
  * limitations under the License.
  */
 
+import java.io.File;
+import java.util.List;
+
 import org.fusesource.jansi.Ansi;
 import org.joda.time.format.*;
+import org.jolokia.docker.maven.util.MultiPattern;
 import org.jolokia.docker.maven.util.Timestamp;
 
 import static org.fusesource.jansi.Ansi.Color.*;
-import static org.fusesource.jansi.Ansi.ansi;
 
 /**
  * @author roland
@@ -28,12 +31,22 @@ import static org.fusesource.jansi.Ansi.ansi;
  */
 public class ContainerLogOutputSpec {
 
-    public static final ContainerLogOutputSpec DEFAULT = new ContainerLogOutputSpec("", YELLOW, null,null);
+    public static final ContainerLogOutputSpec DEFAULT = new ContainerLogOutputSpec("", YELLOW, null, null, null, null, null);
 
     private final String containerId;
     private String prefix;
     private Ansi.Color color;
     private DateTimeFormatter timeFormatter;
+    // File to persist the log to, or null
+    private final File file;
+    // Lines to show and to hide, or null for no filtering
+    private final MultiPattern include, exclude;
+
+    // Escape sequences are created once and used only if Ansi is enabled
+    private static final String TIMESTAMP_COLOR = new Ansi().fgBright(BLACK).toString();
+    private static final String RESET = new Ansi().reset().toString();
+    private final String colorCode;
+    private final TimestampFormatCache timestampFormat;
 
 
     // Palette used for prefixing the log output
@@ -45,36 +58,73 @@ public class ContainerLogOutputSpec {
     //Fill prefix up to this length
     private String FILLER = "                                                                           ";
 
-    private ContainerLogOutputSpec(String prefix, Ansi.Color color, DateTimeFormatter timeFormatter, String containerId) {
+    private ContainerLogOutputSpec(String prefix, Ansi.Color color, DateTimeFormatter timeFormatter, String containerId,
+                                   File file, MultiPattern include, MultiPattern exclude) {
         this.prefix = prefix;
         this.color = color;
         this.containerId = containerId;
         this.timeFormatter = timeFormatter;
+        this.file = file;
+        this.include = include;
+        this.exclude = exclude;
+        this.colorCode = color != null ? new Ansi().fg(color).toString() : "";
+        this.timestampFormat = timeFormatter != null ? new TimestampFormatCache(timeFormatter) : null;
     }
 
     public String getContainerId() {
         return containerId;
     }
 
+    public File getFile() {
+        return file;
+    }
 
-    public String getPrompt(boolean withColor,Timestamp timestamp) {
-        return formatTimestamp(timestamp,withColor) + formatPrefix(prefix, withColor) + "> ";
+    /**
+     * @return patterns of which a line must match at least one to be shown, or null if all lines are shown
+     */
+    public MultiPattern getInclude() {
+        return include;
     }
 
-    private String formatTimestamp(Timestamp timestamp,boolean withColor) {
-        if (timeFormatter == null) {
-            return "";
-        }
-        String date = timeFormatter.print(timestamp.getDate());
-        return (withColor ?
-                ansi().fgBright(BLACK).a(date).reset().toString() :
-                date) + " ";
+    /**
+     * @return patterns of lines which are not shown, or null
+     */
+    public MultiPattern getExclude() {
+        return exclude;
+    }
+
+
+    public String getPrompt(boolean withColor,Timestamp timestamp) {
+        StringBuilder ret = new StringBuilder();
+        appendPrompt(ret, withColor, timestamp);
+        return ret.toString();
     }
 
-    private String formatPrefix(String prefix,boolean withColor) {
-        return withColor ?
-                ansi().fg(color).a(prefix).reset().toString() :
-                prefix;
+    /**
+     * Append the prompt for a log line, which doesn't create any objects within the same second
+     *
+     * @param builder builder to append to
+     * @param withColor whether to use colors
+     * @param timestamp timestamp of the log line
+     */
+    public void appendPrompt(StringBuilder builder, boolean withColor, Timestamp timestamp) {
+        boolean colored = withColor && Ansi.isEnabled();
+        if (timestampFormat != null) {
+            if (colored) {
+                builder.append(TIMESTAMP_COLOR);
+            }
+            timestampFormat.appendTo(builder, timestamp);
+            if (colored) {
+                builder.append(RESET);
+            }
+            builder.append(' ');
+        }
+        if (colored) {
+            builder.append(colorCode).append(prefix).append(RESET);
+        } else {
+            builder.append(prefix);
+        }
+        builder.append("> ");
     }
 
     public static class Builder {
@@ -82,6 +132,8 @@ public class ContainerLogOutputSpec {
         private Ansi.Color color;
         private String containerId;
         private DateTimeFormatter timeFormatter;
+        private File file;
+        private MultiPattern include, exclude;
 
         public Builder prefix(String prefix) {
             this.prefix = prefix;
@@ -136,8 +188,27 @@ public class ContainerLogOutputSpec {
             return this;
         }
 
+        public Builder file(File file) {
+            this.file = file;
+            return this;
+        }
+
+        public Builder include(List<String> include) {
+            this.include = compile(include);
+            return this;
+        }
+
+        public Builder exclude(List<String> exclude) {
+            this.exclude = compile(exclude);
+            return this;
+        }
+
+        private MultiPattern compile(List<String> patterns) {
+            return patterns != null && patterns.size() > 0 ? MultiPattern.compile(patterns) : null;
+        }
+
         public ContainerLogOutputSpec build() {
-            return new ContainerLogOutputSpec(prefix,color,timeFormatter,containerId);
+            return new ContainerLogOutputSpec(prefix,color,timeFormatter,containerId,file,include,exclude);
         }
 
     }
@@ -0,0 +1,143 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jolokia.docker.maven.util.Timestamp;
+
+/**
+ * Timestamps of the last log entry seen per container, which are persisted in a properties file. They are used
+ * for requesting only the entries added since the last time the logs have been shown.
+ *
+ * @author roland
+ * @since 31/10/15
+ */
+public class LogCursors {
+
+    private final File file;
+
+    private final ConcurrentMap<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+    /**
+     * Create cursors stored in the given file, reading the cursors persisted there before
+     *
+     * @param file file holding the cursors, which doesn't need to exist
+     * @throws IOException if the file exists but can't be read
+     */
+    public LogCursors(File file) throws IOException {
+        this.file = file;
+        if (file.exists()) {
+            Properties props = new Properties();
+            try (InputStream is = new FileInputStream(file)) {
+                props.load(is);
+            }
+            for (String id : props.stringPropertyNames()) {
+                Cursor cursor = Cursor.parse(props.getProperty(id));
+                if (cursor != null) {
+                    cursors.put(id, cursor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the timestamp of the last entry seen
+     *
+     * @param containerId container id
+     * @return timestamp or null if no entry has been seen yet
+     */
+    public Timestamp get(String containerId) {
+        Cursor cursor = cursors.get(containerId);
+        return cursor != null ? cursor.get() : null;
+    }
+
+    /**
+     * Remember an entry as seen, if it is newer than the last entry seen. Can be called for every line
+     * since no objects are created.
+     *
+     * @param containerId container id
+     * @param epochMillis milliseconds since the epoch of the entry
+     * @param nanos nano seconds within the millisecond
+     */
+    public void update(String containerId, long epochMillis, int nanos) {
+        Cursor cursor = cursors.get(containerId);
+        if (cursor == null) {
+            cursors.putIfAbsent(containerId, new Cursor(epochMillis, nanos));
+            cursor = cursors.get(containerId);
+        }
+        cursor.update(epochMillis, nanos);
+    }
+
+    /**
+     * Persist all cursors
+     *
+     * @throws IOException if writing fails
+     */
+    public synchronized void save() throws IOException {
+        Properties props = new Properties();
+        for (Map.Entry<String, Cursor> entry : cursors.entrySet()) {
+            props.setProperty(entry.getKey(), entry.getValue().toString());
+        }
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        try (OutputStream os = new FileOutputStream(file)) {
+            props.store(os, "Timestamps of the last log entries seen");
+        }
+    }
+
+    // Timestamp updated in place, stored as "<millis since epoch>.<nanos within milli>"
+    private static final class Cursor {
+        private long epochMillis;
+        private int nanos;
+
+        private Cursor(long epochMillis, int nanos) {
+            this.epochMillis = epochMillis;
+            this.nanos = nanos;
+        }
+
+        private static Cursor parse(String value) {
+            try {
+                String[] parts = value.trim().split("\\.", 2);
+                return new Cursor(Long.parseLong(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : 0);
+            } catch (NumberFormatException exp) {
+                // Ignore broken entries
+                return null;
+            }
+        }
+
+        private synchronized void update(long epochMillis, int nanos) {
+            if (epochMillis > this.epochMillis || (epochMillis == this.epochMillis && nanos > this.nanos)) {
+                this.epochMillis = epochMillis;
+                this.nanos = nanos;
+            }
+        }
+
+        private synchronized Timestamp get() {
+            return new Timestamp(epochMillis, nanos);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return epochMillis + "." + String.format("%06d", nanos);
+        }
+    }
+}
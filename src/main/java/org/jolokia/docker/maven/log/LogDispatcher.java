@@ -16,132 +16,143 @@ package org.jolokia.docker.maven.log;/*
  */
 
 import java.io.PrintStream;
-import java.util.*;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.log.LogCallback;
 import org.jolokia.docker.maven.access.log.LogGetHandle;
-import org.jolokia.docker.maven.util.Timestamp;
+import org.jolokia.docker.maven.access.log.LogLine;
+import org.jolokia.docker.maven.access.log.LogRange;
+import org.jolokia.docker.maven.util.MultiPattern;
 
 /**
+ * Dispatcher for tracking the logs of containers. Log entries are handed over to a {@link LogWriter}
+ * which prints them out ordered by time and, if given, to a {@link LogFileWriter} which persists them
+ * to a file per container.
+ *
  * @author roland
  * @since 25/11/14
  */
 public class LogDispatcher {
 
-    private final boolean withColor;
-    private Map<String,ContainerLogOutputSpec> outputSpecs;
+    private final LogWriter writer;
+    private final LogFileWriter fileWriter;
     private Map<String,LogGetHandle> logHandles;
 
-    private List<PrintStream> printStreams;
-
     private DockerAccess dockerAccess;
 
-    public LogDispatcher(DockerAccess dockerAccess,boolean withColor) {
+    public LogDispatcher(DockerAccess dockerAccess, LogWriter writer) {
+        this(dockerAccess, writer, null);
+    }
+
+    public LogDispatcher(DockerAccess dockerAccess, LogWriter writer, LogFileWriter fileWriter) {
         this.dockerAccess = dockerAccess;
-        this.withColor = withColor;
-        outputSpecs = new HashMap<>();
-        printStreams = new ArrayList<>();
+        this.writer = writer;
+        this.fileWriter = fileWriter;
         logHandles = new HashMap<>();
+        writer.start();
+        if (fileWriter != null) {
+            fileWriter.start();
+            fileWriter.addShutdownHook();
+        }
     }
 
     public synchronized void addLogOutputStream(PrintStream out) {
-        printStreams.add(out);
+        writer.addOutputStream(out);
     }
 
     public synchronized void trackContainerLog(String id, ContainerLogOutputSpec spec) {
-        outputSpecs.put(id, spec);
+        trackContainerLog(id, spec, LogRange.ALL, null);
+    }
 
-        LogGetHandle handle = dockerAccess.getLogAsync(id, createLogCallBack(id));
+    /**
+     * Follow the log of a container
+     *
+     * @param id container id
+     * @param spec how to print the log
+     * @param range part of the existing log to show before following
+     * @param cursors if not null, updated with the timestamp of every entry seen
+     */
+    public synchronized void trackContainerLog(String id, ContainerLogOutputSpec spec, LogRange range,
+                                               LogCursors cursors) {
+        LogGetHandle handle = dockerAccess.getLogAsync(id, range, createLogCallBack(id, spec, cursors));
         logHandles.put(id, handle);
     }
 
     public synchronized void fetchContainerLog(String id, ContainerLogOutputSpec spec) {
-        outputSpecs.put(id, spec);
+        fetchContainerLog(id, spec, LogRange.ALL, null);
+    }
+
+    /**
+     * Print the log of a container up to now
+     *
+     * @param id container id
+     * @param spec how to print the log
+     * @param range part of the log to show
+     * @param cursors if not null, updated with the timestamp of every entry seen
+     */
+    public synchronized void fetchContainerLog(String id, ContainerLogOutputSpec spec, LogRange range,
+                                               LogCursors cursors) {
+        dockerAccess.getLogSync(id, range, createLogCallBack(id, spec, cursors));
+        flush();
+    }
 
-        dockerAccess.getLogSync(id,createLogCallBack(id));
+    /**
+     * Start the log file of a container over, e.g. before its whole log is fetched again
+     *
+     * @param spec spec holding the file, nothing happens if it has no file or no files are written
+     */
+    public synchronized void truncateLogFile(ContainerLogOutputSpec spec) {
+        if (fileWriter != null && spec.getFile() != null) {
+            fileWriter.truncate(spec.getFile());
+        }
     }
 
-    private LogCallback createLogCallBack(final String id) {
+    private LogCallback createLogCallBack(final String id, ContainerLogOutputSpec outputSpec,
+                                          final LogCursors cursors) {
+        final ContainerLogOutputSpec spec = outputSpec != null ? outputSpec : ContainerLogOutputSpec.DEFAULT;
+        // Matchers are not thread safe, so every callback gets its own
+        final MultiPattern.Matcher include = spec.getInclude() != null ? spec.getInclude().matcher() : null;
+        final MultiPattern.Matcher exclude = spec.getExclude() != null ? spec.getExclude().matcher() : null;
         return new LogCallback() {
             @Override
-            public void log(int type, Timestamp timestamp, String txt) {
-                addLogEntry(new LogEntry(id, type, timestamp, txt));
+            public void log(LogLine line) {
+                if (cursors != null) {
+                    cursors.update(id, line.getEpochMillis(), line.getNanos());
+                }
+                // Filtered before the text is copied
+                if ((include != null && include.find(line.getText()) < 0) ||
+                    (exclude != null && exclude.find(line.getText()) >= 0)) {
+                    return;
+                }
+                LogEntry entry = new LogEntry(spec, line.getType(), line.getTimestamp(), line.getText().toString());
+                writer.write(entry);
+                if (fileWriter != null) {
+                    fileWriter.write(entry);
+                }
             }
 
             @Override
             public void error(String error) {
-                printError(error);
+                writer.error(error);
             }
         };
     }
 
-    private void addLogEntry(LogEntry logEntry) {
-        // TODO: Add the entry to a queue, and let the queue be picked up with a small delay from an extra
-        // thread which then can sort the entries by time before printing it out in order to avoid race conditions.
-
-        ContainerLogOutputSpec spec = outputSpecs.get(logEntry.getContainerId());
-        if (spec == null) {
-            spec = ContainerLogOutputSpec.DEFAULT;
-        }
-
-        // FIX me according to spec
-        print(spec.getPrompt(withColor,logEntry.getTimestamp()) + logEntry.getText());
-    }
-
-    private void printError(String e) {
-        for (PrintStream ps : printStreams) {
-            ps.println(e);
-        }
-    }
-
-    private void print(String line) {
-        for (PrintStream ps : printStreams) {
-            ps.println(line);
-        }
-    }
-
     public synchronized void untrackAllContainerLogs() {
         for (String key : logHandles.keySet()) {
             LogGetHandle handle = logHandles.get(key);
             handle.finish();
         }
         logHandles.clear();
+        flush();
     }
 
-    // A single log-entry
-    private class LogEntry implements Comparable<LogEntry> {
-        private final String containerId;
-        private final int type;
-        private final Timestamp timestamp;
-        private final String text;
-
-        public LogEntry(String containerId, int type, Timestamp timestamp, String text) {
-            this.containerId = containerId;
-            this.type = type;
-            this.timestamp = timestamp;
-            this.text = text;
-        }
-
-        public String getContainerId() {
-            return containerId;
-        }
-
-        public int getType() {
-            return type;
-        }
-
-        public Timestamp getTimestamp() {
-            return timestamp;
-        }
-
-        public String getText() {
-            return text;
-        }
-
-        @Override
-        public int compareTo(LogEntry entry) {
-            return timestamp.compareTo(entry.timestamp);
+    private void flush() {
+        writer.flush();
+        if (fileWriter != null) {
+            fileWriter.flush();
         }
     }
 }
@@ -0,0 +1,75 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.jolokia.docker.maven.util.Timestamp;
+
+/**
+ * A single log entry of a container together with the spec how to print it out.
+ *
+ * @author roland
+ * @since 24/10/15
+ */
+public class LogEntry implements Comparable<LogEntry> {
+
+    private final ContainerLogOutputSpec spec;
+    private final int type;
+    private final Timestamp timestamp;
+    private final String text;
+
+    // Set when queued, used for keeping the arrival order for equal timestamps and
+    // for deciding when an entry can be printed
+    private long sequence;
+    private long arrival;
+
+    public LogEntry(ContainerLogOutputSpec spec, int type, Timestamp timestamp, String text) {
+        this.spec = spec;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.text = text;
+    }
+
+    public ContainerLogOutputSpec getSpec() {
+        return spec;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public Timestamp getTimestamp() {
+        return timestamp;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    long getArrival() {
+        return arrival;
+    }
+
+    void enqueued(long sequence, long arrival) {
+        this.sequence = sequence;
+        this.arrival = arrival;
+    }
+
+    @Override
+    public int compareTo(LogEntry entry) {
+        int ret = timestamp.compareTo(entry.timestamp);
+        return ret != 0 ? ret : Long.compare(sequence, entry.sequence);
+    }
+}
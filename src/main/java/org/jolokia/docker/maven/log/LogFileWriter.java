@@ -0,0 +1,250 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Writer thread which persists log entries to a file per container. Entries are written in the order they
+ * arrive into buffered files, which are flushed whenever no further entries are waiting. Files are rotated
+ * when they reach a maximum size. Writing happens independently of the printing done by {@link LogWriter},
+ * so that slow disks don't hold back the console output.
+ *
+ * @author roland
+ * @since 30/10/15
+ */
+public class LogFileWriter extends Thread {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    // Time to wait for the remaining entries when the JVM shuts down
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_SECONDS = 10;
+
+    private final long maxSize;
+    private final int maxBackups;
+    private final boolean compress;
+    private final PrintStream errorStream;
+
+    // Either LogEntry, FlushRequest or TruncateRequest
+    private final BlockingQueue<Object> queue;
+
+    // Only accessed by the writer thread
+    private final Map<File, RollingLogFile> files = new HashMap<>();
+    private final Set<File> failedFiles = new HashSet<>();
+    private final StringBuilder line = new StringBuilder();
+    private final TimestampFormatCache timestampFormat = new TimestampFormatCache(ISODateTimeFormat.dateTime());
+
+    /**
+     * Create a writer, which needs to be started before entries can be written
+     *
+     * @param maxSize size in bytes after which a file is rotated, 0 for never rotating
+     * @param maxBackups number of rotated files to keep per container
+     * @param compress whether to gzip rotated files
+     * @param capacity maximal number of entries queued for writing
+     * @param errorStream where to report failures to write a file
+     */
+    public LogFileWriter(long maxSize, int maxBackups, boolean compress, int capacity, PrintStream errorStream) {
+        super("docker-log-file-writer");
+        this.maxSize = maxSize;
+        this.maxBackups = maxBackups;
+        this.compress = compress;
+        this.errorStream = errorStream;
+        this.queue = new LinkedBlockingQueue<>(Math.max(capacity, 1));
+        setDaemon(true);
+    }
+
+    /**
+     * Queue an entry for writing to the file of its spec. Blocks if the queue is full.
+     *
+     * @param entry entry to write, ignored if its spec has no file
+     */
+    public void write(LogEntry entry) {
+        if (entry.getSpec().getFile() == null || !isAlive()) {
+            return;
+        }
+        try {
+            queue.put(entry);
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue truncating a file together with its rotated files. Entries queued afterwards start a new file.
+     *
+     * @param file file to truncate
+     */
+    public void truncate(File file) {
+        if (!isAlive()) {
+            return;
+        }
+        try {
+            queue.put(new TruncateRequest(file));
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait until all entries queued so far are written and close all files. Files are opened again
+     * when further entries arrive.
+     */
+    public void flush() {
+        flush(0);
+    }
+
+    /**
+     * Make sure that the remaining entries get written when the JVM shuts down
+     */
+    public void addShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread("docker-log-file-flush") {
+            @Override
+            public void run() {
+                flush(SHUTDOWN_FLUSH_TIMEOUT_SECONDS);
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Object next = queue.poll();
+                if (next == null) {
+                    // Idle, so bring what has been written so far to disk
+                    flushFiles(false);
+                    next = queue.take();
+                }
+                if (next instanceof FlushRequest) {
+                    flushFiles(true);
+                    ((FlushRequest) next).done.countDown();
+                } else if (next instanceof TruncateRequest) {
+                    truncateFile(((TruncateRequest) next).file);
+                } else {
+                    writeEntry((LogEntry) next);
+                }
+            }
+        } catch (InterruptedException exp) {
+            flushFiles(true);
+        }
+    }
+
+    // ==================================================================================
+
+    // Waits at most the given number of seconds, or without limit if 0
+    private void flush(long timeoutSeconds) {
+        if (!isAlive()) {
+            return;
+        }
+        FlushRequest request = new FlushRequest();
+        try {
+            if (timeoutSeconds > 0) {
+                if (queue.offer(request, timeoutSeconds, TimeUnit.SECONDS)) {
+                    request.done.await(timeoutSeconds, TimeUnit.SECONDS);
+                }
+            } else {
+                queue.put(request);
+                while (!request.done.await(100, TimeUnit.MILLISECONDS) && isAlive()) {
+                    // Wait for the writer
+                }
+            }
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeEntry(LogEntry entry) {
+        File file = entry.getSpec().getFile();
+        if (failedFiles.contains(file)) {
+            return;
+        }
+        RollingLogFile logFile = getLogFile(file);
+        timestampFormat.appendTo(line, entry.getTimestamp());
+        line.append(' ').append(entry.getText()).append(LINE_SEPARATOR);
+        try {
+            logFile.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException exp) {
+            fail(file, exp);
+        } finally {
+            line.setLength(0);
+        }
+    }
+
+    private void truncateFile(File file) {
+        if (failedFiles.contains(file)) {
+            return;
+        }
+        try {
+            getLogFile(file).truncate();
+        } catch (IOException exp) {
+            fail(file, exp);
+        }
+    }
+
+    private RollingLogFile getLogFile(File file) {
+        RollingLogFile logFile = files.get(file);
+        if (logFile == null) {
+            logFile = new RollingLogFile(file, maxSize, maxBackups, compress);
+            files.put(file, logFile);
+        }
+        return logFile;
+    }
+
+    private void flushFiles(boolean close) {
+        Iterator<Map.Entry<File, RollingLogFile>> it = files.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<File, RollingLogFile> entry = it.next();
+            try {
+                if (close) {
+                    entry.getValue().close();
+                } else {
+                    entry.getValue().flush();
+                }
+            } catch (IOException exp) {
+                fail(entry.getKey(), exp);
+            }
+            if (close) {
+                it.remove();
+            }
+        }
+    }
+
+    // A failing file is reported once and not written to anymore
+    private void fail(File file, IOException exp) {
+        if (failedFiles.add(file)) {
+            errorStream.println("Cannot write log file " + file + ": " + exp.getMessage());
+        }
+    }
+
+    private static class FlushRequest {
+        private final CountDownLatch done = new CountDownLatch(1);
+    }
+
+    private static class TruncateRequest {
+        private final File file;
+
+        private TruncateRequest(File file) {
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single writer thread which prints out the log entries of all containers. The threads reading the logs
+ * put their entries into a bounded, lock-free queue. The writer holds back each entry for a reorder window
+ * so that entries from different containers arriving slightly out of order are printed sorted by their
+ * timestamp. All entries ready are written out in one batch.
+ *
+ * If the output can't keep up with the logs, producers either wait until there is room in the queue
+ * again or entries are dropped, depending on the {@link Overflow} policy.
+ *
+ * @author roland
+ * @since 24/10/15
+ */
+public class LogWriter extends Thread {
+
+    /**
+     * What to do when the queue is full
+     */
+    public enum Overflow {
+        // Slow down reading the logs until the writer catches up
+        BLOCK,
+        // Throw away new entries and report how many have been dropped
+        DROP
+    }
+
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final boolean withColor;
+    private final long reorderWindowNanos;
+    private final int capacity;
+    private final Overflow overflow;
+
+    private final List<PrintStream> printStreams = new CopyOnWriteArrayList<>();
+
+    private final Queue<LogEntry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Only accessed by the writer thread
+    private final PriorityQueue<LogEntry> pending = new PriorityQueue<>();
+    private final StringBuilder batch = new StringBuilder();
+
+    // Flush handshake between callers and the writer thread
+    private final Object flushLock = new Object();
+    private long flushRequested, flushDone;
+
+    /**
+     * Create a writer, which needs to be started before entries can be written
+     *
+     * @param withColor whether to use colors for printing out the prompt
+     * @param reorderWindowMillis time in milliseconds an entry is held back before it is printed
+     * @param capacity maximal number of entries queued for printing
+     * @param overflow what to do if the queue is full
+     */
+    public LogWriter(boolean withColor, long reorderWindowMillis, int capacity, Overflow overflow) {
+        super("docker-log-writer");
+        this.withColor = withColor;
+        this.reorderWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(reorderWindowMillis, 0));
+        this.capacity = Math.max(capacity, 1);
+        this.overflow = overflow;
+        setDaemon(true);
+    }
+
+    public void addOutputStream(PrintStream out) {
+        printStreams.add(out);
+    }
+
+    /**
+     * Queue an entry for printing. Can be called concurrently from multiple threads.
+     *
+     * @param entry entry to print
+     */
+    public void write(LogEntry entry) {
+        while (queueSize.incrementAndGet() > capacity) {
+            queueSize.decrementAndGet();
+            if (overflow == Overflow.DROP || !isAlive()) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        entry.enqueued(sequence.incrementAndGet(), System.nanoTime());
+        queue.offer(entry);
+    }
+
+    /**
+     * Print an error immediately
+     *
+     * @param error error to print
+     */
+    public void error(String error) {
+        for (PrintStream ps : printStreams) {
+            ps.println(error);
+        }
+    }
+
+    /**
+     * Wait until all entries queued so far are printed out, without waiting for the reorder window
+     */
+    public void flush() {
+        if (!isAlive()) {
+            return;
+        }
+        synchronized (flushLock) {
+            long request = ++flushRequested;
+            LockSupport.unpark(this);
+            try {
+                while (flushDone < request && isAlive()) {
+                    flushLock.wait(100);
+                }
+            } catch (InterruptedException exp) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            long flushRequest;
+            synchronized (flushLock) {
+                flushRequest = flushRequested;
+            }
+            drainQueue();
+            boolean flush = flushRequest > flushDone;
+            writeReadyEntries(flush);
+            if (flush) {
+                synchronized (flushLock) {
+                    flushDone = flushRequest;
+                    flushLock.notifyAll();
+                }
+            }
+            LockSupport.parkNanos(this, timeToWait());
+        }
+    }
+
+    // ==================================================================================
+
+    private void drainQueue() {
+        LogEntry entry;
+        while ((entry = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            pending.add(entry);
+        }
+    }
+
+    private void writeReadyEntries(boolean all) {
+        long threshold = System.nanoTime() - reorderWindowNanos;
+        LogEntry entry;
+        while ((entry = pending.peek()) != null && (all || entry.getArrival() - threshold <= 0)) {
+            pending.poll();
+            entry.getSpec().appendPrompt(batch, withColor, entry.getTimestamp());
+            batch.append(entry.getText())
+                 .append(LINE_SEPARATOR);
+        }
+        long droppedEntries = dropped.getAndSet(0);
+        if (droppedEntries > 0) {
+            batch.append("... ").append(droppedEntries).append(" log entries dropped").append(LINE_SEPARATOR);
+        }
+        if (batch.length() > 0) {
+            String out = batch.toString();
+            for (PrintStream ps : printStreams) {
+                ps.print(out);
+                ps.flush();
+            }
+            batch.setLength(0);
+        }
+    }
+
+    // Wake up when the oldest pending entry leaves the reorder window, but poll at least regularly for new entries
+    private long timeToWait() {
+        LogEntry first = pending.peek();
+        if (first == null) {
+            return POLL_INTERVAL_NANOS;
+        }
+        long untilReady = first.getArrival() + reorderWindowNanos - System.nanoTime();
+        return Math.max(Math.min(untilReady, POLL_INTERVAL_NANOS), 1);
+    }
+}
@@ -0,0 +1,154 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Log file which is rotated when it reaches a maximum size. Rotated files get the suffix ".1", ".2", ...
+ * with ".1" being the most recent one, and are optionally compressed with gzip. The file is opened lazily
+ * and appended to if it exists already.
+ *
+ * @author roland
+ * @since 30/10/15
+ */
+class RollingLogFile implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final File file;
+    private final long maxSize;
+    private final int maxBackups;
+    private final boolean compress;
+
+    private OutputStream out;
+    private long size;
+
+    /**
+     * @param file file to write to
+     * @param maxSize size in bytes after which the file is rotated, 0 for never rotating
+     * @param maxBackups number of rotated files to keep
+     * @param compress whether to gzip rotated files
+     */
+    RollingLogFile(File file, long maxSize, int maxBackups, boolean compress) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxBackups = Math.max(maxBackups, 0);
+        this.compress = compress;
+    }
+
+    void write(byte[] data) throws IOException {
+        if (out == null) {
+            open();
+        }
+        if (maxSize > 0 && size > 0 && size + data.length > maxSize) {
+            rotate();
+        }
+        out.write(data);
+        size += data.length;
+    }
+
+    /**
+     * Close and delete the file together with its rotated files, so that writing starts over
+     */
+    void truncate() throws IOException {
+        close();
+        delete(file);
+        delete(new File(file.getPath() + ".1"));
+        for (int i = 1; i <= maxBackups; i++) {
+            delete(backup(i));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            try {
+                out.close();
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    // ==========================================================================================
+
+    private void open() throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        size = file.length();
+        out = new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE);
+    }
+
+    private void rotate() throws IOException {
+        close();
+        if (maxBackups > 0) {
+            delete(backup(maxBackups));
+            for (int i = maxBackups - 1; i > 0; i--) {
+                File backup = backup(i);
+                if (backup.exists()) {
+                    rename(backup, backup(i + 1));
+                }
+            }
+            File rotated = new File(file.getPath() + ".1");
+            // Left over if compressing failed before
+            delete(rotated);
+            rename(file, rotated);
+            if (compress) {
+                gzip(rotated, backup(1));
+            }
+        } else {
+            delete(file);
+        }
+        open();
+    }
+
+    private File backup(int index) {
+        return new File(file.getPath() + "." + index + (compress ? ".gz" : ""));
+    }
+
+    private void gzip(File source, File target) throws IOException {
+        try (InputStream in = new FileInputStream(source);
+             OutputStream gzip = new GZIPOutputStream(new FileOutputStream(target), BUFFER_SIZE)) {
+            IOUtils.copy(in, gzip);
+        }
+        delete(source);
+    }
+
+    private void rename(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            throw new IOException("Cannot rename " + from + " to " + to);
+        }
+    }
+
+    private void delete(File toDelete) throws IOException {
+        if (toDelete.exists() && !toDelete.delete()) {
+            throw new IOException("Cannot delete " + toDelete);
+        }
+    }
+}
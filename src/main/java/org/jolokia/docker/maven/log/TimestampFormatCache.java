@@ -0,0 +1,132 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.joda.time.format.DateTimeFormatter;
+import org.jolokia.docker.maven.util.Timestamp;
+
+/**
+ * Formatter for log timestamps which formats only once per second. Since all lines within the same
+ * second differ only in the milliseconds, the text formatted for the second is reused and only the
+ * digits of the milliseconds are patched in for each line. Formats for which patching doesn't work
+ * (like when the milliseconds are printed with more than three digits) are cached per millisecond.
+ *
+ * @author roland
+ * @since 30/10/15
+ */
+class TimestampFormatCache {
+
+    private final DateTimeFormatter formatter;
+
+    // Replaced as a whole so that readers always see a consistent state
+    private volatile Formatted formatted;
+
+    TimestampFormatCache(DateTimeFormatter formatter) {
+        this.formatter = formatter;
+    }
+
+    /**
+     * Append the formatted timestamp
+     *
+     * @param builder builder to append to
+     * @param timestamp timestamp to format
+     */
+    void appendTo(StringBuilder builder, Timestamp timestamp) {
+        long millis = timestamp.getEpochMillis();
+        long second = millis >= 0 ? millis / 1000 : (millis - 999) / 1000;
+        Formatted current = formatted;
+        if (current == null || current.second != second || (current.fractionLength < 0 && current.millis != millis)) {
+            current = format(second, millis);
+            formatted = current;
+        }
+        if (current.fractionLength <= 0) {
+            builder.append(current.text);
+        } else {
+            int end = current.fractionStart + current.fractionLength;
+            builder.append(current.text, 0, current.fractionStart);
+            appendFraction(builder, (int) (millis - second * 1000), current.fractionLength);
+            builder.append(current.text, end, current.text.length());
+        }
+    }
+
+    // ==========================================================================================
+
+    private Formatted format(long second, long millis) {
+        long base = second * 1000;
+        String zero = formatter.print(base);
+        String nines = formatter.print(base + 999);
+        if (zero.length() == nines.length()) {
+            int start = 0;
+            while (start < zero.length() && zero.charAt(start) == nines.charAt(start)) {
+                start++;
+            }
+            if (start == zero.length()) {
+                // No fraction printed at all
+                return new Formatted(second, base, zero, 0, 0);
+            }
+            int end = zero.length();
+            while (zero.charAt(end - 1) == nines.charAt(end - 1)) {
+                end--;
+            }
+            if (end - start <= 3) {
+                Formatted ret = new Formatted(second, base, zero, start, end - start);
+                // Double check with a sample instead of making assumptions about the format
+                StringBuilder sample = new StringBuilder();
+                sample.append(zero, 0, start);
+                appendFraction(sample, 123, end - start);
+                sample.append(zero, end, zero.length());
+                if (sample.toString().equals(formatter.print(base + 123))) {
+                    return ret;
+                }
+            }
+        }
+        return new Formatted(second, millis, formatter.print(millis), 0, -1);
+    }
+
+    // Append the leading digits of the milliseconds
+    private static void appendFraction(StringBuilder builder, int millisOfSecond, int digits) {
+        int value = millisOfSecond;
+        for (int i = digits; i < 3; i++) {
+            value /= 10;
+        }
+        if (digits == 3 && value < 100) {
+            builder.append('0');
+        }
+        if (digits >= 2 && value < 10) {
+            builder.append('0');
+        }
+        builder.append(value);
+    }
+
+    private static final class Formatted {
+        private final long second;
+        // Milliseconds the text has been formatted for
+        private final long millis;
+        private final String text;
+        // Position and length of the fraction digits to patch, length 0 if there is no fraction and -1 if
+        // the text can't be patched
+        private final int fractionStart;
+        private final int fractionLength;
+
+        private Formatted(long second, long millis, String text, int fractionStart, int fractionLength) {
+            this.second = second;
+            this.millis = millis;
+            this.text = text;
+            this.fractionStart = fractionStart;
+            this.fractionLength = fractionLength;
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package org.jolokia.docker.maven.model;
 
-import java.util.Calendar;
+import java.util.*;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.jolokia.docker.maven.util.Timestamp;
 import org.json.JSONObject;
 
 public class ContainerDetails implements Container {
 
+    /**
+     * Fields of the container details used by this model, all others don't need to be parsed
+     */
+    public static final Set<String> FIELDS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("Name", "Created", "Id", "Config.Image",
+                                                                    "State.Running", "State.StartedAt", "RestartCount")));
+
     private final JSONObject json;
 
     public ContainerDetails(JSONObject json) {
@@ -45,4 +53,24 @@ public class ContainerDetails implements Container {
         JSONObject state = json.getJSONObject("State");
         return state.getBoolean("Running");
     }
+
+    /**
+     * @return time when the container has been started the last time or null if it has never been started
+     */
+    public Timestamp getStartedAt() {
+        String startedAt = json.getJSONObject("State").optString("StartedAt", null);
+        if (startedAt == null) {
+            return null;
+        }
+        Timestamp ret = new Timestamp(startedAt);
+        // Docker reports "0001-01-01T00:00:00Z" for containers not started yet
+        return ret.getEpochMillis() > 0 ? ret : null;
+    }
+
+    /**
+     * @return how often the container has been restarted by the Docker daemon because of its restart policy
+     */
+    public int getRestartCount() {
+        return json.optInt("RestartCount", 0);
+    }
 }
@@ -1,10 +1,18 @@
 package org.jolokia.docker.maven.model;
 
+import java.util.*;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 public class ContainersListElement implements Container {
 
+    /**
+     * Fields of a container list element used by this model, all others don't need to be parsed
+     */
+    public static final Set<String> FIELDS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("Names", "Created", "Id", "Image", "Status")));
+
     private final JSONObject json;
 
     public ContainersListElement(JSONObject json) {
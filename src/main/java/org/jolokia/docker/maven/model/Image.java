@@ -1,9 +1,7 @@
 package org.jolokia.docker.maven.model;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
-import edu.emory.mathcs.backport.java.util.Collections;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -13,6 +11,12 @@ import org.json.JSONObject;
  */
 public class Image {
 
+    /**
+     * Fields of an image list element used by this model, all others don't need to be parsed
+     */
+    public static final Set<String> FIELDS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("Id", "RepoTags")));
+
     private final JSONObject json;
 
     /**
@@ -10,6 +10,9 @@ import java.util.Map;
 
 import org.jolokia.docker.maven.config.ImageConfiguration;
 
+/**
+ * Tracker for started containers. It is thread safe since containers can be started concurrently.
+ */
 public class ContainerTracker {
 
     // Map holding associations between started containers and their images via name and aliases
@@ -22,29 +25,29 @@ public class ContainerTracker {
     // Action to be used when doing a shutdown
     private final Map<String,ShutdownAction> shutdownActionMap = new LinkedHashMap<>();
     
-    public void registerShutdownAction(String id, ImageConfiguration imageConfig) {
+    public synchronized void registerShutdownAction(String id, ImageConfiguration imageConfig) {
         shutdownActionMap.put(id, new ShutdownAction(imageConfig, id));
         updateImageToContainerMapping(imageConfig, id);
     }
     
-    public ShutdownAction getShutdownAction(String containerId) {
+    public synchronized ShutdownAction getShutdownAction(String containerId) {
         return shutdownActionMap.get(containerId);
     }
     
-    public ShutdownAction removeShutdownAction(String containerId) {
+    public synchronized ShutdownAction removeShutdownAction(String containerId) {
         return shutdownActionMap.remove(containerId);
     }
     
-    public String lookupContainer(String lookup) {
+    public synchronized String lookupContainer(String lookup) {
         String image = imageAliasMap.containsKey(lookup) ? imageAliasMap.get(lookup) : lookup;
         return containerImageNameMap.get(image);
     }
 
-    public void resetShutdownActions() {
+    public synchronized void resetShutdownActions() {
         shutdownActionMap.clear();
     }
     
-    public Collection<ShutdownAction> getAllShutdownActions() {
+    public synchronized Collection<ShutdownAction> getAllShutdownActions() {
         List<ShutdownAction> actions = new ArrayList<>(shutdownActionMap.values());
         Collections.reverse(actions);
 
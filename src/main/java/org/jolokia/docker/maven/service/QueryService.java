@@ -1,7 +1,6 @@
 package org.jolokia.docker.maven.service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.jolokia.docker.maven.access.DockerAccess;
@@ -17,8 +16,11 @@ import org.jolokia.docker.maven.util.*;
  */
 public class QueryService {
 
-    // Default limit when listing containers
-    private static final ListArg CONTAINER_LIMIT = ListArg.limit(100);
+    // Number of containers fetched at once when paging through all containers
+    private static final int CONTAINER_PAGE_SIZE = 100;
+
+    // First API version whose daemons know the "name" and "ancestor" filters for listing containers
+    private static final String CONTAINER_FILTERS_API_VERSION = "v1.21";
 
     // Access to docker daemon & logger
     private DockerAccess docker;
@@ -53,7 +55,7 @@ public class QueryService {
      * @throws DockerAccessException in case of an remote error
      */
     public Container getContainerByName(final String containerName) throws DockerAccessException {
-        for (Container el : docker.listContainers(CONTAINER_LIMIT)) {
+        for (Container el : listContainers("name", containerName)) {
             if (containerName.equals(el.getName())) {
                 return el;
             }
@@ -73,14 +75,14 @@ public class QueryService {
     }
 
     /**
-     * Get all containers which are build from an image. Only the last 100 containers are considered
+     * Get all containers which are build from an image
      *
      * @param image for which its container are looked up
      * @return list of <code>Container</code> objects
      * @throws DockerAccessException if the request fails
      */
     public List<Container> getContainersForImage(final String image) throws DockerAccessException {
-        List<Container> list = docker.listContainers(CONTAINER_LIMIT);
+        List<Container> list = listContainers("ancestor", image);
         List<Container> ret = new ArrayList<>();
         for (Container el : list) {
             if (image.equals(el.getImage())) {
@@ -157,6 +159,17 @@ public class QueryService {
      * @throws DockerAccessException if the request fails
      */
     public boolean hasImage(String name) throws DockerAccessException {
+        return findImageId(name) != null;
+    }
+
+    /**
+     * Get the id of a locally available image, taking the tag into account
+     *
+     * @param name name of image to look up, the image can contain a tag, otherwise 'latest' will be appended
+     * @return the image id or <code>null</code> if the image is not available locally
+     * @throws DockerAccessException if the request fails
+     */
+    public String findImageId(String name) throws DockerAccessException {
         ImageName imageName = new ImageName(name);
 
         String fullName = imageName.getFullName();
@@ -164,10 +177,10 @@ public class QueryService {
 
         for (Image image : docker.listImages(ListArg.filter(nameWithoutTag))) {
             if (image.getRepoTags().contains(fullName)) {
-                return true;
+                return image.getId();
             }
         }
-        return false;
+        return null;
     }
 
     /**
@@ -201,6 +214,55 @@ public class QueryService {
         }
     }
 
+    // Candidates for a filter, including containers which are not running. Callers still have to check the
+    // candidates since the daemon matches names as substrings and images including derived images. Older
+    // daemons ignore unknown filters and would return all containers, so all of them are paged through instead.
+    private List<Container> listContainers(String filter, String value) throws DockerAccessException {
+        if (isVersionAtLeast(docker.getApiVersion(), CONTAINER_FILTERS_API_VERSION)) {
+            return docker.listContainers(ListArg.all(), ListArg.filters(filter, value));
+        }
+        return listAllContainers();
+    }
+
+    // Compare API versions like "v1.21" part by part
+    static boolean isVersionAtLeast(String version, String required) {
+        String[] parts = version.replaceFirst("^v", "").split("\\.");
+        String[] requiredParts = required.replaceFirst("^v", "").split("\\.");
+        for (int i = 0; i < requiredParts.length; i++) {
+            int part = i < parts.length ? Integer.parseInt(parts[i]) : 0;
+            int requiredPart = Integer.parseInt(requiredParts[i]);
+            if (part != requiredPart) {
+                return part > requiredPart;
+            }
+        }
+        return true;
+    }
+
+    // Page through all containers, newest first
+    private List<Container> listAllContainers() throws DockerAccessException {
+        List<Container> ret = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        ListArg limit = ListArg.limit(CONTAINER_PAGE_SIZE);
+        String before = null;
+        while (true) {
+            List<Container> page = before == null ?
+                    docker.listContainers(limit) :
+                    docker.listContainers(limit, ListArg.before(before));
+            boolean added = false;
+            for (Container container : page) {
+                if (seen.add(container.getId())) {
+                    ret.add(container);
+                    added = true;
+                }
+            }
+            // Stop as well if the daemon doesn't support paging and returns the same page again
+            if (page.size() < CONTAINER_PAGE_SIZE || !added) {
+                return ret;
+            }
+            before = page.get(page.size() - 1).getId();
+        }
+    }
+
     // Check whether ALWAYS is active
     private boolean alwaysPull(AutoPullMode autoPullMode, boolean always) {
         return always && autoPullMode == AutoPullMode.ALWAYS;
@@ -16,6 +16,7 @@ package org.jolokia.docker.maven.service;/*
  */
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 
 import org.jolokia.docker.maven.access.*;
 import org.jolokia.docker.maven.config.*;
@@ -86,6 +87,25 @@ public class RunService {
         new ShutdownAction(image,containerId).shutdown(docker, log, keepContainer, removeVolumes);
     }
 
+    /**
+     * Stop multiple containers concurrently by id. Containers are stopped after all containers linking
+     * to them or mounting their volumes are stopped, and are removed after those are removed.
+     *
+     * @param containers the containers to stop with the image configuration they were created from
+     * @param keepContainer whether to keep container or to remove them after stoppings
+     * @param removeVolumes whether to remove volumes after stopping
+     * @param parallelism maximum number of containers to stop or remove at the same time
+     */
+    public void stopContainers(Map<String, ImageConfiguration> containers, boolean keepContainer,
+                               boolean removeVolumes, int parallelism)
+            throws DockerAccessException {
+        List<ShutdownAction> actions = new ArrayList<>();
+        for (Map.Entry<String, ImageConfiguration> entry : containers.entrySet()) {
+            actions.add(new ShutdownAction(entry.getValue(), entry.getKey()));
+        }
+        shutdown(actions, keepContainer, removeVolumes, parallelism);
+    }
+
     /**
      * Lookup up whether a certain has been already started and registered. If so, stop it
      * @param containerId the container to stop
@@ -117,10 +137,24 @@ public class RunService {
     public void stopStartedContainers(boolean keepContainer,
                                       boolean removeVolumes)
             throws DockerAccessException {
+        stopStartedContainers(keepContainer, removeVolumes, 1);
+    }
+
+    /**
+     * Stop all registered container concurrently, in reverse dependency order
+     *
+     * @param keepContainer whether to keep container or to remove them after stoppings
+     * @param removeVolumes whether to remove volumes after stopping
+     * @param parallelism maximum number of containers to stop or remove at the same time
+     *
+     * @throws DockerAccessException if during stopping of a container sth fails
+     */
+    public void stopStartedContainers(boolean keepContainer,
+                                      boolean removeVolumes,
+                                      int parallelism)
+            throws DockerAccessException {
         synchronized (tracker) {
-            for (ShutdownAction action : tracker.getAllShutdownActions()) {
-                action.shutdown(docker, log, keepContainer, removeVolumes);
-            }
+            shutdown(new ArrayList<>(tracker.getAllShutdownActions()), keepContainer, removeVolumes, parallelism);
             tracker.resetShutdownActions();
         }
     }
@@ -144,6 +178,17 @@ public class RunService {
         return StartOrderResolver.resolve(queryService, convertToResolvables(images));
     }
 
+    /**
+     * Get the images to start together with the images each of them depends on
+     *
+     * @param images list of images for which the dependencies should be resolved
+     * @return map with the images in startup order as keys and their dependencies as values
+     */
+    public Map<StartOrderResolver.Resolvable, List<StartOrderResolver.Resolvable>> getImageConfigDependencies(
+            QueryService queryService, List<ImageConfiguration> images) {
+        return StartOrderResolver.resolveDependencyGraph(queryService, convertToResolvables(images));
+    }
+
     /**
      * Create port mapping for a specific configuration as it can be used when creating containers
      *
@@ -162,12 +207,13 @@ public class RunService {
     /**
      * Add a shutdown hook in order to stop all registered containers
      */
-    public void addShutdownHookForStoppingContainers(final boolean keepContainer, final boolean removeVolumes) {
+    public void addShutdownHookForStoppingContainers(final boolean keepContainer, final boolean removeVolumes,
+                                                     final int parallelism) {
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
                 try {
-                    stopStartedContainers(keepContainer, removeVolumes);
+                    stopStartedContainers(keepContainer, removeVolumes, parallelism);
                 } catch (DockerAccessException e) {
                     log.error("Error while stopping containers: " + e);
                 }
@@ -177,6 +223,98 @@ public class RunService {
 
     // ================================================================================================
 
+    // Stopping a container and removing it are separate steps, so that removals and grace periods
+    // overlap with stopping other containers
+    private void shutdown(List<ShutdownAction> actions, final boolean keepContainer, final boolean removeVolumes,
+                          int parallelism) throws DockerAccessException {
+        try {
+            new DependencyExecutor<ShutdownStep>(parallelism, "docker-stop").execute(
+                    getShutdownSteps(actions),
+                    new DependencyExecutor.Task<ShutdownStep>() {
+                        @Override
+                        public void execute(ShutdownStep step) throws DockerAccessException {
+                            if (step.remove) {
+                                step.action.remove(docker, log, keepContainer, removeVolumes);
+                            } else {
+                                step.action.stop(docker);
+                            }
+                        }
+                    });
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DockerAccessException) {
+                throw (DockerAccessException) cause;
+            }
+            throw new DockerAccessException(cause, "Cannot stop containers: %s", cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerAccessException(e, "Interrupted while stopping containers");
+        }
+    }
+
+    // A container is stopped after all containers depending on it are stopped and
+    // removed after they are removed. The steps are ordered so that they can run one after the other.
+    private Map<ShutdownStep, List<ShutdownStep>> getShutdownSteps(List<ShutdownAction> actions) {
+        Map<ShutdownAction, ShutdownStep> stopSteps = new HashMap<>();
+        Map<ShutdownAction, ShutdownStep> removeSteps = new HashMap<>();
+        for (ShutdownAction action : actions) {
+            stopSteps.put(action, new ShutdownStep(action, false));
+            removeSteps.put(action, new ShutdownStep(action, true));
+        }
+
+        Map<ShutdownStep, List<ShutdownStep>> ret = new LinkedHashMap<>();
+        List<ShutdownAction> ordered = new ArrayList<>();
+        for (ShutdownAction action : orderDependentsFirst(actions)) {
+            List<ShutdownStep> stopDependencies = new ArrayList<>();
+            List<ShutdownStep> removeDependencies = new ArrayList<>();
+            removeDependencies.add(stopSteps.get(action));
+            // Only dependents ordered before are waited for, which breaks cycles
+            for (ShutdownAction dependent : ordered) {
+                if (dependent.dependsOn(action)) {
+                    stopDependencies.add(stopSteps.get(dependent));
+                    removeDependencies.add(removeSteps.get(dependent));
+                }
+            }
+            ret.put(stopSteps.get(action), stopDependencies);
+            ret.put(removeSteps.get(action), removeDependencies);
+            ordered.add(action);
+        }
+        return ret;
+    }
+
+    // Keeps the given order as far as possible. Actions involved in a cycle are appended in the given order.
+    private List<ShutdownAction> orderDependentsFirst(List<ShutdownAction> actions) {
+        List<ShutdownAction> ret = new ArrayList<>();
+        List<ShutdownAction> pending = new ArrayList<>(actions);
+        boolean progress = true;
+        while (!pending.isEmpty() && progress) {
+            progress = false;
+            Iterator<ShutdownAction> it = pending.iterator();
+            while (it.hasNext()) {
+                ShutdownAction action = it.next();
+                if (!hasDependent(action, pending)) {
+                    ret.add(action);
+                    it.remove();
+                    progress = true;
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.warn("Cyclic dependencies between containers to stop, stopping them in reverse start order");
+            ret.addAll(pending);
+        }
+        return ret;
+    }
+
+    private boolean hasDependent(ShutdownAction action, List<ShutdownAction> candidates) {
+        for (ShutdownAction candidate : candidates) {
+            if (candidate.dependsOn(action)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private List<StartOrderResolver.Resolvable> convertToResolvables(List<ImageConfiguration> images) {
         List<StartOrderResolver.Resolvable> ret = new ArrayList<>();
         for (ImageConfiguration config : images) {
@@ -295,4 +433,15 @@ public class RunService {
         docker.startContainer(id);
         tracker.registerShutdownAction(id, imageConfig);
     }
+
+    // Part of the shutdown of a single container
+    private static final class ShutdownStep {
+        private final ShutdownAction action;
+        private final boolean remove;
+
+        private ShutdownStep(ShutdownAction action, boolean remove) {
+            this.action = action;
+            this.remove = remove;
+        }
+    }
 }
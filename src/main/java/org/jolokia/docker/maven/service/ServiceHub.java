@@ -3,6 +3,7 @@ package org.jolokia.docker.maven.service;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.project.MavenProject;
+import org.jolokia.docker.maven.access.CachingDockerAccess;
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.util.Logger;
 
@@ -24,6 +25,9 @@ public class ServiceHub {
     /** @component */
     protected MavenSession session;
 
+    // Access shared by all services, delegating to the access of the current execution
+    private CachingDockerAccess cachingAccess;
+
     // Services managed by thus hub
     private MojoExecutionService mojoExecutionService;
     private QueryService queryService;
@@ -34,18 +38,25 @@ public class ServiceHub {
 
     /**
      * Lifecycle method called early in order to build up the services. It can be called multiple
-     * times but will run only once.
+     * times but will build up the services only once. Every further call switches the services over to the given
+     * access object.
      *
      * @param dockerAccess the docker access object
      * @param log logger to use
+     * @return access caching container and image listings, which should be used for all calls of the current
+     *         execution so that the cache gets invalidated properly
      */
-    public synchronized void init(DockerAccess dockerAccess, Logger log) {
+    public synchronized CachingDockerAccess init(DockerAccess dockerAccess, Logger log) {
         if (!initDone) {
+            cachingAccess = new CachingDockerAccess(dockerAccess);
             mojoExecutionService = new MojoExecutionService(project, session, pluginManager);
-            queryService = new QueryService(dockerAccess, log);
-            runService = new RunService(dockerAccess, queryService, containerTracker, log);
+            queryService = new QueryService(cachingAccess, log);
+            runService = new RunService(cachingAccess, queryService, containerTracker, log);
             initDone = true;
+        } else {
+            cachingAccess.setDelegate(dockerAccess);
         }
+        return cachingAccess;
     }
 
     /**
@@ -15,6 +15,8 @@ package org.jolokia.docker.maven.service;/*
  * limitations under the License.
  */
 
+import java.util.List;
+
 import org.jolokia.docker.maven.access.DockerAccess;
 import org.jolokia.docker.maven.access.DockerAccessException;
 import org.jolokia.docker.maven.config.*;
@@ -31,6 +33,12 @@ class ShutdownAction {
     // The image used
     private String image;
 
+    // Alias of the image (might be null)
+    private String alias;
+
+    // Images or containers this container links to or mounts volumes from
+    private List<String> dependencies;
+
     // Alias of the image
     private final String containerId;
 
@@ -42,6 +50,8 @@ class ShutdownAction {
 
     ShutdownAction(ImageConfiguration imageConfig, String containerId) {
         this.image = imageConfig.getName();
+        this.alias = imageConfig.getAlias();
+        this.dependencies = imageConfig.getDependencies();
         this.containerId = containerId;
         this.description = imageConfig.getDescription();
         RunImageConfiguration runConfig = imageConfig.getRunConfiguration();
@@ -59,6 +69,18 @@ class ShutdownAction {
         return pImage == null || pImage.equals(image);
     }
 
+    /**
+     * Check whether the container of this action links to or mounts volumes from the container of another action.
+     * If so, this container must be stopped before the other one.
+     *
+     * @param other other action to check
+     * @return true if this container depends on the container of the other action
+     */
+    public boolean dependsOn(ShutdownAction other) {
+        return other != this &&
+               (dependencies.contains(other.image) || (other.alias != null && dependencies.contains(other.alias)));
+    }
+
     /**
      * Clean up according to the given parameters
      *
@@ -69,8 +91,30 @@ class ShutdownAction {
      */
     public void shutdown(DockerAccess access, Logger log, boolean keepContainer, boolean removeVolumes)
             throws DockerAccessException {
-        // Stop the container
+        stop(access);
+        remove(access, log, keepContainer, removeVolumes);
+    }
+
+    /**
+     * Stop the container, first part of {@link #shutdown(DockerAccess, Logger, boolean, boolean)}
+     *
+     * @param access access object for reaching docker
+     */
+    public void stop(DockerAccess access) throws DockerAccessException {
         access.stopContainer(containerId);
+    }
+
+    /**
+     * Remove the stopped container after the grace period if not to be kept,
+     * second part of {@link #shutdown(DockerAccess, Logger, boolean, boolean)}
+     *
+     * @param access access object for reaching docker
+     * @param log logger to use
+     * @param keepContainer whether to keep the container (and its data container)
+     * @param removeVolumes whether to remove associated volumes along with the container (ignored if keepContainer is true)
+     */
+    public void remove(DockerAccess access, Logger log, boolean keepContainer, boolean removeVolumes)
+            throws DockerAccessException {
         if (!keepContainer) {
             if (shutdownGracePeriod != 0) {
                 log.debug("Shutdown: Wait " + shutdownGracePeriod + " ms before removing container");
@@ -0,0 +1,88 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.jolokia.docker.maven.config.BuildImageConfiguration;
+import org.jolokia.docker.maven.config.ImageConfiguration;
+
+/**
+ * Resolve the order in which images are to be built. An image depends on another image
+ * to build if its <code>&lt;from&gt;</code> refers to the name or one of the tags of this image.
+ *
+ * @author roland
+ * @since 24/10/15
+ */
+public class BuildOrderResolver {
+
+    private final Map<String, ImageConfiguration> imagesByName = new HashMap<>();
+    private final Map<ImageConfiguration, List<ImageConfiguration>> resolved = new LinkedHashMap<>();
+    private final Set<ImageConfiguration> inProgress = new HashSet<>();
+
+    private BuildOrderResolver(List<ImageConfiguration> images) {
+        for (ImageConfiguration image : images) {
+            String name = image.getName();
+            imagesByName.put(new ImageName(name).getFullName(), image);
+            for (String tag : image.getBuildConfiguration().getTags()) {
+                if (tag != null) {
+                    imagesByName.put(new ImageName(name, tag).getFullName(), image);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolve the build order. The keys of the returned map are iterated in a valid sequential build order,
+     * keeping the configured order where possible. As value, the images (out of the given list) which are
+     * used as base image are given.
+     *
+     * @param images images to build, which all must have a build configuration
+     * @return map of images in build order to their dependencies
+     * @throws MojoExecutionException if the images have cyclic dependencies
+     */
+    public static Map<ImageConfiguration, List<ImageConfiguration>> resolve(List<ImageConfiguration> images)
+            throws MojoExecutionException {
+        BuildOrderResolver resolver = new BuildOrderResolver(images);
+        for (ImageConfiguration image : images) {
+            resolver.visit(image);
+        }
+        return resolver.resolved;
+    }
+
+    private void visit(ImageConfiguration image) throws MojoExecutionException {
+        if (resolved.containsKey(image)) {
+            return;
+        }
+        if (!inProgress.add(image)) {
+            throw new MojoExecutionException("Cyclic <from> dependency for image " + image.getDescription());
+        }
+        List<ImageConfiguration> deps = new ArrayList<>();
+        ImageConfiguration base = getBaseImage(image.getBuildConfiguration());
+        if (base != null && base != image) {
+            visit(base);
+            deps.add(base);
+        }
+        inProgress.remove(image);
+        resolved.put(image, deps);
+    }
+
+    private ImageConfiguration getBaseImage(BuildImageConfiguration buildConfig) {
+        String from = buildConfig.getFrom();
+        return from != null ? imagesByName.get(new ImageName(from).getFullName()) : null;
+    }
+}
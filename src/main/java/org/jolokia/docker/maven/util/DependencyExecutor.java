@@ -0,0 +1,180 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for running a task on items which depend on each other. The task for an item
+ * is started as soon as the tasks for all items it depends on have finished successfully, so that
+ * independent items are processed concurrently on a bounded number of threads.
+ *
+ * If a task fails, no further tasks are started, but all tasks already running are waited for before
+ * the first failure is reported. That way callers can reliably clean up everything which has been done so far.
+ * When interrupted, running tasks are interrupted and waited for a bounded time for the same reason.
+ *
+ * @author roland
+ * @since 20/10/15
+ */
+public class DependencyExecutor<T> {
+
+    // Seconds to wait for running tasks to finish after an interrupt
+    private static final int TERMINATION_TIMEOUT = 60;
+
+    private final int parallelism;
+    private final String threadPrefix;
+
+    /**
+     * Create an executor
+     *
+     * @param parallelism maximal number of tasks to run at the same time. If less or equal 1, tasks
+     *                    are executed sequentially within the calling thread.
+     * @param threadPrefix prefix used for naming the worker threads
+     */
+    public DependencyExecutor(int parallelism, String threadPrefix) {
+        this.parallelism = parallelism;
+        this.threadPrefix = threadPrefix;
+    }
+
+    /**
+     * Execute the given task for all items
+     *
+     * @param dependencies map with all items to process as keys and the items on which the key depends as value. All
+     *                     dependencies must be contained as keys, too. The iteration order of the keys must be a valid
+     *                     sequential execution order.
+     * @param task task to execute for every item
+     * @throws ExecutionException for the first task which failed. Its cause is the original exception.
+     * @throws InterruptedException if interrupted while waiting on running tasks. The tasks still running have been
+     *         finished then, unless they didn't react on the interrupt for {@value #TERMINATION_TIMEOUT} seconds.
+     */
+    public void execute(Map<T, List<T>> dependencies, Task<T> task) throws ExecutionException, InterruptedException {
+        if (parallelism <= 1 || dependencies.size() <= 1) {
+            executeSequentially(dependencies.keySet(), task);
+        } else {
+            executeConcurrently(dependencies, task);
+        }
+    }
+
+    private void executeSequentially(Collection<T> items, Task<T> task) throws ExecutionException {
+        for (T item : items) {
+            try {
+                task.execute(item);
+            } catch (Exception exp) {
+                throw new ExecutionException(exp);
+            }
+        }
+    }
+
+    private void executeConcurrently(Map<T, List<T>> dependencies, final Task<T> task)
+            throws ExecutionException, InterruptedException {
+        ExecutorService service = Executors.newFixedThreadPool(Math.min(parallelism, dependencies.size()),
+                                                               new WorkerThreadFactory(threadPrefix));
+        CompletionService<T> completionService = new ExecutorCompletionService<>(service);
+
+        Set<T> pending = new LinkedHashSet<>(dependencies.keySet());
+        Set<T> done = new HashSet<>();
+        int running = 0;
+        ExecutionException failure = null;
+        try {
+            do {
+                if (failure == null) {
+                    running += submitReadyItems(completionService, dependencies, pending, done, task);
+                }
+                if (running == 0) {
+                    break;
+                }
+                Future<T> result = completionService.take();
+                running--;
+                try {
+                    done.add(result.get());
+                } catch (ExecutionException exp) {
+                    if (failure == null) {
+                        failure = exp;
+                    }
+                }
+            } while (true);
+        } catch (InterruptedException exp) {
+            service.shutdownNow();
+            service.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS);
+            throw exp;
+        } finally {
+            service.shutdownNow();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        if (!pending.isEmpty()) {
+            throw new IllegalStateException("Cannot resolve dependencies of " + pending);
+        }
+    }
+
+    private int submitReadyItems(CompletionService<T> completionService, Map<T, List<T>> dependencies,
+                                 Set<T> pending, Set<T> done, final Task<T> task) {
+        int submitted = 0;
+        Iterator<T> it = pending.iterator();
+        while (it.hasNext()) {
+            final T item = it.next();
+            if (done.containsAll(dependencies.get(item))) {
+                completionService.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        task.execute(item);
+                        return item;
+                    }
+                });
+                it.remove();
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+
+    // ======================================================================================
+
+    /**
+     * Task to be executed for a single item
+     */
+    public interface Task<T> {
+        /**
+         * Do the work for a single item
+         *
+         * @param item item to process
+         * @throws Exception which is handed through wrapped in an {@link ExecutionException}
+         */
+        void execute(T item) throws Exception;
+    }
+
+    // Daemon threads so that a hanging task doesn't block the JVM from exiting
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private WorkerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A set of regular expressions which are evaluated together against a text.
+ *
+ * For every expression a literal is determined which must occur in each of its matches. All literals are searched
+ * for in a single pass over the text with an Aho-Corasick automaton, and an expression is evaluated only if its
+ * literal has been found. Expressions consisting of a literal only are not evaluated at all, expressions for which
+ * no literal can be determined (e.g. because of an alternation or a case insensitive flag) are always evaluated.
+ *
+ * A <code>MultiPattern</code> is immutable and can be shared, whereas the {@link Matcher}s created by it
+ * can be used by only one thread at a time.
+ *
+ * @author roland
+ * @since 02/11/15
+ */
+public class MultiPattern {
+
+    // Inline flags which change how literals match
+    private static final Pattern LITERAL_CHANGING_FLAGS = Pattern.compile("\\(\\?[idmsuxU-]*[ix]");
+
+    private static final int[] NO_OUTPUT = new int[0];
+    private static final int ASCII = 128;
+
+    private final Pattern[] patterns;
+    private final boolean[] hasLiteral;
+    // Whether a pattern matches exactly when its literal occurs
+    private final boolean[] literalOnly;
+
+    // Automaton with state 0 as root: sorted transition chars and their target states, the failure transition
+    // and the patterns whose literal has been found when reaching a state
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failure;
+    private final int[][] outputs;
+    // Complete transitions for ASCII chars, which already include the failure transitions. The
+    // transition of a state for char c is found at index state * ASCII + c.
+    private final int[] asciiTransitions;
+
+    private MultiPattern(List<String> regexps) {
+        int size = regexps.size();
+        patterns = new Pattern[size];
+        hasLiteral = new boolean[size];
+        literalOnly = new boolean[size];
+
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        addState(trie, trieOutputs);
+        for (int i = 0; i < size; i++) {
+            String regexp = regexps.get(i);
+            patterns[i] = Pattern.compile(regexp);
+            LiteralExtractor extractor = new LiteralExtractor(regexp);
+            String literal = extractor.extract();
+            if (literal != null) {
+                hasLiteral[i] = true;
+                literalOnly[i] = extractor.isLiteralOnly();
+                addLiteral(trie, trieOutputs, literal, i);
+            }
+        }
+
+        int states = trie.size();
+        transitionChars = new char[states][];
+        transitionTargets = new int[states][];
+        failure = new int[states];
+        outputs = new int[states][];
+        asciiTransitions = new int[states * ASCII];
+        for (int state = 0; state < states; state++) {
+            Map<Character, Integer> transitions = trie.get(state);
+            transitionChars[state] = new char[transitions.size()];
+            transitionTargets[state] = new int[transitions.size()];
+            int idx = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                transitionChars[state][idx] = transition.getKey();
+                transitionTargets[state][idx] = transition.getValue();
+                idx++;
+            }
+        }
+        computeFailureTransitions(trieOutputs);
+    }
+
+    /**
+     * Compile a list of regular expressions
+     *
+     * @param regexps regular expressions
+     * @return the compiled patterns
+     * @throws java.util.regex.PatternSyntaxException if one of the expressions is invalid
+     */
+    public static MultiPattern compile(List<String> regexps) {
+        return new MultiPattern(regexps);
+    }
+
+    public static MultiPattern compile(String ... regexps) {
+        return new MultiPattern(Arrays.asList(regexps));
+    }
+
+    /**
+     * @return number of patterns
+     */
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * @param idx index of a pattern
+     * @return the regular expression with the given index
+     */
+    public String pattern(int idx) {
+        return patterns[idx].pattern();
+    }
+
+    /**
+     * @return new matcher for evaluating the patterns
+     */
+    public Matcher matcher() {
+        return new Matcher();
+    }
+
+    private void addState(List<Map<Character, Integer>> trie, List<List<Integer>> trieOutputs) {
+        trie.add(new TreeMap<Character, Integer>());
+        trieOutputs.add(new ArrayList<Integer>());
+    }
+
+    private void addLiteral(List<Map<Character, Integer>> trie, List<List<Integer>> trieOutputs, String literal, int idx) {
+        int state = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            Integer next = trie.get(state).get(literal.charAt(i));
+            if (next == null) {
+                next = trie.size();
+                addState(trie, trieOutputs);
+                trie.get(state).put(literal.charAt(i), next);
+            }
+            state = next;
+        }
+        trieOutputs.get(state).add(idx);
+    }
+
+    // Breadth first, so that the failure state of a state and its outputs are complete before the state is visited
+    private void computeFailureTransitions(List<List<Integer>> trieOutputs) {
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            if (state != 0) {
+                List<Integer> stateOutputs = trieOutputs.get(state);
+                for (int out : outputs[failure[state]]) {
+                    stateOutputs.add(out);
+                }
+            }
+            outputs[state] = toArray(trieOutputs.get(state));
+            for (char c = 0; c < ASCII; c++) {
+                int idx = Arrays.binarySearch(transitionChars[state], c);
+                asciiTransitions[state * ASCII + c] =
+                    idx >= 0 ? transitionTargets[state][idx] : asciiTransitions[failure[state] * ASCII + c];
+            }
+            for (int i = 0; i < transitionChars[state].length; i++) {
+                int child = transitionTargets[state][i];
+                if (state != 0) {
+                    failure[child] = next(failure[state], transitionChars[state][i]);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private int[] toArray(List<Integer> list) {
+        if (list.isEmpty()) {
+            return NO_OUTPUT;
+        }
+        int[] ret = new int[list.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = list.get(i);
+        }
+        return ret;
+    }
+
+    // State reached from the given state with the given char, following failure transitions
+    private int next(int state, char c) {
+        while (true) {
+            int idx = Arrays.binarySearch(transitionChars[state], c);
+            if (idx >= 0) {
+                return transitionTargets[state][idx];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failure[state];
+        }
+    }
+
+    // ========================================================================================
+
+    /**
+     * Matcher evaluating all patterns. It keeps the regexp matchers for reuse, so it must not be used
+     * concurrently.
+     */
+    public class Matcher {
+
+        private final java.util.regex.Matcher[] matchers = new java.util.regex.Matcher[patterns.length];
+
+        // A pattern is a candidate for the current text if its entry equals the current generation
+        private final int[] candidates = new int[patterns.length];
+        private int generation;
+
+        private Matcher() {}
+
+        /**
+         * Find the first pattern matching anywhere in a text
+         *
+         * @param text text to examine
+         * @return index of the first pattern found or -1 if no pattern matches
+         */
+        public int find(CharSequence text) {
+            scan(text, null);
+            for (int i = 0; i < patterns.length; i++) {
+                if (matches(i, text)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Find all patterns matching a text. Patterns which are already contained in the given set
+         * are not evaluated again.
+         *
+         * @param text text to examine
+         * @param matches set of pattern indexes to which the matching patterns are added
+         * @return number of patterns added
+         */
+        public int findAll(CharSequence text, BitSet matches) {
+            scan(text, matches);
+            int found = 0;
+            for (int i = matches.nextClearBit(0); i < patterns.length; i = matches.nextClearBit(i + 1)) {
+                if (matches(i, text)) {
+                    matches.set(i);
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        // Mark all patterns whose literals occur in the text as candidates
+        private void scan(CharSequence text, BitSet skip) {
+            if (++generation == 0) {
+                Arrays.fill(candidates, 0);
+                generation = 1;
+            }
+            int missing = 0;
+            for (int i = 0; i < patterns.length; i++) {
+                if (hasLiteral[i] && (skip == null || !skip.get(i))) {
+                    missing++;
+                }
+            }
+            int state = 0;
+            int len = text.length();
+            for (int i = 0; i < len && missing > 0; i++) {
+                char c = text.charAt(i);
+                state = c < ASCII ? asciiTransitions[state * ASCII + c] : next(state, c);
+                int[] found = outputs[state];
+                if (found == NO_OUTPUT) {
+                    continue;
+                }
+                for (int idx : found) {
+                    if (candidates[idx] != generation) {
+                        candidates[idx] = generation;
+                        if (skip == null || !skip.get(idx)) {
+                            missing--;
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean matches(int idx, CharSequence text) {
+            if (hasLiteral[idx]) {
+                if (candidates[idx] != generation) {
+                    return false;
+                }
+                if (literalOnly[idx]) {
+                    return true;
+                }
+            }
+            java.util.regex.Matcher matcher = matchers[idx];
+            if (matcher == null) {
+                matcher = patterns[idx].matcher(text);
+                matchers[idx] = matcher;
+            } else {
+                matcher.reset(text);
+            }
+            return matcher.find();
+        }
+    }
+
+    // Determines the longest literal which is part of every match of a regexp. Only the top level
+    // sequence of the regexp is considered, groups and character classes are skipped.
+    private static class LiteralExtractor {
+
+        private final String regexp;
+        private int pos;
+
+        private final StringBuilder run = new StringBuilder();
+        private String longest;
+        // Whether the last atom has been appended to the current run
+        private boolean lastInRun;
+        // Whether the regexp consists of literal characters only
+        private boolean literalOnly = true;
+
+        private LiteralExtractor(String regexp) {
+            this.regexp = regexp;
+        }
+
+        private boolean isLiteralOnly() {
+            return literalOnly;
+        }
+
+        private String extract() {
+            if (LITERAL_CHANGING_FLAGS.matcher(regexp).find()) {
+                return null;
+            }
+            while (pos < regexp.length()) {
+                char c = regexp.charAt(pos++);
+                switch (c) {
+                    case '\\':
+                        escape();
+                        break;
+                    case '[':
+                        skipClass();
+                        nonLiteral();
+                        break;
+                    case '(':
+                        skipGroup();
+                        nonLiteral();
+                        break;
+                    case '|':
+                        // Nothing is required when there are alternatives
+                        return null;
+                    case '.':
+                    case '^':
+                    case '$':
+                        nonLiteral();
+                        break;
+                    case '*':
+                    case '?':
+                        quantifier(true);
+                        break;
+                    case '+':
+                        quantifier(false);
+                        break;
+                    case '{':
+                        quantifier(skipRepetition());
+                        break;
+                    default:
+                        literal(c);
+                }
+            }
+            endRun();
+            return longest;
+        }
+
+        private void escape() {
+            if (pos >= regexp.length()) {
+                return;
+            }
+            char c = regexp.charAt(pos++);
+            if (!Character.isLetterOrDigit(c)) {
+                literal(c);
+                return;
+            }
+            switch (c) {
+                case 'Q':
+                    int end = regexp.indexOf("\\E", pos);
+                    String quoted = regexp.substring(pos, end < 0 ? regexp.length() : end);
+                    pos = end < 0 ? regexp.length() : end + 2;
+                    if (quoted.length() > 0) {
+                        run.append(quoted);
+                        lastInRun = true;
+                    }
+                    break;
+                case 't': literal('\t'); break;
+                case 'n': literal('\n'); break;
+                case 'r': literal('\r'); break;
+                case 'f': literal('\f'); break;
+                case 'a': literal('\u0007'); break;
+                case 'e': literal('\u001B'); break;
+                case 'x':
+                    if (pos < regexp.length() && regexp.charAt(pos) == '{') {
+                        int close = regexp.indexOf('}', pos);
+                        literal(Integer.parseInt(regexp.substring(pos + 1, close), 16));
+                        pos = close + 1;
+                    } else {
+                        literal(Integer.parseInt(regexp.substring(pos, pos + 2), 16));
+                        pos += 2;
+                    }
+                    break;
+                case 'u':
+                    literal(Integer.parseInt(regexp.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                case '0':
+                    int max = pos < regexp.length() && regexp.charAt(pos) <= '3' ? 3 : 2;
+                    for (int i = 0; i < max && pos < regexp.length() && isOctal(regexp.charAt(pos)); i++) {
+                        pos++;
+                    }
+                    nonLiteral();
+                    break;
+                case 'c':
+                    pos++;
+                    nonLiteral();
+                    break;
+                case 'p':
+                case 'P':
+                    pos = regexp.charAt(pos) == '{' ? regexp.indexOf('}', pos) + 1 : pos + 1;
+                    nonLiteral();
+                    break;
+                case 'k':
+                    pos = regexp.indexOf('>', pos) + 1;
+                    nonLiteral();
+                    break;
+                default:
+                    // Back references and predefined classes or boundaries
+                    while (Character.isDigit(c) && pos < regexp.length() && Character.isDigit(regexp.charAt(pos))) {
+                        pos++;
+                    }
+                    nonLiteral();
+            }
+        }
+
+        private boolean isOctal(char c) {
+            return c >= '0' && c <= '7';
+        }
+
+        // Position is right after the opening bracket
+        private void skipClass() {
+            int depth = 1;
+            if (pos < regexp.length() && regexp.charAt(pos) == '^') {
+                pos++;
+            }
+            if (pos < regexp.length() && regexp.charAt(pos) == ']') {
+                pos++;
+            }
+            while (pos < regexp.length() && depth > 0) {
+                char c = regexp.charAt(pos++);
+                if (c == '\\') {
+                    skipEscape();
+                } else if (c == '[') {
+                    depth++;
+                } else if (c == ']') {
+                    depth--;
+                }
+            }
+        }
+
+        // Position is right after the opening parenthesis
+        private void skipGroup() {
+            int depth = 1;
+            while (pos < regexp.length() && depth > 0) {
+                char c = regexp.charAt(pos++);
+                if (c == '\\') {
+                    skipEscape();
+                } else if (c == '[') {
+                    skipClass();
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+            }
+        }
+
+        private void skipEscape() {
+            if (regexp.startsWith("Q", pos)) {
+                int end = regexp.indexOf("\\E", pos);
+                pos = end < 0 ? regexp.length() : end + 2;
+            } else {
+                pos++;
+            }
+        }
+
+        // Skips a repetition like {2,5} and returns whether it allows zero occurrences
+        private boolean skipRepetition() {
+            int close = regexp.indexOf('}', pos);
+            String min = regexp.substring(pos, close);
+            int comma = min.indexOf(',');
+            pos = close + 1;
+            return Integer.parseInt((comma < 0 ? min : min.substring(0, comma)).trim()) == 0;
+        }
+
+        private void quantifier(boolean optional) {
+            literalOnly = false;
+            if (lastInRun && optional) {
+                // The quantified char is not required
+                int len = run.length() - 1;
+                if (len > 0 && Character.isLowSurrogate(run.charAt(len)) && Character.isHighSurrogate(run.charAt(len - 1))) {
+                    len--;
+                }
+                run.setLength(len);
+            }
+            endRun();
+            // Reluctant or possessive
+            if (pos < regexp.length() && (regexp.charAt(pos) == '?' || regexp.charAt(pos) == '+')) {
+                pos++;
+            }
+        }
+
+        private void literal(int codePoint) {
+            run.appendCodePoint(codePoint);
+            lastInRun = true;
+        }
+
+        private void nonLiteral() {
+            literalOnly = false;
+            endRun();
+        }
+
+        private void endRun() {
+            if (run.length() > 0 && (longest == null || run.length() > longest.length())) {
+                longest = run.toString();
+            }
+            run.setLength(0);
+            lastInRun = false;
+        }
+    }
+}
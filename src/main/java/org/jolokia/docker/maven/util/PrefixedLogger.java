@@ -0,0 +1,87 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Logger which prefixes every message, so that the output of tasks running concurrently
+ * can be told apart. Progress bars are suppressed since they can't be interleaved line by line.
+ *
+ * @author roland
+ * @since 24/10/15
+ */
+public class PrefixedLogger implements Logger {
+
+    private final Logger delegate;
+    private final String prefix;
+
+    /**
+     * Create a prefixing logger
+     *
+     * @param delegate logger to write to
+     * @param prefix prefix to prepend to every message
+     */
+    public PrefixedLogger(Logger delegate, String prefix) {
+        this.delegate = delegate;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void debug(String message) {
+        delegate.debug(prefix + message);
+    }
+
+    @Override
+    public void info(String message) {
+        delegate.info(prefix + message);
+    }
+
+    @Override
+    public void verbose(String message) {
+        delegate.verbose(prefix + message);
+    }
+
+    @Override
+    public void warn(String message) {
+        delegate.warn(prefix + message);
+    }
+
+    @Override
+    public void error(String message) {
+        delegate.error(prefix + message);
+    }
+
+    @Override
+    public String errorMessage(String message) {
+        return delegate.errorMessage(prefix + message);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    @Override
+    public void progressStart(int total) {
+    }
+
+    @Override
+    public void progressUpdate(int current) {
+    }
+
+    @Override
+    public void progressFinished() {
+    }
+}
@@ -0,0 +1,160 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduler for periodic tasks which belong to groups. Tasks of the same group never run at the same time,
+ * whereas tasks of different groups run concurrently on a bounded number of threads.
+ *
+ * A task which is triggered while it is still waiting to be run is not queued again, and a task triggered while
+ * it is running is run only once more afterwards. That way triggers pile up neither behind a slow task nor behind
+ * other tasks of the same group.
+ *
+ * @author roland
+ * @since 28/10/15
+ */
+public class SerializingScheduler {
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    private final Map<Object, Group> groups = new HashMap<>();
+
+    /**
+     * Create a scheduler
+     *
+     * @param parallelism maximum number of tasks running at the same time
+     * @param threadPrefix prefix used for naming the threads
+     */
+    public SerializingScheduler(int parallelism, String threadPrefix) {
+        timer = Executors.newSingleThreadScheduledExecutor(createThreadFactory(threadPrefix + "-timer"));
+        workers = Executors.newFixedThreadPool(Math.max(parallelism, 1), createThreadFactory(threadPrefix));
+    }
+
+    /**
+     * Run a task periodically, starting right away
+     *
+     * @param group group the task belongs to. Tasks of the same group are run one after the other.
+     * @param task task to run
+     * @param period time in milliseconds between two triggers of the task
+     */
+    public synchronized void scheduleAtFixedRate(Object group, Runnable task, long period) {
+        Group taskGroup = groups.get(group);
+        if (taskGroup == null) {
+            taskGroup = new Group();
+            groups.put(group, taskGroup);
+        }
+        final Group finalGroup = taskGroup;
+        final CoalescingTask coalescingTask = new CoalescingTask(task);
+        timer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                finalGroup.trigger(coalescingTask);
+            }
+        }, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop all tasks. Running tasks are interrupted.
+     */
+    public void shutdownNow() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private ThreadFactory createThreadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    // ====================================================================================================
+
+    // Task which is queued at most once
+    private static class CoalescingTask {
+        private final Runnable task;
+        private boolean queued;
+
+        private CoalescingTask(Runnable task) {
+            this.task = task;
+        }
+    }
+
+    // Tasks of a group, of which at most one is handed over to the workers at a time
+    private class Group implements Runnable {
+
+        private final Deque<CoalescingTask> queue = new ArrayDeque<>();
+        private boolean active;
+
+        private synchronized void trigger(CoalescingTask task) {
+            if (task.queued) {
+                return;
+            }
+            task.queued = true;
+            queue.add(task);
+            if (!active) {
+                active = true;
+                submit();
+            }
+        }
+
+        // Runs a single task and resubmits itself, so that other groups get their turn in between
+        @Override
+        public void run() {
+            CoalescingTask next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    active = false;
+                    return;
+                }
+                // Triggers from now on run the task once more
+                next.queued = false;
+            }
+            try {
+                next.task.run();
+            } finally {
+                synchronized (this) {
+                    if (queue.isEmpty()) {
+                        active = false;
+                    } else {
+                        submit();
+                    }
+                }
+            }
+        }
+
+        private void submit() {
+            try {
+                workers.execute(this);
+            } catch (RejectedExecutionException exp) {
+                // Shut down already
+                active = false;
+            }
+        }
+    }
+}
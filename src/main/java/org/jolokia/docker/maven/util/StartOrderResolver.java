@@ -23,6 +23,38 @@ public class StartOrderResolver {
         return new StartOrderResolver(queryService).resolve(convertToResolvables);
     }
 
+    /**
+     * Resolve the start order as a dependency graph. The keys of the returned map are iterated in a valid
+     * sequential start order. As value, all images (out of the given list) on which an image directly depends
+     * are given. Dependencies which are satisfied by external containers are not included, so that an image can
+     * be started as soon as all images in its list have been started.
+     *
+     * @param queryService query service used for looking up external containers
+     * @param resolvables images to resolve
+     * @return map of images in start order to their dependencies
+     */
+    public static Map<Resolvable, List<Resolvable>> resolveDependencyGraph(QueryService queryService, List<Resolvable> resolvables) {
+        Map<String, Resolvable> startedBefore = new HashMap<>();
+        Map<Resolvable, List<Resolvable>> ret = new LinkedHashMap<>();
+        for (Resolvable config : resolve(queryService, resolvables)) {
+            // Only images started earlier count as dependency. Otherwise the dependency
+            // has been resolved to an already running, external container
+            LinkedHashSet<Resolvable> deps = new LinkedHashSet<>();
+            for (String dependency : config.getDependencies()) {
+                Resolvable dep = startedBefore.get(dependency);
+                if (dep != null) {
+                    deps.add(dep);
+                }
+            }
+            ret.put(config, new ArrayList<>(deps));
+            startedBefore.put(config.getName(), config);
+            if (config.getAlias() != null) {
+                startedBefore.put(config.getAlias(), config);
+            }
+        }
+        return ret;
+    }
+
     private StartOrderResolver(QueryService queryService) {
         this.queryService = queryService;
      
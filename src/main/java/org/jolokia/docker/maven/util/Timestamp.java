@@ -15,24 +15,22 @@ package org.jolokia.docker.maven.util;/*
  * limitations under the License.
  */
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import org.joda.time.DateTime;
-import org.joda.time.format.*;
 
 /**
- * Timestamp holding a {@link DateTime} and nano seconds and which can be compared.
+ * Timestamp holding milliseconds since the epoch and nano seconds and which can be compared. The
+ * {@link DateTime} is only created when asked for.
  *
  * @author roland
  * @since 25/11/14
  */
 public class Timestamp implements Comparable<Timestamp> {
 
-    private DateTime date;
-    private int rest;
+    private final long epochMillis;
+    private final int rest;
 
-    private static Pattern TS_PATTERN = Pattern.compile("^(.*?)(?:\\.(\\d{3})(\\d*))?([^\\d]*?)$");
+    // Created lazily
+    private DateTime date;
 
     /**
      * Create a timestamp by parsing the given string representation which must be in an extended ISO 8601 Format
@@ -41,22 +39,45 @@ public class Timestamp implements Comparable<Timestamp> {
      * @param spec date specification to parse
      */
     public Timestamp(String spec) {
-        //
-        Matcher matcher = TS_PATTERN.matcher(spec);
-        if (!matcher.matches()) {
+        TimestampParser parser = new TimestampParser();
+        if (!parser.parse(spec, 0, spec.length())) {
             throw new IllegalArgumentException("Invalid timestamp '" + spec + "' given.");
         }
-        String millis = matcher.group(2);
-        String rest = matcher.group(3);
-        this.rest = rest != null ? Integer.parseInt(rest) : 0;
-        DateTimeFormatter parser = ISODateTimeFormat.dateTime();
-        date = parser.parseDateTime(matcher.group(1) + (millis != null ? "." + millis : ".000") + matcher.group(4));
+        this.epochMillis = parser.getEpochMillis();
+        this.rest = parser.getNanos();
+    }
+
+    /**
+     * Create a timestamp from already parsed values
+     *
+     * @param epochMillis milliseconds since the epoch
+     * @param nanos nano seconds within the millisecond
+     */
+    public Timestamp(long epochMillis, int nanos) {
+        this.epochMillis = epochMillis;
+        this.rest = nanos;
     }
 
     public DateTime getDate() {
+        if (date == null) {
+            date = new DateTime(epochMillis);
+        }
         return date;
     }
 
+    /**
+     * @return milliseconds since the epoch
+     */
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    /**
+     * @return nano seconds within {@link #getEpochMillis()}
+     */
+    public int getNanos() {
+        return rest;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -65,22 +86,19 @@ public class Timestamp implements Comparable<Timestamp> {
 
         Timestamp timestamp = (Timestamp) o;
 
-        if (rest != timestamp.rest) return false;
-        if (!date.equals(timestamp.date)) return false;
-
-        return true;
+        return epochMillis == timestamp.epochMillis && rest == timestamp.rest;
     }
 
     @Override
     public int hashCode() {
-        int result = date.hashCode();
-        result = 31 * result + (int) (rest ^ (rest >>> 32));
+        int result = (int) (epochMillis ^ (epochMillis >>> 32));
+        result = 31 * result + rest;
         return result;
     }
 
     @Override
     public int compareTo(Timestamp ts) {
-        int fc = this.date.compareTo(ts.date);
+        int fc = Long.compare(epochMillis, ts.epochMillis);
         if (fc != 0) {
             return fc;
         }
@@ -89,7 +107,7 @@ public class Timestamp implements Comparable<Timestamp> {
 
     @Override
     public String toString() {
-        return date.toString();
+        return getDate().toString();
     }
 
 }
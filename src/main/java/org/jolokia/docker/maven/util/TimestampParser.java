@@ -0,0 +1,197 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Parser for RFC 3339 timestamps with up to nanosecond precision as used by Docker
+ * (e.g. "2014-11-24T22:34:00.761764812Z"). It works directly on a range of characters or
+ * (ASCII) bytes without creating any objects, so that a single instance can be reused for
+ * parsing many timestamps. Instances are not thread safe.
+ *
+ * @author roland
+ * @since 30/10/15
+ */
+public final class TimestampParser {
+
+    // Source of the timestamp currently parsed, only one of them is set
+    private char[] chars;
+    private byte[] bytes;
+    private CharSequence sequence;
+
+    // Result of the last successful parse
+    private long epochMillis;
+    private int nanos;
+
+    /**
+     * Parse a timestamp from a range of characters
+     *
+     * @param chars characters holding the timestamp
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return true if the range holds a valid timestamp
+     */
+    public boolean parse(char[] chars, int start, int end) {
+        this.chars = chars;
+        try {
+            return parse(start, end);
+        } finally {
+            this.chars = null;
+        }
+    }
+
+    /**
+     * Parse a timestamp from a range of ASCII bytes
+     *
+     * @param bytes bytes holding the timestamp
+     * @param start index of the first byte
+     * @param end index after the last byte
+     * @return true if the range holds a valid timestamp
+     */
+    public boolean parse(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        try {
+            return parse(start, end);
+        } finally {
+            this.bytes = null;
+        }
+    }
+
+    /**
+     * Parse a timestamp from a range of a char sequence
+     *
+     * @param sequence sequence holding the timestamp
+     * @param start index of the first character
+     * @param end index after the last character
+     * @return true if the range holds a valid timestamp
+     */
+    public boolean parse(CharSequence sequence, int start, int end) {
+        this.sequence = sequence;
+        try {
+            return parse(start, end);
+        } finally {
+            this.sequence = null;
+        }
+    }
+
+    /**
+     * @return milliseconds since the epoch of the timestamp parsed last
+     */
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    /**
+     * @return nano seconds within {@link #getEpochMillis()} of the timestamp parsed last
+     */
+    public int getNanos() {
+        return nanos;
+    }
+
+    // ==========================================================================================
+
+    private char at(int index) {
+        if (chars != null) {
+            return chars[index];
+        } else if (bytes != null) {
+            return (char) (bytes[index] & 0xFF);
+        } else {
+            return sequence.charAt(index);
+        }
+    }
+
+    // Parse "yyyy-MM-ddTHH:mm:ss[.fraction](Z|+HH:mm|-HH:mm)"
+    private boolean parse(int start, int end) {
+        if (end - start < 20) {
+            return false;
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        int second = digits(start + 17, 2);
+        char separator = at(start + 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 ||
+            hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60 ||
+            at(start + 4) != '-' || at(start + 7) != '-' || (separator != 'T' && separator != 't') ||
+            at(start + 13) != ':' || at(start + 16) != ':') {
+            return false;
+        }
+
+        int pos = start + 19;
+        int fraction = 0;
+        if (at(pos) == '.') {
+            pos++;
+            int digits = 0;
+            char c;
+            while (pos < end && (c = at(pos)) >= '0' && c <= '9') {
+                if (digits < 9) {
+                    fraction = fraction * 10 + (c - '0');
+                    digits++;
+                }
+                pos++;
+            }
+            if (digits == 0) {
+                return false;
+            }
+            for (; digits < 9; digits++) {
+                fraction *= 10;
+            }
+        }
+
+        int offsetSeconds;
+        char zone = pos < end ? at(pos) : 0;
+        if (pos == end - 1 && (zone == 'Z' || zone == 'z')) {
+            offsetSeconds = 0;
+        } else if (pos == end - 6 && (zone == '+' || zone == '-') && at(pos + 3) == ':') {
+            int offsetHours = digits(pos + 1, 2);
+            int offsetMinutes = digits(pos + 4, 2);
+            if (offsetHours < 0 || offsetMinutes < 0) {
+                return false;
+            }
+            offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (zone == '-' ? -1 : 1);
+        } else {
+            return false;
+        }
+
+        long seconds = daysFromCivil(year, month, day) * 86400L + hour * 3600 + minute * 60 + second - offsetSeconds;
+        epochMillis = seconds * 1000 + fraction / 1000000;
+        nanos = fraction % 1000000;
+        return true;
+    }
+
+    private int digits(int start, int len) {
+        int value = 0;
+        for (int i = start; i < start + len; i++) {
+            char c = at(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
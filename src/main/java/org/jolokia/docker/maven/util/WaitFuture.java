@@ -0,0 +1,118 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Result of waiting on a set of {@link WaitUtil.WaitChecker}s. The first checker which
+ * succeeds or fails completes this future, any later result is ignored.
+ *
+ * @author roland
+ * @since 25/10/15
+ */
+public class WaitFuture {
+
+    private final WaitUtil.WaitChecker[] checkers;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile String failure;
+
+    WaitFuture(WaitUtil.WaitChecker... checkers) {
+        this.checkers = checkers;
+    }
+
+    /**
+     * Signal that the condition waited for is met
+     *
+     * @return true if this call completed the future, false if it was already completed before
+     */
+    public boolean succeed() {
+        return complete(null);
+    }
+
+    /**
+     * Signal that the condition waited for can't be met anymore
+     *
+     * @param reason why waiting failed
+     * @return true if this call completed the future, false if it was already completed before
+     */
+    public boolean fail(String reason) {
+        return complete(reason);
+    }
+
+    /**
+     * Signal a failure after a delay, unless the future is completed otherwise in the meantime. This
+     * gives other checkers which are still processing the last output of a container a chance to succeed.
+     *
+     * @param reason why waiting failed
+     * @param delay delay in milliseconds
+     */
+    public void failDelayed(final String reason, long delay) {
+        WaitUtil.schedule(new Runnable() {
+            @Override
+            public void run() {
+                fail(reason);
+            }
+        }, delay);
+    }
+
+    public boolean isDone() {
+        return latch.getCount() == 0;
+    }
+
+    /**
+     * Wait until this future is completed
+     *
+     * @param timeout maximum time to wait in milliseconds
+     * @throws TimeoutException if the future hasn't been completed in time
+     * @throws WaitUtil.WaitFailedException if a checker reported a failure or waiting was interrupted
+     */
+    void await(long timeout) throws TimeoutException, WaitUtil.WaitFailedException {
+        try {
+            if (!latch.await(Math.max(timeout, 0), TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("No checker finished successfully");
+            }
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+            throw new WaitUtil.WaitFailedException("Interrupted while waiting");
+        }
+        if (failure != null) {
+            throw new WaitUtil.WaitFailedException(failure);
+        }
+    }
+
+    /**
+     * Stop all checkers
+     */
+    void cleanUp() {
+        for (WaitUtil.WaitChecker checker : checkers) {
+            checker.cleanUp();
+        }
+    }
+
+    private boolean complete(String reason) {
+        if (completed.compareAndSet(false, true)) {
+            failure = reason;
+            latch.countDown();
+            return true;
+        }
+        return false;
+    }
+}
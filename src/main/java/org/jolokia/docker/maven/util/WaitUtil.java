@@ -1,7 +1,8 @@
 package org.jolokia.docker.maven.util;
 
 import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -10,47 +11,76 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 
 /**
+ * Utility for waiting on conditions. Each {@link WaitChecker} completes a {@link WaitFuture} as soon as
+ * its condition is met (or can't be met anymore), so that waiting ends immediately without polling.
+ * Checkers which need to poll (like {@link HttpPingChecker}) are scheduled on a shared
+ * executor with an increasing delay.
+ *
  * @author roland
  * @since 18.10.14
  */
 public class WaitUtil {
 
-     // how long to wait at max when doing a http ping
+    // how long to wait at max when doing a http ping
     private static final long HARD_MAX_WAIT = 10 * 1000;
 
-    // How long to wait between pings
-    private static final long WAIT_RETRY_WAIT = 500;
+    // Delay between polls, starting small and growing up to the maximum
+    private static final long POLL_INITIAL_DELAY = 50;
+    private static final long POLL_MAX_DELAY = 500;
 
     // Timeout for ping
     private static final int HTTP_PING_TIMEOUT = 500;
 
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newScheduledThreadPool(4, new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "docker-wait-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     private WaitUtil() {}
 
-    public static long wait(int maxWait, WaitChecker ... checkers) throws TimeoutException {
+    /**
+     * Wait until one of the given checkers succeeds.
+     *
+     * @param maxWait maximum time to wait in milliseconds. If 0, a default is used.
+     * @param checkers checkers to wait on. If none is given, this method simply sleeps for the
+     *                 maximum time.
+     * @return time waited in milliseconds
+     * @throws TimeoutException if no checker succeeded in time
+     * @throws WaitFailedException if a checker reported that its condition can't be met anymore
+     */
+    public static long wait(int maxWait, WaitChecker ... checkers) throws TimeoutException, WaitFailedException {
         long max = maxWait > 0 ? maxWait : HARD_MAX_WAIT;
         long now = System.currentTimeMillis();
-        do {
-            for (WaitChecker checker : checkers) {
-                if (checker.check()) {
-                    cleanup(checkers);
-                    return delta(now);
-                }
-            }
-            sleep(WAIT_RETRY_WAIT);
-        } while (delta(now) < max);
-        if (checkers.length > 0) {
-            // There has been several checkes, but none has matched. So we ware throwing an exception and break
-            // the build
-            throw new TimeoutException("No checker finished successfully");
+        if (checkers.length == 0) {
+            sleep(max);
+            return delta(now);
+        }
+        WaitFuture future = start(checkers);
+        try {
+            future.await(max);
+            return delta(now);
+        } finally {
+            future.cleanUp();
         }
-        return delta(now);
     }
 
-    // Give checkers a possibility to clean up
-    private static void cleanup(WaitChecker[] checkers) {
+    // Start the given checkers, the returned future is completed by the first checker which succeeds or fails
+    private static WaitFuture start(WaitChecker ... checkers) {
+        WaitFuture future = new WaitFuture(checkers);
         for (WaitChecker checker : checkers) {
-            checker.cleanUp();
+            if (future.isDone()) {
+                break;
+            }
+            checker.start(future);
         }
+        return future;
     }
 
     /**
@@ -66,6 +96,11 @@ public class WaitUtil {
         }
     }
 
+    // Run a task on the shared scheduler
+    static ScheduledFuture<?> schedule(Runnable task, long delay) {
+        return SCHEDULER.schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
     private static long delta(long now) {
         return System.currentTimeMillis() - now;
     }
@@ -73,10 +108,59 @@ public class WaitUtil {
     // ====================================================================================================
 
     /**
-     * Check whether a given URL is available
-     *
+     * Base class for checkers which need to poll for their condition. Polling starts immediately
+     * and continues with a growing delay until the condition is met or the checker is cleaned up.
+     */
+    public abstract static class PollingChecker implements WaitChecker {
+
+        private volatile boolean stopped;
+        private volatile ScheduledFuture<?> scheduled;
+
+        @Override
+        public void start(WaitFuture future) {
+            schedule(future, 0);
+        }
+
+        /**
+         * Check the condition once
+         *
+         * @return true if the condition is met
+         */
+        protected abstract boolean check();
+
+        @Override
+        public void cleanUp() {
+            stopped = true;
+            ScheduledFuture<?> current = scheduled;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        private void schedule(final WaitFuture future, final long delay) {
+            if (stopped || future.isDone()) {
+                return;
+            }
+            scheduled = WaitUtil.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (stopped || future.isDone()) {
+                        return;
+                    }
+                    if (check()) {
+                        future.succeed();
+                    } else {
+                        schedule(future, delay == 0 ? POLL_INITIAL_DELAY : Math.min(delay * 3 / 2, POLL_MAX_DELAY));
+                    }
+                }
+            }, delay);
+        }
+    }
+
+    /**
+     * Check whether a given URL is available. All checkers share a single HTTP client.
      */
-    public static class HttpPingChecker implements WaitChecker {
+    public static class HttpPingChecker extends PollingChecker {
 
         private String url;
 
@@ -87,10 +171,12 @@ public class WaitUtil {
          */
         public HttpPingChecker(String url) {
             this.url = url;
+            // Initialize the shared client upfront, so that its setup time doesn't count as waiting time
+            PingClientHolder.init();
         }
 
         @Override
-        public boolean check() {
+        protected boolean check() {
             try {
                 return ping();
             } catch (IOException exception) {
@@ -99,36 +185,66 @@ public class WaitUtil {
         }
 
         private boolean ping() throws IOException {
+            CloseableHttpResponse response = PingClientHolder.CLIENT.execute(new HttpHead(url));
+            try {
+                int responseCode = response.getStatusLine().getStatusCode();
+                return (responseCode >= 200 && responseCode <= 399);
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    // Lazily created client shared by all ping checkers
+    private static class PingClientHolder {
+        private static final CloseableHttpClient CLIENT = createClient();
+
+        private static void init() {
+            // Triggers class initialization
+        }
+
+        private static CloseableHttpClient createClient() {
             RequestConfig requestConfig =
                     RequestConfig.custom()
                                  .setSocketTimeout(HTTP_PING_TIMEOUT)
                                  .setConnectTimeout(HTTP_PING_TIMEOUT)
                                  .setConnectionRequestTimeout(HTTP_PING_TIMEOUT)
                                  .build();
-            CloseableHttpClient httpClient = HttpClientBuilder.create()
-                    .setDefaultRequestConfig(requestConfig)
-                    .build();
-            try {
-                CloseableHttpResponse response = httpClient.execute(new HttpHead(url));
-                try {
-                    int responseCode = response.getStatusLine().getStatusCode();
-                    return (responseCode >= 200 && responseCode <= 399);
-                } finally {
-                    response.close();
-                }
-            } finally {
-                httpClient.close();
-            }
+            return HttpClientBuilder.create()
+                                    .setDefaultRequestConfig(requestConfig)
+                                    .setMaxConnTotal(20)
+                                    .setMaxConnPerRoute(5)
+                                    .disableAutomaticRetries()
+                                    .build();
         }
-
-        @Override
-        public void cleanUp() { }
     }
 
     // ====================================================================================================
 
+    /**
+     * A condition to wait for
+     */
     public interface WaitChecker {
-        boolean check();
+        /**
+         * Start checking. The checker must call {@link WaitFuture#succeed()} as soon as its condition is met or
+         * {@link WaitFuture#fail(String)} if the condition can never be met anymore. This method must not block.
+         *
+         * @param future future to complete
+         */
+        void start(WaitFuture future);
+
+        /**
+         * Stop checking and free all resources
+         */
         void cleanUp();
     }
+
+    /**
+     * Exception thrown when a checker reported that its condition can't be met anymore
+     */
+    public static class WaitFailedException extends Exception {
+        public WaitFailedException(String message) {
+            super(message);
+        }
+    }
 }
@@ -0,0 +1,185 @@
+package org.jolokia.docker.maven;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.ReflectionUtils;
+import org.jolokia.docker.maven.AbstractDockerMojo.ImagePull;
+import org.jolokia.docker.maven.access.AuthConfig;
+import org.jolokia.docker.maven.access.DockerAccess;
+import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.service.QueryService;
+import org.jolokia.docker.maven.service.ServiceHub;
+import org.jolokia.docker.maven.util.AuthConfigFactory;
+import org.jolokia.docker.maven.util.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 30/10/15
+ */
+public class AbstractDockerMojoTest {
+
+    @Mocked
+    private DockerAccess docker;
+
+    @Mocked
+    private Logger log;
+
+    @Mocked
+    private ServiceHub serviceHub;
+
+    @Mocked
+    private QueryService queryService;
+
+    @Mocked
+    private AuthConfigFactory authConfigFactory;
+
+    private AbstractDockerMojo mojo;
+
+    // Pulled images with the threads which pulled them
+    private Map<String, Thread> pulled;
+
+    @Before
+    public void setUp() throws Exception {
+        pulled = Collections.synchronizedMap(new LinkedHashMap<String, Thread>());
+        mojo = new AbstractDockerMojo() {
+            @Override
+            protected void executeInternal(DockerAccess dockerAccess) {
+            }
+        };
+        ReflectionUtils.setVariableValueInObject(mojo, "log", log);
+        ReflectionUtils.setVariableValueInObject(mojo, "serviceHub", serviceHub);
+        ReflectionUtils.setVariableValueInObject(mojo, "authConfigFactory", authConfigFactory);
+        ReflectionUtils.setVariableValueInObject(mojo, "autoPull", "on");
+
+        new NonStrictExpectations() {{
+            serviceHub.getQueryService();
+            result = queryService;
+
+            queryService.imageRequiresAutoPull(anyString, anyString, anyBoolean);
+            result = true;
+        }};
+    }
+
+    @Test
+    public void pullSequentially() throws Exception {
+        expectPulls(null);
+        setPullParallel(1);
+
+        mojo.checkImagesWithAutoPull(docker, Arrays.asList(pull("a"), pull("b")));
+
+        assertEquals(Arrays.asList("a:latest", "b:latest"), new ArrayList<>(pulled.keySet()));
+        // No extra threads
+        for (Thread thread : pulled.values()) {
+            assertSame(Thread.currentThread(), thread);
+        }
+    }
+
+    @Test
+    public void pullConcurrently() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        expectPulls(latch);
+        setPullParallel(3);
+
+        mojo.checkImagesWithAutoPull(docker, Arrays.asList(pull("a"), pull("b"), pull("a")));
+
+        assertEquals(new HashSet<>(Arrays.asList("a:latest", "b:latest")), pulled.keySet());
+        assertNotSame(Thread.currentThread(), pulled.get("a:latest"));
+        new Verifications() {{
+            docker.pullImage("a:latest", (AuthConfig) any, anyString, (Logger) any);
+            times = 1;
+        }};
+    }
+
+    @Test
+    public void failedPullDoesNotStopOthers() throws Exception {
+        new NonStrictExpectations() {{
+            docker.pullImage(anyString, (AuthConfig) any, anyString, (Logger) any);
+            result = new Delegate() {
+                void pullImage(String image, AuthConfig authConfig, String registry, Logger pullLog) throws Exception {
+                    if (image.startsWith("b")) {
+                        throw new DockerAccessException("Not found");
+                    }
+                    pulled.put(image, Thread.currentThread());
+                }
+            };
+        }};
+        setPullParallel(2);
+
+        try {
+            mojo.checkImagesWithAutoPull(docker, Arrays.asList(pull("a"), pull("b"), pull("c")));
+            fail("Pull of b should have failed");
+        } catch (MojoExecutionException exp) {
+            assertTrue(exp.getMessage(), exp.getMessage().startsWith("Pull failed for [b]"));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("a:latest", "c:latest")), pulled.keySet());
+    }
+
+    @Test
+    public void pulledImagesAreNotCheckedAgain() throws Exception {
+        expectPulls(null);
+        setPullParallel(2);
+
+        mojo.checkImagesWithAutoPull(docker, Arrays.asList(pull("a"), pull("b")));
+        mojo.checkImagesWithAutoPull(docker, Arrays.asList(pull("a"), pull("b"), pull("c")));
+        mojo.checkImageWithAutoPull(docker, "c", null, true);
+
+        assertEquals(new HashSet<>(Arrays.asList("a:latest", "b:latest", "c:latest")), pulled.keySet());
+        new Verifications() {{
+            queryService.imageRequiresAutoPull(anyString, anyString, anyBoolean);
+            times = 3;
+            docker.pullImage(anyString, (AuthConfig) any, anyString, (Logger) any);
+            times = 3;
+        }};
+    }
+
+    private void expectPulls(final CountDownLatch latch) throws DockerAccessException {
+        new NonStrictExpectations() {{
+            docker.pullImage(anyString, (AuthConfig) any, anyString, (Logger) any);
+            result = new Delegate() {
+                void pullImage(String image, AuthConfig authConfig, String registry, Logger pullLog) throws Exception {
+                    if (latch != null) {
+                        latch.countDown();
+                        // Would time out if the images were not pulled at the same time
+                        assertTrue(latch.await(5, TimeUnit.SECONDS));
+                    }
+                    pulled.put(image, Thread.currentThread());
+                }
+            };
+        }};
+    }
+
+    private void setPullParallel(int pullParallel) throws Exception {
+        ReflectionUtils.setVariableValueInObject(mojo, "pullParallel", pullParallel);
+    }
+
+    private ImagePull pull(String name) {
+        return new ImagePull(name, null, false);
+    }
+}
@@ -0,0 +1,174 @@
+package org.jolokia.docker.maven;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.util.ReflectionUtils;
+import org.jolokia.docker.maven.access.AuthConfig;
+import org.jolokia.docker.maven.access.DockerAccess;
+import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.config.BuildImageConfiguration;
+import org.jolokia.docker.maven.config.ImageConfiguration;
+import org.jolokia.docker.maven.config.handler.ImageConfigResolver;
+import org.jolokia.docker.maven.util.AuthConfigFactory;
+import org.jolokia.docker.maven.util.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 30/10/15
+ */
+public class PushMojoTest {
+
+    @Mocked
+    private DockerAccess docker;
+
+    @Mocked
+    private Logger log;
+
+    @Mocked
+    private ImageConfigResolver imageConfigResolver;
+
+    @Mocked
+    private MavenProject project;
+
+    @Mocked
+    private AuthConfigFactory authConfigFactory;
+
+    private PushMojo mojo;
+
+    // Names of all pushed images
+    private List<String> pushed;
+
+    @Before
+    public void setUp() throws Exception {
+        pushed = Collections.synchronizedList(new ArrayList<String>());
+        mojo = new PushMojo();
+        ReflectionUtils.setVariableValueInObject(mojo, "log", log);
+        ReflectionUtils.setVariableValueInObject(mojo, "project", project);
+        ReflectionUtils.setVariableValueInObject(mojo, "imageConfigResolver", imageConfigResolver);
+        ReflectionUtils.setVariableValueInObject(mojo, "authConfigFactory", authConfigFactory);
+
+        new NonStrictExpectations() {{
+            imageConfigResolver.resolve((ImageConfiguration) any, (Properties) any);
+            result = new Delegate() {
+                List<ImageConfiguration> resolve(ImageConfiguration image, Properties properties) {
+                    return Collections.singletonList(image);
+                }
+            };
+        }};
+    }
+
+    @Test
+    public void pushConcurrently() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        new NonStrictExpectations() {{
+            docker.pushImage(anyString, (AuthConfig) any, anyString, (Logger) any);
+            result = new Delegate() {
+                void pushImage(String image, AuthConfig authConfig, String registry, Logger pushLog) throws Exception {
+                    if (!image.contains(":")) {
+                        latch.countDown();
+                        // Would time out if the images were not pushed at the same time
+                        assertTrue(latch.await(5, TimeUnit.SECONDS));
+                    }
+                    pushed.add(image);
+                }
+            };
+        }};
+        configure(3, image("jolokia/a", "1.0"), image("jolokia/b"), image("jolokia/c"));
+
+        mojo.executeInternal(docker);
+
+        assertEquals(new HashSet<>(Arrays.asList("jolokia/a", "jolokia/a:1.0", "jolokia/b", "jolokia/c")),
+                     new HashSet<>(pushed));
+        // Tags are pushed after the image itself
+        assertTrue(pushed.indexOf("jolokia/a:1.0") > pushed.indexOf("jolokia/a"));
+    }
+
+    @Test
+    public void failedPushDoesNotStopOthers() throws Exception {
+        new NonStrictExpectations() {{
+            docker.pushImage(anyString, (AuthConfig) any, anyString, (Logger) any);
+            result = new Delegate() {
+                void pushImage(String image, AuthConfig authConfig, String registry, Logger pushLog) throws Exception {
+                    if (image.equals("jolokia/b")) {
+                        throw new DockerAccessException("Denied");
+                    }
+                    pushed.add(image);
+                }
+            };
+        }};
+        configure(2, image("jolokia/a"), image("jolokia/b"), image("jolokia/c"));
+
+        try {
+            mojo.executeInternal(docker);
+            fail("Push of jolokia/b should have failed");
+        } catch (MojoExecutionException exp) {
+            assertTrue(exp.getMessage(), exp.getMessage().contains("[jolokia/b]"));
+            assertFalse(exp.getMessage(), exp.getMessage().contains("[jolokia/a]"));
+            assertTrue(exp.getCause() instanceof DockerAccessException);
+        }
+        assertEquals(new HashSet<>(Arrays.asList("jolokia/a", "jolokia/c")), new HashSet<>(pushed));
+    }
+
+    @Test
+    public void authConfigOncePerRegistry() throws Exception {
+        configure(3,
+                  image("registry.example.com/jolokia/a"),
+                  image("registry.example.com/jolokia/b"),
+                  image("other.example.com:5000/jolokia/c"),
+                  image("other.example.com:5000/roland/d"));
+
+        mojo.executeInternal(docker);
+
+        new Verifications() {{
+            authConfigFactory.createAuthConfig((Map) any, (Settings) any, "jolokia", "registry.example.com");
+            times = 1;
+            authConfigFactory.createAuthConfig((Map) any, (Settings) any, "jolokia", "other.example.com:5000");
+            times = 1;
+            authConfigFactory.createAuthConfig((Map) any, (Settings) any, "roland", "other.example.com:5000");
+            times = 1;
+            docker.pushImage(anyString, (AuthConfig) any, anyString, (Logger) any);
+            times = 4;
+        }};
+    }
+
+    private void configure(int pushParallel, ImageConfiguration ... images) throws Exception {
+        ReflectionUtils.setVariableValueInObject(mojo, "pushParallel", pushParallel);
+        ReflectionUtils.setVariableValueInObject(mojo, "images", Arrays.asList(images));
+    }
+
+    private ImageConfiguration image(String name, String ... tags) {
+        return new ImageConfiguration.Builder()
+                .name(name)
+                .buildConfig(new BuildImageConfiguration.Builder().tags(Arrays.asList(tags)).build())
+                .build();
+    }
+}
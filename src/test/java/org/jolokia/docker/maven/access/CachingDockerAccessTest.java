@@ -0,0 +1,91 @@
+package org.jolokia.docker.maven.access;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import org.jolokia.docker.maven.access.DockerAccess.ListArg;
+import org.jolokia.docker.maven.model.Container;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 25/10/15
+ */
+public class CachingDockerAccessTest {
+
+    // Number of calls per method name to the delegate
+    private Map<String, Integer> calls;
+
+    private CachingDockerAccess access;
+
+    @Before
+    public void setUp() {
+        calls = new HashMap<>();
+        DockerAccess docker = (DockerAccess) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[] { DockerAccess.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        Integer count = calls.get(method.getName());
+                        calls.put(method.getName(), count == null ? 1 : count + 1);
+                        if (method.getReturnType() == List.class) {
+                            return new ArrayList<>();
+                        }
+                        return method.getReturnType() == boolean.class ? Boolean.TRUE : null;
+                    }
+                });
+        access = new CachingDockerAccess(docker);
+    }
+
+    @Test
+    public void repeatedQueries() throws Exception {
+        List<Container> containers = access.listContainers(ListArg.limit(100));
+        assertSame(containers, access.listContainers(ListArg.limit(100)));
+        access.listImages(ListArg.filter("jolokia/a"));
+        access.listImages(ListArg.filter("jolokia/a"));
+        // Other args are cached separately
+        access.listImages(ListArg.filter("jolokia/b"));
+        assertCalls("listContainers", 1);
+        assertCalls("listImages", 2);
+    }
+
+    @Test
+    public void invalidatedByChanges() throws Exception {
+        access.listContainers();
+        access.startContainer("abc");
+        access.listContainers();
+        access.removeImage("jolokia/a");
+        access.listContainers();
+        access.listContainers();
+        assertCalls("listContainers", 3);
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        access.setCacheEnabled(false);
+        access.listImages();
+        access.listImages();
+        assertCalls("listImages", 2);
+    }
+
+    private void assertCalls(String method, int expected) {
+        assertEquals(Integer.valueOf(expected), calls.get(method));
+    }
+}
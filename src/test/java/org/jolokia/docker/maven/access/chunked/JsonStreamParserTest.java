@@ -0,0 +1,133 @@
+package org.jolokia.docker.maven.access.chunked;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 22/10/15
+ */
+public class JsonStreamParserTest {
+
+    @Test
+    public void concatenated() throws IOException {
+        JsonStreamParser parser = parser("{\"stream\":\"Step 1\"}\r\n{\"stream\":\"Step 2\"}{\"stream\":\"Step 3\"}", null);
+        assertEquals("Step 1", parser.next().getString("stream"));
+        assertEquals("Step 2", parser.next().getString("stream"));
+        assertEquals("Step 3", parser.next().getString("stream"));
+        assertNull(parser.next());
+    }
+
+    @Test
+    public void splitOverReads() throws IOException {
+        String data = "{\"status\":\"Downloading \\\"b\\u00e4se\\\" ü\",\"progressDetail\":{\"current\":10,\"total\":4294967296}}";
+        // Returns the data byte by byte, which also splits multi-byte characters
+        InputStream slow = new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        JSONObject json = new JsonStreamParser(slow, null).next();
+        assertEquals("Downloading \"bäse\" ü", json.getString("status"));
+        JSONObject details = json.getJSONObject("progressDetail");
+        assertEquals(10, details.getInt("current"));
+        assertEquals(4294967296L, details.getLong("total"));
+    }
+
+    @Test
+    public void onlySelectedFields() throws IOException {
+        JsonStreamParser parser = parser(
+                "{\"id\":\"a1\",\"progress\":\"[==>  ] 1 MB\",\"aux\":{\"x\":[1,{\"y\":\"}\"}]},\"n\":null," +
+                "\"status\":\"Pulling\",\"ok\":true,\"f\":-1.5e3}", new HashSet<>(Arrays.asList("id", "status")));
+        JSONObject json = parser.next();
+        assertEquals(2, json.length());
+        assertEquals("a1", json.getString("id"));
+        assertEquals("Pulling", json.getString("status"));
+        assertNull(parser.next());
+    }
+
+    @Test
+    public void arrayElements() throws IOException {
+        JsonStreamParser parser = parser(
+                "[ {\"Id\":\"a\",\"Labels\":{\"x\":\"y\"}},\n {\"Id\":\"b\",\"Ports\":[{\"PublicPort\":80}]} ]",
+                new HashSet<>(Collections.singletonList("Id")));
+        assertEquals("a", parser.next().getString("Id"));
+        JSONObject json = parser.next();
+        assertEquals("b", json.getString("Id"));
+        assertEquals(1, json.length());
+        assertNull(parser.next());
+        assertNull(parser("[]", null).next());
+    }
+
+    @Test
+    public void nestedFields() throws IOException {
+        JsonStreamParser parser = parser(
+                "{\"Id\":\"a\",\"State\":{\"Running\":true,\"Pid\":42},\"Config\":{\"Env\":[\"A=B\"],\"Image\":\"busybox\"}," +
+                "\"HostConfig\":{\"Binds\":null}}",
+                new HashSet<>(Arrays.asList("Id", "State.Running", "Config.Image", "Config.Labels")));
+        JSONObject json = parser.next();
+        assertEquals(3, json.length());
+        assertEquals(1, json.getJSONObject("State").length());
+        assertTrue(json.getJSONObject("State").getBoolean("Running"));
+        assertEquals(1, json.getJSONObject("Config").length());
+        assertEquals("busybox", json.getJSONObject("Config").getString("Image"));
+    }
+
+    @Test
+    public void literals() throws IOException {
+        JSONObject json = parser("{\"t\":true,\"f\":false,\"n\":null,\"d\":-1.5e3,\"a\":[1,\"x\",[]],\"o\":{}}", null).next();
+        assertTrue(json.getBoolean("t"));
+        assertFalse(json.getBoolean("f"));
+        assertTrue(json.isNull("n"));
+        assertEquals(-1500.0, ((Number) json.get("d")).doubleValue(), 0.0);
+        assertEquals(3, json.getJSONArray("a").length());
+        assertEquals(0, json.getJSONObject("o").length());
+    }
+
+    @Test
+    public void recoverFromMalformedInput() throws IOException {
+        JsonStreamParser parser = parser("garbage {\"stream\":\"broken\" \"x\"} {\"stream\":\"ok\"}", null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                parser.next();
+                fail("Syntax error expected");
+            } catch (JSONException exp) {
+                // expected
+            }
+        }
+        assertEquals("ok", parser.next().getString("stream"));
+        assertNull(parser.next());
+    }
+
+    @Test(expected = JSONException.class)
+    public void truncated() throws IOException {
+        parser("{\"stream\":\"Step", null).next();
+    }
+
+    private JsonStreamParser parser(String data, Set<String> fields) {
+        return new JsonStreamParser(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), fields);
+    }
+}
@@ -0,0 +1,182 @@
+package org.jolokia.docker.maven.access.event;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.sun.net.httpserver.*;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.jolokia.docker.maven.access.UrlBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests against a fake daemon which closes the event stream after each batch of events
+ *
+ * @author roland
+ * @since 26/10/15
+ */
+public class EventRequestorTest {
+
+    private HttpServer server;
+    private CloseableHttpClient client;
+    private UrlBuilder urlBuilder;
+
+    // Events to send per connection, the last connection is kept open
+    private final List<String[]> batches = new ArrayList<>();
+    private final BlockingQueue<String> queries = new LinkedBlockingQueue<>();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private EventRequestor requestor;
+
+    // Events happen after subscribing, which is the time the daemon reports in its "Date" header
+    private final long now = System.currentTimeMillis() / 1000 + 1;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            private int connection;
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getRawQuery();
+                queries.add(query != null ? URLDecoder.decode(query, "UTF-8") : "");
+                String[] events = batches.get(Math.min(connection, batches.size() - 1));
+                boolean last = connection++ >= batches.size() - 1;
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    for (String event : events) {
+                        out.write(event.getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    }
+                    if (last) {
+                        await(done);
+                    }
+                }
+            }
+        });
+        server.start();
+        client = HttpClients.createDefault();
+        urlBuilder = new UrlBuilder("http://127.0.0.1:" + server.getAddress().getPort(), "v1.15");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        done.countDown();
+        if (requestor != null) {
+            requestor.finish();
+        }
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void reconnectAndResume() throws Exception {
+        batches.add(new String[] { event("start", "a", 0), event("start", "b", 1) });
+        batches.add(new String[] { event("start", "b", 1), event("die", "c", 1), event("die", "d", 2) });
+
+        Recorder recorder = new Recorder();
+        requestor = new EventRequestor(client, urlBuilder, recorder);
+        requestor.start();
+
+        assertEquals(Arrays.asList("start a", "start b", "die c", "die d"), recorder.take(4));
+        assertFalse(queries.take().contains("since"));
+        assertTrue(queries.take().contains("since=" + (now + 1)));
+        assertNull(recorder.error);
+    }
+
+    @Test
+    public void olderEventsReplayedAfterReconnect() throws Exception {
+        batches.add(new String[] { event("start", "a", 0), event("start", "b", 2) });
+        // A daemon which doesn't honor "since" exactly replays older events
+        batches.add(new String[] { event("start", "a", 0), event("die", "c", 1),
+                                   event("start", "b", 2), event("die", "d", 2), event("die", "e", 3) });
+
+        Recorder recorder = new Recorder();
+        requestor = new EventRequestor(client, urlBuilder, recorder);
+        requestor.start();
+
+        assertEquals(Arrays.asList("start a", "start b", "die d", "die e"), recorder.take(4));
+        queries.take();
+        assertTrue(queries.take().contains("since=" + (now + 2)));
+    }
+
+    @Test
+    public void filter() throws Exception {
+        batches.add(new String[] { event("start", "a", 0), event("die", "a", 1),
+                                   event("die", "b", 2), event("destroy", "a", 3) });
+
+        Recorder recorder = new Recorder();
+        EventFilter filter = new EventFilter.Builder().container("a").event("die", "destroy").build();
+        requestor = new EventRequestor(client, urlBuilder, filter, recorder);
+        requestor.start();
+
+        // Events not matching are dropped even if the daemon doesn't evaluate the filter
+        assertEquals(Arrays.asList("die a", "destroy a"), recorder.take(2));
+        String query = queries.take();
+        assertTrue(query.contains("\"container\":[\"a\"]"));
+        assertTrue(query.contains("\"event\":[\"die\",\"destroy\"]"));
+    }
+
+    private String event(String status, String id, long offset) {
+        return "{\"status\":\"" + status + "\",\"id\":\"" + id + "\",\"from\":\"busybox\",\"time\":" + (now + offset) + "}\n";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Recorder implements EventCallback {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private volatile String error;
+
+        @Override
+        public void event(DockerEvent event) {
+            events.add(event.getStatus() + " " + event.getId());
+        }
+
+        @Override
+        public void error(String error) {
+            this.error = error;
+        }
+
+        private List<String> take(int count) throws InterruptedException {
+            List<String> ret = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String event = events.poll(5, TimeUnit.SECONDS);
+                assertNotNull("Missing event after " + ret, event);
+                ret.add(event);
+            }
+            assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+            return ret;
+        }
+    }
+}
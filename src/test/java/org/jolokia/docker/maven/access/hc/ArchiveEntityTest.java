@@ -0,0 +1,78 @@
+package org.jolokia.docker.maven.access.hc;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.jolokia.docker.maven.access.ArchiveWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 26/10/15
+ */
+public class ArchiveEntityTest {
+
+    @Test
+    public void plain() throws IOException {
+        ArchiveEntity entity = new ArchiveEntity(new TextWriter("hello"), false);
+        assertTrue(entity.isChunked());
+        assertEquals(-1, entity.getContentLength());
+        assertFalse(entity.isRepeatable());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        assertEquals("hello", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void content() throws IOException {
+        ArchiveEntity entity = new ArchiveEntity(new TextWriter("hello"), false);
+        assertEquals("hello", IOUtils.toString(entity.getContent(), "UTF-8"));
+    }
+
+    @Test
+    public void compressed() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("docker ");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ArchiveEntity(new TextWriter(text.toString()), true).writeTo(out);
+
+        assertTrue(out.size() < text.length() / 10);
+        InputStream is = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(text.toString(), IOUtils.toString(is, "UTF-8"));
+    }
+
+    private static class TextWriter implements ArchiveWriter {
+        private final String text;
+
+        private TextWriter(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void write(OutputStream out) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
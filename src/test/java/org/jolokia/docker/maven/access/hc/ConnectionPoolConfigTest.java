@@ -0,0 +1,91 @@
+package org.jolokia.docker.maven.access.hc;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 21/10/15
+ */
+public class ConnectionPoolConfigTest {
+
+    @Test
+    public void defaults() {
+        ConnectionPoolConfig config = ConnectionPoolConfig.DEFAULT;
+        assertEquals(40, config.getMaxTotal());
+        assertEquals(20, config.getMaxPerRoute());
+        assertEquals(10000, config.getConnectTimeout());
+        assertEquals(0, config.getSocketTimeout());
+        assertEquals(0, config.getConnectionRequestTimeout());
+        assertEquals(30000, config.getIdleTimeout());
+        assertEquals(2000, config.getValidateAfterInactivity());
+    }
+
+    @Test
+    public void configure() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig.Builder()
+                .maxTotal(10)
+                .maxPerRoute(3)
+                .socketTimeout(5000)
+                .validateAfterInactivity(500)
+                .build();
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        try {
+            assertSame(manager, config.configure(manager));
+            assertEquals(10, manager.getMaxTotal());
+            assertEquals(3, manager.getDefaultMaxPerRoute());
+            assertEquals(500, manager.getValidateAfterInactivity());
+            assertEquals(5000, manager.getDefaultSocketConfig().getSoTimeout());
+            assertTrue(manager.getDefaultSocketConfig().isSoKeepAlive());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void keepAliveLimitedByIdleTimeout() {
+        ConnectionKeepAliveStrategy strategy =
+                new ConnectionPoolConfig.Builder().idleTimeout(10000).build().createKeepAliveStrategy();
+        assertEquals(10000, strategy.getKeepAliveDuration(response(null), new BasicHttpContext()));
+        assertEquals(10000, strategy.getKeepAliveDuration(response("timeout=60"), new BasicHttpContext()));
+        assertEquals(5000, strategy.getKeepAliveDuration(response("timeout=5"), new BasicHttpContext()));
+    }
+
+    @Test
+    public void keepAliveWithoutIdleTimeout() {
+        ConnectionKeepAliveStrategy strategy =
+                new ConnectionPoolConfig.Builder().idleTimeout(0).build().createKeepAliveStrategy();
+        assertEquals(-1, strategy.getKeepAliveDuration(response(null), new BasicHttpContext()));
+        assertEquals(60000, strategy.getKeepAliveDuration(response("timeout=60"), new BasicHttpContext()));
+    }
+
+    private HttpResponse response(String keepAlive) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (keepAlive != null) {
+            response.addHeader("Keep-Alive", keepAlive);
+        }
+        return response;
+    }
+}
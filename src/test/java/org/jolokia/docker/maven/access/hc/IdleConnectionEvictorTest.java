@@ -0,0 +1,78 @@
+package org.jolokia.docker.maven.access.hc;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jolokia.docker.maven.util.Logger;
+import org.junit.Test;
+
+import mockit.Mocked;
+import mockit.Verifications;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 21/10/15
+ */
+public class IdleConnectionEvictorTest {
+
+    @Mocked
+    private PoolingHttpClientConnectionManager manager;
+
+    @Mocked
+    private Logger log;
+
+    @Test
+    public void interval() {
+        assertEquals(15000, new IdleConnectionEvictor(manager, 30000, log).getInterval());
+        // Not more often than once a second
+        assertEquals(1000, new IdleConnectionEvictor(manager, 500, log).getInterval());
+        assertEquals(1000, new IdleConnectionEvictor(manager, 0, log).getInterval());
+    }
+
+    @Test
+    public void evictAndShutdown() throws InterruptedException {
+        IdleConnectionEvictor evictor = new IdleConnectionEvictor(manager, 100, log);
+        assertTrue(evictor.isDaemon());
+        evictor.start();
+        Thread.sleep(1500);
+        evictor.shutdown();
+        evictor.join(5000);
+        assertFalse(evictor.isAlive());
+
+        new Verifications() {{
+            manager.closeExpiredConnections(); minTimes = 1;
+            manager.closeIdleConnections(100, TimeUnit.MILLISECONDS); minTimes = 1;
+        }};
+    }
+
+    @Test
+    public void shutdownWhileWaiting() throws InterruptedException {
+        IdleConnectionEvictor evictor = new IdleConnectionEvictor(manager, 60000, log);
+        evictor.start();
+        evictor.shutdown();
+        // Doesn't wait for the interval to pass
+        evictor.join(5000);
+        assertFalse(evictor.isAlive());
+
+        new Verifications() {{
+            manager.closeIdleConnections(anyLong, (TimeUnit) any); times = 0;
+        }};
+    }
+}
@@ -0,0 +1,158 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.jolokia.docker.maven.util.Timestamp;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 23/10/15
+ */
+public class LogFrameDecoderTest {
+
+    @Test
+    public void singleLines() throws Exception {
+        Recorder recorder = decode(frame(1, "2014-11-24T22:34:00.761764812Z Hello\n"),
+                                   frame(2, "[2014-11-24T22:34:01Z] World\r\n"));
+        assertEquals(2, recorder.texts.size());
+        assertEquals("1 Hello", recorder.texts.get(0));
+        assertEquals("2 World", recorder.texts.get(1));
+        assertEquals(new Timestamp("2014-11-24T22:34:00.761764812Z"), recorder.timestamps.get(0));
+        assertEquals(new Timestamp("2014-11-24T22:34:01Z"), recorder.timestamps.get(1));
+        assertNull(recorder.error);
+    }
+
+    @Test
+    public void multipleLinesPerFrame() throws Exception {
+        Recorder recorder = decode(frame(1, "2015-01-01T00:00:00.1Z first\n2015-01-01T00:00:00.2Z  second \n\n"));
+        assertEquals(2, recorder.texts.size());
+        assertEquals("1 first", recorder.texts.get(0));
+        assertEquals("1 second ", recorder.texts.get(1));
+        assertTrue(recorder.timestamps.get(0).compareTo(recorder.timestamps.get(1)) < 0);
+    }
+
+    @Test
+    public void timezoneOffset() throws Exception {
+        Recorder recorder = decode(frame(1, "2015-03-01T01:30:00.5+02:00 x\n"),
+                                   frame(1, "1969-12-31T23:30:00.5-00:30 y\n"));
+        assertEquals(new DateTime("2015-02-28T23:30:00.500Z").getMillis(),
+                     recorder.timestamps.get(0).getDate().getMillis());
+        assertEquals(500L, recorder.timestamps.get(1).getDate().getMillis());
+    }
+
+    @Test
+    public void largeFrame() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("äö");
+        }
+        Recorder recorder = decode(frame(1, "2015-01-01T00:00:00Z small\n"),
+                                   frame(1, "2015-01-01T00:00:00Z " + text + "\n"),
+                                   frame(1, "2015-01-01T00:00:00Z small again\n"));
+        assertEquals(3, recorder.texts.size());
+        assertEquals("1 " + text, recorder.texts.get(1));
+        assertEquals("1 small again", recorder.texts.get(2));
+    }
+
+    @Test
+    public void invalidFormat() throws Exception {
+        Recorder recorder = new Recorder();
+        try {
+            new LogFrameDecoder().decode(new ByteArrayInputStream(frame(1, "no timestamp here\n")), recorder);
+            fail("Invalid format should stop decoding");
+        } catch (LogCallback.DoneException exp) {
+            assertTrue(recorder.error.contains("no timestamp here"));
+        }
+        assertEquals(0, recorder.texts.size());
+    }
+
+    @Test
+    public void buffersSplittingFrames() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(frame(1, "2015-01-01T00:00:00Z first\n"));
+        out.write(frame(2, ""));
+        out.write(frame(2, "2015-01-01T00:00:01Z second\n"));
+        byte[] data = out.toByteArray();
+
+        // Every possible split into two parts
+        for (int split = 0; split <= data.length; split++) {
+            Recorder recorder = new Recorder();
+            LogFrameDecoder decoder = new LogFrameDecoder();
+            decoder.decode(ByteBuffer.wrap(data, 0, split), recorder);
+            decoder.decode(ByteBuffer.wrap(data, split, data.length - split), recorder);
+            assertEquals(2, recorder.texts.size());
+            assertEquals("1 first", recorder.texts.get(0));
+            assertEquals("2 second", recorder.texts.get(1));
+        }
+
+        // Byte by byte
+        Recorder recorder = new Recorder();
+        LogFrameDecoder decoder = new LogFrameDecoder();
+        for (byte b : data) {
+            decoder.decode(ByteBuffer.wrap(new byte[] { b }), recorder);
+        }
+        assertEquals(2, recorder.texts.size());
+    }
+
+    private Recorder decode(byte[]... frames) throws IOException, LogCallback.DoneException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            out.write(frame);
+        }
+        Recorder recorder = new Recorder();
+        new LogFrameDecoder().decode(new ByteArrayInputStream(out.toByteArray()), recorder);
+        return recorder;
+    }
+
+    private byte[] frame(int type, String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[data.length + 8];
+        frame[0] = (byte) type;
+        frame[4] = (byte) (data.length >>> 24);
+        frame[5] = (byte) (data.length >>> 16);
+        frame[6] = (byte) (data.length >>> 8);
+        frame[7] = (byte) data.length;
+        System.arraycopy(data, 0, frame, 8, data.length);
+        return frame;
+    }
+
+    private static class Recorder implements LogCallback {
+        private final List<String> texts = new ArrayList<>();
+        private final List<Timestamp> timestamps = new ArrayList<>();
+        private String error;
+
+        @Override
+        public void log(LogLine line) {
+            texts.add(line.getType() + " " + line.getText());
+            timestamps.add(line.getTimestamp());
+        }
+
+        @Override
+        public void error(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 30/10/15
+ */
+public class LogMultiplexerTest {
+
+    private ServerSocket server;
+    private LogMultiplexer multiplexer;
+
+    // Connections accepted by the fake daemon
+    private BlockingQueue<Socket> connections;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        connections = new LinkedBlockingQueue<>();
+        Thread acceptor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        connections.add(server.accept());
+                    }
+                } catch (IOException exp) {
+                    // Server closed
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        final InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getLocalPort());
+        multiplexer = new LogMultiplexer(new LogMultiplexer.ChannelFactory() {
+            @Override
+            public SelectableChannel open() throws IOException {
+                return SocketChannel.open(address);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void severalStreams() throws Exception {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        LogGetHandle firstHandle = multiplexer.follow(url("c1"), first);
+        LogGetHandle secondHandle = multiplexer.follow(url("c2"), second);
+
+        Socket c1 = accept("c1");
+        Socket c2 = accept("c2");
+        OutputStream out1 = c1.getOutputStream();
+        OutputStream out2 = c2.getOutputStream();
+        out1.write(header("200 OK", "Transfer-Encoding: chunked"));
+        out2.write(header("200 OK", "Transfer-Encoding: chunked"));
+
+        // Chunks split frames in the middle
+        byte[] frames = concat(frame(1, "2015-01-01T00:00:00Z one\n"), frame(2, "2015-01-01T00:00:01Z two\n"));
+        out1.write(chunk(Arrays.copyOfRange(frames, 0, 5)));
+        out1.flush();
+        out2.write(chunk(frame(1, "2015-01-01T00:00:00Z other\n")));
+        out2.flush();
+        Thread.sleep(50);
+        out1.write(chunk(Arrays.copyOfRange(frames, 5, frames.length)));
+        out1.flush();
+
+        assertEquals("1 one", first.lines.poll(5, TimeUnit.SECONDS));
+        assertEquals("2 two", first.lines.poll(5, TimeUnit.SECONDS));
+        assertEquals("1 other", second.lines.poll(5, TimeUnit.SECONDS));
+
+        // A finished stream gets closed while the other one goes on
+        firstHandle.finish();
+        assertEquals(-1, read(c1));
+        out2.write(chunk(frame(2, "2015-01-01T00:00:02Z more\n")));
+        out2.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        out2.flush();
+        assertEquals("2 more", second.lines.poll(5, TimeUnit.SECONDS));
+        assertEquals(-1, read(c2));
+
+        assertFalse(firstHandle.isError());
+        assertFalse(secondHandle.isError());
+        assertNull(first.error);
+        assertNull(second.error);
+    }
+
+    @Test
+    public void errorStatus() throws Exception {
+        Recorder recorder = new Recorder();
+        LogGetHandle handle = multiplexer.follow(url("unknown"), recorder);
+        Socket socket = accept("unknown");
+        socket.getOutputStream().write(header("404 Not Found", "Content-Length: 0"));
+        socket.getOutputStream().flush();
+        assertEquals(-1, read(socket));
+        assertTrue(handle.isError());
+        assertTrue(recorder.awaitError().contains("404"));
+    }
+
+    @Test
+    public void slowCallbackDoesNotBlockSelector() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        Recorder slow = new Recorder() {
+            @Override
+            public void log(LogLine line) throws DoneException {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.log(line);
+            }
+        };
+        multiplexer.follow(url("c1"), slow);
+        LogGetHandle otherHandle = multiplexer.follow(url("c2"), new Recorder());
+        final Socket c1 = accept("c1");
+        Socket c2 = accept("c2");
+
+        // More lines than are queued before reading pauses, written in the background as the
+        // socket buffers fill up while reading pauses
+        final int count = 3000;
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    OutputStream out = c1.getOutputStream();
+                    out.write(header("200 OK", "Transfer-Encoding: chunked"));
+                    for (int i = 0; i < count; i++) {
+                        out.write(chunk(frame(1, "2015-01-01T00:00:00Z line " + i + "\n")));
+                    }
+                    out.flush();
+                } catch (IOException exp) {
+                    // Checked by the missing lines
+                }
+            }
+        };
+        writer.setDaemon(true);
+        writer.start();
+
+        // The selector still serves other streams while the callback blocks
+        otherHandle.finish();
+        assertEquals(-1, read(c2));
+
+        release.countDown();
+        for (int i = 0; i < count; i++) {
+            assertEquals("1 line " + i, slow.lines.poll(5, TimeUnit.SECONDS));
+        }
+        assertNull(slow.error);
+    }
+
+    @Test
+    public void doneByCallback() throws Exception {
+        Recorder recorder = new Recorder() {
+            @Override
+            public void log(LogLine line) throws DoneException {
+                super.log(line);
+                throw new DoneException();
+            }
+        };
+        multiplexer.follow(url("c1"), recorder);
+        Socket c1 = accept("c1");
+        OutputStream out = c1.getOutputStream();
+        out.write(header("200 OK", "Transfer-Encoding: chunked"));
+        out.write(chunk(concat(frame(1, "2015-01-01T00:00:00Z one\n"), frame(1, "2015-01-01T00:00:01Z two\n"))));
+        out.flush();
+
+        assertEquals("1 one", recorder.lines.poll(5, TimeUnit.SECONDS));
+        assertEquals(-1, read(c1));
+        assertNull(recorder.lines.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void connectionRefused() throws Exception {
+        server.close();
+        Recorder recorder = new Recorder();
+        multiplexer.follow(url("c1"), recorder);
+        assertTrue(recorder.awaitError().contains("IO Error"));
+    }
+
+    private String url(String container) {
+        return "http://127.0.0.1:" + server.getLocalPort() + "/v1.20/containers/" + container +
+               "/logs?stdout=1&stderr=1&timestamps=1&follow=1";
+    }
+
+    // Accept a connection and check its request
+    private Socket accept(String container) throws Exception {
+        Socket socket = connections.poll(5, TimeUnit.SECONDS);
+        assertNotNull(socket);
+        socket.setSoTimeout(5000);
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        assertEquals("GET /v1.20/containers/" + container + "/logs?stdout=1&stderr=1&timestamps=1&follow=1 HTTP/1.1",
+                     reader.readLine());
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            // Skip headers
+        }
+        return socket;
+    }
+
+    private int read(Socket socket) throws IOException {
+        return socket.getInputStream().read();
+    }
+
+    private byte[] header(String status, String header) {
+        return ("HTTP/1.1 " + status + "\r\nContent-Type: text/plain\r\n" + header + "\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] chunk(byte[] data) throws IOException {
+        return concat((Integer.toHexString(data.length) + "\r\n").getBytes(StandardCharsets.US_ASCII),
+                      data, "\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private byte[] concat(byte[]... parts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] frame(int type, String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[data.length + 8];
+        frame[0] = (byte) type;
+        frame[4] = (byte) (data.length >>> 24);
+        frame[5] = (byte) (data.length >>> 16);
+        frame[6] = (byte) (data.length >>> 8);
+        frame[7] = (byte) data.length;
+        System.arraycopy(data, 0, frame, 8, data.length);
+        return frame;
+    }
+
+    private static class Recorder implements LogCallback {
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private final CountDownLatch errorReported = new CountDownLatch(1);
+        private volatile String error;
+
+        @Override
+        public void log(LogLine line) throws DoneException {
+            lines.add(line.getType() + " " + line.getText());
+        }
+
+        @Override
+        public void error(String error) {
+            this.error = error;
+            errorReported.countDown();
+        }
+
+        // Errors are reported from the dispatch thread
+        private String awaitError() throws InterruptedException {
+            assertTrue(errorReported.await(5, TimeUnit.SECONDS));
+            return error;
+        }
+    }
+}
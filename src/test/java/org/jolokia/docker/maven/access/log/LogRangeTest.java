@@ -0,0 +1,102 @@
+package org.jolokia.docker.maven.access.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jolokia.docker.maven.access.UrlBuilder;
+import org.jolokia.docker.maven.util.Timestamp;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 31/10/15
+ */
+public class LogRangeTest {
+
+    @Test
+    public void url() {
+        UrlBuilder builder = new UrlBuilder("http://localhost:2375", "v1.20");
+        assertEquals("http://localhost:2375/v1.20/containers/c1/logs?stdout=1&stderr=1&timestamps=1&follow=0",
+                     builder.containerLogs("c1", false));
+        assertEquals("http://localhost:2375/v1.20/containers/c1/logs?stdout=1&stderr=1&timestamps=1&follow=1" +
+                     "&since=1446285600&tail=100",
+                     builder.containerLogs("c1", true, new LogRange(new Timestamp("2015-10-31T10:00:00.999Z"), 100)));
+    }
+
+    @Test
+    public void filter() throws Exception {
+        final List<String> texts = new ArrayList<>();
+        LogCallback callback = new LogCallback() {
+            @Override
+            public void log(LogLine line) {
+                texts.add(line.getText().toString());
+            }
+
+            @Override
+            public void error(String error) {
+            }
+        };
+        assertSame(callback, LogRange.ALL.filter(callback));
+
+        Timestamp since = new Timestamp("2015-10-31T10:00:00.100000002Z");
+        LogCallback filter = LogRange.since(since).filter(callback);
+        filter.log(line("2015-10-31T10:00:00.099999999Z", "before"));
+        filter.log(line("2015-10-31T10:00:00.100000002Z", "same"));
+        filter.log(line("2015-10-31T10:00:00.100000003Z", "after"));
+        filter.log(line("2015-10-31T10:00:01Z", "later"));
+        assertEquals(2, texts.size());
+        assertEquals("after", texts.get(0));
+        assertEquals("later", texts.get(1));
+    }
+
+    @Test
+    public void sinceStart() throws Exception {
+        Timestamp startedAt = new Timestamp("2015-10-31T10:00:00.500Z");
+        assertSame(LogRange.ALL, LogRange.sinceStart(null, 1));
+        // Lines of a first run are never skipped, even if stamped before the recorded start
+        assertSame(LogRange.ALL, LogRange.sinceStart(startedAt, 0));
+
+        final List<String> texts = new ArrayList<>();
+        LogCallback filter = LogRange.sinceStart(startedAt, 1).filter(new LogCallback() {
+            @Override
+            public void log(LogLine line) {
+                texts.add(line.getText().toString());
+            }
+
+            @Override
+            public void error(String error) {
+            }
+        });
+        filter.log(line("2015-10-31T09:59:58Z", "previous run"));
+        filter.log(line("2015-10-31T10:00:00.400Z", "just before start"));
+        filter.log(line("2015-10-31T10:00:00.500Z", "at start"));
+        filter.log(line("2015-10-31T10:00:01Z", "after start"));
+        assertEquals(3, texts.size());
+        assertEquals("just before start", texts.get(0));
+        assertEquals("at start", texts.get(1));
+    }
+
+    private LogLine line(String timestamp, String text) {
+        Timestamp ts = new Timestamp(timestamp);
+        LogLine line = new LogLine();
+        line.update(1, ts.getEpochMillis(), ts.getNanos(), text.toCharArray(), 0, text.length());
+        return line;
+    }
+}
@@ -0,0 +1,112 @@
+package org.jolokia.docker.maven.assembly;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 27/10/15
+ */
+public class AssemblyFilesTrackerTest {
+
+    private File dir;
+    private File fileA, fileB;
+    private AssemblyFiles files;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("tracker").toFile();
+        File subDir = new File(dir, "lib");
+        subDir.mkdirs();
+        fileA = createFile(new File(dir, "a.txt"));
+        fileB = createFile(new File(subDir, "b.jar"));
+        files = new AssemblyFiles();
+        files.addEntry(fileA, new File("maven/a.txt"));
+        files.addEntry(fileB, new File("maven/lib/b.jar"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void notifying() throws Exception {
+        try (AssemblyFilesTracker tracker = AssemblyFilesTracker.create(files, 0)) {
+            assertTrue(tracker.getChangedEntries().isEmpty());
+            touch(fileB);
+            List<AssemblyFiles.Entry> changed = waitForChanges(tracker);
+            assertEquals(1, changed.size());
+            assertEquals(new File("maven/lib/b.jar"), changed.get(0).getDestFile());
+            assertTrue(tracker.getChangedEntries().isEmpty());
+        }
+    }
+
+    @Test
+    public void polling() throws Exception {
+        try (AssemblyFilesTracker tracker = AssemblyFilesTracker.createPolling(files, 0)) {
+            assertFalse(tracker.isNotifying());
+            touch(fileA);
+            touch(fileB);
+            assertEquals(2, waitForChanges(tracker).size());
+        }
+    }
+
+    @Test
+    public void debounce() throws Exception {
+        try (AssemblyFilesTracker tracker = AssemblyFilesTracker.createPolling(files, 60000)) {
+            touch(fileA);
+            // Still within the quiet period
+            assertTrue(tracker.getChangedEntries().isEmpty());
+            touch(fileB);
+            assertTrue(tracker.getChangedEntries().isEmpty());
+        }
+    }
+
+    private List<AssemblyFiles.Entry> waitForChanges(AssemblyFilesTracker tracker) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < end) {
+            List<AssemblyFiles.Entry> changed = tracker.getChangedEntries();
+            if (!changed.isEmpty()) {
+                return changed;
+            }
+            Thread.sleep(50);
+        }
+        fail("No changes detected");
+        return null;
+    }
+
+    private File createFile(File file) throws IOException {
+        FileUtils.write(file, "initial", "UTF-8");
+        return file;
+    }
+
+    // Modification time is moved forward explicitly since its resolution might be coarse
+    private void touch(File file) throws IOException {
+        long lastModified = file.lastModified();
+        FileUtils.write(file, "changed", "UTF-8");
+        file.setLastModified(lastModified + 2000);
+    }
+}
@@ -0,0 +1,69 @@
+package org.jolokia.docker.maven.assembly;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 25/10/15
+ */
+public class BuildCacheTest {
+
+    @Test
+    public void emptyCache() throws IOException {
+        BuildCache cache = new BuildCache(tempFile());
+        assertFalse(cache.hasDigest("abc"));
+        assertFalse(cache.isUpToDate("abc", "1234", null));
+    }
+
+    @Test
+    public void upToDate() throws IOException {
+        File file = tempFile();
+        new BuildCache(file).update("abc", "1234", "5678");
+
+        BuildCache cache = new BuildCache(file);
+        assertTrue(cache.hasDigest("abc"));
+        assertTrue(cache.isUpToDate("abc", "1234", "5678"));
+        assertFalse(cache.isUpToDate("abd", "1234", "5678"));
+        assertFalse(cache.isUpToDate("abc", "4321", "5678"));
+        assertFalse(cache.isUpToDate("abc", null, "5678"));
+        assertFalse(cache.isUpToDate("abc", "1234", "8765"));
+        assertFalse(cache.isUpToDate("abc", "1234", null));
+    }
+
+    @Test
+    public void withoutBaseImage() throws IOException {
+        File file = tempFile();
+        new BuildCache(file).update("abc", "1234", null);
+        assertTrue(new BuildCache(file).isUpToDate("abc", "1234", null));
+        assertFalse(new BuildCache(file).isUpToDate("abc", "1234", "5678"));
+    }
+
+    private File tempFile() throws IOException {
+        File dir = File.createTempFile("build-cache", "");
+        dir.delete();
+        dir.deleteOnExit();
+        File file = new File(dir, "build-cache.properties");
+        file.deleteOnExit();
+        return file;
+    }
+}
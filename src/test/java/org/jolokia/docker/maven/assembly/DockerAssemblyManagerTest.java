@@ -1,8 +1,14 @@
 package org.jolokia.docker.maven.assembly;
 
-import java.util.Arrays;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
 
 import mockit.*;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugin.assembly.InvalidAssemblerConfigurationException;
@@ -14,13 +20,14 @@ import org.apache.maven.plugin.assembly.io.AssemblyReader;
 import org.apache.maven.plugin.assembly.model.Assembly;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
+import org.codehaus.plexus.archiver.tar.TarArchiver;
 import org.codehaus.plexus.util.ReflectionUtils;
 import org.jolokia.docker.maven.config.AssemblyConfiguration;
 import org.jolokia.docker.maven.config.BuildImageConfiguration;
 import org.jolokia.docker.maven.util.MojoParameters;
 import org.junit.Test;
 
-import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.*;
 
 public class DockerAssemblyManagerTest {
 
@@ -39,6 +46,9 @@ public class DockerAssemblyManagerTest {
     @Injectable
     private MappingTrackArchiver trackArchiver;
 
+    // Files returned by the tracking archiver
+    private AssemblyFiles trackedFiles;
+
 
     @Test
     public void testNoAssembly() {
@@ -52,6 +62,198 @@ public class DockerAssemblyManagerTest {
         assertFalse(content.contains("VOLUME"));
     }
 
+    @Test
+    public void supportsIncrementalBuild() {
+        assertTrue(assemblyManager.supportsIncrementalBuild(buildConfig("java:8", null, null)));
+        assertFalse(assemblyManager.supportsIncrementalBuild(new BuildImageConfiguration()));
+        assertFalse(assemblyManager.supportsIncrementalBuild(buildConfig("java:8", null, "src/main/docker")));
+        // chown within an exported volume would get lost
+        assertTrue(assemblyManager.supportsIncrementalBuild(buildConfig("java:8", "jolokia", null)));
+        assertFalse(assemblyManager.supportsIncrementalBuild(buildConfig(null, "jolokia", null)));
+    }
+
+    @Test
+    public void incrementalArchive(@Injectable final MojoParameters mojoParams,
+                                   @Injectable final MavenProject project) throws Exception {
+        final File dir = Files.createTempDirectory("incremental").toFile();
+        try {
+            File srcFile = new File(dir, "b.jar");
+            FileUtils.write(srcFile, "changed", "UTF-8");
+            AssemblyFiles files = new AssemblyFiles();
+            files.addEntry(srcFile, new File("lib/b.jar"));
+            files.addEntry(srcFile, new File("./c.jar"));
+
+            new NonStrictExpectations() {{
+                mojoParams.getOutputDirectory();
+                result = "target";
+
+                mojoParams.getProject();
+                result = project;
+
+                project.getBasedir();
+                result = dir;
+
+                archiverManager.getArchiver("tar");
+                result = new TarArchiver();
+            }};
+
+            BuildImageConfiguration buildConfig = buildConfig("java:8", "jolokia", null);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assemblyManager.createIncrementalDockerTarArchiveWriter("test", mojoParams, buildConfig, "1234abcd",
+                                                                   files.getEntries()).write(out);
+            Map<String, String> entries = readTar(out.toByteArray());
+
+            assertEquals(new HashSet<>(Arrays.asList("Dockerfile", "maven/lib/b.jar", "maven/c.jar")), entries.keySet());
+            assertEquals("changed", entries.get("maven/lib/b.jar"));
+
+            String dockerFile = entries.get("Dockerfile");
+            assertTrue(dockerFile.contains("FROM 1234abcd\n"));
+            // Same layout as the assembly directory of a full build
+            String fullDockerFile =
+                    assemblyManager.createDockerFileBuilder(buildConfig, buildConfig.getAssemblyConfiguration()).content();
+            String copy = "COPY maven /maven/\n";
+            assertTrue(fullDockerFile.contains(copy));
+            assertTrue(dockerFile.contains(copy));
+            // Only the copied files and their directories change their owner
+            assertTrue(dockerFile.contains(
+                    "RUN [\"chown\", \"jolokia\",\"/maven/\",\"/maven/c.jar\",\"/maven/lib\",\"/maven/lib/b.jar\"]\n"));
+            assertFalse(dockerFile.contains("-R"));
+            assertFalse(dockerFile.contains("VOLUME"));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void buildDigestOfAssembly(@Injectable final MojoParameters mojoParams,
+                                      @Injectable final MavenProject project,
+                                      @Injectable final Assembly assembly) throws Exception {
+        final File dir = Files.createTempDirectory("digest").toFile();
+        try {
+            expectBuildContext(mojoParams, project, assembly, dir);
+            File jar = new File(dir, "a.jar");
+            FileUtils.write(jar, "v1", "UTF-8");
+            trackedFiles = new AssemblyFiles();
+            trackedFiles.addEntry(jar, new File("lib/a.jar"));
+
+            BuildImageConfiguration buildConfig = buildConfig("java:8", null, null);
+            String digest = assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig);
+            assertEquals(digest, assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig));
+
+            // Generated Dockerfile
+            assertNotEquals(digest, assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig("java:7", null, null)));
+
+            // Assembly mode
+            BuildImageConfiguration tarConfig =
+                    new BuildImageConfiguration.Builder()
+                            .from("java:8")
+                            .assembly(new AssemblyConfiguration.Builder().descriptorRef("artifact").mode("tar").build())
+                            .build();
+            assertNotEquals(digest, assemblyManager.calculateBuildDigest("test", mojoParams, tarConfig));
+
+            // Destination of an assembly file
+            trackedFiles = new AssemblyFiles();
+            trackedFiles.addEntry(jar, new File("a.jar"));
+            assertNotEquals(digest, assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig));
+
+            // Content of an assembly file
+            trackedFiles = new AssemblyFiles();
+            trackedFiles.addEntry(jar, new File("lib/a.jar"));
+            assertEquals(digest, assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig));
+            FileUtils.write(jar, "v2", "UTF-8");
+            assertNotEquals(digest, assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void buildDigestOfDockerDir(@Injectable final MojoParameters mojoParams,
+                                       @Injectable final MavenProject project,
+                                       @Injectable final Assembly assembly) throws Exception {
+        final File dir = Files.createTempDirectory("digest").toFile();
+        try {
+            expectBuildContext(mojoParams, project, assembly, dir);
+            File dockerDir = new File(dir, "src/main/docker/app");
+            File dockerFile = new File(dockerDir, "Dockerfile");
+            File script = new File(dockerDir, "bin/start.sh");
+            FileUtils.write(dockerFile, "FROM java:8\n", "UTF-8");
+            FileUtils.write(script, "exec java -jar app.jar", "UTF-8");
+
+            BuildImageConfiguration buildConfig = new BuildImageConfiguration.Builder()
+                    .assembly(new AssemblyConfiguration.Builder().dockerFileDir("app").build())
+                    .build();
+            String digest = assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig);
+            assertEquals(digest, assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig));
+
+            FileUtils.write(dockerFile, "FROM java:7\n", "UTF-8");
+            String changedDockerFile = assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig);
+            assertNotEquals(digest, changedDockerFile);
+
+            FileUtils.write(script, "exec java -Xmx64m -jar app.jar", "UTF-8");
+            String changedScript = assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig);
+            assertNotEquals(changedDockerFile, changedScript);
+
+            FileUtils.write(new File(dockerDir, "bin/stop.sh"), "", "UTF-8");
+            assertNotEquals(changedScript, assemblyManager.calculateBuildDigest("test", mojoParams, buildConfig));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    private void expectBuildContext(final MojoParameters mojoParams, final MavenProject project,
+                                    final Assembly assembly, final File dir) throws Exception {
+        ReflectionUtils.setVariableValueInObject(assemblyManager, "trackArchiver", trackArchiver);
+
+        new NonStrictExpectations() {{
+            mojoParams.getOutputDirectory();
+            result = "target";
+
+            mojoParams.getSourceDirectory();
+            result = "src/main/docker";
+
+            mojoParams.getProject();
+            result = project;
+
+            project.getBasedir();
+            result = dir;
+
+            assemblyReader.readAssemblies((AssemblerConfigurationSource) any);
+            result = Arrays.asList(assembly);
+
+            trackArchiver.getAssemblyFiles();
+            result = new Delegate() {
+                AssemblyFiles getAssemblyFiles() {
+                    return trackedFiles;
+                }
+            };
+        }};
+    }
+
+    private Map<String, String> readTar(byte[] data) throws IOException {
+        Map<String, String> ret = new HashMap<>();
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(data))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    ret.put(entry.getName(), IOUtils.toString(tar, "UTF-8"));
+                }
+            }
+        }
+        return ret;
+    }
+
+    private BuildImageConfiguration buildConfig(String from, String user, String dockerFileDir) {
+        return new BuildImageConfiguration.Builder()
+                .from(from)
+                .assembly(new AssemblyConfiguration.Builder()
+                                  .descriptorRef("artifact")
+                                  .user(user)
+                                  .dockerFileDir(dockerFileDir)
+                                  .build())
+                .build();
+    }
+
     @Test
     public void assemblyFiles(@Injectable final MojoParameters mojoParams,
                               @Injectable final MavenProject project,
@@ -0,0 +1,131 @@
+package org.jolokia.docker.maven.assembly;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.archiver.tar.TarArchiver;
+import org.codehaus.plexus.archiver.tar.TarLongFileMode;
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 30/10/15
+ */
+public class TarStreamWriterTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("tar").toFile();
+        FileUtils.write(new File(dir, "src/app.jar"), "jar", "UTF-8");
+        FileUtils.write(new File(dir, "src/bin/start.sh"), "exec java -jar app.jar", "UTF-8");
+        assertTrue(new File(dir, "src/data").mkdirs());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TarStreamWriter(createArchiver()).write(out);
+        Map<String, TarArchiveEntry> entries = readEntries(new ByteArrayInputStream(out.toByteArray()));
+
+        TarArchiveEntry jar = entries.get("maven/app.jar");
+        assertTrue(jar.isFile());
+        assertEquals(3, jar.getSize());
+        assertEquals(0644, jar.getMode() & 0777);
+
+        TarArchiveEntry script = entries.get("maven/bin/start.sh");
+        assertTrue(script.isFile());
+        assertEquals(0755, script.getMode() & 0777);
+
+        TarArchiveEntry data = entries.get("maven/data/");
+        assertTrue(data.isDirectory());
+        assertEquals(0750, data.getMode() & 0777);
+
+        TarArchiveEntry link = entries.get("maven/start.sh");
+        assertTrue(link.isSymbolicLink());
+        assertEquals("bin/start.sh", link.getLinkName());
+        assertEquals(0, link.getSize());
+    }
+
+    @Test
+    public void sameAsArchiver() throws Exception {
+        File archive = new File(dir, "archive.tar");
+        TarArchiver archiver = createArchiver();
+        archiver.setDestFile(archive);
+        archiver.createArchive();
+        Map<String, TarArchiveEntry> expected;
+        try (InputStream is = new FileInputStream(archive)) {
+            expected = readEntries(is);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TarStreamWriter(createArchiver()).write(out);
+        Map<String, TarArchiveEntry> entries = readEntries(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(expected.keySet(), entries.keySet());
+        for (TarArchiveEntry entry : entries.values()) {
+            TarArchiveEntry other = expected.get(entry.getName());
+            assertEquals(entry.getName(), other.getMode(), entry.getMode());
+            assertEquals(entry.getName(), other.getSize(), entry.getSize());
+            assertEquals(entry.getName(), other.isDirectory(), entry.isDirectory());
+            assertEquals(entry.getName(), other.getLinkName(), entry.getLinkName());
+            assertEquals(entry.getName(), other.getUserName(), entry.getUserName());
+            assertEquals(entry.getName(), other.getGroupName(), entry.getGroupName());
+            assertEquals(entry.getName(), other.getUserId(), entry.getUserId());
+            assertEquals(entry.getName(), other.getGroupId(), entry.getGroupId());
+        }
+    }
+
+    private TarArchiver createArchiver() {
+        TarArchiver archiver = new TarArchiver();
+        archiver.setLongfile(TarLongFileMode.posix);
+        archiver.setDirectoryMode(0750);
+        archiver.addFile(new File(dir, "src/app.jar"), "maven/app.jar", 0644);
+        archiver.addFile(new File(dir, "src/bin/start.sh"), "maven/bin/start.sh", 0755);
+        archiver.addDirectory(new File(dir, "src"), "maven/", new String[] { "data/**" }, null);
+        archiver.addSymlink("maven/start.sh", "bin/start.sh");
+        return archiver;
+    }
+
+    private Map<String, TarArchiveEntry> readEntries(InputStream is) throws IOException {
+        Map<String, TarArchiveEntry> ret = new HashMap<>();
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(is)) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                if (entry.isFile()) {
+                    assertEquals(entry.getSize(), IOUtils.toByteArray(tar).length);
+                }
+                ret.put(entry.getName(), entry);
+            }
+        }
+        return ret;
+    }
+}
@@ -217,6 +217,8 @@ public class PropertyConfigHandlerTest {
         WaitConfiguration wait = runConfig.getWaitConfiguration();
         assertEquals("http://foo.com", wait.getUrl());
         assertEquals("pattern", wait.getLog());
+        assertEquals(a("db ready", "http ready"), wait.getLogPatterns());
+        assertEquals(a("OutOfMemoryError"), wait.getLogFailurePatterns());
         assertEquals(5, wait.getTime());
     }
 
@@ -277,6 +279,9 @@ public class PropertyConfigHandlerTest {
                 k(VOLUMES) + ".1","/foo",
                 k(VOLUMES_FROM) + ".1", "from",
                 k(WAIT_LOG), "pattern",
+                k(WAIT_LOG_PATTERNS) + ".1", "db ready",
+                k(WAIT_LOG_PATTERNS) + ".2", "http ready",
+                k(WAIT_LOG_FAILURE_PATTERNS) + ".1", "OutOfMemoryError",
                 k(WAIT_TIME), "5",
                 k(WAIT_URL), "http://foo.com",
                 k(WORKING_DIR), "foo"
@@ -0,0 +1,66 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.jolokia.docker.maven.util.Timestamp;
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 31/10/15
+ */
+public class LogCursorsTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("cursors").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void persisted() throws Exception {
+        File file = new File(dir, "docker/log-cursors.properties");
+        LogCursors cursors = new LogCursors(file);
+        assertNull(cursors.get("c1"));
+
+        Timestamp first = new Timestamp("2015-10-31T10:00:00.100000002Z");
+        Timestamp second = new Timestamp("2015-10-31T10:00:00.100000003Z");
+        cursors.update("c1", second.getEpochMillis(), second.getNanos());
+        // Older entries don't move the cursor back
+        cursors.update("c1", first.getEpochMillis(), first.getNanos());
+        cursors.update("c2", first.getEpochMillis(), first.getNanos());
+        assertEquals(second, cursors.get("c1"));
+        cursors.save();
+
+        LogCursors loaded = new LogCursors(file);
+        assertEquals(second, loaded.get("c1"));
+        assertEquals(first, loaded.get("c2"));
+        assertNull(loaded.get("c3"));
+    }
+}
@@ -0,0 +1,164 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jolokia.docker.maven.util.Timestamp;
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 30/10/15
+ */
+public class LogFileWriterTest {
+
+    private File dir;
+    private ByteArrayOutputStream errors;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("logs").toFile();
+        errors = new ByteArrayOutputStream();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void filePerContainer() throws Exception {
+        LogFileWriter writer = startWriter(0, 0, false);
+        ContainerLogOutputSpec db = spec("db");
+        ContainerLogOutputSpec web = spec("web");
+        writer.write(entry(db, "starting"));
+        writer.write(entry(web, "listening"));
+        writer.write(entry(db, "ready"));
+        writer.write(entry(spec(null), "not persisted"));
+        writer.flush();
+
+        assertEquals(lines("starting", "ready"), read(new File(dir, "db.log")));
+        assertEquals(lines("listening"), read(new File(dir, "web.log")));
+
+        // Appended after the file has been closed by the flush
+        writer.write(entry(db, "stopping"));
+        writer.flush();
+        assertEquals(lines("starting", "ready", "stopping"), read(new File(dir, "db.log")));
+        assertEquals("", errors.toString());
+    }
+
+    @Test
+    public void rotation() throws Exception {
+        String line = lines("x");
+        // Room for three lines per file
+        LogFileWriter writer = startWriter(line.length() * 3, 2, false);
+        ContainerLogOutputSpec db = spec("db");
+        for (int i = 0; i < 10; i++) {
+            writer.write(entry(db, "x"));
+        }
+        writer.flush();
+
+        assertEquals(line, read(new File(dir, "db.log")));
+        assertEquals(line + line + line, read(new File(dir, "db.log.1")));
+        assertEquals(line + line + line, read(new File(dir, "db.log.2")));
+        assertFalse(new File(dir, "db.log.3").exists());
+    }
+
+    @Test
+    public void compressedRotation() throws Exception {
+        String line = lines("x");
+        LogFileWriter writer = startWriter(line.length() * 2, 1, true);
+        ContainerLogOutputSpec db = spec("db");
+        for (int i = 0; i < 5; i++) {
+            writer.write(entry(db, "x"));
+        }
+        writer.flush();
+
+        assertEquals(line, read(new File(dir, "db.log")));
+        try (InputStream in = new GZIPInputStream(new FileInputStream(new File(dir, "db.log.1.gz")))) {
+            assertEquals(line + line, IOUtils.toString(in, "UTF-8"));
+        }
+        assertFalse(new File(dir, "db.log.1").exists());
+        assertFalse(new File(dir, "db.log.2.gz").exists());
+    }
+
+    @Test
+    public void truncate() throws Exception {
+        String line = lines("x");
+        LogFileWriter writer = startWriter(line.length() * 2, 2, false);
+        ContainerLogOutputSpec db = spec("db");
+        ContainerLogOutputSpec web = spec("web");
+        for (int i = 0; i < 5; i++) {
+            writer.write(entry(db, "x"));
+        }
+        writer.write(entry(web, "listening"));
+        writer.flush();
+        assertTrue(new File(dir, "db.log.2").exists());
+
+        // Entries queued before the truncation are dropped, the ones after it start over
+        writer.write(entry(db, "x"));
+        writer.truncate(new File(dir, "db.log"));
+        writer.write(entry(db, "again"));
+        writer.flush();
+
+        assertEquals(lines("again"), read(new File(dir, "db.log")));
+        assertFalse(new File(dir, "db.log.1").exists());
+        assertFalse(new File(dir, "db.log.2").exists());
+        assertEquals(lines("listening"), read(new File(dir, "web.log")));
+        assertEquals("", errors.toString());
+    }
+
+    private LogFileWriter startWriter(long maxSize, int maxBackups, boolean compress) {
+        LogFileWriter writer = new LogFileWriter(maxSize, maxBackups, compress, 100,
+                                                 new PrintStream(errors, true));
+        writer.start();
+        return writer;
+    }
+
+    private ContainerLogOutputSpec spec(String alias) {
+        return new ContainerLogOutputSpec.Builder()
+            .prefix(alias)
+            .color(null)
+            .file(alias != null ? new File(dir, alias + ".log") : null)
+            .build();
+    }
+
+    private LogEntry entry(ContainerLogOutputSpec spec, String text) {
+        return new LogEntry(spec, 1, new Timestamp("2015-10-30T10:00:00.000000001Z"), text);
+    }
+
+    // Expected lines as written by the writer
+    private String lines(String... texts) {
+        StringBuilder ret = new StringBuilder();
+        for (String text : texts) {
+            ret.append(new Timestamp("2015-10-30T10:00:00.000000001Z")).append(' ').append(text)
+               .append(System.getProperty("line.separator"));
+        }
+        return ret.toString();
+    }
+
+    private String read(File file) throws IOException {
+        return FileUtils.readFileToString(file, "UTF-8");
+    }
+}
@@ -0,0 +1,92 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.jolokia.docker.maven.util.Timestamp;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 24/10/15
+ */
+public class LogWriterTest {
+
+    @Test
+    public void orderedWithinWindow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogWriter writer = startWriter(out, 10000, 100, LogWriter.Overflow.BLOCK);
+        writer.write(entry("2015-10-24T10:00:00.000000003Z", "third"));
+        writer.write(entry("2015-10-24T10:00:00.000000001Z", "first"));
+        writer.write(entry("2015-10-24T10:00:00.000000002Z", "second"));
+        writer.write(entry("2015-10-24T10:00:00.000000002Z", "second again"));
+
+        // Nothing is printed within the reorder window
+        Thread.sleep(100);
+        assertEquals("", out.toString());
+
+        writer.flush();
+        assertEquals(lines("> first", "> second", "> second again", "> third"), out.toString());
+    }
+
+    @Test
+    public void printedAfterWindow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LogWriter writer = startWriter(out, 0, 100, LogWriter.Overflow.BLOCK);
+        writer.write(entry("2015-10-24T10:00:00.000000001Z", "hello"));
+        for (int i = 0; i < 100 && out.size() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(lines("> hello"), out.toString());
+    }
+
+    @Test
+    public void dropOnOverflow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Not started, so the queue is never drained
+        LogWriter writer = new LogWriter(false, 0, 2, LogWriter.Overflow.DROP);
+        writer.addOutputStream(new PrintStream(out));
+        for (int i = 0; i < 5; i++) {
+            writer.write(entry("2015-10-24T10:00:00.000000001Z", "line " + i));
+        }
+        writer.start();
+        writer.flush();
+        assertEquals(lines("> line 0", "> line 1", "... 3 log entries dropped"), out.toString());
+    }
+
+    private LogWriter startWriter(ByteArrayOutputStream out, long window, int capacity, LogWriter.Overflow overflow) {
+        LogWriter writer = new LogWriter(false, window, capacity, overflow);
+        writer.addOutputStream(new PrintStream(out));
+        writer.start();
+        return writer;
+    }
+
+    private LogEntry entry(String timestamp, String text) {
+        return new LogEntry(ContainerLogOutputSpec.DEFAULT, 1, new Timestamp(timestamp), text);
+    }
+
+    private String lines(String... lines) {
+        StringBuilder ret = new StringBuilder();
+        for (String line : lines) {
+            ret.append(line).append(System.getProperty("line.separator"));
+        }
+        return ret.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package org.jolokia.docker.maven.log;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.fusesource.jansi.Ansi;
+import org.joda.time.DateTime;
+import org.joda.time.format.*;
+import org.jolokia.docker.maven.util.Timestamp;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 30/10/15
+ */
+public class TimestampFormatCacheTest {
+
+    private static final long START = new DateTime("2015-10-30T23:59:58.000Z").getMillis();
+
+    @Test
+    public void sameAsFormatter() {
+        DateTimeFormatter[] formatters = {
+            ISODateTimeFormat.dateTime(),
+            DateTimeFormat.forPattern("HH:mm:ss.SSS"),
+            DateTimeFormat.forPattern("HH:mm:ss"),
+            DateTimeFormat.forPattern("ss.S"),
+            DateTimeFormat.forPattern("SS ss"),
+            DateTimeFormat.forPattern("HH:mm:ss.SSSSSS"),
+            DateTimeFormat.mediumDateTime()
+        };
+        long[] offsets = { 0, 1, 9, 10, 99, 100, 123, 999, 1000, 1001, 1500, 2999, 3000, -1, -1001 };
+        for (DateTimeFormatter formatter : formatters) {
+            TimestampFormatCache cache = new TimestampFormatCache(formatter);
+            for (long offset : offsets) {
+                long millis = START + offset;
+                StringBuilder builder = new StringBuilder();
+                cache.appendTo(builder, new Timestamp(millis, 0));
+                assertEquals(formatter.print(millis), builder.toString());
+            }
+        }
+    }
+
+    @Test
+    public void beforeEpoch() {
+        TimestampFormatCache cache = new TimestampFormatCache(ISODateTimeFormat.dateTime());
+        for (long millis : new long[] { -1, -999, -1000, -1001 }) {
+            StringBuilder builder = new StringBuilder();
+            cache.appendTo(builder, new Timestamp(millis, 0));
+            assertEquals(ISODateTimeFormat.dateTime().print(millis), builder.toString());
+        }
+    }
+
+    @Test
+    public void prompt() {
+        ContainerLogOutputSpec spec = new ContainerLogOutputSpec.Builder()
+            .prefix("db")
+            .color("cyan")
+            .timeFormatter("DEFAULT")
+            .build();
+        Timestamp timestamp = new Timestamp("2015-10-30T10:00:00.042Z");
+        String time = DateTimeFormat.forPattern("HH:mm:ss.SSS").print(timestamp.getDate());
+        assertEquals(time + " db> ", spec.getPrompt(false, timestamp));
+
+        boolean enabled = Ansi.isEnabled();
+        try {
+            Ansi.setEnabled(true);
+            assertEquals(Ansi.ansi().fgBright(Ansi.Color.BLACK).a(time).reset().toString() + " " +
+                         Ansi.ansi().fg(Ansi.Color.CYAN).a("db").reset().toString() + "> ",
+                         spec.getPrompt(true, timestamp));
+        } finally {
+            Ansi.setEnabled(enabled);
+        }
+    }
+}
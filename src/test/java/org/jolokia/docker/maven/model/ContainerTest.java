@@ -36,13 +36,16 @@ public class ContainerTest {
         data.put("Id", "1234AF");
         data.put("Name", "/milkman-kindness");
         data.put("Config", new JSONObject("{ 'Image': '9876CE'}"));
-        data.put("State", new JSONObject("{'Running' : true }"));
-        Container cont = new ContainerDetails(data);
+        data.put("State", new JSONObject("{'Running' : true, 'StartedAt' : '2015-01-06T15:47:32.5Z' }"));
+        data.put("RestartCount", 2);
+        ContainerDetails cont = new ContainerDetails(data);
         assertEquals(1420559251485L, cont.getCreated());
         assertEquals("1234AF", cont.getId());
         assertEquals("milkman-kindness", cont.getName());
         assertEquals("9876CE",cont.getImage());
         assertTrue(cont.isRunning());
+        assertEquals(1420559252500L, cont.getStartedAt().getEpochMillis());
+        assertEquals(2, cont.getRestartCount());
     }
 
     @Test
@@ -0,0 +1,199 @@
+package org.jolokia.docker.maven.service;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+
+import org.jolokia.docker.maven.access.DockerAccess;
+import org.jolokia.docker.maven.access.DockerAccess.ListArg;
+import org.jolokia.docker.maven.access.DockerAccessException;
+import org.jolokia.docker.maven.model.Container;
+import org.jolokia.docker.maven.model.ContainersListElement;
+import org.jolokia.docker.maven.util.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 29/10/15
+ */
+public class QueryServiceTest {
+
+    @Mocked
+    private DockerAccess docker;
+
+    @Mocked
+    private Logger log;
+
+    // Containers known to the fake daemon, newest first
+    private List<Container> containers;
+
+    // Query parameters of all list requests
+    private List<Map<String, String>> requests;
+
+    // API version used for accessing the fake daemon
+    private String apiVersion;
+
+    // Error thrown by the daemon for requests with filters, if any
+    private DockerAccessException filterError;
+
+    private QueryService queryService;
+
+    @Before
+    public void setUp() throws Exception {
+        containers = new ArrayList<>();
+        requests = new ArrayList<>();
+        apiVersion = "v1.21";
+        filterError = null;
+        queryService = new QueryService(docker, log);
+
+        // Daemon which filters names by substring and pages by the id of the last container seen
+        new NonStrictExpectations() {{
+            docker.getApiVersion();
+            result = new Delegate() {
+                String getApiVersion() {
+                    return apiVersion;
+                }
+            };
+            docker.listContainers((ListArg[]) any);
+            result = new Delegate() {
+                List<Container> listContainers(ListArg... args) throws DockerAccessException {
+                    Map<String, String> params = new HashMap<>();
+                    for (ListArg arg : args) {
+                        params.put(arg.getKey(), arg.getValue());
+                    }
+                    requests.add(params);
+                    if (params.containsKey("filters")) {
+                        if (filterError != null) {
+                            throw filterError;
+                        }
+                        return filter(params.get("filters"));
+                    }
+                    return page(params.get("before"), Integer.parseInt(params.get("limit")));
+                }
+            };
+        }};
+    }
+
+    @Test
+    public void filteredByDaemon() throws Exception {
+        containers.add(container("c1", "db-old", "postgres"));
+        containers.add(container("c2", "db", "postgres"));
+
+        Container container = queryService.getContainerByName("db");
+        assertEquals("c2", container.getId());
+        assertEquals(1, requests.size());
+        assertEquals("1", requests.get(0).get("all"));
+        assertTrue(requests.get(0).containsKey("filters"));
+
+        assertEquals(2, queryService.getContainersForImage("postgres").size());
+        assertNull(queryService.getContainerByName("web"));
+    }
+
+    @Test
+    public void pagingForOlderApiVersions() throws Exception {
+        apiVersion = "v1.20";
+        for (int i = 0; i < 250; i++) {
+            containers.add(container("c" + i, "name" + i, i == 230 ? "redis" : "busybox"));
+        }
+
+        assertEquals("c240", queryService.getContainerByName("name240").getId());
+        // Three pages without any filters
+        assertEquals(3, requests.size());
+        assertFalse(requests.get(0).containsKey("filters"));
+        assertEquals("100", requests.get(0).get("limit"));
+        assertEquals("c199", requests.get(2).get("before"));
+
+        List<Container> redis = queryService.getContainersForImage("redis");
+        assertEquals(1, redis.size());
+        assertEquals("c230", redis.get(0).getId());
+        assertEquals(6, requests.size());
+    }
+
+    @Test
+    public void errorsAreRethrown() throws Exception {
+        containers.add(container("c1", "db", "postgres"));
+
+        filterError = new DockerAccessException("Invalid filter 'name' (Internal Server Error: 500)");
+        assertRethrown();
+        filterError = new DockerAccessException("Communication error with the docker daemon");
+        assertRethrown();
+
+        // Filters are still used once the daemon is back
+        filterError = null;
+        assertEquals("c1", queryService.getContainerByName("db").getId());
+        assertEquals(3, requests.size());
+        assertTrue(requests.get(2).containsKey("filters"));
+    }
+
+    @Test
+    public void apiVersions() {
+        assertTrue(QueryService.isVersionAtLeast("v1.21", "v1.21"));
+        assertTrue(QueryService.isVersionAtLeast("v1.22", "v1.21"));
+        assertTrue(QueryService.isVersionAtLeast("v2.0", "v1.21"));
+        assertTrue(QueryService.isVersionAtLeast("1.21.1", "v1.21"));
+        assertFalse(QueryService.isVersionAtLeast("v1.3", "v1.21"));
+        assertFalse(QueryService.isVersionAtLeast("v1.15", "v1.21"));
+        assertFalse(QueryService.isVersionAtLeast("v1", "v1.21"));
+    }
+
+    private void assertRethrown() {
+        try {
+            queryService.getContainerByName("db");
+            fail("Error should have been rethrown");
+        } catch (DockerAccessException exp) {
+            assertSame(filterError, exp);
+        }
+    }
+
+    private Container container(String id, String name, String image) {
+        JSONObject json = new JSONObject();
+        json.put("Id", id);
+        json.put("Names", new JSONArray(Collections.singletonList("/" + name)));
+        json.put("Image", image);
+        json.put("Status", "Up 2 minutes");
+        return new ContainersListElement(json);
+    }
+
+    private List<Container> filter(String filters) {
+        List<Container> ret = new ArrayList<>();
+        for (Container container : containers) {
+            if (filters.contains(container.getName()) || filters.contains(container.getImage())) {
+                ret.add(container);
+            }
+        }
+        return ret;
+    }
+
+    private List<Container> page(String before, int limit) {
+        int start = 0;
+        if (before != null) {
+            while (!containers.get(start).getId().equals(before)) {
+                start++;
+            }
+            start++;
+        }
+        return new ArrayList<>(containers.subList(start, Math.min(start + limit, containers.size())));
+    }
+}
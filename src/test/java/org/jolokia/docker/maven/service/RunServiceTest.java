@@ -2,9 +2,11 @@ package org.jolokia.docker.maven.service;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -23,9 +25,14 @@ import org.jolokia.docker.maven.util.Logger;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import mockit.Delegate;
 import mockit.Expectations;
+import mockit.NonStrictExpectations;
 import mockit.Mocked;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 
 /**
  * This test need to be refactored. In fact, testing Mojos must be setup correctly
@@ -132,6 +139,59 @@ public class RunServiceTest {
         JSONAssert.assertEquals(expectedHostConfig, startConfig.toJson(), true);
     }
 
+    @Test
+    public void stopContainersInReverseDependencyOrder() throws Exception {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        new NonStrictExpectations() {{
+            docker.stopContainer(anyString);
+            result = new Delegate() {
+                void stopContainer(String id) {
+                    calls.add("stop " + id);
+                }
+            };
+            docker.removeContainer(anyString, false);
+            result = new Delegate() {
+                void removeContainer(String id, boolean removeVolumes) {
+                    calls.add("remove " + id);
+                }
+            };
+        }};
+
+        // web links to app, app links to db and mounts volumes from data
+        Map<String, ImageConfiguration> containers = new LinkedHashMap<>();
+        containers.put("db0000000000", createImageConfig("db", null));
+        containers.put("data00000000", createImageConfig("data", null));
+        containers.put("app000000000", createImageConfig("app", Arrays.asList("db:database"), "data"));
+        containers.put("web000000000", createImageConfig("web", Arrays.asList("app")));
+
+        RunService runService = new RunService(docker, queryService, new ContainerTracker(), log);
+        runService.stopContainers(containers, false, false, 4);
+
+        assertEquals(8, calls.size());
+        assertBefore(calls, "stop web000000000", "stop app000000000");
+        assertBefore(calls, "stop app000000000", "stop db0000000000");
+        assertBefore(calls, "stop app000000000", "stop data00000000");
+        assertBefore(calls, "remove web000000000", "remove app000000000");
+        assertBefore(calls, "remove app000000000", "remove db0000000000");
+        assertBefore(calls, "remove app000000000", "remove data00000000");
+    }
+
+    private void assertBefore(List<String> calls, String first, String second) {
+        assertTrue(first + " before " + second + ": " + calls, calls.indexOf(first) < calls.indexOf(second));
+    }
+
+    private ImageConfiguration createImageConfig(String name, List<String> links, String ... volumesFrom) {
+        return new ImageConfiguration.Builder()
+                .name(name)
+                .runConfig(new RunImageConfiguration.Builder()
+                                   .links(links)
+                                   .volumes(new VolumeConfiguration.Builder()
+                                                    .from(Arrays.asList(volumesFrom))
+                                                    .build())
+                                   .build())
+                .build();
+    }
+
     private void putToPrivateMap(ContainerTracker tracker, String varName, String key, String value) throws NoSuchFieldException, IllegalAccessException {
         Field field = tracker.getClass().getDeclaredField(varName);
         field.setAccessible(true);
@@ -0,0 +1,74 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.jolokia.docker.maven.config.BuildImageConfiguration;
+import org.jolokia.docker.maven.config.ImageConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 24/10/15
+ */
+public class BuildOrderResolverTest {
+
+    @Test
+    public void baseImageFirst() throws MojoExecutionException {
+        ImageConfiguration app = image("app", "base:1.0");
+        ImageConfiguration other = image("other", "busybox");
+        ImageConfiguration base = image("base", "jolokia/java", "1.0");
+        ImageConfiguration top = image("top", "app:latest");
+
+        Map<ImageConfiguration, List<ImageConfiguration>> resolved =
+                BuildOrderResolver.resolve(Arrays.asList(top, app, other, base));
+
+        assertEquals(Arrays.asList(base, app, top, other), new ArrayList<>(resolved.keySet()));
+        assertEquals(Collections.singletonList(app), resolved.get(top));
+        assertEquals(Collections.singletonList(base), resolved.get(app));
+        assertTrue(resolved.get(base).isEmpty());
+        assertTrue(resolved.get(other).isEmpty());
+    }
+
+    @Test
+    public void noBaseImage() throws MojoExecutionException {
+        ImageConfiguration data = image("data", null);
+        ImageConfiguration app = image("app", "base");
+        Map<ImageConfiguration, List<ImageConfiguration>> resolved =
+                BuildOrderResolver.resolve(Arrays.asList(data, app));
+        assertEquals(Arrays.asList(data, app), new ArrayList<>(resolved.keySet()));
+        assertTrue(resolved.get(app).isEmpty());
+    }
+
+    @Test(expected = MojoExecutionException.class)
+    public void cyclic() throws MojoExecutionException {
+        BuildOrderResolver.resolve(Arrays.asList(image("a", "b"), image("b", "c"), image("c", "a")));
+    }
+
+    private ImageConfiguration image(String name, String from, String... tags) {
+        return new ImageConfiguration.Builder()
+                .name(name)
+                .buildConfig(new BuildImageConfiguration.Builder()
+                                     .from(from)
+                                     .tags(Arrays.asList(tags))
+                                     .build())
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package org.jolokia.docker.maven.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 20/10/15
+ */
+public class DependencyExecutorTest {
+
+    @Test
+    public void sequential() throws Exception {
+        final List<String> executed = new ArrayList<>();
+        new DependencyExecutor<String>(1, "test").execute(graph("a", "b", "c"), new DependencyExecutor.Task<String>() {
+            @Override
+            public void execute(String item) {
+                executed.add(item);
+            }
+        });
+        assertEquals(Arrays.asList("a", "b", "c"), executed);
+    }
+
+    @Test
+    public void dependenciesFinishFirst() throws Exception {
+        // c depends on a and b, d on c
+        Map<String, List<String>> graph = graph("a", "b");
+        graph.put("c", Arrays.asList("a", "b"));
+        graph.put("d", Arrays.asList("c"));
+
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+        new DependencyExecutor<String>(4, "test").execute(graph, new DependencyExecutor.Task<String>() {
+            @Override
+            public void execute(String item) {
+                WaitUtil.sleep(item.equals("a") ? 200 : 10);
+                executed.add(item);
+            }
+        });
+        assertEquals(4, executed.size());
+        assertTrue(executed.indexOf("c") > executed.indexOf("a"));
+        assertTrue(executed.indexOf("c") > executed.indexOf("b"));
+        assertEquals("d", executed.get(3));
+    }
+
+    @Test
+    public void independentRunConcurrently() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        new DependencyExecutor<String>(3, "test").execute(graph("a", "b", "c"), new DependencyExecutor.Task<String>() {
+            @Override
+            public void execute(String item) throws Exception {
+                latch.countDown();
+                // Would time out if the tasks were not running at the same time
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+            }
+        });
+    }
+
+    @Test
+    public void failureDrainsRunningTasks() throws Exception {
+        Map<String, List<String>> graph = graph("a", "b");
+        graph.put("c", Arrays.asList("a"));
+
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            new DependencyExecutor<String>(2, "test").execute(graph, new DependencyExecutor.Task<String>() {
+                @Override
+                public void execute(String item) throws Exception {
+                    if (item.equals("a")) {
+                        throw new IllegalArgumentException("failed " + item);
+                    }
+                    WaitUtil.sleep(200);
+                    executed.add(item);
+                }
+            });
+            fail();
+        } catch (ExecutionException exp) {
+            assertTrue(exp.getCause() instanceof IllegalArgumentException);
+        }
+        // b has been finished before returning, c has never been started
+        assertEquals(Arrays.asList("b"), executed);
+    }
+
+    @Test
+    public void interruptWaitsForRunningTasks() throws Exception {
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch started = new CountDownLatch(2);
+        final Thread caller = Thread.currentThread();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    started.await();
+                    caller.interrupt();
+                } catch (InterruptedException e) {
+                    // ...
+                }
+            }
+        }).start();
+        try {
+            new DependencyExecutor<String>(2, "test").execute(graph("a", "b"), new DependencyExecutor.Task<String>() {
+                @Override
+                public void execute(String item) {
+                    started.countDown();
+                    // Like a request which can't be interrupted
+                    long end = System.currentTimeMillis() + 300;
+                    while (System.currentTimeMillis() < end) {
+                        WaitUtil.sleep(10);
+                    }
+                    executed.add(item);
+                }
+            });
+            fail();
+        } catch (InterruptedException exp) {
+            // Both tasks are finished before the interrupt is handed through
+            assertEquals(2, executed.size());
+        }
+    }
+
+    private Map<String, List<String>> graph(String ... items) {
+        Map<String, List<String>> ret = new LinkedHashMap<>();
+        for (String item : items) {
+            ret.put(item, Collections.<String>emptyList());
+        }
+        return ret;
+    }
+}
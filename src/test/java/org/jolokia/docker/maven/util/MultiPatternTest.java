@@ -0,0 +1,99 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 02/11/15
+ */
+public class MultiPatternTest {
+
+    @Test
+    public void find() {
+        MultiPattern.Matcher matcher = MultiPattern.compile("OutOfMemoryError", "Bind(Exception)?", "started in \\d+ ms").matcher();
+        assertEquals(-1, matcher.find("Server starting"));
+        assertEquals(2, matcher.find("Server started in 123 ms"));
+        assertEquals(-1, matcher.find("Server started in a few ms"));
+        assertEquals(1, matcher.find("java.net.BindException: Address in use"));
+        assertEquals(0, matcher.find("OutOfMemoryError after BindException"));
+    }
+
+    @Test
+    public void findAll() {
+        MultiPattern.Matcher matcher = MultiPattern.compile("db ready", "http ready", "ready").matcher();
+        BitSet seen = new BitSet();
+        assertEquals(2, matcher.findAll("db ready", seen));
+        assertTrue(seen.get(0));
+        assertTrue(seen.get(2));
+        // Already seen patterns are not counted again
+        assertEquals(1, matcher.findAll("http ready", seen));
+        assertEquals(3, seen.cardinality());
+        assertEquals(0, matcher.findAll("db ready", seen));
+    }
+
+    @Test
+    public void empty() {
+        MultiPattern pattern = MultiPattern.compile(new ArrayList<String>());
+        assertEquals(0, pattern.size());
+        assertEquals(-1, pattern.matcher().find("text"));
+    }
+
+    @Test
+    public void sameResultsAsRegexps() {
+        String[] regexps = {
+            "abc", "ab+c", "abc?d", "a.c", "x*y", "(ab)+cd", "ab|cd", "[abc]+d", "a\\.b", "\\Qa.b\\E",
+            "b{0,2}cd", "ab{2}c", "\\x41\\u0042", "(?i)abc", "a(?i)bc", "\\d+:\\d+", "^abc$", "c\\bd", "ab(?=c)d?",
+            "\\tx", "a[]b]c", "a[^\\]]c", "\\w+@\\w+\\.com", "\\Qab\\E?c", "foo(bar|baz)qux", "", "\\1?x",
+            "a\\p{Lu}b", "\\0101b", "Error: .*refused"
+        };
+        String[] texts = {
+            "", "abc", "abbbc", "ac", "abd", "abcd", "a.c", "axc", "y", "xxy", "ababcd", "cd", "ddd", "bcd",
+            "bbbcd", "abbc", "ABc", "aBC", "AB", "12:30", " abc", "c d", "abcd", "\tx", "a]c", "abc", "a.b",
+            "me@example.com", "ac", "abc", "fooqux", "foobazqux", "aXb", "Ab", "Error: connection refused",
+            "prefix abc abbbc ab.c suffix"
+        };
+        MultiPattern multiPattern = MultiPattern.compile(regexps);
+        MultiPattern.Matcher matcher = multiPattern.matcher();
+        for (String text : texts) {
+            BitSet expected = new BitSet();
+            for (int i = 0; i < regexps.length; i++) {
+                if (Pattern.compile(regexps[i]).matcher(text).find()) {
+                    expected.set(i);
+                }
+            }
+            BitSet found = new BitSet();
+            matcher.findAll(text, found);
+            assertEquals("Text '" + text + "'", expected, found);
+            assertEquals("Text '" + text + "'", expected.nextSetBit(0), matcher.find(text));
+        }
+    }
+
+    @Test
+    public void overlappingLiterals() {
+        MultiPattern.Matcher matcher = MultiPattern.compile("she", "he", "hers", "his").matcher();
+        BitSet found = new BitSet();
+        assertEquals(3, matcher.findAll("ushers", found));
+        assertFalse(found.get(3));
+        assertEquals(3, matcher.find("this"));
+    }
+}
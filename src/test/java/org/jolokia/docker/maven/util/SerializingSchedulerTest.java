@@ -0,0 +1,131 @@
+package org.jolokia.docker.maven.util;/*
+ *
+ * Copyright 2015 Roland Huss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author roland
+ * @since 28/10/15
+ */
+public class SerializingSchedulerTest {
+
+    private SerializingScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new SerializingScheduler(2, "test");
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void differentGroupsRunConcurrently() throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        CountDownLatch passed = new CountDownLatch(2);
+        scheduler.scheduleAtFixedRate("a", new BarrierTask(barrier, passed), 60000);
+        scheduler.scheduleAtFixedRate("b", new BarrierTask(barrier, passed), 60000);
+        assertTrue(passed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sameGroupRunsSerialized() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch runs = new CountDownLatch(10);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                int current = running.incrementAndGet();
+                maxRunning.set(Math.max(maxRunning.get(), current));
+                sleep(5);
+                running.decrementAndGet();
+                runs.countDown();
+            }
+        };
+        scheduler.scheduleAtFixedRate("a", task, 1);
+        scheduler.scheduleAtFixedRate("a", task, 1);
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void triggersAreCoalesced() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        scheduler.scheduleAtFixedRate("a", new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 1);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Many triggers happen while the first run blocks
+        sleep(100);
+        int runsBefore = runs.get();
+        release.countDown();
+        sleep(20);
+        scheduler.shutdownNow();
+        assertEquals(1, runsBefore);
+        // Only a few runs afterwards, not one for every missed trigger
+        assertTrue(runs.get() < 50);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class BarrierTask implements Runnable {
+        private final CyclicBarrier barrier;
+        private final CountDownLatch passed;
+
+        private BarrierTask(CyclicBarrier barrier, CountDownLatch passed) {
+            this.barrier = barrier;
+            this.passed = passed;
+        }
+
+        @Override
+        public void run() {
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+                passed.countDown();
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                // Not passed
+            }
+        }
+    }
+}
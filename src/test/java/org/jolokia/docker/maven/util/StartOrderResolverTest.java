@@ -47,6 +47,21 @@ public class StartOrderResolverTest {
         fail();
     }
 
+    @Test
+    public void dependencyGraph() {
+        T t1 = new T("1", "2", "3");
+        T t2 = new T("2", "3");
+        T t3 = new T("3");
+        T t4 = new T("4", "3");
+        Map<Resolvable, List<Resolvable>> graph =
+                StartOrderResolver.resolveDependencyGraph(queryService, Arrays.<Resolvable>asList(t1, t2, t3, t4));
+        assertArrayEquals(new Object[] { t3, t2, t4, t1 }, graph.keySet().toArray());
+        assertEquals(Collections.emptyList(), graph.get(t3));
+        assertEquals(Arrays.asList(t3), graph.get(t2));
+        assertEquals(Arrays.asList(t3), graph.get(t4));
+        assertEquals(Arrays.asList(t2, t3), graph.get(t1));
+    }
+
     private void checkData(Object[][] data) {
         for (Object[] aData : data) {
             Resolvable[] input = (Resolvable[]) aData[0];
@@ -91,6 +91,29 @@ public class TimestampTest {
         new Timestamp(null);
     }
 
+    @Test
+    public void testOffset() throws Exception {
+        Timestamp ts = new Timestamp("2014-11-24T23:34:00.761764812+01:00");
+        assertEquals(ref, ts);
+        assertEquals(764812, ts.getNanos());
+    }
+
+    @Test
+    public void testParserRanges() throws Exception {
+        TimestampParser parser = new TimestampParser();
+        String line = "[2014-11-24T22:34:00.761764812Z] Hello";
+        assertTrue(parser.parse(line.toCharArray(), 1, 31));
+        assertEquals(ref.getEpochMillis(), parser.getEpochMillis());
+        assertEquals(ref.getNanos(), parser.getNanos());
+
+        assertTrue(parser.parse(line.getBytes("US-ASCII"), 1, 31));
+        assertEquals(ref.getEpochMillis(), parser.getEpochMillis());
+
+        assertFalse(parser.parse(line, 0, 31));
+        assertFalse(parser.parse(line, 1, 30));
+        assertFalse(parser.parse("2014-13-24T22:34:00Z", 0, 20));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testInvalidNanos() throws Exception {
         Timestamp ts = new Timestamp("2014-11-24T12:00:00.abzeZ");
@@ -22,13 +22,13 @@ public class WaitUtilTest {
     static String httpPingUrl;
 
     @Test(expected = TimeoutException.class)
-    public void httpFail() throws TimeoutException {
+    public void httpFail() throws Exception {
         WaitUtil.HttpPingChecker checker = new WaitUtil.HttpPingChecker(httpPingUrl);
         long waited = WaitUtil.wait(500,checker);
     }
 
     @Test
-    public void httpSuccess() throws TimeoutException {
+    public void httpSuccess() throws Exception {
         server.start();
         System.out.println("Check URL " + httpPingUrl);
 
@@ -41,7 +41,61 @@ public class WaitUtilTest {
         server.stop(10);
     }
 
-      @BeforeClass
+    @Test
+    public void signaledImmediately() throws Exception {
+        DelayedChecker checker = new DelayedChecker(50, null);
+        long waited = WaitUtil.wait(5000, checker);
+        assertTrue("Waited too long: " + waited, waited < 1000);
+        assertTrue(checker.cleanedUp);
+    }
+
+    @Test
+    public void failFast() throws Exception {
+        long start = System.currentTimeMillis();
+        try {
+            WaitUtil.wait(5000, new DelayedChecker(3000, null), new DelayedChecker(50, "Container died"));
+            fail("Failure expected");
+        } catch (WaitUtil.WaitFailedException exp) {
+            assertEquals("Container died", exp.getMessage());
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+    }
+
+    // Completes the future from another thread after a delay
+    private static class DelayedChecker implements WaitUtil.WaitChecker {
+        private final long delay;
+        private final String failure;
+        private volatile boolean cleanedUp;
+
+        private DelayedChecker(long delay, String failure) {
+            this.delay = delay;
+            this.failure = failure;
+        }
+
+        @Override
+        public void start(final WaitFuture future) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    WaitUtil.sleep(delay);
+                    if (failure != null) {
+                        future.fail(failure);
+                    } else {
+                        future.succeed();
+                    }
+                }
+            };
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void cleanUp() {
+            cleanedUp = true;
+        }
+    }
+
+    @BeforeClass
     public static void createServer() throws IOException {
         port = getRandomPort();
         System.out.println("Created .... " + port);